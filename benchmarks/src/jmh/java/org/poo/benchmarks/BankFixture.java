@@ -0,0 +1,206 @@
+package org.poo.benchmarks;
+
+import org.poo.commands.AccountFactory;
+import org.poo.entities.Account;
+import org.poo.entities.Card;
+import org.poo.entities.Transactions;
+import org.poo.entities.User;
+import org.poo.entities.ValutarCourse;
+import org.poo.storage.BankIndex;
+import org.poo.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A seeded bank for the benchmarks: users with a few accounts each, one card per account,
+ * a short history per account and a chain of exchange rates that makes most conversions
+ * take several hops. The same seed always builds the same bank.
+ *
+ * <p>Building a bank resets the process-wide index and identifier generators, so only
+ * one fixture is live at a time.
+ */
+final class BankFixture {
+
+    /**
+     * Currencies of the accounts, in exchange-rate chain order.
+     */
+    static final String[] CURRENCIES = {"RON", "EUR", "USD", "GBP", "CAD", "JPY"};
+
+    /**
+     * Number of accounts per user.
+     */
+    private static final int ACCOUNTS_PER_USER = 4;
+
+    /**
+     * Number of transactions seeded per account.
+     */
+    private static final int HISTORY_PER_ACCOUNT = 4;
+
+    /**
+     * Rates between consecutive currencies of {@link #CURRENCIES}.
+     */
+    private static final double[] CHAIN_RATES = {0.2, 1.1, 0.8, 1.7, 110.0};
+
+    /**
+     * Opening balance of every account.
+     */
+    private static final double OPENING_BALANCE = 1_000_000;
+
+    /**
+     * Commerciants of the seeded payments.
+     */
+    private static final String[] COMMERCIANTS = {"Shop", "Fuel", "Books", "Cinema"};
+
+    /**
+     * The users.
+     */
+    private final List<User> users;
+
+    /**
+     * The exchange rates.
+     */
+    private final ArrayList<ValutarCourse> exchangeRates;
+
+    /**
+     * IBAN of every account, by account number.
+     */
+    private final String[] ibans;
+
+    /**
+     * Card number of every account, by account number.
+     */
+    private final String[] cardNumbers;
+
+    /**
+     * Email of the owner of every account, by account number.
+     */
+    private final String[] owners;
+
+    /**
+     * Builds a bank.
+     *
+     * @param accounts the number of accounts
+     * @param seed     the seed of the balances, currencies and histories
+     */
+    BankFixture(final int accounts, final long seed) {
+        BankIndex.reset();
+        Utils.resetRandom();
+        Random random = new Random(seed);
+
+        exchangeRates = new ArrayList<>();
+        for (int i = 0; i < CHAIN_RATES.length; i++) {
+            exchangeRates.add(new ValutarCourse(CURRENCIES[i], CURRENCIES[i + 1],
+                    CHAIN_RATES[i]));
+        }
+
+        users = new ArrayList<>();
+        ibans = new String[accounts];
+        cardNumbers = new String[accounts];
+        owners = new String[accounts];
+        User user = null;
+        for (int i = 0; i < accounts; i++) {
+            if (i % ACCOUNTS_PER_USER == 0) {
+                int number = i / ACCOUNTS_PER_USER;
+                user = new User("user" + number + "@bank.test", "First" + number,
+                        "Last" + number);
+                users.add(user);
+                BankIndex.current().addUser(user);
+            }
+
+            Account account = AccountFactory.createAccount("classic",
+                    CURRENCIES[random.nextInt(CURRENCIES.length)], 0);
+            account.setBalance(OPENING_BALANCE);
+            user.addAccount(account);
+            Card card = new Card(Utils.generateCardNumber(), "active");
+            account.addCard(card);
+
+            for (int t = 0; t < HISTORY_PER_ACCOUNT; t++) {
+                Transactions payment = new Transactions("payOnline", "Card payment",
+                        random.nextInt(100) + 1, null, null, t + 1, null,
+                        card.getCardNumber(), null,
+                        COMMERCIANTS[random.nextInt(COMMERCIANTS.length)], null);
+                payment.setCurrency(account.getCurrency());
+                account.getTransactions().add(payment);
+            }
+
+            ibans[i] = account.getIban();
+            cardNumbers[i] = card.getCardNumber();
+            owners[i] = user.getEmail();
+        }
+    }
+
+    /**
+     * Returns the users.
+     *
+     * @return the users
+     */
+    List<User> users() {
+        return users;
+    }
+
+    /**
+     * Returns the exchange rates.
+     *
+     * @return the exchange rates
+     */
+    ArrayList<ValutarCourse> exchangeRates() {
+        return exchangeRates;
+    }
+
+    /**
+     * Returns the number of accounts.
+     *
+     * @return the account count
+     */
+    int accountCount() {
+        return ibans.length;
+    }
+
+    /**
+     * Returns the IBAN of an account.
+     *
+     * @param account the account number
+     * @return the IBAN
+     */
+    String iban(final int account) {
+        return ibans[account];
+    }
+
+    /**
+     * Returns the card number of an account.
+     *
+     * @param account the account number
+     * @return the card number
+     */
+    String cardNumber(final int account) {
+        return cardNumbers[account];
+    }
+
+    /**
+     * Returns the email of the owner of an account.
+     *
+     * @param account the account number
+     * @return the email
+     */
+    String owner(final int account) {
+        return owners[account];
+    }
+
+    /**
+     * Returns a stream of account numbers picked uniformly, to cycle through.
+     *
+     * @param count the number of picks
+     * @param seed  the seed
+     * @return the account numbers
+     */
+    int[] picks(final int count, final long seed) {
+        Random random = new Random(seed);
+        int[] picks = new int[count];
+        for (int i = 0; i < count; i++) {
+            picks[i] = random.nextInt(ibans.length);
+        }
+        return picks;
+    }
+}
@@ -0,0 +1,163 @@
+package org.poo.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.poo.fileio.CommandInput;
+import org.poo.protocol.CommandDecoder;
+import org.poo.protocol.CommandEncoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the decode throughput of the binary command encoding with the Jackson path
+ * used for the JSON input files, over the same mix of commands.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandDecodeBenchmark {
+
+    /**
+     * Number of commands decoded per invocation.
+     */
+    private static final int COMMANDS = 10_000;
+
+    /**
+     * Number of commands per binary frame.
+     */
+    private static final int COMMANDS_PER_FRAME = 512;
+
+    /**
+     * The mapper used on the Jackson path.
+     */
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * The commands as a JSON array.
+     */
+    private byte[] json;
+
+    /**
+     * The commands as binary frames.
+     */
+    private byte[] binary;
+
+    /**
+     * Builds a reproducible command mix and encodes it both ways.
+     *
+     * @throws IOException if encoding fails
+     */
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(1);
+        List<String> ibans = new ArrayList<>();
+        List<String> cards = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ibans.add(String.format("RO%02dPOOB%016d", random.nextInt(100),
+                    Math.floorMod(random.nextLong(), 10_000_000_000_000_000L)));
+            cards.add(String.format("%016d",
+                    Math.floorMod(random.nextLong(), 10_000_000_000_000_000L)));
+        }
+        String[] currencies = {"RON", "EUR", "USD", "GBP"};
+        String[] merchants = {"Zara", "Amazon", "Lidl", "Emag", "Starbucks"};
+
+        List<CommandInput> commands = new ArrayList<>();
+        for (int i = 0; i < COMMANDS; i++) {
+            CommandInput input = new CommandInput();
+            input.setTimestamp(i + 1);
+            switch (i % 4) {
+                case 0 -> {
+                    input.setCommand("payOnline");
+                    input.setEmail("user" + random.nextInt(500) + "@bank.ro");
+                    input.setCardNumber(cards.get(random.nextInt(cards.size())));
+                    input.setAmount(random.nextInt(100_000) / 100.0);
+                    input.setCurrency(currencies[random.nextInt(currencies.length)]);
+                    input.setDescription("Online purchase");
+                    input.setCommerciant(merchants[random.nextInt(merchants.length)]);
+                }
+                case 1 -> {
+                    input.setCommand("sendMoney");
+                    input.setAccount(ibans.get(random.nextInt(ibans.size())));
+                    input.setReceiver(ibans.get(random.nextInt(ibans.size())));
+                    input.setAmount(random.nextInt(100_000) / 100.0);
+                    input.setDescription("Transfer");
+                }
+                case 2 -> {
+                    input.setCommand("addFunds");
+                    input.setAccount(ibans.get(random.nextInt(ibans.size())));
+                    input.setAmount(random.nextInt(100_000) / 100.0);
+                }
+                default -> {
+                    input.setCommand("report");
+                    input.setAccount(ibans.get(random.nextInt(ibans.size())));
+                    input.setStartTimestamp(random.nextInt(i + 1));
+                    input.setEndTimestamp(i + 1);
+                }
+            }
+            commands.add(input);
+        }
+
+        json = objectMapper.writeValueAsBytes(commands);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CommandEncoder encoder = new CommandEncoder();
+        for (CommandInput input : commands) {
+            encoder.encode(input);
+            if (encoder.pendingCommands() == COMMANDS_PER_FRAME) {
+                encoder.writeFrame(out);
+            }
+        }
+        encoder.writeFrame(out);
+        binary = out.toByteArray();
+    }
+
+    /**
+     * Decodes the commands with Jackson.
+     *
+     * @return the decoded commands
+     * @throws IOException if decoding fails
+     */
+    @Benchmark
+    @OperationsPerInvocation(COMMANDS)
+    public CommandInput[] jackson() throws IOException {
+        return objectMapper.readValue(json, CommandInput[].class);
+    }
+
+    /**
+     * Decodes the commands from binary frames.
+     *
+     * @return the decoded commands
+     * @throws IOException if decoding fails
+     */
+    @Benchmark
+    @OperationsPerInvocation(COMMANDS)
+    public List<CommandInput> binary() throws IOException {
+        CommandDecoder decoder = new CommandDecoder();
+        ByteArrayInputStream in = new ByteArrayInputStream(binary);
+        List<CommandInput> commands = new ArrayList<>(COMMANDS);
+        for (List<CommandInput> frame = decoder.readFrame(in); frame != null;
+             frame = decoder.readFrame(in)) {
+            commands.addAll(frame);
+        }
+        return commands;
+    }
+}
@@ -0,0 +1,207 @@
+package org.poo.benchmarks;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.poo.commands.PayOnline;
+import org.poo.commands.PrintTransactions;
+import org.poo.commands.PrintUsers;
+import org.poo.commands.Report;
+import org.poo.commands.SendMoney;
+import org.poo.commands.SpendingsReport;
+import org.poo.commands.SplitPayment;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code execute()} of the commands on the request hot paths against seeded
+ * banks of 1k, 100k and 1M accounts. Every benchmark method gets a freshly built bank;
+ * commands that change it (payments, transfers, splits) keep appending to the
+ * histories for the length of the run, as a live bank would.
+ *
+ * <p>The accounts each invocation touches are drawn from a fixed uniform sequence, so
+ * runs are comparable. The 1M case needs a heap of a few gigabytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class CommandExecutionBenchmark {
+
+    /**
+     * Length of the sequence of picked accounts.
+     */
+    private static final int PICKS = 1 << 16;
+
+    /**
+     * Seed of the bank.
+     */
+    private static final long BANK_SEED = 42;
+
+    /**
+     * Seed of the picked accounts.
+     */
+    private static final long PICK_SEED = 7;
+
+    /**
+     * Number of accounts of the bank.
+     */
+    @Param({"1000", "100000", "1000000"})
+    private int accounts;
+
+    /**
+     * The bank.
+     */
+    private BankFixture bank;
+
+    /**
+     * Account numbers to cycle through.
+     */
+    private int[] picks;
+
+    /**
+     * Position in {@link #picks}.
+     */
+    private int next;
+
+    /**
+     * Timestamp of the next command.
+     */
+    private int timestamp;
+
+    /**
+     * Builds the bank.
+     */
+    @Setup
+    public void setUp() {
+        bank = new BankFixture(accounts, BANK_SEED);
+        picks = bank.picks(PICKS, PICK_SEED);
+        next = 0;
+        timestamp = 1_000;
+    }
+
+    /**
+     * Pays online with the card of an account.
+     *
+     * @return the command output
+     */
+    @Benchmark
+    public ArrayNode payOnline() {
+        int account = pick();
+        ArrayNode output = newOutput();
+        new PayOnline(bank.owner(account), bank.cardNumber(account), 1.0, "EUR",
+                timestamp++, "Card payment", "Shop", bank.exchangeRates())
+                .execute(bank.users(), output);
+        return output;
+    }
+
+    /**
+     * Transfers money between two accounts.
+     *
+     * @return the command output
+     */
+    @Benchmark
+    public ArrayNode sendMoney() {
+        ArrayNode output = newOutput();
+        new SendMoney(bank.iban(pick()), 1.0, bank.iban(pick()), timestamp++, "Transfer",
+                bank.exchangeRates()).execute(bank.users(), output);
+        return output;
+    }
+
+    /**
+     * Splits a payment over three accounts.
+     *
+     * @return the command output
+     */
+    @Benchmark
+    public ArrayNode splitPayment() {
+        ArrayNode output = newOutput();
+        new SplitPayment(List.of(bank.iban(pick()), bank.iban(pick()), bank.iban(pick())),
+                3.0, "EUR", timestamp++, bank.exchangeRates()).execute(bank.users(), output);
+        return output;
+    }
+
+    /**
+     * Reports the history of an account.
+     *
+     * @return the command output
+     */
+    @Benchmark
+    public ArrayNode report() {
+        ArrayNode output = newOutput();
+        new Report(0, Integer.MAX_VALUE, bank.iban(pick()), timestamp++, bank.exchangeRates())
+                .execute(bank.users(), output);
+        return output;
+    }
+
+    /**
+     * Reports the card spendings of an account.
+     *
+     * @return the command output
+     */
+    @Benchmark
+    public ArrayNode spendingsReport() {
+        ArrayNode output = newOutput();
+        new SpendingsReport(0, Integer.MAX_VALUE, bank.iban(pick()), timestamp++)
+                .execute(bank.users(), output);
+        return output;
+    }
+
+    /**
+     * Prints the transactions of a user.
+     *
+     * @return the command output
+     */
+    @Benchmark
+    public ArrayNode printTransactions() {
+        ArrayNode output = newOutput();
+        new PrintTransactions(bank.owner(pick()), timestamp++, bank.exchangeRates())
+                .execute(bank.users(), output);
+        return output;
+    }
+
+    /**
+     * Prints every user of the bank.
+     *
+     * @return the command output
+     */
+    @Benchmark
+    public ArrayNode printUsers() {
+        ArrayNode output = newOutput();
+        new PrintUsers(timestamp++).execute(bank.users(), output);
+        return output;
+    }
+
+    /**
+     * Returns the next picked account.
+     *
+     * @return the account number
+     */
+    private int pick() {
+        int account = picks[next];
+        next = (next + 1) & (PICKS - 1);
+        return account;
+    }
+
+    /**
+     * Creates an empty command output.
+     *
+     * @return the output
+     */
+    private static ArrayNode newOutput() {
+        return JsonNodeFactory.instance.arrayNode();
+    }
+}
@@ -0,0 +1,90 @@
+package org.poo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.poo.commands.CommandFactory;
+import org.poo.entities.ValutarCourse;
+import org.poo.fileio.CommandInput;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link CommandFactory#getCommand} over a mix of every command name, so that
+ * the whole string switch is exercised.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandFactoryBenchmark {
+
+    /**
+     * The command names, in the order of the factory switch.
+     */
+    private static final String[] COMMANDS = {
+        "printUsers", "addAccount", "createCard", "addFunds", "deleteAccount",
+        "createOneTimeCard", "deleteCard", "payOnline", "printTransactions", "setAlias",
+        "sendMoney", "checkCardStatus", "setMinimumBalance", "changeInterestRate",
+        "addInterest", "splitPayment", "report", "spendingsReport", "withdrawSavings",
+        "upgradePlan", "cashWithdrawal",
+    };
+
+    /**
+     * The exchange rates handed to the factory.
+     */
+    private ArrayList<ValutarCourse> exchangeRates;
+
+    /**
+     * One input per command name.
+     */
+    private CommandInput[] inputs;
+
+    /**
+     * Builds the inputs.
+     */
+    @Setup
+    public void setUp() {
+        exchangeRates = new BankFixture(0, 1).exchangeRates();
+        inputs = new CommandInput[COMMANDS.length];
+        for (int i = 0; i < COMMANDS.length; i++) {
+            CommandInput input = new CommandInput();
+            input.setCommand(COMMANDS[i]);
+            input.setEmail("user0@bank.test");
+            input.setAccount("RO00POOB0000000000000000");
+            input.setCardNumber("0000000000000000");
+            input.setCurrency("EUR");
+            input.setAmount(10);
+            input.setAccounts(List.of("RO00POOB0000000000000000"));
+            input.setTimestamp(i + 1);
+            inputs[i] = input;
+        }
+    }
+
+    /**
+     * Creates one command of every kind; the operation count is the length of
+     * {@link #COMMANDS}.
+     *
+     * @param blackhole consumes the commands
+     */
+    @Benchmark
+    @OperationsPerInvocation(21)
+    public void getCommand(final Blackhole blackhole) {
+        for (CommandInput input : inputs) {
+            blackhole.consume(CommandFactory.getCommand(input, exchangeRates));
+        }
+    }
+}
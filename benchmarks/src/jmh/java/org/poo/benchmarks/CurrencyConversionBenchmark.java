@@ -0,0 +1,73 @@
+package org.poo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.poo.entities.ValutarCourse;
+import org.poo.utils.Pair;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Pair#convertCurrency} between currencies zero, one and five hops apart
+ * on the exchange-rate chain of {@link BankFixture}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CurrencyConversionBenchmark {
+
+    /**
+     * Source and target currency, separated by a colon.
+     */
+    @Param({"EUR:EUR", "RON:EUR", "RON:JPY"})
+    private String route;
+
+    /**
+     * The exchange rates.
+     */
+    private ArrayList<ValutarCourse> exchangeRates;
+
+    /**
+     * The source currency.
+     */
+    private String from;
+
+    /**
+     * The target currency.
+     */
+    private String to;
+
+    /**
+     * Builds the exchange rates.
+     */
+    @Setup
+    public void setUp() {
+        exchangeRates = new BankFixture(0, 1).exchangeRates();
+        String[] currencies = route.split(":");
+        from = currencies[0];
+        to = currencies[1];
+    }
+
+    /**
+     * Converts an amount.
+     *
+     * @return the converted amount
+     */
+    @Benchmark
+    public double convert() {
+        return Pair.convertCurrency(100, from, to, exchangeRates);
+    }
+}
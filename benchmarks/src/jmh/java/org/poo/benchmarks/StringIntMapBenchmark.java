@@ -0,0 +1,176 @@
+package org.poo.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.poo.storage.StringIntMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link StringIntMap} with a {@code HashMap<String, Integer>} for IBAN keys:
+ * hits, misses and delete/re-insert churn, at 10k, 1M and 10M keys. The 10M case needs a
+ * heap of a few gigabytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class StringIntMapBenchmark {
+
+    /**
+     * Number of keys looked up per invocation.
+     */
+    private static final int LOOKUPS = 1024;
+
+    /**
+     * Number of keys in the maps.
+     */
+    @Param({"10000", "1000000", "10000000"})
+    private int size;
+
+    /**
+     * The open-addressing map.
+     */
+    private StringIntMap openMap;
+
+    /**
+     * The JDK map.
+     */
+    private Map<String, Integer> hashMap;
+
+    /**
+     * Copies of present keys, so lookups compare distinct string instances.
+     */
+    private String[] hits;
+
+    /**
+     * Keys absent from the maps.
+     */
+    private String[] misses;
+
+    /**
+     * Fills both maps with the same IBANs.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(1);
+        String[] keys = new String[size];
+        openMap = new StringIntMap();
+        hashMap = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            keys[i] = iban(random);
+            openMap.put(keys[i], i);
+            hashMap.put(keys[i], i);
+        }
+
+        hits = new String[LOOKUPS];
+        misses = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            hits[i] = new String(keys[random.nextInt(size)]);
+            misses[i] = "XX" + iban(random).substring(2);
+        }
+    }
+
+    /**
+     * Looks up present keys in the open-addressing map.
+     *
+     * @param blackhole sink for the values
+     */
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void hitStringIntMap(final Blackhole blackhole) {
+        for (String key : hits) {
+            blackhole.consume(openMap.get(key));
+        }
+    }
+
+    /**
+     * Looks up present keys in the JDK map.
+     *
+     * @param blackhole sink for the values
+     */
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void hitHashMap(final Blackhole blackhole) {
+        for (String key : hits) {
+            blackhole.consume(hashMap.get(key));
+        }
+    }
+
+    /**
+     * Looks up absent keys in the open-addressing map.
+     *
+     * @param blackhole sink for the values
+     */
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void missStringIntMap(final Blackhole blackhole) {
+        for (String key : misses) {
+            blackhole.consume(openMap.get(key));
+        }
+    }
+
+    /**
+     * Looks up absent keys in the JDK map.
+     *
+     * @param blackhole sink for the values
+     */
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void missHashMap(final Blackhole blackhole) {
+        for (String key : misses) {
+            blackhole.consume(hashMap.get(key));
+        }
+    }
+
+    /**
+     * Deletes and re-inserts present keys in the open-addressing map, as closing and
+     * reopening accounts does.
+     */
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void churnStringIntMap() {
+        for (String key : hits) {
+            openMap.put(key, openMap.remove(key));
+        }
+    }
+
+    /**
+     * Deletes and re-inserts present keys in the JDK map.
+     */
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void churnHashMap() {
+        for (String key : hits) {
+            hashMap.put(key, hashMap.remove(key));
+        }
+    }
+
+    /**
+     * Generates an IBAN shaped like the ones the bank hands out.
+     *
+     * @param random the source of digits
+     * @return the IBAN
+     */
+    private static String iban(final Random random) {
+        return String.format("RO%02dPOOB%016d", random.nextInt(100),
+                Math.floorMod(random.nextLong(), 10_000_000_000_000_000L));
+    }
+}
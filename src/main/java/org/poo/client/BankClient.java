@@ -0,0 +1,493 @@
+package org.poo.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.poo.fileio.CommandInput;
+import org.poo.protocol.BinaryFormat;
+import org.poo.protocol.CommandEncoder;
+import org.poo.server.BankServer;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Client for a {@link BankServer}, speaking the binary protocol. Commands are pipelined:
+ * {@link #submit(CommandInput)} returns at once and the command is sent, together with
+ * the ones submitted around it, in a single frame. A frame leaves when it holds
+ * {@code batchSize} commands or when its first command has waited {@code linger}, so a
+ * larger batch or linger trades latency for throughput. Since the server answers the
+ * commands of a connection in order, replies are matched to their futures in order.
+ */
+public final class BankClient implements AutoCloseable {
+
+    /**
+     * The connection to the server.
+     */
+    private final SocketChannel channel;
+
+    /**
+     * The connection output.
+     */
+    private final OutputStream out;
+
+    /**
+     * The connection input.
+     */
+    private final InputStream in;
+
+    /**
+     * The number of commands that triggers sending a frame.
+     */
+    private final int batchSize;
+
+    /**
+     * How long a command may wait for its frame to fill up, in nanoseconds.
+     */
+    private final long lingerNanos;
+
+    /**
+     * Encodes the pending frame; guarded by {@link #lock}.
+     */
+    private final CommandEncoder encoder = new CommandEncoder();
+
+    /**
+     * Futures of the commands sent or pending, in submission order.
+     */
+    private final Queue<CompletableFuture<ArrayNode>> inFlight = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Guards the encoder and the batching state.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Signalled when the pending frame gets its first command, fills up or the client
+     * closes.
+     */
+    private final Condition batchChanged = lock.newCondition();
+
+    /**
+     * The mapper parsing the replies.
+     */
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Sends the frames.
+     */
+    private final Thread writer;
+
+    /**
+     * Reads the replies.
+     */
+    private final Thread reader;
+
+    /**
+     * When the first command of the pending frame was submitted.
+     */
+    private long firstPendingNanos;
+
+    /**
+     * Whether the client was closed, or failed; guarded by {@link #lock}.
+     */
+    private boolean closed;
+
+    /**
+     * Why the connection failed while the client was open, null if it did not; guarded
+     * by {@link #lock}.
+     */
+    private IOException failure;
+
+    /**
+     * Connects to a server.
+     *
+     * @param address   the server address, TCP or Unix-domain
+     * @param batchSize the number of commands that triggers sending a frame
+     * @param linger    how long a command may wait for its frame to fill up
+     * @throws IOException if the connection cannot be opened
+     */
+    public BankClient(final SocketAddress address, final int batchSize, final Duration linger)
+            throws IOException {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        this.lingerNanos = linger.toNanos();
+
+        channel = address instanceof UnixDomainSocketAddress
+                ? SocketChannel.open(StandardProtocolFamily.UNIX)
+                : SocketChannel.open();
+        channel.connect(address);
+        out = Channels.newOutputStream(channel);
+        in = new BufferedInputStream(Channels.newInputStream(channel));
+        out.write(BinaryFormat.MAGIC);
+
+        writer = Thread.ofVirtual().name("bank-client-writer").start(this::writeLoop);
+        reader = Thread.ofVirtual().name("bank-client-reader").start(this::readLoop);
+    }
+
+    /**
+     * Connects to a server given as a port number or a Unix-domain socket path.
+     *
+     * @param address   the server address
+     * @param batchSize the number of commands that triggers sending a frame
+     * @param linger    how long a command may wait for its frame to fill up
+     * @return the client
+     * @throws IOException if the connection cannot be opened
+     */
+    public static BankClient connect(final String address, final int batchSize,
+                                     final Duration linger) throws IOException {
+        return new BankClient(BankServer.parseAddress(address), batchSize, linger);
+    }
+
+    /**
+     * Queues a command for sending.
+     *
+     * @param command the command, with the field names of the input files
+     * @return a future completed with the outputs of the command
+     */
+    public CompletableFuture<ArrayNode> submit(final CommandInput command) {
+        CompletableFuture<ArrayNode> future = new CompletableFuture<>();
+        lock.lock();
+        try {
+            if (closed) {
+                future.completeExceptionally(
+                        failure != null ? failure : new IOException("Client closed"));
+                return future;
+            }
+            encoder.encode(command);
+            inFlight.add(future);
+            if (encoder.pendingCommands() == 1) {
+                firstPendingNanos = System.nanoTime();
+                batchChanged.signal();
+            } else if (encoder.pendingCommands() >= batchSize) {
+                batchChanged.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return future;
+    }
+
+    /**
+     * Pays online with a card.
+     *
+     * @param email       the email of the card owner
+     * @param cardNumber  the card number
+     * @param amount      the amount to pay
+     * @param currency    the currency of the amount
+     * @param timestamp   the timestamp of the payment
+     * @param description the description of the payment
+     * @param commerciant the merchant
+     * @return a future completed with the outputs of the command
+     */
+    public CompletableFuture<ArrayNode> payOnline(final String email, final String cardNumber,
+                                                  final double amount, final String currency,
+                                                  final int timestamp,
+                                                  final String description,
+                                                  final String commerciant) {
+        CommandInput command = command("payOnline", timestamp);
+        command.setEmail(email);
+        command.setCardNumber(cardNumber);
+        command.setAmount(amount);
+        command.setCurrency(currency);
+        command.setDescription(description);
+        command.setCommerciant(commerciant);
+        return submit(command);
+    }
+
+    /**
+     * Transfers money between accounts.
+     *
+     * @param account     the IBAN of the sender
+     * @param receiver    the IBAN of the receiver
+     * @param amount      the amount to transfer
+     * @param timestamp   the timestamp of the transfer
+     * @param description the description of the transfer
+     * @return a future completed with the outputs of the command
+     */
+    public CompletableFuture<ArrayNode> sendMoney(final String account, final String receiver,
+                                                  final double amount, final int timestamp,
+                                                  final String description) {
+        CommandInput command = command("sendMoney", timestamp);
+        command.setAccount(account);
+        command.setReceiver(receiver);
+        command.setAmount(amount);
+        command.setDescription(description);
+        return submit(command);
+    }
+
+    /**
+     * Adds funds to an account.
+     *
+     * @param account   the IBAN of the account
+     * @param amount    the amount to add
+     * @param timestamp the timestamp of the deposit
+     * @return a future completed with the outputs of the command
+     */
+    public CompletableFuture<ArrayNode> addFunds(final String account, final double amount,
+                                                 final int timestamp) {
+        CommandInput command = command("addFunds", timestamp);
+        command.setAccount(account);
+        command.setAmount(amount);
+        return submit(command);
+    }
+
+    /**
+     * Splits a payment between accounts.
+     *
+     * @param accounts  the IBANs of the accounts
+     * @param amount    the total amount
+     * @param currency  the currency of the amount
+     * @param timestamp the timestamp of the payment
+     * @return a future completed with the outputs of the command
+     */
+    public CompletableFuture<ArrayNode> splitPayment(final List<String> accounts,
+                                                     final double amount,
+                                                     final String currency,
+                                                     final int timestamp) {
+        CommandInput command = command("splitPayment", timestamp);
+        command.setAccounts(accounts);
+        command.setAmount(amount);
+        command.setCurrency(currency);
+        return submit(command);
+    }
+
+    /**
+     * Reports the transactions of an account within a time range.
+     *
+     * @param account        the IBAN of the account
+     * @param startTimestamp the start of the range
+     * @param endTimestamp   the end of the range
+     * @param timestamp      the timestamp of the command
+     * @return a future completed with the outputs of the command
+     */
+    public CompletableFuture<ArrayNode> report(final String account, final int startTimestamp,
+                                               final int endTimestamp, final int timestamp) {
+        CommandInput command = command("report", timestamp);
+        command.setAccount(account);
+        command.setStartTimestamp(startTimestamp);
+        command.setEndTimestamp(endTimestamp);
+        return submit(command);
+    }
+
+    /**
+     * Sums the activity of an account between two timestamps.
+     *
+     * @param account        the IBAN of the account
+     * @param startTimestamp the start of the window, inclusive
+     * @param endTimestamp   the end of the window, inclusive
+     * @param timestamp      the timestamp of the command
+     * @return a future completed with the outputs of the command
+     */
+    public CompletableFuture<ArrayNode> activitySummary(final String account,
+                                                        final int startTimestamp,
+                                                        final int endTimestamp,
+                                                        final int timestamp) {
+        CommandInput command = command("activitySummary", timestamp);
+        command.setAccount(account);
+        command.setStartTimestamp(startTimestamp);
+        command.setEndTimestamp(endTimestamp);
+        return submit(command);
+    }
+
+    /**
+     * Prints a page of the transaction history of a user.
+     *
+     * @param email     the email of the user
+     * @param pageSize  the number of transactions per page, 0 for the server default
+     * @param cursor    the {@code nextCursor} of the previous page, null for the first
+     * @param timestamp the timestamp of the command
+     * @return a future completed with the outputs of the command
+     */
+    public CompletableFuture<ArrayNode> printTransactionsPage(final String email,
+                                                              final int pageSize,
+                                                              final String cursor,
+                                                              final int timestamp) {
+        CommandInput command = command("printTransactionsPage", timestamp);
+        command.setEmail(email);
+        command.setPageSize(pageSize);
+        command.setCursor(cursor);
+        return submit(command);
+    }
+
+    /**
+     * Prints the users of the bank.
+     *
+     * @param timestamp the timestamp of the command
+     * @return a future completed with the outputs of the command
+     */
+    public CompletableFuture<ArrayNode> printUsers(final int timestamp) {
+        return submit(command("printUsers", timestamp));
+    }
+
+    /**
+     * Sends the pending commands without waiting for the batch to fill up.
+     */
+    public void flush() {
+        lock.lock();
+        try {
+            firstPendingNanos = System.nanoTime() - lingerNanos;
+            batchChanged.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sends the pending commands, waits for their replies and closes the connection.
+     *
+     * @throws IOException if the connection cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            batchChanged.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            writer.join();
+            reader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            channel.close();
+            fail(new IOException("Client closed"));
+        }
+    }
+
+    /**
+     * Creates a command carrying its name and timestamp.
+     *
+     * @param name      the command name
+     * @param timestamp the command timestamp
+     * @return the command
+     */
+    private static CommandInput command(final String name, final int timestamp) {
+        CommandInput command = new CommandInput();
+        command.setCommand(name);
+        command.setTimestamp(timestamp);
+        return command;
+    }
+
+    /**
+     * Sends a frame whenever the pending one is full or has lingered long enough. If
+     * sending fails, the client fails with the cause.
+     */
+    private void writeLoop() {
+        IOException cause = new IOException("Client writer stopped");
+        try {
+            while (true) {
+                byte[] frame;
+                lock.lock();
+                try {
+                    while (!closed && encoder.pendingCommands() == 0) {
+                        batchChanged.await();
+                    }
+                    while (!closed && encoder.pendingCommands() < batchSize) {
+                        long wait = firstPendingNanos + lingerNanos - System.nanoTime();
+                        if (wait <= 0) {
+                            break;
+                        }
+                        batchChanged.await(wait, TimeUnit.NANOSECONDS);
+                    }
+                    if (failure != null || encoder.pendingCommands() == 0) {
+                        break;
+                    }
+                    frame = encoder.toFrame();
+                } finally {
+                    lock.unlock();
+                }
+                out.write(frame);
+            }
+            channel.shutdownOutput();
+            cause = null;
+        } catch (IOException e) {
+            cause = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            cause = new IOException("Cannot send commands", e);
+        } finally {
+            if (cause != null) {
+                fail(cause);
+            }
+        }
+    }
+
+    /**
+     * Completes the futures with the replies, in order. Once the replies end, for
+     * whatever reason, the client fails and the commands left unanswered fail with it.
+     */
+    private void readLoop() {
+        IOException cause = new EOFException("Connection closed by the server");
+        try {
+            byte[] reply = new byte[0];
+            for (int length = BinaryFormat.readVarint(in); length >= 0;
+                 length = BinaryFormat.readVarint(in)) {
+                if (reply.length < length) {
+                    reply = new byte[length];
+                }
+                if (in.readNBytes(reply, 0, length) != length) {
+                    throw new EOFException("Connection ended inside a reply");
+                }
+                if (!(objectMapper.readTree(reply, 0, length) instanceof ArrayNode output)) {
+                    throw new IOException("Reply is not an array of outputs");
+                }
+                CompletableFuture<ArrayNode> future = inFlight.poll();
+                if (future != null) {
+                    future.complete(output);
+                }
+            }
+        } catch (IOException e) {
+            cause = e;
+        } catch (RuntimeException e) {
+            cause = new IOException("Cannot read replies", e);
+        } finally {
+            fail(cause);
+        }
+    }
+
+    /**
+     * Marks the client failed, unless it was already closed, so that no command is
+     * accepted any more, and fails every command still waiting for its reply.
+     *
+     * @param cause the reason
+     */
+    private void fail(final IOException cause) {
+        lock.lock();
+        try {
+            if (!closed) {
+                failure = cause;
+                closed = true;
+                batchChanged.signal();
+            }
+            IOException reason = failure != null ? failure : cause;
+            for (CompletableFuture<ArrayNode> future = inFlight.poll(); future != null;
+                 future = inFlight.poll()) {
+                future.completeExceptionally(reason);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.poo.commands;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.poo.entities.Account;
+import org.poo.entities.AccountActivity;
+import org.poo.entities.User;
+import org.poo.storage.BankIndex;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Command summing the activity of an account between two timestamps: the money spent
+ * and received, rounded to cents, and the number of card payments and transactions, as
+ * kept by the {@link AccountActivity} trees of its history. Unlike {@link Report}, it does
+ * not list the transactions, so its cost barely depends on the length of the window or of
+ * the history.
+ */
+public class ActivitySummary implements Command {
+
+    /**
+     * The output reported when the account is not found.
+     */
+    private static final OutputFragment ACCOUNT_NOT_FOUND = OutputFragment.builder()
+            .field("command", "activitySummary")
+            .object("output", OutputFragment.builder()
+                    .field("description", "Account not found")
+                    .timestamp("timestamp"))
+            .timestamp("timestamp")
+            .build();
+
+    /**
+     * The IBAN of the account.
+     */
+    private final String accountIban;
+
+    /**
+     * The start of the window, inclusive.
+     */
+    private final int startTimestamp;
+
+    /**
+     * The end of the window, inclusive.
+     */
+    private final int endTimestamp;
+
+    /**
+     * The timestamp of the command execution.
+     */
+    private final int timestamp;
+
+    /**
+     * Creates the command.
+     *
+     * @param accountIban    the IBAN of the account
+     * @param startTimestamp the start of the window, inclusive
+     * @param endTimestamp   the end of the window, inclusive
+     * @param timestamp      the timestamp of the command execution
+     */
+    public ActivitySummary(final String accountIban, final int startTimestamp,
+                           final int endTimestamp, final int timestamp) {
+        this.accountIban = accountIban;
+        this.startTimestamp = startTimestamp;
+        this.endTimestamp = endTimestamp;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Adds the summary of the account to the output.
+     *
+     * @param users  the list of users
+     * @param output the JSON array node to which the summary is added
+     */
+    @Override
+    public void execute(final List<User> users, final ArrayNode output) {
+        Account account = BankIndex.current().findAccount(accountIban);
+        if (account == null) {
+            ACCOUNT_NOT_FOUND.addTo(output, timestamp);
+            CommandOutcome.fail("Account not found");
+            return;
+        }
+
+        long[] totals = account.getTransactions().activity(startTimestamp, endTimestamp);
+        String iban = account.getIban();
+        String currency = account.getCurrency();
+
+        new StreamedOutput() {
+            @Override
+            void write(final JsonGenerator json) throws IOException {
+                json.writeStartObject();
+                json.writeStringField("command", "activitySummary");
+                json.writeObjectFieldStart("output");
+                json.writeStringField("IBAN", iban);
+                json.writeStringField("currency", currency);
+                json.writeNumberField("startTimestamp", startTimestamp);
+                json.writeNumberField("endTimestamp", endTimestamp);
+                json.writeNumberField("spent",
+                        totals[AccountActivity.SPENT] / AccountActivity.CENTS);
+                json.writeNumberField("received",
+                        totals[AccountActivity.RECEIVED] / AccountActivity.CENTS);
+                json.writeNumberField("cardPayments", totals[AccountActivity.CARD_PAYMENTS]);
+                json.writeNumberField("transactions", totals[AccountActivity.TRANSACTIONS]);
+                json.writeEndObject();
+                json.writeNumberField("timestamp", timestamp);
+                json.writeEndObject();
+            }
+        }.addTo(output);
+    }
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import org.poo.entities.Account;
 import org.poo.entities.Transactions;
 import org.poo.entities.User;
+import org.poo.storage.BankIndex;
 
 import java.util.List;
 
@@ -63,7 +64,7 @@ public class AddAccount implements Command {
 	 */
 	@Override
 	public void execute(final List<User> users, final ArrayNode output) {
-		User user = findUserByEmail(users, email);
+		User user = BankIndex.current().findUser(email);
 		if (user != null) {
 			Account newAccount = AccountFactory.createAccount(accountType, currency,
 					interestRate);
@@ -78,20 +79,6 @@ public class AddAccount implements Command {
 		}
 	}
 
-	/**
-	 * Finds a user by their email address.
-	 *
-	 * @param users the list of users
-	 * @param email the email to search for
-	 * @return the user if found, otherwise null
-	 */
-	private User findUserByEmail(List<User> users, String email) {
-		return users.stream()
-				.filter(user -> user.getEmail().equals(email))
-				.findFirst()
-				.orElse(null);
-	}
-
 	/**
 	 * Creates a transaction representing the account creation.
 	 *
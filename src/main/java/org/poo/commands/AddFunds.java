@@ -1,7 +1,9 @@
 package org.poo.commands;
 
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.poo.entities.Account;
 import org.poo.entities.User;
+import org.poo.storage.BankIndex;
 
 import java.util.List;
 
@@ -41,16 +43,9 @@ public class AddFunds implements Command {
 	 */
 	@Override
 	public void execute(final List<User> users, final ArrayNode output) {
-		for (User user : users) {
-			var accountOptional = user.getAccounts().stream()
-					.filter(acc -> acc.getIban().equals(accountIban))
-					.findFirst();
-
-			if (accountOptional.isPresent()) {
-				var account = accountOptional.get();
-				account.setBalance(account.getBalance() + amount);
-				return;
-			}
+		Account account = BankIndex.current().findAccount(accountIban);
+		if (account != null) {
+			account.setBalance(account.getBalance() + amount);
 		}
 	}
 }
@@ -6,6 +6,7 @@ package org.poo.commands;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.poo.entities.TransactionDescription;
 import org.poo.entities.Transactions;
 import org.poo.entities.User;
 import org.poo.entities.Account;
@@ -18,6 +19,18 @@ import static org.poo.utils.Utils.PROCENT;
  * Command to add interest to savings accounts.
  */
 public class AddInterest implements Command {
+	/**
+	 * The "This is not a savings account" output, which the command has always reported
+	 * when no account has the IBAN.
+	 */
+	private static final OutputFragment NOT_SAVINGS_ACCOUNT = OutputFragment.builder()
+			.field("command", "addInterest")
+			.object("output", OutputFragment.builder()
+					.field("description", "This is not a savings account")
+					.timestamp("timestamp"))
+			.timestamp("timestamp")
+			.build();
+
 	/**
 	 * Executes the command (placeholder).
 	 */
@@ -46,15 +59,14 @@ public class AddInterest implements Command {
 	 */
 	@Override
 	public void execute(final List<User> users, final ArrayNode output) {
-		ObjectMapper mapper = new ObjectMapper();
-		ObjectNode commandNode = mapper.createObjectNode();
-		ObjectNode outputNode = mapper.createObjectNode();
-
 		boolean accountFound = false;
 
 		for (User user : users) {
 			for (Account account : user.getAccounts()) {
 				if (account.getIban().equals(account)) {
+					ObjectMapper mapper = new ObjectMapper();
+					ObjectNode commandNode = mapper.createObjectNode();
+					ObjectNode outputNode = mapper.createObjectNode();
 					if (account.isSavingsAccount()) {
 						double interest = account.getBalance() * interestRate / PROCENT;
 						account.setBalance(account.getBalance() + interest);
@@ -62,7 +74,7 @@ public class AddInterest implements Command {
 						outputNode.put("description", "Interest added successfully");
 						outputNode.put("newBalance", account.getBalance());
 						Transactions transaction = new Transactions("addInterest",
-								"Interest rate of the account changed to " + interest,
+								null,
 								interest,
 								account.getIban(),
 								null,
@@ -72,9 +84,12 @@ public class AddInterest implements Command {
 								null,
 								null,
 								null);
+						transaction.setDescription(TransactionDescription.INTEREST_RATE_CHANGE,
+								interest);
 						account.getTransactions().add(transaction);
 					} else {
 						outputNode.put("description", "This is not a savings account");
+						CommandOutcome.fail("Not a savings account");
 					}
 
 					commandNode.put("command", "addInterest");
@@ -87,12 +102,8 @@ public class AddInterest implements Command {
 		}
 
 		if (!accountFound) {
-			outputNode.put("description", "This is not a savings account");
-			outputNode.put("timestamp", timestamp);
-			commandNode.put("command", "addInterest");
-			commandNode.set("output", outputNode);
-			commandNode.put("timestamp", timestamp);
-			output.add(commandNode);
+			CommandOutcome.fail("Account not found");
+			NOT_SAVINGS_ACCOUNT.addTo(output, timestamp);
 		}
 	}
 }
@@ -1,14 +1,35 @@
 package org.poo.commands;
 
 import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.entities.*;
+import org.poo.storage.BankIndex;
 import org.poo.utils.Pair;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class CashWithdrawal implements Command {
+	/**
+	 * The details reported when the card is not active.
+	 */
+	private static final OutputFragment.Builder CARD_USED_DETAILS = OutputFragment.builder()
+			.field("description", "Card has already been used")
+			.timestamp("timestamp");
+
+	/**
+	 * The output reported when the card is not active.
+	 */
+	private static final OutputFragment CARD_USED = OutputFragment.builder()
+			.field("command", "cashWithdrawal")
+			.object("output", CARD_USED_DETAILS)
+			.timestamp("timestamp")
+			.build();
+
+	/**
+	 * The details of {@link #CARD_USED}, which are also reported on their own.
+	 */
+	private static final OutputFragment CARD_USED_OUTPUT = CARD_USED_DETAILS.build();
+
 	private String cardNumber;
 	private double amount;
 	private String email;
@@ -32,8 +53,9 @@ public class CashWithdrawal implements Command {
 
 	@Override
 	public void execute(List<User> users, ArrayNode output) {
-		Account targetAccount = findAccountByCardNumber(users, cardNumber);
+		Account targetAccount = BankIndex.current().findCardAccount(cardNumber);
 		if (targetAccount == null) {
+			CommandOutcome.fail("Card not found");
 			return;
 		}
 
@@ -46,6 +68,7 @@ public class CashWithdrawal implements Command {
 
 		// Verificăm dacă există suficienți bani în cont
 		if (targetAccount.getBalance() < Pair.convertCurrency(totalAmount, "RON", targetAccount.getCurrency(), exchangeRates)) {
+			CommandOutcome.fail("Insufficient funds");
 			return;
 		}
 
@@ -53,15 +76,9 @@ public class CashWithdrawal implements Command {
 			if (card.getCardNumber().equals(cardNumber) && !card.getStatus().equals("active")) {
 				System.out.println("SUGI PULA");
 				// Adaugă mesaj de eroare specific
-				ObjectNode result = output.addObject();
-				result.put("command", "cashWithdrawal");
-
-				ObjectNode resultOutput = result.putObject("output");
-				resultOutput.put("description", "Card has already been used");
-				resultOutput.put("timestamp", timestamp);
-
-				result.put("timestamp", timestamp);
-				output.add(resultOutput);
+				CARD_USED.addTo(output, timestamp);
+				CARD_USED_OUTPUT.addTo(output, timestamp);
+				CommandOutcome.fail("Card has already been used");
 				return;
 			}
 		}
@@ -71,7 +88,7 @@ public class CashWithdrawal implements Command {
 
 		Transactions transaction = new Transactions(
 				"cashWithdrawal",
-				"Cash withdrawal of " + amount,
+				null,
 				amount,
 				null,
 				null,
@@ -82,19 +99,7 @@ public class CashWithdrawal implements Command {
 				null,
 				null
 		);
+		transaction.setDescription(TransactionDescription.CASH_WITHDRAWAL, amount);
 		targetAccount.getTransactions().add(transaction);
 	}
-
-	private Account findAccountByCardNumber(List<User> users, String cardNumber) {
-		for (User user : users) {
-			for (Account account : user.getAccounts()) {
-				for (Card card : account.getCards()) {
-					if (card.getCardNumber().equals(cardNumber)) {
-						return account;
-					}
-				}
-			}
-		}
-		return null;
-	}
 }
@@ -1,8 +1,7 @@
 package org.poo.commands;
 
 import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.poo.entities.TransactionDescription;
 import org.poo.entities.Transactions;
 import org.poo.entities.User;
 import org.poo.entities.Account;
@@ -14,6 +13,17 @@ import java.util.List;
  * Command to change the interest rate of a savings account.
  */
 public class ChangeInterestRate implements Command {
+	/**
+	 * The output reported when the account is not a savings account.
+	 */
+	private static final OutputFragment NOT_SAVINGS_ACCOUNT = OutputFragment.builder()
+			.field("command", "changeInterestRate")
+			.object("output", OutputFragment.builder()
+					.field("description", "This is not a savings account")
+					.timestamp("timestamp"))
+			.timestamp("timestamp")
+			.build();
+
 	private final String account;
 	private final double interestRate;
 	private final int timestamp;
@@ -47,7 +57,7 @@ public class ChangeInterestRate implements Command {
 						((SavingsAccount) acc).setInterestRate(interestRate);
 
 						Transactions transaction = new Transactions("addInterest",
-								"Interest rate of the account changed to " + interestRate,
+								null,
 								0.0,
 								null,
 								null,
@@ -57,18 +67,12 @@ public class ChangeInterestRate implements Command {
 								null,
 								null,
 								null);
+						transaction.setDescription(TransactionDescription.INTEREST_RATE_CHANGE,
+								interestRate);
 						acc.getTransactions().add(transaction);
 					} else {
-						ObjectMapper mapper = new ObjectMapper();
-						ObjectNode commandNode = mapper.createObjectNode();
-						ObjectNode outputNode = mapper.createObjectNode();
-
-						outputNode.put("description", "This is not a savings account");
-						outputNode.put("timestamp", timestamp);
-						commandNode.put("command", "changeInterestRate");
-						commandNode.set("output", outputNode);
-						commandNode.put("timestamp", timestamp);
-						output.add(commandNode);
+						NOT_SAVINGS_ACCOUNT.addTo(output, timestamp);
+						CommandOutcome.fail("Not a savings account");
 					}
 
 					return;
@@ -1,12 +1,11 @@
 package org.poo.commands;
 
 import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.poo.entities.Transactions;
 import org.poo.entities.User;
 import org.poo.entities.Account;
 import org.poo.entities.Card;
+import org.poo.storage.BankIndex;
 
 import java.util.List;
 
@@ -15,6 +14,17 @@ import java.util.List;
  */
 public class CheckCardStatus implements Command {
 
+	/**
+	 * The output reported when the card is not found.
+	 */
+	private static final OutputFragment CARD_NOT_FOUND = OutputFragment.builder()
+			.field("command", "checkCardStatus")
+			.object("output", OutputFragment.builder()
+					.timestamp("timestamp")
+					.field("description", "Card not found"))
+			.timestamp("timestamp")
+			.build();
+
 	/**
 	 * The card number to check.
 	 */
@@ -44,28 +54,16 @@ public class CheckCardStatus implements Command {
 	 */
 	@Override
 	public void execute(List<User> users, ArrayNode output) {
-		ObjectMapper mapper = new ObjectMapper();
-		ObjectNode resultNode = mapper.createObjectNode();
-		ObjectNode outputNode = mapper.createObjectNode();
-
-		boolean cardFound = false;
-
-		for (User user : users) {
-			for (Account account : user.getAccounts()) {
-				for (Card card : account.getCards()) {
-					if (card.getCardNumber().equals(cardNumberToCheck)) {
-						cardFound = true;
-
-						handleCardStatus(account, card);
-						return;
-					}
-				}
-			}
+		BankIndex index = BankIndex.current();
+		Account account = index.findCardAccount(cardNumberToCheck);
+		Card card = account == null ? null : account.findCard(cardNumberToCheck);
+		if (card == null) {
+			CARD_NOT_FOUND.addTo(output, timestamp);
+			CommandOutcome.fail("Card not found");
+			return;
 		}
 
-		if (!cardFound) {
-			handleCardNotFound(output, resultNode, outputNode);
-		}
+		handleCardStatus(account, card);
 	}
 
 	/**
@@ -92,22 +90,4 @@ public class CheckCardStatus implements Command {
 			account.getTransactions().add(transaction);
 		}
 	}
-
-	/**
-	 * Handles the case where the card is not found among the users' accounts.
-	 *
-	 * @param output      the JSON array node to store the result
-	 * @param resultNode  the root JSON node of the command result
-	 * @param outputNode  the JSON node containing the error details
-	 */
-	private void handleCardNotFound(ArrayNode output, ObjectNode resultNode, ObjectNode outputNode) {
-		outputNode.put("timestamp", timestamp);
-		outputNode.put("description", "Card not found");
-
-		resultNode.put("command", "checkCardStatus");
-		resultNode.set("output", outputNode);
-		resultNode.put("timestamp", timestamp);
-
-		output.add(resultNode);
-	}
 }
@@ -2,6 +2,7 @@ package org.poo.commands;
 
 import org.poo.entities.ValutarCourse;
 import org.poo.fileio.CommandInput;
+import org.poo.metrics.Tracer;
 
 import java.util.ArrayList;
 
@@ -19,6 +20,23 @@ public class CommandFactory {
      * @throws IllegalArgumentException if the command type is unknown
      */
     public static Command getCommand(CommandInput input, ArrayList<ValutarCourse> exchangeRates) {
+        long start = Tracer.begin();
+        try {
+            return create(input, exchangeRates);
+        } finally {
+            Tracer.end(Tracer.CONSTRUCT, start);
+        }
+    }
+
+    /**
+     * Builds the Command object matching the command name of the input.
+     *
+     * @param input         the input containing command details
+     * @param exchangeRates the list of exchange rates required for certain commands
+     * @return the appropriate Command object
+     * @throws IllegalArgumentException if the command type is unknown
+     */
+    private static Command create(CommandInput input, ArrayList<ValutarCourse> exchangeRates) {
         switch (input.getCommand()) {
             case "printUsers":
                 return new PrintUsers(input.getTimestamp());
@@ -67,6 +85,13 @@ public class CommandFactory {
                 );
             case "printTransactions":
                 return new PrintTransactions(input.getEmail(), input.getTimestamp(), exchangeRates);
+            case "printTransactionsPage":
+                return new PrintTransactionsPage(
+                        input.getEmail(),
+                        input.getPageSize(),
+                        input.getCursor(),
+                        input.getTimestamp()
+                );
             case "setAlias":
                 return new SetAlias(input.getEmail(), input.getAlias(), input.getAccount());
             case "sendMoney":
@@ -109,6 +134,13 @@ public class CommandFactory {
                         input.getAccount(),
                         input.getTimestamp()
                 );
+            case "activitySummary":
+                return new ActivitySummary(
+                        input.getAccount(),
+                        input.getStartTimestamp(),
+                        input.getEndTimestamp(),
+                        input.getTimestamp()
+                );
             case "withdrawSavings":
                 return new WithdrawSavings(
                         input.getAccount(),
@@ -2,6 +2,10 @@ package org.poo.commands;
 
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import org.poo.entities.User;
+import org.poo.fileio.CommandInput;
+import org.poo.metrics.CommandEvent;
+import org.poo.metrics.CommandMetrics;
+import org.poo.metrics.Tracer;
 import org.poo.utils.Utils;
 
 import java.util.ArrayList;
@@ -9,6 +13,10 @@ import java.util.List;
 
 /**
  * CommandInvoker is responsible for managing and executing a queue of commands.
+ * The latency and outcome of every executed command are recorded in a
+ * {@link CommandMetrics}, by default the global one, and emitted as a
+ * {@link CommandEvent} when a Flight Recorder recording asks for it, and as a
+ * {@link Tracer} span while tracing.
  */
 public class CommandInvoker {
 
@@ -17,13 +25,60 @@ public class CommandInvoker {
      */
     private final List<Command> commandQueue = new ArrayList<>();
 
+    /**
+     * The input each queued command was built from, null when unknown.
+     */
+    private final List<CommandInput> inputQueue = new ArrayList<>();
+
+    /**
+     * Where the executed commands are recorded.
+     */
+    private final CommandMetrics metrics;
+
+    /**
+     * Creates an invoker recording into {@link CommandMetrics#global()}.
+     */
+    public CommandInvoker() {
+        this(CommandMetrics.global());
+    }
+
+    /**
+     * Creates an invoker recording into the given metrics.
+     *
+     * @param metrics where the executed commands are recorded
+     */
+    public CommandInvoker(CommandMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns where the executed commands are recorded.
+     *
+     * @return the metrics
+     */
+    public CommandMetrics getMetrics() {
+        return metrics;
+    }
+
     /**
      * Adds a command to the queue.
      *
      * @param command the command to be added to the queue
      */
     public void addCommand(Command command) {
+        addCommand(command, null);
+    }
+
+    /**
+     * Adds a command to the queue along with the input it was built from, which
+     * names the command and its target in the {@link CommandEvent}.
+     *
+     * @param command the command to be added to the queue
+     * @param input   the input the command was built from
+     */
+    public void addCommand(Command command, CommandInput input) {
         commandQueue.add(command);
+        inputQueue.add(input);
     }
 
     /**
@@ -33,10 +88,68 @@ public class CommandInvoker {
      * @param output the JSON array node to store the output of the commands
      */
     public void executeCommands(List<User> users, ArrayNode output) {
-        for (Command command : commandQueue) {
-            command.execute(users, output);
-        }
+        executePending(users, output);
         Utils.resetRandom();
-        commandQueue.clear();
+    }
+
+    /**
+     * Executes all commands in the queue and clears it, without resetting the
+     * random generators. Used when the bank state outlives a single batch. Each
+     * command is timed and recorded with the outcome it reported through
+     * {@link CommandOutcome}, along with the bytes it allocated when the metrics track
+     * allocations.
+     *
+     * @param users  the list of users to be operated on by the commands
+     * @param output the JSON array node to store the output of the commands
+     */
+    public void executePending(List<User> users, ArrayNode output) {
+        try {
+            // drop an outcome left behind by a command that threw or ran outside an invoker
+            CommandOutcome.take();
+            boolean allocations = metrics.isAllocationTracking();
+            for (int i = 0; i < commandQueue.size(); i++) {
+                Command command = commandQueue.get(i);
+                CommandEvent event = CommandEvent.beginIfEnabled();
+                long allocatedBefore = allocations ? CommandMetrics.threadAllocatedBytes() : 0;
+                long start = System.nanoTime();
+                command.execute(users, output);
+                long elapsed = System.nanoTime() - start;
+                if (allocations) {
+                    metrics.recordAllocation(command.getClass(),
+                            CommandMetrics.threadAllocatedBytes() - allocatedBefore);
+                }
+                String failure = CommandOutcome.take();
+                metrics.record(command.getClass(), failure, elapsed);
+                if (Tracer.isEnabled()) {
+                    Tracer.record(Tracer.executeSpan(command.getClass()), start, start + elapsed);
+                }
+                if (event != null && event.shouldCommit()) {
+                    describe(event, command, inputQueue.get(i), failure);
+                    event.commit();
+                }
+            }
+        } finally {
+            commandQueue.clear();
+            inputQueue.clear();
+        }
+    }
+
+    /**
+     * Fills in the event of an executed command.
+     *
+     * @param event   the event
+     * @param command the command
+     * @param input   the input it was built from, may be null
+     * @param failure the failure reason, null if the command succeeded
+     */
+    private static void describe(CommandEvent event, Command command, CommandInput input,
+                                 String failure) {
+        String outcome = failure == null ? CommandMetrics.SUCCESS : failure;
+        if (input == null) {
+            event.set(command.getClass().getSimpleName(), 0, null, outcome);
+            return;
+        }
+        String target = input.getAccount() != null ? input.getAccount() : input.getCardNumber();
+        event.set(input.getCommand(), input.getTimestamp(), target, outcome);
     }
 }
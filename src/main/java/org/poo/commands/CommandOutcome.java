@@ -0,0 +1,46 @@
+package org.poo.commands;
+
+/**
+ * Outcome of the command executing on the current thread, read back by the
+ * {@link CommandInvoker} once the command returns. A command that fails calls
+ * {@link #fail(String)} with a short reason, such as {@code "Insufficient funds"}; a
+ * command that returns without calling it succeeded.
+ *
+ * <p>The outcome lives in a one-element array per thread, so that marking and reading it
+ * are a thread-local lookup and a plain store, with nothing allocated per command.
+ */
+public final class CommandOutcome {
+
+    /**
+     * The pending failure reason of every thread, null when none.
+     */
+    private static final ThreadLocal<String[]> CURRENT =
+            ThreadLocal.withInitial(() -> new String[1]);
+
+    /**
+     * Private constructor to prevent instantiation of the utility class.
+     */
+    private CommandOutcome() {
+    }
+
+    /**
+     * Marks the executing command as failed.
+     *
+     * @param reason the reason, one of a small fixed set per command type
+     */
+    public static void fail(final String reason) {
+        CURRENT.get()[0] = reason;
+    }
+
+    /**
+     * Returns the outcome of the command that just executed and clears it.
+     *
+     * @return the failure reason, null if the command succeeded
+     */
+    public static String take() {
+        String[] slot = CURRENT.get();
+        String reason = slot[0];
+        slot[0] = null;
+        return reason;
+    }
+}
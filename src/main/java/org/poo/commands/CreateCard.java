@@ -1,9 +1,11 @@
 package org.poo.commands;
 
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.poo.entities.Account;
 import org.poo.entities.Transactions;
 import org.poo.entities.User;
 import org.poo.entities.Card;
+import org.poo.storage.BankIndex;
 import org.poo.utils.Utils;
 
 import java.util.List;
@@ -49,51 +51,44 @@ public class CreateCard implements Command {
 	 */
 	@Override
 	public void execute(final List<User> users, final ArrayNode output) {
-		for (User user : users) {
-			if (user.getEmail().equals(email)) {
-				var accountOptional = user.getAccounts().stream()
-						.filter(acc -> acc.getIban().equals(account))
-						.findFirst();
-
-				if (accountOptional.isPresent()) {
-					var account = accountOptional.get();
-
-					String newCardNumber = Utils.generateCardNumber();
-
-					boolean cardExists = account.getCards().stream()
-							.anyMatch(card -> card.getCardNumber().equals(newCardNumber));
-
-					if (cardExists) {
-						return;
-					}
-
-					Card newCard = new Card();
-					newCard.setCardNumber(newCardNumber);
-					newCard.setStatus("active");
-					newCard.setMinimumBalance(0.0);
+		BankIndex index = BankIndex.current();
+		User user = index.findUser(email);
+		Account targetAccount = index.findAccount(account);
+		if (user == null || targetAccount == null || index.findOwner(targetAccount) != user) {
+			CommandOutcome.fail("Account not found");
+			return;
+		}
 
-					account.addCard(newCard);
+		String newCardNumber = Utils.generateCardNumber();
 
-					Transactions newTransaction = new Transactions(
-							"createCard",
-							"New card created",
-							0.0,
-							account.getIban(),
-							null,
-							timestamp,
-							null,
-							newCard.getCardNumber(),
-							user.getEmail(),
-							null,
-							null
-					);
-					account.getTransactions().add(newTransaction);
+		boolean cardExists = targetAccount.getCards().stream()
+				.anyMatch(card -> card.getCardNumber().equals(newCardNumber));
 
-					return;
-				} else {
-					return;
-				}
-			}
+		if (cardExists) {
+			CommandOutcome.fail("Card number collision");
+			return;
 		}
+
+		Card newCard = new Card();
+		newCard.setCardNumber(newCardNumber);
+		newCard.setStatus("active");
+		newCard.setMinimumBalance(0.0);
+
+		targetAccount.addCard(newCard);
+
+		Transactions newTransaction = new Transactions(
+				"createCard",
+				"New card created",
+				0.0,
+				targetAccount.getIban(),
+				null,
+				timestamp,
+				null,
+				newCard.getCardNumber(),
+				user.getEmail(),
+				null,
+				null
+		);
+		targetAccount.getTransactions().add(newTransaction);
 	}
 }
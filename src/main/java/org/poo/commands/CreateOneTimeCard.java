@@ -3,7 +3,9 @@ package org.poo.commands;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import org.poo.entities.User;
 import org.poo.entities.OneTimeCard;
+import org.poo.entities.Account;
 import org.poo.entities.Transactions;
+import org.poo.storage.BankIndex;
 import org.poo.utils.Utils;
 
 import java.util.List;
@@ -49,50 +51,44 @@ public class CreateOneTimeCard implements Command {
 	 */
 	@Override
 	public void execute(final List<User> users, final ArrayNode output) {
-		for (User user : users) {
-			if (user.getEmail().equals(email)) {
-				var accountOptional = user.getAccounts().stream()
-						.filter(acc -> acc.getIban().equals(accountIban))
-						.findFirst();
-
-				if (accountOptional.isPresent()) {
-					var account = accountOptional.get();
+		BankIndex index = BankIndex.current();
+		User user = index.findUser(email);
+		Account targetAccount = index.findAccount(accountIban);
+		if (user == null || targetAccount == null || index.findOwner(targetAccount) != user) {
+			CommandOutcome.fail("Account not found");
+			return;
+		}
 
-					String newCardNumber = Utils.generateCardNumber();
+		String newCardNumber = Utils.generateCardNumber();
 
-					boolean cardExists = account.getCards().stream()
-							.anyMatch(card -> card.getCardNumber().equals(newCardNumber));
+		boolean cardExists = targetAccount.getCards().stream()
+				.anyMatch(card -> card.getCardNumber().equals(newCardNumber));
 
-					if (cardExists) {
-						return;
-					}
+		if (cardExists) {
+			CommandOutcome.fail("Card number collision");
+			return;
+		}
 
-					OneTimeCard newCard = new OneTimeCard();
-					newCard.setCardNumber(newCardNumber);
-					newCard.setStatus("active");
-					newCard.setTimestamp(timestamp);
+		OneTimeCard newCard = new OneTimeCard();
+		newCard.setCardNumber(newCardNumber);
+		newCard.setStatus("active");
+		newCard.setTimestamp(timestamp);
 
-					account.addCard(newCard);
+		targetAccount.addCard(newCard);
 
-					Transactions newTransaction = new Transactions(
-							"createCard",
-							"New card created",
-							0.0,
-							account.getIban(),
-							null,
-							timestamp,
-							null,
-							newCard.getCardNumber(),
-							user.getEmail(),
-							null,
-							null
-					);
-					account.getTransactions().add(newTransaction);
-					return;
-				} else {
-					return;
-				}
-			}
-		}
+		Transactions newTransaction = new Transactions(
+				"createCard",
+				"New card created",
+				0.0,
+				targetAccount.getIban(),
+				null,
+				timestamp,
+				null,
+				newCard.getCardNumber(),
+				user.getEmail(),
+				null,
+				null
+		);
+		targetAccount.getTransactions().add(newTransaction);
 	}
 }
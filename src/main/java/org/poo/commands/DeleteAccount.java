@@ -1,10 +1,9 @@
 package org.poo.commands;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.entities.Transactions;
 import org.poo.entities.User;
+import org.poo.storage.BankIndex;
 
 import java.util.List;
 import java.util.Optional;
@@ -14,6 +13,29 @@ import java.util.Optional;
  */
 public class DeleteAccount implements Command {
 
+	/**
+	 * The output reported when the account still holds funds.
+	 */
+	private static final OutputFragment FUNDS_REMAINING = createOutput("error",
+			"Account couldn't be deleted - see org.poo.transactions for details");
+
+	/**
+	 * The output reported when the user has no account with the IBAN.
+	 */
+	private static final OutputFragment ACCOUNT_NOT_FOUND = createOutput("error",
+			"Account not found");
+
+	/**
+	 * The output reported when the user is not found.
+	 */
+	private static final OutputFragment USER_NOT_FOUND = createOutput("error",
+			"User not found");
+
+	/**
+	 * The output reported when the account is deleted.
+	 */
+	private static final OutputFragment DELETED = createOutput("success", "Account deleted");
+
 	/**
 	 * The email of the user whose account will be deleted.
 	 */
@@ -50,11 +72,7 @@ public class DeleteAccount implements Command {
 	 */
 	@Override
 	public void execute(final List<User> users, final ArrayNode output) {
-		ObjectMapper objectMapper = new ObjectMapper();
-		ObjectNode commandOutput = objectMapper.createObjectNode();
-		commandOutput.put("command", "deleteAccount");
-
-		Optional<User> userOptional = findUserByEmail(users, email);
+		Optional<User> userOptional = Optional.ofNullable(BankIndex.current().findUser(email));
 		if (userOptional.isPresent()) {
 			User user = userOptional.get();
 			Optional<org.poo.entities.Account> accountOptional = findAccountByIban(user, accountIban);
@@ -63,7 +81,7 @@ public class DeleteAccount implements Command {
 				var account = accountOptional.get();
 
 				if (account.getBalance() != 0) {
-					addErrorOutput(output, commandOutput, "Account couldn't be deleted - see org.poo.transactions for details");
+					FUNDS_REMAINING.addTo(output, timestamp);
 					Transactions transactions = new Transactions(
 							"deleteAccount",
 							"Account couldn't be deleted - there are funds remaining",
@@ -78,30 +96,23 @@ public class DeleteAccount implements Command {
 							null
 					);
 					account.getTransactions().add(transactions);
+					CommandOutcome.fail("Funds remaining");
 					return;
 				}
 
 				user.getAccounts().remove(account);
+				account.release();
 
-				addSuccessOutput(output, commandOutput, "Account deleted");
+				DELETED.addTo(output, timestamp);
 				return;
 			} else {
-				addErrorOutput(output, commandOutput, "Account not found");
+				ACCOUNT_NOT_FOUND.addTo(output, timestamp);
+				CommandOutcome.fail("Account not found");
 				return;
 			}
 		}
-		addErrorOutput(output, commandOutput, "User not found");
-	}
-
-	/**
-	 * Finds a user by email.
-	 *
-	 * @param users the list of users
-	 * @param email the email to search for
-	 * @return an Optional containing the user if found
-	 */
-	private Optional<User> findUserByEmail(List<User> users, String email) {
-		return users.stream().filter(user -> user.getEmail().equals(email)).findFirst();
+		USER_NOT_FOUND.addTo(output, timestamp);
+		CommandOutcome.fail("User not found");
 	}
 
 	/**
@@ -116,37 +127,20 @@ public class DeleteAccount implements Command {
 	}
 
 	/**
-	 * Adds an error message to the command output.
-	 *
-	 * @param output        the JSON array node to append to
-	 * @param commandOutput the JSON object for the command
-	 * @param message       the error message to add
-	 */
-	private void addErrorOutput(ArrayNode output, ObjectNode commandOutput, String message) {
-		ObjectMapper objectMapper = new ObjectMapper();
-		ObjectNode errorOutput = objectMapper.createObjectNode();
-		errorOutput.put("error", message);
-		errorOutput.put("timestamp", timestamp);
-		commandOutput.set("output", errorOutput);
-		commandOutput.put("timestamp", timestamp);
-		output.add(commandOutput);
-	}
-
-	/**
-	 * Adds a success message to the command output.
+	 * Creates the output of a deletion attempt.
 	 *
-	 * @param output        the JSON array node to append to
-	 * @param commandOutput the JSON object for the command
-	 * @param message       the success message to add
+	 * @param key     the field holding the message, {@code error} or {@code success}
+	 * @param message the message
+	 * @return the output
 	 */
-	private void addSuccessOutput(ArrayNode output, ObjectNode commandOutput, String message) {
-		ObjectMapper objectMapper = new ObjectMapper();
-		ObjectNode successOutput = objectMapper.createObjectNode();
-		successOutput.put("success", message);
-		successOutput.put("timestamp", timestamp);
-		commandOutput.set("output", successOutput);
-		commandOutput.put("timestamp", timestamp);
-		output.add(commandOutput);
+	private static OutputFragment createOutput(String key, String message) {
+		return OutputFragment.builder()
+				.field("command", "deleteAccount")
+				.object("output", OutputFragment.builder()
+						.field(key, message)
+						.timestamp("timestamp"))
+				.timestamp("timestamp")
+				.build();
 	}
 
 }
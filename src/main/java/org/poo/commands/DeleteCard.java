@@ -4,6 +4,7 @@ import org.poo.entities.Transactions;
 import org.poo.entities.User;
 import org.poo.entities.Account;
 import org.poo.entities.Card;
+import org.poo.storage.BankIndex;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -24,34 +25,29 @@ public class DeleteCard implements Command {
 		ObjectNode commandOutput = objectMapper.createObjectNode();
 		commandOutput.put("command", "deleteCard");
 
-		for (User user : users) {
-			for (Account account : user.getAccounts()) {
-				var cardOptional = account.getCards().stream()
-						.filter(card -> card.getCardNumber().equals(cardNumber))
-						.findFirst();
-
-				if (cardOptional.isPresent()) {
-					Card card = cardOptional.get();
-					account.getCards().remove(card);
-
-					Transactions transaction = new Transactions(
-							"deleteCard",
-							"The card has been destroyed",
-							0.0,
-							null,
-							null,
-							timestamp,
-							null,
-							cardNumber,
-							user.getEmail(),
-							account.getIban(),
-							null
-					);
-
-					account.getTransactions().add(transaction);
-					return;
-				}
-			}
+		BankIndex index = BankIndex.current();
+		Account account = index.findCardAccount(cardNumber);
+		Card card = account == null ? null : account.findCard(cardNumber);
+
+		if (card != null) {
+			User user = index.findOwner(account);
+			account.removeCard(card);
+
+			Transactions transaction = new Transactions(
+					"deleteCard",
+					"The card has been destroyed",
+					0.0,
+					null,
+					null,
+					timestamp,
+					null,
+					cardNumber,
+					user.getEmail(),
+					account.getIban(),
+					null
+			);
+
+			account.getTransactions().add(transaction);
 		}
 	}
 }
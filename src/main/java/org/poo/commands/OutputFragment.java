@@ -0,0 +1,279 @@
+package org.poo.commands;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A command output whose fields are all fixed but the timestamp, such as the
+ * {@code "Card not found"} errors, encoded once when it is defined instead of built node
+ * by node for every command.
+ *
+ * <p>{@link #addTo(ArrayNode, int)} appends the output to the command outputs as a
+ * single node. Compact writers, such as the server sessions, copy its pre-encoded bytes
+ * with the timestamps spliced in; pretty printers get the same fields, in the same
+ * order, from pre-quoted names and values, so the output text does not change.
+ */
+public final class OutputFragment {
+
+    /**
+     * The fields, for pretty printers.
+     */
+    private final Field[] fields;
+
+    /**
+     * The compact encoding, split at every timestamp.
+     */
+    private final SerializedString[] chunks;
+
+    /**
+     * Creates a fragment.
+     *
+     * @param fields the fields
+     */
+    private OutputFragment(final Field[] fields) {
+        this.fields = fields;
+        List<SerializedString> parts = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        encode(fields, text, parts);
+        parts.add(new SerializedString(text.toString()));
+        this.chunks = parts.toArray(new SerializedString[0]);
+    }
+
+    /**
+     * Starts a fragment.
+     *
+     * @return a builder adding fields in output order
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Appends the fragment to the command outputs.
+     *
+     * @param output    the command outputs
+     * @param timestamp the value of the timestamp fields
+     */
+    public void addTo(final ArrayNode output, final int timestamp) {
+        output.addPOJO(new Value(this, timestamp));
+    }
+
+    /**
+     * Writes the fragment.
+     *
+     * @param generator the generator
+     * @param timestamp the value of the timestamp fields
+     * @throws IOException if writing fails
+     */
+    private void write(final JsonGenerator generator, final int timestamp)
+            throws IOException {
+        if (generator.getPrettyPrinter() != null) {
+            write(generator, fields, timestamp);
+            return;
+        }
+        generator.writeRawValue(chunks[0]);
+        if (chunks.length > 1) {
+            String digits = Integer.toString(timestamp);
+            for (int i = 1; i < chunks.length; i++) {
+                generator.writeRaw(digits);
+                generator.writeRaw(chunks[i]);
+            }
+        }
+    }
+
+    /**
+     * Writes an object field by field.
+     *
+     * @param generator the generator
+     * @param object    the fields of the object
+     * @param timestamp the value of the timestamp fields
+     * @throws IOException if writing fails
+     */
+    private static void write(final JsonGenerator generator, final Field[] object,
+                              final int timestamp) throws IOException {
+        generator.writeStartObject();
+        for (Field field : object) {
+            generator.writeFieldName(field.name);
+            if (field.object != null) {
+                write(generator, field.object, timestamp);
+            } else if (field.value != null) {
+                generator.writeString(field.value);
+            } else {
+                generator.writeNumber(timestamp);
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * Appends the compact encoding of an object, starting a new chunk at every
+     * timestamp.
+     *
+     * @param object the fields of the object
+     * @param text   the current chunk
+     * @param parts  the finished chunks
+     */
+    private static void encode(final Field[] object, final StringBuilder text,
+                               final List<SerializedString> parts) {
+        text.append('{');
+        for (int i = 0; i < object.length; i++) {
+            Field field = object[i];
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append('"').append(field.name.asQuotedChars()).append("\":");
+            if (field.object != null) {
+                encode(field.object, text, parts);
+            } else if (field.value != null) {
+                text.append('"').append(field.value.asQuotedChars()).append('"');
+            } else {
+                parts.add(new SerializedString(text.toString()));
+                text.setLength(0);
+            }
+        }
+        text.append('}');
+    }
+
+    /**
+     * Builds a fragment, one field at a time.
+     */
+    public static final class Builder {
+
+        /**
+         * The fields added so far.
+         */
+        private final List<Field> fields = new ArrayList<>();
+
+        /**
+         * Private constructor, builders come from {@link OutputFragment#builder()}.
+         */
+        private Builder() {
+        }
+
+        /**
+         * Adds a string field.
+         *
+         * @param name  the field name
+         * @param value the field value
+         * @return this builder
+         */
+        public Builder field(final String name, final String value) {
+            fields.add(new Field(name, new SerializedString(value), null));
+            return this;
+        }
+
+        /**
+         * Adds a field holding the timestamp of the command.
+         *
+         * @param name the field name
+         * @return this builder
+         */
+        public Builder timestamp(final String name) {
+            fields.add(new Field(name, null, null));
+            return this;
+        }
+
+        /**
+         * Adds an object field.
+         *
+         * @param name   the field name
+         * @param object the fields of the object
+         * @return this builder
+         */
+        public Builder object(final String name, final Builder object) {
+            fields.add(new Field(name, null, object.fields.toArray(new Field[0])));
+            return this;
+        }
+
+        /**
+         * Encodes the fragment.
+         *
+         * @return the fragment
+         */
+        public OutputFragment build() {
+            return new OutputFragment(fields.toArray(new Field[0]));
+        }
+    }
+
+    /**
+     * A field of a fragment: a string, an object, or the timestamp when it is neither.
+     */
+    private static final class Field {
+
+        /**
+         * The field name.
+         */
+        private final SerializedString name;
+
+        /**
+         * The string value, or null.
+         */
+        private final SerializedString value;
+
+        /**
+         * The fields of the object value, or null.
+         */
+        private final Field[] object;
+
+        /**
+         * Creates a field.
+         *
+         * @param name   the field name
+         * @param value  the string value, or null
+         * @param object the fields of the object value, or null
+         */
+        Field(final String name, final SerializedString value, final Field[] object) {
+            this.name = new SerializedString(name);
+            this.value = value;
+            this.object = object;
+        }
+    }
+
+    /**
+     * A fragment appended to the outputs of a command, with its timestamp.
+     */
+    private static final class Value implements JsonSerializable {
+
+        /**
+         * The fragment.
+         */
+        private final OutputFragment fragment;
+
+        /**
+         * The value of the timestamp fields.
+         */
+        private final int timestamp;
+
+        /**
+         * Creates a value.
+         *
+         * @param fragment  the fragment
+         * @param timestamp the value of the timestamp fields
+         */
+        Value(final OutputFragment fragment, final int timestamp) {
+            this.fragment = fragment;
+            this.timestamp = timestamp;
+        }
+
+        @Override
+        public void serialize(final JsonGenerator generator, final SerializerProvider provider)
+                throws IOException {
+            fragment.write(generator, timestamp);
+        }
+
+        @Override
+        public void serializeWithType(final JsonGenerator generator,
+                                      final SerializerProvider provider,
+                                      final TypeSerializer typeSerializer) throws IOException {
+            serialize(generator, provider);
+        }
+    }
+}
@@ -1,9 +1,8 @@
 package org.poo.commands;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.entities.*;
+import org.poo.storage.BankIndex;
 import org.poo.utils.Pair;
 import org.poo.utils.Utils;
 
@@ -16,6 +15,17 @@ import static org.poo.utils.Pair.convertCurrency;
  */
 public class PayOnline implements Command {
 
+	/**
+	 * The output reported when the card is not found.
+	 */
+	private static final OutputFragment CARD_NOT_FOUND = OutputFragment.builder()
+			.field("command", "payOnline")
+			.object("output", OutputFragment.builder()
+					.timestamp("timestamp")
+					.field("description", "Card not found"))
+			.timestamp("timestamp")
+			.build();
+
 	/**
 	 * The email address of the user initiating the payment.
 	 */
@@ -87,153 +97,131 @@ public class PayOnline implements Command {
 	 * @param output the JSON array node for output
 	 */
 	public void execute(List<User> users, ArrayNode output) {
-		ObjectMapper objectMapper = new ObjectMapper();
-		ObjectNode commandOutput = objectMapper.createObjectNode();
-		commandOutput.put("command", "payOnline");
-
-		for (User user : users) {
-			if (user.getEmail().equals(email)) {
-				for (Account account : user.getAccounts()) {
-					var cardOptional = account.getCards().stream()
-							.filter(card -> card.getCardNumber().equals(cardNumber))
-							.findFirst();
-
-					if (cardOptional.isPresent()) {
-						Card card = cardOptional.get();
-
-						if (!"active".equals(card.getStatus())) {
-							Transactions insuff = new Transactions("payOnline",
-									"The card is frozen",
-									0.0,
-									null,
-									null,
-									timestamp,
-									null,
-									null,
-									null,
-									null,
-									null
-							);
-							insuff.setCurrency(currency);
-							account.getTransactions().add(insuff);
-							return;
-						}
-
-						if (card instanceof OneTimeCard && ((OneTimeCard) card).isUsed()) {
-							return;
-						}
-
-						double totalAmount = amount;
-						if (account.getPlan().equals("standard"))
-							totalAmount = amount + amount * 0.002;
-						else if (account.getPlan().equals("silver") && amount < Pair.convertCurrency(500,
-								"RON", currency, exchangeRates))
-							totalAmount = amount + amount * 0.001;
-
-						double convertedAmount = convertCurrency(totalAmount, currency, account.getCurrency(), exchangeRates);
-						if (convertedAmount < 0) {
-							return;
-						}
-
-						if (account.getBalance() < convertedAmount) {
-							Transactions insuff = new Transactions("payOnline",
-									"Insufficient funds",
-									0.0,
-									null,
-									null,
-									timestamp,
-									null,
-									null,
-									null,
-									null,
-									null
-							);
-							account.getTransactions().add(insuff);
-							return;
-						}
-
-						account.setBalance(account.getBalance() - convertedAmount);
-						Transactions insuff = new Transactions("payOnline",
-								"Card payment",
-								Pair.convertCurrency(amount, currency, account.getCurrency(), exchangeRates),
-								null,
-								null,
-								timestamp,
-								null,
-								cardNumber,
-								null,
-								commerciant,
-								null
-						);
-						account.getTransactions().add(insuff);
-						if (card.isOneTimeCard()) {
-							((OneTimeCard) card).useCard();
-							card.setStatus("inactive");
-							//account.getCards().remove(card);
-
-							Transactions transaction = new Transactions(
-									"deleteCard",
-									"The card has been destroyed",
-									0.0,
-									null,
-									null,
-									timestamp,
-									null,
-									cardNumber,
-									user.getEmail(),
-									account.getIban(),
-									null
-							);
-
-							account.getTransactions().add(transaction);
-							String newCardNumber = Utils.generateCardNumber();
-							OneTimeCard newCard = new OneTimeCard();
-							newCard.setCardNumber(newCardNumber);
-							newCard.setStatus("active");
-							newCard.setTimestamp(timestamp);
-
-							Transactions transactions = new Transactions(
-									"createCard",
-									"New card created",
-									0.0,
-									account.getIban(),
-									null,
-									timestamp,
-									null,
-									newCardNumber,
-									user.getEmail(),
-									null,
-									null
-							);
-
-							account.getTransactions().add(transactions);
-							account.addCard(newCard);
-						}
-
-						return;
-					}
-				}
+		BankIndex index = BankIndex.current();
+		User user = index.findUser(email);
+		Account account = index.findCardAccount(cardNumber);
+		Card card = account == null ? null : account.findCard(cardNumber);
+
+		if (user != null && card != null && index.findOwner(account) == user) {
+
+			if (!"active".equals(card.getStatus())) {
+				Transactions insuff = new Transactions("payOnline",
+						"The card is frozen",
+						0.0,
+						null,
+						null,
+						timestamp,
+						null,
+						null,
+						null,
+						null,
+						null
+				);
+				insuff.setCurrency(currency);
+				account.getTransactions().add(insuff);
+				CommandOutcome.fail("The card is frozen");
+				return;
 			}
-		}
 
-		ObjectNode errorOutput = createErrorOutput(objectMapper, "Card not found");
-		commandOutput.set("output", errorOutput);
-		commandOutput.put("timestamp", timestamp);
-		output.add(commandOutput);
-	}
+			if (card instanceof OneTimeCard && ((OneTimeCard) card).isUsed()) {
+				CommandOutcome.fail("Card has already been used");
+				return;
+			}
 
-	/**
-	 * Creates a JSON error output node.
-	 *
-	 * @param objectMapper the JSON object mapper
-	 * @param description  the error description
-	 * @return a JSON node representing the error
-	 */
-	private ObjectNode createErrorOutput(ObjectMapper objectMapper, String description) {
-		ObjectNode errorOutput = objectMapper.createObjectNode();
-		errorOutput.put("timestamp", timestamp);
-		errorOutput.put("description", description);
-		return errorOutput;
+			double totalAmount = amount;
+			if (account.getPlan().equals("standard"))
+				totalAmount = amount + amount * 0.002;
+			else if (account.getPlan().equals("silver") && amount < Pair.convertCurrency(500,
+					"RON", currency, exchangeRates))
+				totalAmount = amount + amount * 0.001;
+
+			double convertedAmount = convertCurrency(totalAmount, currency, account.getCurrency(), exchangeRates);
+			if (convertedAmount < 0) {
+				CommandOutcome.fail("No exchange rate");
+				return;
+			}
+
+			if (account.getBalance() < convertedAmount) {
+				Transactions insuff = new Transactions("payOnline",
+						"Insufficient funds",
+						0.0,
+						null,
+						null,
+						timestamp,
+						null,
+						null,
+						null,
+						null,
+						null
+				);
+				account.getTransactions().add(insuff);
+				CommandOutcome.fail("Insufficient funds");
+				return;
+			}
+
+			account.setBalance(account.getBalance() - convertedAmount);
+			Transactions insuff = new Transactions("payOnline",
+					"Card payment",
+					Pair.convertCurrency(amount, currency, account.getCurrency(), exchangeRates),
+					null,
+					null,
+					timestamp,
+					null,
+					cardNumber,
+					null,
+					commerciant,
+					null
+			);
+			account.getTransactions().add(insuff);
+			if (card.isOneTimeCard()) {
+				((OneTimeCard) card).useCard();
+				card.setStatus("inactive");
+				//account.getCards().remove(card);
+
+				Transactions transaction = new Transactions(
+						"deleteCard",
+						"The card has been destroyed",
+						0.0,
+						null,
+						null,
+						timestamp,
+						null,
+						cardNumber,
+						user.getEmail(),
+						account.getIban(),
+						null
+				);
+
+				account.getTransactions().add(transaction);
+				String newCardNumber = Utils.generateCardNumber();
+				OneTimeCard newCard = new OneTimeCard();
+				newCard.setCardNumber(newCardNumber);
+				newCard.setStatus("active");
+				newCard.setTimestamp(timestamp);
+
+				Transactions transactions = new Transactions(
+						"createCard",
+						"New card created",
+						0.0,
+						account.getIban(),
+						null,
+						timestamp,
+						null,
+						newCardNumber,
+						user.getEmail(),
+						null,
+						null
+				);
+
+				account.getTransactions().add(transactions);
+				account.addCard(newCard);
+			}
+
+			return;
+		}
+
+		CommandOutcome.fail("Card not found");
+		CARD_NOT_FOUND.addTo(output, timestamp);
 	}
 
 }
@@ -1,13 +1,14 @@
 package org.poo.commands;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.poo.entities.Account;
 import org.poo.entities.Transactions;
 import org.poo.entities.User;
 import org.poo.entities.ValutarCourse;
+import org.poo.storage.BankIndex;
 
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -15,6 +16,16 @@ import java.util.*;
  */
 public class PrintTransactions implements Command {
 
+	/**
+	 * The output reported when the user is not found.
+	 */
+	private static final OutputFragment USER_NOT_FOUND = OutputFragment.builder()
+			.field("command", "printTransactions")
+			.object("output", OutputFragment.builder()
+					.timestamp("timestamp")
+					.field("description", "User not found"))
+			.build();
+
 	/**
 	 * The email of the user whose transactions are to be printed.
 	 */
@@ -51,43 +62,31 @@ public class PrintTransactions implements Command {
 	 */
 	@Override
 	public void execute(List<User> users, ArrayNode output) {
-		ObjectMapper objectMapper = new ObjectMapper();
-		ObjectNode commandOutput = objectMapper.createObjectNode();
-		commandOutput.put("command", "printTransactions");
-
-		User targetUser = findUserByEmail(users);
+		User targetUser = BankIndex.current().findUser(email);
 		if (targetUser == null) {
-			handleUserNotFound(objectMapper, commandOutput, output);
+			USER_NOT_FOUND.addTo(output, timestamp);
+			CommandOutcome.fail("User not found");
 			return;
 		}
 
 		List<Transactions> allTransactions = collectAllTransactions(targetUser);
-
-		ArrayNode transactionsArray = objectMapper.createArrayNode();
-		for (Transactions transaction : allTransactions) {
-			transactionsArray.add(createTransactionNode(transaction, objectMapper, targetUser));
-		}
-
-		if (transactionsArray.size() > 0) {
-			commandOutput.set("output", transactionsArray);
-			commandOutput.put("timestamp", timestamp);
-			output.add(commandOutput);
+		if (allTransactions.isEmpty()) {
+			return;
 		}
-	}
 
-	/**
-	 * Finds a user by their email.
-	 *
-	 * @param users the list of users to search
-	 * @return the User object if found, or null otherwise
-	 */
-	private User findUserByEmail(List<User> users) {
-		for (User user : users) {
-			if (user.getEmail().equals(email)) {
-				return user;
+		// Amounts sent are shown in the currency of the first account
+		String currency = targetUser.getAccounts().get(0).getCurrency();
+		new StreamedOutput() {
+			@Override
+			void write(JsonGenerator json) throws IOException {
+				json.writeStartObject();
+				json.writeStringField("command", "printTransactions");
+				json.writeFieldName("output");
+				TransactionSerializers.writeHistory(json, allTransactions, currency);
+				json.writeNumberField("timestamp", timestamp);
+				json.writeEndObject();
 			}
-		}
-		return null;
+		}.addTo(output);
 	}
 
 	/**
@@ -104,115 +103,4 @@ public class PrintTransactions implements Command {
 		allTransactions.sort(Comparator.comparingInt(Transactions::getTimestamp));
 		return allTransactions;
 	}
-
-	/**
-	 * Creates a JSON node representing a transaction.
-	 *
-	 * @param transaction the transaction to be represented
-	 * @param objectMapper the JSON object mapper
-	 * @param user the user associated with the transaction
-	 * @return the created JSON node
-	 */
-	private ObjectNode createTransactionNode(Transactions transaction, ObjectMapper objectMapper, User user) {
-		ObjectNode transactionNode = objectMapper.createObjectNode();
-		if (transaction.getTimestamp() != 0) {
-			transactionNode.put("timestamp", transaction.getTimestamp());
-		}
-
-		switch (transaction.getCommand()) {
-			case "addAccount":
-				transactionNode.put("description", "New account created");
-				break;
-			case "sendMoney":
-				transactionNode.put("description", transaction.getDescription());
-				if (transaction.getSenderIban() != null) {
-					transactionNode.put("senderIBAN", transaction.getSenderIban());
-				}
-				if (transaction.getReceiverIban() != null) {
-					transactionNode.put("receiverIBAN", transaction.getReceiverIban());
-				}
-				if (transaction.getAmount() != 0) {
-					transactionNode.put("amount", transaction.getAmount() + " " + user.getAccounts().get(0).getCurrency());
-				}
-				if (transaction.getTransferType() != null) {
-					transactionNode.put("transferType", transaction.getTransferType());
-				}
-				break;
-			case "payOnline":
-				transactionNode.put("description", transaction.getDescription());
-				if (transaction.getAmount() != 0) {
-					transactionNode.put("amount", transaction.getAmount());
-				}
-				if (transaction.getCommerciant() != null) {
-					transactionNode.put("commerciant", transaction.getCommerciant());
-				}
-				break;
-			case "createCard":
-			case "createOneTimeCard":
-				transactionNode.put("description", "New card created");
-				transactionNode.put("card", transaction.getCard());
-				transactionNode.put("cardHolder", transaction.getCardHolder());
-				transactionNode.put("account", transaction.getReceiverIban());
-				break;
-			case "deleteCard":
-				transactionNode.put("description", transaction.getDescription());
-				transactionNode.put("card", transaction.getCard());
-				transactionNode.put("cardHolder", transaction.getCardHolder());
-				transactionNode.put("account", transaction.getCommerciant());
-				break;
-			case "deleteAccount":
-				transactionNode.put("description", transaction.getDescription());
-				break;
-			case "checkCardStatus":
-				if (transaction.getDescription() != null) {
-					transactionNode.put("description", transaction.getDescription());
-				}
-				break;
-			case "splitPayment":
-				transactionNode.put("description", transaction.getDescription());
-				transactionNode.put("amount", transaction.getAmount());
-				transactionNode.put("currency", transaction.getTransferType());
-				ArrayNode accountsArray = transactionNode.putArray("involvedAccounts");
-				for (String account1 : transaction.getAccountsForSplit()) {
-					accountsArray.add(account1);
-				}
-				if (transaction.getCardHolder() != null) {
-					transactionNode.put("error", "Account " + transaction.getCardHolder() + " has insufficient funds for a split payment.");
-				}
-				break;
-			case "addInterest":
-			case "changeInterestRate":
-				transactionNode.put("description", transaction.getDescription());
-				transactionNode.put("timestamp", transaction.getTimestamp());
-				break;
-			case "withdrawSavings":
-				transactionNode.put("description", transaction.getDescription());
-				break;
-			case "upgradePlan":
-				transactionNode.put("accountIBAN", transaction.getCardHolder());
-				transactionNode.put("description", transaction.getDescription());
-				transactionNode.put("newPlanType", transaction.getSenderIBAN());
-				break;
-			case "cashWithdrawal":
-				transactionNode.put("description", transaction.getDescription());
-				transactionNode.put("amount", transaction.getAmount());
-				break;
-		}
-		return transactionNode;
-	}
-
-	/**
-	 * Handles the case where the user is not found.
-	 *
-	 * @param objectMapper the JSON object mapper
-	 * @param commandOutput the root command output node
-	 * @param output the JSON array node to which the command's output can be added
-	 */
-	private void handleUserNotFound(ObjectMapper objectMapper, ObjectNode commandOutput, ArrayNode output) {
-		ObjectNode errorOutput = objectMapper.createObjectNode();
-		errorOutput.put("timestamp", timestamp);
-		errorOutput.put("description", "User not found");
-		commandOutput.set("output", errorOutput);
-		output.add(commandOutput);
-	}
 }
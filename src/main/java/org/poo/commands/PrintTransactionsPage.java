@@ -0,0 +1,287 @@
+package org.poo.commands;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.poo.entities.Account;
+import org.poo.entities.TransactionHistory;
+import org.poo.entities.Transactions;
+import org.poo.entities.User;
+import org.poo.storage.BankIndex;
+import org.poo.storage.IdentifierCodes;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command printing one page of the transaction history of a user, in the order and
+ * layout of {@link PrintTransactions}, so that long histories can be read incrementally.
+ *
+ * <p>The page merges the histories of the user's accounts, which are in timestamp order,
+ * ties going to the account listed first. Its output carries an opaque
+ * {@code nextCursor} when more transactions follow; passing it back resumes the history
+ * right after the page. The cursor names the account, by its IBAN, and the position of
+ * the next transaction, so a page only reads the transactions it prints, whatever its
+ * position in the history. IBANs are never issued twice, so a cursor stays valid as long
+ * as its account exists and is rejected once it is deleted.
+ *
+ * <p>Resuming finds the position of the other accounts by binary search, which relies on
+ * the histories being in timestamp order. If a client sent commands out of order, the
+ * merge is replayed from the start of the history up to the cursor instead.
+ */
+public class PrintTransactionsPage implements Command {
+
+    /**
+     * Number of transactions per page when the command does not set it.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    /**
+     * Largest number of transactions per page, bounding the work of a single command.
+     */
+    public static final int MAX_PAGE_SIZE = 10_000;
+
+    /**
+     * Separates the account from the position in a cursor.
+     */
+    private static final char CURSOR_SEPARATOR = '.';
+
+    /**
+     * The output reported when the user is not found.
+     */
+    private static final OutputFragment USER_NOT_FOUND = errorOutput("User not found");
+
+    /**
+     * The output reported when the cursor is malformed or its account is gone.
+     */
+    private static final OutputFragment INVALID_CURSOR = errorOutput("Invalid cursor");
+
+    /**
+     * The email of the user whose transactions are printed.
+     */
+    private final String email;
+
+    /**
+     * The number of transactions per page.
+     */
+    private final int pageSize;
+
+    /**
+     * Where the page starts, null for the start of the history.
+     */
+    private final String cursor;
+
+    /**
+     * The timestamp of the command execution.
+     */
+    private final int timestamp;
+
+    /**
+     * Creates the command.
+     *
+     * @param email     the email of the user
+     * @param pageSize  the number of transactions per page, 0 for
+     *                  {@link #DEFAULT_PAGE_SIZE}; capped at {@link #MAX_PAGE_SIZE}
+     * @param cursor    the {@code nextCursor} of the previous page, null for the first
+     * @param timestamp the timestamp of the command execution
+     */
+    public PrintTransactionsPage(final String email, final int pageSize, final String cursor,
+                                 final int timestamp) {
+        this.email = email;
+        this.pageSize = pageSize <= 0 ? DEFAULT_PAGE_SIZE : Math.min(pageSize, MAX_PAGE_SIZE);
+        this.cursor = cursor;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Prints the page.
+     *
+     * @param users  the list of users
+     * @param output the JSON array node to which the page is added
+     */
+    @Override
+    public void execute(final List<User> users, final ArrayNode output) {
+        User user = BankIndex.current().findUser(email);
+        if (user == null) {
+            USER_NOT_FOUND.addTo(output, timestamp);
+            CommandOutcome.fail("User not found");
+            return;
+        }
+
+        List<Account> accounts = user.getAccounts();
+        TransactionHistory[] histories = new TransactionHistory[accounts.size()];
+        for (int i = 0; i < histories.length; i++) {
+            histories[i] = accounts.get(i).getTransactions();
+        }
+        int[] positions = new int[histories.length];
+        if (cursor != null && !seek(accounts, histories, positions)) {
+            INVALID_CURSOR.addTo(output, timestamp);
+            CommandOutcome.fail("Invalid cursor");
+            return;
+        }
+
+        Transactions[] heads = new Transactions[histories.length];
+        List<Transactions> page = new ArrayList<>();
+        int next = nextAccount(histories, positions, heads);
+        while (next >= 0 && page.size() < pageSize) {
+            page.add(heads[next]);
+            heads[next] = null;
+            positions[next]++;
+            next = nextAccount(histories, positions, heads);
+        }
+        String nextCursor = next < 0 ? null
+                : accountName(accounts.get(next)) + CURSOR_SEPARATOR
+                        + Integer.toString(positions[next], Character.MAX_RADIX);
+        // Amounts sent are shown in the currency of the first account, as in the full history
+        String currency = accounts.isEmpty() ? null : accounts.get(0).getCurrency();
+
+        new StreamedOutput() {
+            @Override
+            void write(final JsonGenerator json) throws IOException {
+                json.writeStartObject();
+                json.writeStringField("command", "printTransactionsPage");
+                json.writeObjectFieldStart("output");
+                json.writeFieldName("transactions");
+                TransactionSerializers.writeHistory(json, page, currency);
+                if (nextCursor != null) {
+                    json.writeStringField("nextCursor", nextCursor);
+                }
+                json.writeEndObject();
+                json.writeNumberField("timestamp", timestamp);
+                json.writeEndObject();
+            }
+        }.addTo(output);
+    }
+
+    /**
+     * Positions every history on the first transaction after the ones preceding the
+     * cursor in the merged order: those older than the transaction it names, or as old
+     * but in an account listed before, or earlier in the same account.
+     *
+     * @param accounts   the accounts of the user
+     * @param histories  their histories
+     * @param positions  receives the position of every history
+     * @return false if the cursor is malformed or names no transaction of the user
+     */
+    private boolean seek(final List<Account> accounts, final TransactionHistory[] histories,
+                         final int[] positions) {
+        int separator = cursor.lastIndexOf(CURSOR_SEPARATOR);
+        if (separator < 0) {
+            return false;
+        }
+        int position;
+        try {
+            position = Integer.parseInt(cursor.substring(separator + 1), Character.MAX_RADIX);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        String name = cursor.substring(0, separator);
+        int account = -1;
+        for (int i = 0; i < histories.length && account < 0; i++) {
+            if (accountName(accounts.get(i)).equals(name)) {
+                account = i;
+            }
+        }
+        if (account < 0 || position < 0 || position >= histories[account].size()) {
+            return false;
+        }
+        for (TransactionHistory history : histories) {
+            if (!history.isOrdered()) {
+                return replay(histories, positions, account, position);
+            }
+        }
+
+        int cursorTimestamp = histories[account].get(position).getTimestamp();
+        for (int i = 0; i < histories.length; i++) {
+            if (i == account) {
+                positions[i] = position;
+            } else if (i > account) {
+                positions[i] = histories[i].seek(cursorTimestamp);
+            } else if (cursorTimestamp == Integer.MAX_VALUE) {
+                positions[i] = histories[i].size();
+            } else {
+                positions[i] = histories[i].seek(cursorTimestamp + 1);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Positions every history where the merge stands when it reaches a transaction, by
+     * running the merge from the start of the histories.
+     *
+     * @param histories the histories of the accounts
+     * @param positions receives the position of every history
+     * @param account   the account of the transaction
+     * @param position  the position of the transaction in its history
+     * @return false if the merge never reaches the transaction
+     */
+    private static boolean replay(final TransactionHistory[] histories, final int[] positions,
+                                  final int account, final int position) {
+        Transactions[] heads = new Transactions[histories.length];
+        for (int next = nextAccount(histories, positions, heads); next >= 0;
+             next = nextAccount(histories, positions, heads)) {
+            if (next == account && positions[next] == position) {
+                return true;
+            }
+            heads[next] = null;
+            positions[next]++;
+        }
+        return false;
+    }
+
+    /**
+     * Finds the account whose next transaction comes first in the merged order, loading
+     * the next transaction of every account that has none loaded.
+     *
+     * @param histories the histories of the accounts
+     * @param positions the position of the next transaction of every history
+     * @param heads     the loaded next transactions, null where none is loaded yet
+     * @return the index of the account, -1 once every history is exhausted
+     */
+    private static int nextAccount(final TransactionHistory[] histories, final int[] positions,
+                                   final Transactions[] heads) {
+        int next = -1;
+        for (int i = 0; i < histories.length; i++) {
+            if (positions[i] >= histories[i].size()) {
+                continue;
+            }
+            if (heads[i] == null) {
+                heads[i] = histories[i].get(positions[i]);
+            }
+            if (next < 0 || heads[i].getTimestamp() < heads[next].getTimestamp()) {
+                next = i;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Returns the name of an account in the cursors: its packed IBAN code in base 36, or
+     * the IBAN itself if it does not pack.
+     *
+     * @param account the account
+     * @return the name
+     */
+    private static String accountName(final Account account) {
+        long code = IdentifierCodes.packIban(account.getIban());
+        return code == IdentifierCodes.NONE ? account.getIban()
+                : Long.toString(code, Character.MAX_RADIX);
+    }
+
+    /**
+     * Creates the output of a failed page.
+     *
+     * @param description the error description
+     * @return the output
+     */
+    private static OutputFragment errorOutput(final String description) {
+        return OutputFragment.builder()
+                .field("command", "printTransactionsPage")
+                .object("output", OutputFragment.builder()
+                        .timestamp("timestamp")
+                        .field("description", description))
+                .timestamp("timestamp")
+                .build();
+    }
+}
@@ -1,21 +1,32 @@
 package org.poo.commands;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.poo.entities.User;
 import org.poo.entities.Account;
 import org.poo.entities.Transactions;
 import org.poo.entities.ValutarCourse;
+import org.poo.storage.BankIndex;
 
+import java.io.IOException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Command implementation for generating a financial report of transactions within a time range.
  */
 public class Report implements Command {
 
+	/**
+	 * The output reported when the account is not found.
+	 */
+	private static final OutputFragment ACCOUNT_NOT_FOUND = OutputFragment.builder()
+			.field("command", "report")
+			.object("output", OutputFragment.builder()
+					.field("description", "Account not found")
+					.timestamp("timestamp"))
+			.timestamp("timestamp")
+			.build();
+
 	/**
 	 * The start timestamp of the report range.
 	 */
@@ -66,139 +77,34 @@ public class Report implements Command {
 	 */
 	@Override
 	public void execute(List<User> users, ArrayNode output) {
-		ObjectMapper mapper = new ObjectMapper();
-		ObjectNode commandNode = mapper.createObjectNode();
-		ObjectNode outputNode = mapper.createObjectNode();
-
-		Account targetAccount = findAccountByIban(users, accountIban);
+		Account targetAccount = BankIndex.current().findAccount(accountIban);
 
 		if (targetAccount != null) {
-			List<Transactions> filteredTransactions = targetAccount.getTransactions().stream()
-					.filter(t -> t.getTimestamp() >= startTimestamp && t.getTimestamp() <= endTimestamp)
-					.collect(Collectors.toList());
-
-			outputNode.put("balance", targetAccount.getBalance());
-			outputNode.put("currency", targetAccount.getCurrency());
-			outputNode.put("IBAN", targetAccount.getIban());
-
-			ArrayNode transactionsArray = mapper.createArrayNode();
-
-			for (Transactions t : filteredTransactions) {
-				transactionsArray.add(createTransactionNode(mapper, t));
-			}
-
-			outputNode.set("transactions", transactionsArray);
-
-			commandNode.put("command", "report");
-			commandNode.set("output", outputNode);
-			commandNode.put("timestamp", timestamp);
-			output.add(commandNode);
-		} else {
-			handleAccountNotFound(commandNode, outputNode, output);
-		}
-	}
-
-	/**
-	 * Finds an account by its IBAN.
-	 *
-	 * @param users the list of users to search
-	 * @param iban  the IBAN of the account
-	 * @return the Account object if found, or null otherwise
-	 */
-	private Account findAccountByIban(List<User> users, String iban) {
-		for (User user : users) {
-			for (Account account : user.getAccounts()) {
-				if (account.getIban().equals(iban)) {
-					return account;
-				}
-			}
-		}
-		return null;
-	}
-
-	/**
-	 * Creates a JSON node for a transaction.
-	 *
-	 * @param mapper      the JSON object mapper
-	 * @param transaction the transaction to represent
-	 * @return the JSON node representing the transaction
-	 */
-	private ObjectNode createTransactionNode(ObjectMapper mapper, Transactions transaction) {
-		ObjectNode transactionNode = mapper.createObjectNode();
-
-		switch (transaction.getCommand()) {
-			case "addAccount":
-				transactionNode.put("description", "New account created");
-				transactionNode.put("timestamp", transaction.getTimestamp());
-				break;
-			case "payOnline":
-				transactionNode.put("amount", transaction.getAmount());
-				transactionNode.put("commerciant", transaction.getCommerciant());
-				transactionNode.put("description", transaction.getDescription());
-				transactionNode.put("timestamp", transaction.getTimestamp());
-				break;
-			case "splitPayment":
-				transactionNode.put("description", transaction.getDescription());
-				transactionNode.put("amount", transaction.getAmount());
-				transactionNode.put("currency", transaction.getTransferType());
-				if (transaction.getCardHolder() != null) {
-					transactionNode.put("error", "Account " + transaction.getCardHolder() + " has insufficient funds for a split payment.");
-				}
-				ArrayNode accountsArray = transactionNode.putArray("involvedAccounts");
-				for (String account1 : transaction.getAccountsForSplit()) {
-					accountsArray.add(account1);
-				}
-				transactionNode.put("timestamp", transaction.getTimestamp());
-				break;
-			case "sendMoney":
-				if (transaction.getCurrency() != null) {
-					transactionNode.put("amount", transaction.getAmount() + " " + transaction.getCurrency());
-				}
-				transactionNode.put("description", transaction.getDescription());
-				if (transaction.getSenderIBAN() != null) {
-					transactionNode.put("senderIBAN", transaction.getSenderIBAN());
+			List<Transactions> filteredTransactions = targetAccount.getTransactions()
+					.range(startTimestamp, endTimestamp);
+			double balance = targetAccount.getBalance();
+			String currency = targetAccount.getCurrency();
+			String iban = targetAccount.getIban();
+
+			new StreamedOutput() {
+				@Override
+				void write(JsonGenerator json) throws IOException {
+					json.writeStartObject();
+					json.writeStringField("command", "report");
+					json.writeObjectFieldStart("output");
+					json.writeNumberField("balance", balance);
+					json.writeStringField("currency", currency);
+					json.writeStringField("IBAN", iban);
+					json.writeFieldName("transactions");
+					TransactionSerializers.writeStatement(json, filteredTransactions);
+					json.writeEndObject();
+					json.writeNumberField("timestamp", timestamp);
+					json.writeEndObject();
 				}
-				if (transaction.getReceiverIBAN() != null) {
-					transactionNode.put("receiverIBAN", transaction.getReceiverIBAN());
-				}
-				transactionNode.put("timestamp", transaction.getTimestamp());
-				if (transaction.getTransferType() != null) {
-					transactionNode.put("transferType", transaction.getTransferType());
-				}
-				break;
-			case "createCard":
-				transactionNode.put("account", transaction.getReceiverIban());
-				transactionNode.put("card", transaction.getCard());
-				transactionNode.put("cardHolder", transaction.getCardHolder());
-				transactionNode.put("description", "New card created");
-				transactionNode.put("timestamp", transaction.getTimestamp());
-				break;
-			case "deleteAccount":
-				transactionNode.put("description", transaction.getDescription());
-				transactionNode.put("timestamp", transaction.getTimestamp());
-				break;
-			default:
-				transactionNode.put("description", transaction.getDescription());
-				transactionNode.put("timestamp", transaction.getTimestamp());
-				break;
+			}.addTo(output);
+		} else {
+			ACCOUNT_NOT_FOUND.addTo(output, timestamp);
+			CommandOutcome.fail("Account not found");
 		}
-
-		return transactionNode;
-	}
-
-	/**
-	 * Handles the case where the target account is not found.
-	 *
-	 * @param commandNode the root command output node
-	 * @param outputNode  the JSON node containing error details
-	 * @param output      the JSON array node to which the error is added
-	 */
-	private void handleAccountNotFound(ObjectNode commandNode, ObjectNode outputNode, ArrayNode output) {
-		commandNode.put("command", "report");
-		outputNode.put("description", "Account not found");
-		outputNode.put("timestamp", timestamp);
-		commandNode.set("output", outputNode);
-		commandNode.put("timestamp", timestamp);
-		output.add(commandNode);
 	}
 }
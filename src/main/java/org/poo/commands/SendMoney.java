@@ -7,6 +7,7 @@ import org.poo.entities.Account;
 import org.poo.entities.Transactions;
 import org.poo.entities.User;
 import org.poo.entities.ValutarCourse;
+import org.poo.storage.BankIndex;
 import org.poo.utils.Pair;
 
 import java.util.*;
@@ -79,21 +80,11 @@ public class SendMoney implements Command {
 		ObjectNode commandOutput = objectMapper.createObjectNode();
 		commandOutput.put("command", "sendMoney");
 
-		Account sourceAccount = null;
-		Account targetAccount = null;
-
-		for (User user : users) {
-			for (Account acc : user.getAccounts()) {
-				if (acc.getIban().equals(account)) {
-					sourceAccount = acc;
-				}
-				if (acc.getIban().equals(receiver)) {
-					targetAccount = acc;
-				}
-			}
-		}
+		Account sourceAccount = BankIndex.current().findAccount(account);
+		Account targetAccount = BankIndex.current().findAccount(receiver);
 
 		if (sourceAccount == null || targetAccount == null) {
+			CommandOutcome.fail("Account not found");
 			return;
 		}
 
@@ -112,6 +103,7 @@ public class SendMoney implements Command {
 					null
 			);
 			sourceAccount.getTransactions().add(newTransaction);
+			CommandOutcome.fail("Insufficient funds");
 			return;
 		}
 
@@ -124,6 +116,7 @@ public class SendMoney implements Command {
 
 		double converted = convertCurrency(amount, targetAccount.getCurrency(), sourceAccount.getCurrency(), exchangeRates);
 		if (converted < 0) {
+			CommandOutcome.fail("No exchange rate");
 			return;
 		}
 
@@ -10,6 +10,7 @@ import org.poo.entities.SavingsAccount;
 import org.poo.entities.User;
 import org.poo.entities.Account;
 import org.poo.entities.Transactions;
+import org.poo.storage.BankIndex;
 
 import java.util.List;
 import java.util.Map;
@@ -19,6 +20,27 @@ import java.util.stream.Collectors;
  * Command to generate a spending report for a specific account within a time range.
  */
 public class SpendingsReport implements Command {
+	/**
+	 * The output reported when the account is not found.
+	 */
+	private static final OutputFragment ACCOUNT_NOT_FOUND = OutputFragment.builder()
+			.field("command", "spendingsReport")
+			.timestamp("timestamp")
+			.object("output", OutputFragment.builder()
+					.field("description", "Account not found")
+					.timestamp("timestamp"))
+			.build();
+
+	/**
+	 * The output reported for a savings account.
+	 */
+	private static final OutputFragment SAVINGS_NOT_SUPPORTED = OutputFragment.builder()
+			.field("command", "spendingsReport")
+			.timestamp("timestamp")
+			.object("output", OutputFragment.builder()
+					.field("error", "This kind of report is not supported for a saving account"))
+			.build();
+
 	/**
 	 * The starting timestamp for filtering transactions.
 	 */
@@ -62,38 +84,34 @@ public class SpendingsReport implements Command {
 	 */
 	@Override
 	public void execute(final List<User> users, final ArrayNode output) {
-		ObjectMapper mapper = new ObjectMapper();
-		ObjectNode commandNode = mapper.createObjectNode();
-		ObjectNode outputNode = mapper.createObjectNode();
-
-		Account targetAccount = findAccountByIban(users, accountIban);
-
-		// Prepare the command field in response
-		commandNode.put("command", "spendingsReport");
-		commandNode.put("timestamp", timestamp);
+		Account targetAccount = BankIndex.current().findAccount(accountIban);
 
 		if (targetAccount == null) {
 			// Account not found case
-			outputNode.put("description", "Account not found");
-			outputNode.put("timestamp", timestamp);
-			commandNode.set("output", outputNode);
-			output.add(commandNode);
+			ACCOUNT_NOT_FOUND.addTo(output, timestamp);
+			CommandOutcome.fail("Account not found");
 			return;
 		}
 
 		// Check if the account is a savings account
 		if (targetAccount instanceof SavingsAccount) {
 			// If it is a savings account, return the specified error message
-			ObjectNode errorOutput = mapper.createObjectNode();
-			errorOutput.put("error", "This kind of report is not supported for a saving account");
-			commandNode.set("output", errorOutput);
-			output.add(commandNode);
+			SAVINGS_NOT_SUPPORTED.addTo(output, timestamp);
+			CommandOutcome.fail("Savings account not supported");
 			return;
 		}
 
+		ObjectMapper mapper = new ObjectMapper();
+		ObjectNode commandNode = mapper.createObjectNode();
+		ObjectNode outputNode = mapper.createObjectNode();
+
+		// Prepare the command field in response
+		commandNode.put("command", "spendingsReport");
+		commandNode.put("timestamp", timestamp);
+
 		// Filter transactions: exclude "createCard" and "deleteCard" commands
-		List<Transactions> filteredTransactions = targetAccount.getTransactions().stream()
-				.filter(t -> t.getTimestamp() >= startTimestamp && t.getTimestamp() <= endTimestamp)
+		List<Transactions> filteredTransactions = targetAccount.getTransactions()
+				.range(startTimestamp, endTimestamp).stream()
 				.filter(t -> t.getCommerciant() != null && !t.getCommerciant().isEmpty())
 				.filter(t -> !("createCard".equals(t.getCommand()) || "deleteCard".equals(t.getCommand()))) // Exclude commands
 				.collect(Collectors.toList());
@@ -136,23 +154,4 @@ public class SpendingsReport implements Command {
 
 		output.add(commandNode);
 	}
-
-
-	/**
-	 * Finds an account by its IBAN.
-	 *
-	 * @param users The list of users to search through.
-	 * @param iban  The IBAN of the account to find.
-	 * @return The matching account, or null if not found.
-	 */
-	private Account findAccountByIban(final List<User> users, final String iban) {
-		for (User user : users) {
-			for (Account account : user.getAccounts()) {
-				if (account.getIban().equals(iban)) {
-					return account;
-				}
-			}
-		}
-		return null;
-	}
 }
@@ -5,8 +5,10 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.poo.entities.User;
 import org.poo.entities.Account;
+import org.poo.entities.TransactionDescription;
 import org.poo.entities.Transactions;
 import org.poo.entities.ValutarCourse;
+import org.poo.storage.BankIndex;
 
 import java.util.*;
 
@@ -77,7 +79,7 @@ public class SplitPayment implements Command {
         String failingAccount = null;
 
         for (String iban : accountsForSplit) {
-            Account account = findAccountByIban(users, iban);
+            Account account = BankIndex.current().findAccount(iban);
             if (account == null || account.getBalance() < convertCurrency(amountPerAccount, currency, account.getCurrency(), exchangeRates)) {
                 paymentValid = false;
                 failingAccount = iban;
@@ -85,11 +87,11 @@ public class SplitPayment implements Command {
         }
 
         for (String iban : accountsForSplit) {
-            Account account = findAccountByIban(users, iban);
+            Account account = BankIndex.current().findAccount(iban);
             if (account != null) {
                 Transactions transaction = new Transactions(
                         "splitPayment",
-                        "Split payment of " + String.format("%.2f", amount) + " " + currency,
+                        null,
                         amountPerAccount,
                         iban,
                         null,
@@ -100,6 +102,7 @@ public class SplitPayment implements Command {
                         null,
                         accountsForSplit
                 );
+                transaction.setDescription(TransactionDescription.SPLIT_PAYMENT, amount);
 
                 account.getTransactions().add(transaction);
 
@@ -108,23 +111,8 @@ public class SplitPayment implements Command {
                 }
             }
         }
-    }
-
-    /**
-     * Finds an account by its IBAN.
-     *
-     * @param users the list of users to search
-     * @param iban  the IBAN of the account
-     * @return the Account object if found, or null otherwise
-     */
-    private Account findAccountByIban(List<User> users, String iban) {
-        for (User user : users) {
-            for (Account account : user.getAccounts()) {
-                if (account.getIban().equals(iban)) {
-                    return account;
-                }
-            }
+        if (!paymentValid) {
+            CommandOutcome.fail("Insufficient funds");
         }
-        return null;
     }
 }
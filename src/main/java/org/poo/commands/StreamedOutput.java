@@ -0,0 +1,48 @@
+package org.poo.commands;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+import java.io.IOException;
+
+/**
+ * A command output written straight to the generator when the outputs are serialized,
+ * instead of being built as a tree of nodes first. Whatever it writes must be captured
+ * when the command runs, since the bank state may change before serialization.
+ */
+abstract class StreamedOutput implements JsonSerializable {
+
+    /**
+     * Writes the output as one JSON value.
+     *
+     * @param json the generator
+     * @throws IOException if writing fails
+     */
+    abstract void write(JsonGenerator json) throws IOException;
+
+    /**
+     * Appends the output to the command outputs.
+     *
+     * @param output the command outputs
+     */
+    final void addTo(final ArrayNode output) {
+        output.addPOJO(this);
+    }
+
+    @Override
+    public final void serialize(final JsonGenerator json, final SerializerProvider provider)
+            throws IOException {
+        write(json);
+    }
+
+    @Override
+    public final void serializeWithType(final JsonGenerator json,
+                                        final SerializerProvider provider,
+                                        final TypeSerializer typeSerializer)
+            throws IOException {
+        write(json);
+    }
+}
@@ -0,0 +1,271 @@
+package org.poo.commands;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.poo.entities.TransactionKind;
+import org.poo.entities.Transactions;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serializers writing transactions straight to a JSON generator, one per
+ * {@link TransactionKind}, in the key order of the output that lists them. The
+ * transaction history printed by {@link PrintTransactions} and the account statement of
+ * {@link Report} lay the kinds out differently, so each has its own table.
+ */
+final class TransactionSerializers {
+
+    /**
+     * Serializers of the transaction history, which leads with the timestamp.
+     */
+    private static final Map<TransactionKind, Serializer> HISTORY =
+            new EnumMap<>(TransactionKind.class);
+
+    /**
+     * Serializers of the account statement.
+     */
+    private static final Map<TransactionKind, Serializer> STATEMENT =
+            new EnumMap<>(TransactionKind.class);
+
+    /**
+     * Writes nothing.
+     */
+    private static final Serializer NONE = (json, transaction, currency) -> { };
+
+    static {
+        HISTORY.put(TransactionKind.ADD_ACCOUNT, (json, transaction, currency) ->
+                json.writeStringField("description", "New account created"));
+        HISTORY.put(TransactionKind.SEND_MONEY, (json, transaction, currency) -> {
+            json.writeStringField("description", transaction.getDescription());
+            if (transaction.getSenderIban() != null) {
+                json.writeStringField("senderIBAN", transaction.getSenderIban());
+            }
+            if (transaction.getReceiverIban() != null) {
+                json.writeStringField("receiverIBAN", transaction.getReceiverIban());
+            }
+            if (transaction.getAmount() != 0) {
+                json.writeStringField("amount", transaction.getAmount() + " " + currency);
+            }
+            if (transaction.getTransferType() != null) {
+                json.writeStringField("transferType", transaction.getTransferType());
+            }
+        });
+        HISTORY.put(TransactionKind.PAY_ONLINE, (json, transaction, currency) -> {
+            json.writeStringField("description", transaction.getDescription());
+            if (transaction.getAmount() != 0) {
+                json.writeNumberField("amount", transaction.getAmount());
+            }
+            if (transaction.getCommerciant() != null) {
+                json.writeStringField("commerciant", transaction.getCommerciant());
+            }
+        });
+        Serializer createCard = (json, transaction, currency) -> {
+            json.writeStringField("description", "New card created");
+            json.writeStringField("card", transaction.getCard());
+            json.writeStringField("cardHolder", transaction.getCardHolder());
+            json.writeStringField("account", transaction.getReceiverIban());
+        };
+        HISTORY.put(TransactionKind.CREATE_CARD, createCard);
+        HISTORY.put(TransactionKind.CREATE_ONE_TIME_CARD, createCard);
+        HISTORY.put(TransactionKind.DELETE_CARD, (json, transaction, currency) -> {
+            json.writeStringField("description", transaction.getDescription());
+            json.writeStringField("card", transaction.getCard());
+            json.writeStringField("cardHolder", transaction.getCardHolder());
+            json.writeStringField("account", transaction.getCommerciant());
+        });
+        HISTORY.put(TransactionKind.DELETE_ACCOUNT, TransactionSerializers::writeDescription);
+        HISTORY.put(TransactionKind.CHECK_CARD_STATUS, (json, transaction, currency) -> {
+            if (transaction.getDescription() != null) {
+                json.writeStringField("description", transaction.getDescription());
+            }
+        });
+        HISTORY.put(TransactionKind.SPLIT_PAYMENT, (json, transaction, currency) -> {
+            json.writeStringField("description", transaction.getDescription());
+            json.writeNumberField("amount", transaction.getAmount());
+            json.writeStringField("currency", transaction.getTransferType());
+            writeInvolvedAccounts(json, transaction);
+            writeSplitError(json, transaction);
+        });
+        // The timestamp leads the entry unless it is 0, in which case it comes last.
+        Serializer interest = (json, transaction, currency) -> {
+            json.writeStringField("description", transaction.getDescription());
+            if (transaction.getTimestamp() == 0) {
+                json.writeNumberField("timestamp", 0);
+            }
+        };
+        HISTORY.put(TransactionKind.ADD_INTEREST, interest);
+        HISTORY.put(TransactionKind.CHANGE_INTEREST_RATE, interest);
+        HISTORY.put(TransactionKind.WITHDRAW_SAVINGS, TransactionSerializers::writeDescription);
+        HISTORY.put(TransactionKind.UPGRADE_PLAN, (json, transaction, currency) -> {
+            json.writeStringField("accountIBAN", transaction.getCardHolder());
+            json.writeStringField("description", transaction.getDescription());
+            json.writeStringField("newPlanType", transaction.getSenderIban());
+        });
+        HISTORY.put(TransactionKind.CASH_WITHDRAWAL, (json, transaction, currency) -> {
+            json.writeStringField("description", transaction.getDescription());
+            json.writeNumberField("amount", transaction.getAmount());
+        });
+        HISTORY.put(TransactionKind.OTHER, NONE);
+
+        for (TransactionKind kind : TransactionKind.values()) {
+            STATEMENT.put(kind, (json, transaction, currency) -> {
+                writeDescription(json, transaction, currency);
+                json.writeNumberField("timestamp", transaction.getTimestamp());
+            });
+        }
+        STATEMENT.put(TransactionKind.ADD_ACCOUNT, (json, transaction, currency) -> {
+            json.writeStringField("description", "New account created");
+            json.writeNumberField("timestamp", transaction.getTimestamp());
+        });
+        STATEMENT.put(TransactionKind.PAY_ONLINE, (json, transaction, currency) -> {
+            json.writeNumberField("amount", transaction.getAmount());
+            json.writeStringField("commerciant", transaction.getCommerciant());
+            json.writeStringField("description", transaction.getDescription());
+            json.writeNumberField("timestamp", transaction.getTimestamp());
+        });
+        STATEMENT.put(TransactionKind.SPLIT_PAYMENT, (json, transaction, currency) -> {
+            json.writeStringField("description", transaction.getDescription());
+            json.writeNumberField("amount", transaction.getAmount());
+            json.writeStringField("currency", transaction.getTransferType());
+            writeSplitError(json, transaction);
+            writeInvolvedAccounts(json, transaction);
+            json.writeNumberField("timestamp", transaction.getTimestamp());
+        });
+        STATEMENT.put(TransactionKind.SEND_MONEY, (json, transaction, currency) -> {
+            if (transaction.getCurrency() != null) {
+                json.writeStringField("amount",
+                        transaction.getAmount() + " " + transaction.getCurrency());
+            }
+            json.writeStringField("description", transaction.getDescription());
+            if (transaction.getSenderIban() != null) {
+                json.writeStringField("senderIBAN", transaction.getSenderIban());
+            }
+            if (transaction.getReceiverIban() != null) {
+                json.writeStringField("receiverIBAN", transaction.getReceiverIban());
+            }
+            json.writeNumberField("timestamp", transaction.getTimestamp());
+            if (transaction.getTransferType() != null) {
+                json.writeStringField("transferType", transaction.getTransferType());
+            }
+        });
+        STATEMENT.put(TransactionKind.CREATE_CARD, (json, transaction, currency) -> {
+            json.writeStringField("account", transaction.getReceiverIban());
+            json.writeStringField("card", transaction.getCard());
+            json.writeStringField("cardHolder", transaction.getCardHolder());
+            json.writeStringField("description", "New card created");
+            json.writeNumberField("timestamp", transaction.getTimestamp());
+        });
+    }
+
+    /**
+     * Private constructor to prevent instantiation of the utility class.
+     */
+    private TransactionSerializers() {
+    }
+
+    /**
+     * Writes the transaction history of a user, as listed by {@link PrintTransactions}.
+     *
+     * @param json         the generator
+     * @param transactions the transactions, in output order
+     * @param currency     the currency shown with the amounts sent
+     * @throws IOException if writing fails
+     */
+    static void writeHistory(final JsonGenerator json, final List<Transactions> transactions,
+                             final String currency) throws IOException {
+        json.writeStartArray();
+        for (Transactions transaction : transactions) {
+            json.writeStartObject();
+            if (transaction.getTimestamp() != 0) {
+                json.writeNumberField("timestamp", transaction.getTimestamp());
+            }
+            HISTORY.get(transaction.getKind()).write(json, transaction, currency);
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+    }
+
+    /**
+     * Writes the transactions of an account statement, as listed by {@link Report}.
+     *
+     * @param json         the generator
+     * @param transactions the transactions, in output order
+     * @throws IOException if writing fails
+     */
+    static void writeStatement(final JsonGenerator json, final List<Transactions> transactions)
+            throws IOException {
+        json.writeStartArray();
+        for (Transactions transaction : transactions) {
+            json.writeStartObject();
+            STATEMENT.get(transaction.getKind()).write(json, transaction, null);
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+    }
+
+    /**
+     * Writes the description of a transaction.
+     *
+     * @param json        the generator
+     * @param transaction the transaction
+     * @param currency    unused
+     * @throws IOException if writing fails
+     */
+    private static void writeDescription(final JsonGenerator json,
+                                         final Transactions transaction,
+                                         final String currency) throws IOException {
+        json.writeStringField("description", transaction.getDescription());
+    }
+
+    /**
+     * Writes the accounts sharing a split payment.
+     *
+     * @param json        the generator
+     * @param transaction the split payment
+     * @throws IOException if writing fails
+     */
+    private static void writeInvolvedAccounts(final JsonGenerator json,
+                                              final Transactions transaction)
+            throws IOException {
+        json.writeArrayFieldStart("involvedAccounts");
+        for (String account : transaction.getAccountsForSplit()) {
+            json.writeString(account);
+        }
+        json.writeEndArray();
+    }
+
+    /**
+     * Writes the account that could not pay its share of a split payment, if any.
+     *
+     * @param json        the generator
+     * @param transaction the split payment
+     * @throws IOException if writing fails
+     */
+    private static void writeSplitError(final JsonGenerator json,
+                                        final Transactions transaction) throws IOException {
+        if (transaction.getCardHolder() != null) {
+            json.writeStringField("error", "Account " + transaction.getCardHolder()
+                    + " has insufficient funds for a split payment.");
+        }
+    }
+
+    /**
+     * Writes the fields of one kind of transaction.
+     */
+    @FunctionalInterface
+    private interface Serializer {
+
+        /**
+         * Writes the fields of a transaction, inside its object.
+         *
+         * @param json        the generator
+         * @param transaction the transaction
+         * @param currency    the currency shown with the amounts sent, for the history
+         * @throws IOException if writing fails
+         */
+        void write(JsonGenerator json, Transactions transaction, String currency)
+                throws IOException;
+    }
+}
@@ -6,6 +6,7 @@ import org.poo.entities.Transactions;
 import org.poo.entities.User;
 import org.poo.entities.ValutarCourse;
 import org.poo.utils.Pair;
+import org.poo.storage.BankIndex;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -25,7 +26,7 @@ public class UpgradePlan implements Command{
 
 	@Override
 	public void execute(List<User> users, ArrayNode output) {
-		Account targetAccount = findAccountByIban(users, account);
+		Account targetAccount = BankIndex.current().findAccount(account);
 		if (plan.equals("silver")) {
 			targetAccount.setPlan("silver");
 			targetAccount.setBalance(targetAccount.getBalance() - Pair.convertCurrency(100, "RON", targetAccount.getCurrency(), exchangeRates));
@@ -52,15 +53,4 @@ public class UpgradePlan implements Command{
 		);
 		targetAccount.getTransactions().add(transaction);
 	}
-
-	private Account findAccountByIban(final List<User> users, final String iban) {
-		for (User user : users) {
-			for (Account account : user.getAccounts()) {
-				if (account.getIban().equals(iban)) {
-					return account;
-				}
-			}
-		}
-		return null;
-	}
 }
@@ -7,6 +7,7 @@ import org.poo.entities.Transactions;
 import org.poo.entities.User;
 import org.poo.entities.ValutarCourse;
 import org.poo.utils.Pair;
+import org.poo.storage.BankIndex;
 
 import java.time.LocalDate;
 import java.time.Period;
@@ -29,13 +30,15 @@ public class WithdrawSavings implements Command {
 	}
 
 	public void execute(List<User> users, ArrayNode output) {
-		Account targetAccount = findAccountByIban(users, account);
+		Account targetAccount = BankIndex.current().findAccount(account);
 		if (targetAccount == null) {
+			CommandOutcome.fail("Account not found");
 			return;
 		}
 
-		User accountOwner = findUserByAccount(users, targetAccount);
+		User accountOwner = BankIndex.current().findOwner(targetAccount);
 		if (accountOwner == null) {
+			CommandOutcome.fail("User not found");
 			return;
 		}
 
@@ -55,6 +58,7 @@ public class WithdrawSavings implements Command {
 					null
 			);
 			targetAccount.getTransactions().add(newTransaction);
+			CommandOutcome.fail("Minimum age not met");
 			return;
 		}
 
@@ -74,25 +78,4 @@ public class WithdrawSavings implements Command {
 		LocalDate today = LocalDate.now();
 		return Period.between(birth, today).getYears() >= 21;
 	}
-
-	// Metodă pentru a găsi utilizatorul pe baza contului
-	private User findUserByAccount(List<User> users, Account account) {
-		for (User user : users) {
-			if (user.getAccounts().contains(account)) {
-				return user;
-			}
-		}
-		return null;
-	}
-
-	private Account findAccountByIban(final List<User> users, final String iban) {
-		for (User user : users) {
-			for (Account account : user.getAccounts()) {
-				if (account.getIban().equals(iban)) {
-					return account;
-				}
-			}
-		}
-		return null;
-	}
 }
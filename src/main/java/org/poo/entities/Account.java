@@ -1,9 +1,14 @@
 package org.poo.entities;
 
+import org.poo.storage.AccountTable;
+import org.poo.storage.BankIndex;
+
 import java.util.ArrayList;
 
 /**
  * Represents a bank account entity with various attributes such as IBAN, balance, currency, and cards.
+ * The balance, minimum balance, currency, type and plan are stored off-heap in a row of the
+ * {@link AccountTable}; the getters and setters read and write that row.
  */
 public class Account {
 
@@ -13,19 +18,14 @@ public class Account {
 	private String iban;
 
 	/**
-	 * The current balance of the account.
-	 */
-	private double balance;
-
-	/**
-	 * The currency of the account.
+	 * The table holding the scalar columns of the account.
 	 */
-	private String currency;
+	private final AccountTable table = AccountTable.current();
 
 	/**
-	 * The type of the account (e.g., savings, current).
+	 * The handle of the account's row in {@link #table}.
 	 */
-	private String type;
+	private final int handle = table.allocate();
 
 	/**
 	 * The list of cards associated with the account.
@@ -35,25 +35,17 @@ public class Account {
 	/**
 	 * The list of transactions associated with the account.
 	 */
-	private ArrayList<Transactions> transactions = new ArrayList<>();
+	private TransactionHistory transactions = new TransactionHistory();
 
 	/**
 	 * An optional alias for the account.
 	 */
 	private String alias;
 
-	/**
-	 * The minimum balance that must be maintained in the account.
-	 */
-	private double minimumBalance;
-
-	private String plan = "standard";
-
 	/**
 	 * Default constructor initializing the balance to 0.0.
 	 */
 	public Account() {
-		this.balance = 0.0;
 	}
 
 	/**
@@ -65,9 +57,8 @@ public class Account {
 	 */
 	public Account(String iban, String currency, String type) {
 		this.iban = iban;
-		this.balance = 0.0;
-		this.currency = currency;
-		this.type = type;
+		table.setCurrency(handle, currency);
+		table.setType(handle, type);
 	}
 
 	/**
@@ -77,7 +68,7 @@ public class Account {
 	 */
 	public void deposit(double amount) {
 		if (amount > 0) {
-			balance += amount;
+			table.addToBalance(handle, amount);
 		}
 	}
 
@@ -88,6 +79,33 @@ public class Account {
 	 */
 	public void addCard(Card card) {
 		cards.add(card);
+		BankIndex.current().addCard(this, card);
+	}
+
+	/**
+	 * Removes a card from the account.
+	 *
+	 * @param card the card to remove
+	 */
+	public void removeCard(Card card) {
+		if (cards.remove(card)) {
+			BankIndex.current().removeCard(this, card);
+		}
+	}
+
+	/**
+	 * Finds a card of the account by number.
+	 *
+	 * @param cardNumber the card number
+	 * @return the card, or null if the account does not hold it
+	 */
+	public Card findCard(String cardNumber) {
+		for (Card card : cards) {
+			if (card.getCardNumber().equals(cardNumber)) {
+				return card;
+			}
+		}
+		return null;
 	}
 
 	/**
@@ -96,7 +114,7 @@ public class Account {
 	 * @return the balance
 	 */
 	public double getBalance() {
-		return balance;
+		return table.getBalance(handle);
 	}
 
 	/**
@@ -114,7 +132,7 @@ public class Account {
 	 * @return the currency
 	 */
 	public String getCurrency() {
-		return currency;
+		return table.getCurrency(handle);
 	}
 
 	/**
@@ -123,7 +141,7 @@ public class Account {
 	 * @return the type
 	 */
 	public String getType() {
-		return type;
+		return table.getType(handle);
 	}
 
 	/**
@@ -141,7 +159,7 @@ public class Account {
 	 * @param balance the new balance
 	 */
 	public void setBalance(double balance) {
-		this.balance = balance;
+		table.setBalance(handle, balance);
 	}
 
 	/**
@@ -150,7 +168,7 @@ public class Account {
 	 * @param currency the new currency
 	 */
 	public void setCurrency(String currency) {
-		this.currency = currency;
+		table.setCurrency(handle, currency);
 	}
 
 	/**
@@ -159,7 +177,7 @@ public class Account {
 	 * @param type the new type
 	 */
 	public void setType(String type) {
-		this.type = type;
+		table.setType(handle, type);
 	}
 
 	/**
@@ -177,13 +195,16 @@ public class Account {
 	 * @param amount the amount to add
 	 */
 	public void addFunds(double amount) {
-		this.balance += amount;
+		table.addToBalance(handle, amount);
 	}
 
 	/**
 	 * Deletes all cards associated with the account.
 	 */
 	public void deleteAllCards() {
+		for (Card card : cards) {
+			BankIndex.current().removeCard(this, card);
+		}
 		this.cards.clear();
 	}
 
@@ -197,11 +218,11 @@ public class Account {
 	}
 
 	/**
-	 * Returns the list of transactions associated with the account.
+	 * Returns the transaction history of the account.
 	 *
-	 * @return the list of transactions
+	 * @return the transaction history, oldest first
 	 */
-	public ArrayList<Transactions> getTransactions() {
+	public TransactionHistory getTransactions() {
 		return transactions;
 	}
 
@@ -229,7 +250,7 @@ public class Account {
 	 * @param minimumBalance the minimum balance to set
 	 */
 	public void setMinimumBalance(double minimumBalance) {
-		this.minimumBalance = minimumBalance;
+		table.setMinimumBalance(handle, minimumBalance);
 	}
 
 	/**
@@ -238,7 +259,7 @@ public class Account {
 	 * @return the minimum balance
 	 */
 	public double getMinimumBalance() {
-		return minimumBalance;
+		return table.getMinimumBalance(handle);
 	}
 
 	/**
@@ -251,11 +272,30 @@ public class Account {
     }
 
 	public void setPlan(String plan) {
-		this.plan = plan;
+		table.setPlan(handle, plan);
 	}
 
 	public String getPlan() {
-		return plan;
+		return table.getPlan(handle);
+	}
+
+	/**
+	 * Returns the handle of the account's row in the account table.
+	 *
+	 * @return the row handle
+	 */
+	public int getHandle() {
+		return handle;
+	}
+
+	/**
+	 * Drops the account from the bank index and releases its row and its archived
+	 * transactions once the account is deleted. The account must not be used afterwards.
+	 */
+	public void release() {
+		BankIndex.current().removeAccount(this);
+		transactions.release();
+		table.free(handle);
 	}
 
     /**
@@ -0,0 +1,278 @@
+package org.poo.entities;
+
+import java.util.Arrays;
+
+/**
+ * Activity totals of an account, in Fenwick trees keyed by ascending ints, so that the
+ * totals of any range of keys are summed in O(log n). The totals are the money spent and
+ * received, in cents, and the numbers of card payments and of transactions; all are
+ * longs, so sums are exact whatever the length of the history.
+ *
+ * <p>A {@link TransactionHistory} keeps two of them: one keyed by the timestamps of its
+ * in-memory transactions, rebuilt when they are sealed, and one keyed by its sealed
+ * segments. The trees thus grow with the memory tier and with the number of segments,
+ * not with the archived transactions.
+ *
+ * <p>Only amounts recorded in the account currency are summed: card payments and
+ * transfers sent are spent, transfers received and interest are received. Cash
+ * withdrawals and split payment shares are recorded in the currency of the operation, so
+ * they count as transactions only.
+ *
+ * <p>Not thread-safe.
+ */
+public final class AccountActivity {
+
+    /**
+     * Total of the money spent, in cents.
+     */
+    public static final int SPENT = 0;
+
+    /**
+     * Total of the money received, in cents.
+     */
+    public static final int RECEIVED = 1;
+
+    /**
+     * Number of card payments.
+     */
+    public static final int CARD_PAYMENTS = 2;
+
+    /**
+     * Number of transactions.
+     */
+    public static final int TRANSACTIONS = 3;
+
+    /**
+     * Number of totals kept per key.
+     */
+    public static final int FIELDS = 4;
+
+    /**
+     * Cents in a unit of currency.
+     */
+    public static final double CENTS = 100.0;
+
+    /**
+     * Smallest number of keys the trees are allocated for.
+     */
+    private static final int MIN_CAPACITY = 8;
+
+    /**
+     * The keys having totals, ascending; the first {@link #size} are used.
+     */
+    private int[] keys = new int[0];
+
+    /**
+     * The Fenwick trees, interleaved: the node of the i-th key, counting from 1, holds its
+     * {@link #FIELDS} totals from {@code i * FIELDS}.
+     */
+    private long[] tree = new long[0];
+
+    /**
+     * Number of keys having totals.
+     */
+    private int size;
+
+    /**
+     * Sets the totals of a single transaction.
+     *
+     * @param transaction the transaction
+     * @param totals      receives its totals, indexed by {@link #SPENT}, {@link #RECEIVED},
+     *                    {@link #CARD_PAYMENTS} and {@link #TRANSACTIONS}
+     */
+    public static void classify(final Transactions transaction, final long[] totals) {
+        Arrays.fill(totals, 0);
+        totals[TRANSACTIONS] = 1;
+        switch (transaction.getKind()) {
+            case PAY_ONLINE:
+                // refused payments carry no commerciant
+                if (transaction.getCommerciant() != null) {
+                    totals[SPENT] = cents(transaction.getAmount());
+                    totals[CARD_PAYMENTS] = 1;
+                }
+                break;
+            case SEND_MONEY:
+                if ("sent".equals(transaction.getTransferType())) {
+                    totals[SPENT] = cents(transaction.getAmount());
+                } else if ("received".equals(transaction.getTransferType())) {
+                    totals[RECEIVED] = cents(transaction.getAmount());
+                }
+                break;
+            case ADD_INTEREST:
+                totals[RECEIVED] = cents(transaction.getAmount());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Rounds an amount to cents.
+     *
+     * @param amount the amount
+     * @return the amount in cents
+     */
+    public static long cents(final double amount) {
+        return Math.round(amount * CENTS);
+    }
+
+    /**
+     * Adds totals to a key. A key after the last one becomes a new node, which is the
+     * common case since keys come in order; an earlier one not seen before is inserted
+     * and the trees rebuilt.
+     *
+     * @param key    the key
+     * @param totals the totals to add
+     */
+    public void add(final int key, final long[] totals) {
+        if (size == 0 || key > keys[size - 1]) {
+            append(key, totals);
+            return;
+        }
+        int position = Arrays.binarySearch(keys, 0, size, key);
+        if (position >= 0) {
+            for (int node = position + 1; node <= size; node += node & -node) {
+                for (int field = 0; field < FIELDS; field++) {
+                    tree[node * FIELDS + field] += totals[field];
+                }
+            }
+        } else {
+            insert(-position - 1, key, totals);
+        }
+    }
+
+    /**
+     * Adds the totals of a range of keys.
+     *
+     * @param fromKey the start of the range, inclusive
+     * @param toKey   the end of the range, inclusive
+     * @param totals  the totals the range is added to
+     */
+    public void sum(final int fromKey, final int toKey, final long[] totals) {
+        if (fromKey > toKey) {
+            return;
+        }
+        prefix(countUpTo(toKey), totals, 1);
+        prefix(countUpTo(fromKey - 1L), totals, -1);
+    }
+
+    /**
+     * Removes every key, keeping the allocated trees.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns the number of keys having totals.
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of keys the trees are allocated for.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Appends a node for a key after every other one. The node covers the keys since the
+     * one cleared by its lowest bit, whose totals are summed from the nodes before it.
+     *
+     * @param key    the key
+     * @param totals its totals
+     */
+    private void append(final int key, final long[] totals) {
+        if (size == keys.length) {
+            int capacity = Math.max(MIN_CAPACITY, keys.length * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            tree = Arrays.copyOf(tree, (capacity + 1) * FIELDS);
+        }
+        keys[size] = key;
+        int node = ++size;
+        int base = node * FIELDS;
+        System.arraycopy(totals, 0, tree, base, FIELDS);
+        int stop = node - (node & -node);
+        for (int child = node - 1; child > stop; child -= child & -child) {
+            for (int field = 0; field < FIELDS; field++) {
+                tree[base + field] += tree[child * FIELDS + field];
+            }
+        }
+    }
+
+    /**
+     * Inserts a key before the last one and rebuilds the trees.
+     *
+     * @param position the position of the key among the ones having totals
+     * @param key      the key
+     * @param totals   its totals
+     */
+    private void insert(final int position, final int key, final long[] totals) {
+        int[] oldKeys = Arrays.copyOf(keys, size);
+        long[] values = new long[size * FIELDS];
+        long[] previous = new long[FIELDS];
+        long[] current = new long[FIELDS];
+        for (int i = 1; i <= size; i++) {
+            Arrays.fill(current, 0);
+            prefix(i, current, 1);
+            for (int field = 0; field < FIELDS; field++) {
+                values[(i - 1) * FIELDS + field] = current[field] - previous[field];
+            }
+            System.arraycopy(current, 0, previous, 0, FIELDS);
+        }
+
+        int count = size;
+        size = 0;
+        long[] node = new long[FIELDS];
+        for (int i = 0; i <= count; i++) {
+            if (i == position) {
+                append(key, totals);
+            }
+            if (i < count) {
+                System.arraycopy(values, i * FIELDS, node, 0, FIELDS);
+                append(oldKeys[i], node);
+            }
+        }
+    }
+
+    /**
+     * Adds the totals of the first keys.
+     *
+     * @param count  the number of keys
+     * @param totals receives the totals
+     * @param sign   1 to add them, -1 to subtract them
+     */
+    private void prefix(final int count, final long[] totals, final int sign) {
+        for (int node = count; node > 0; node -= node & -node) {
+            for (int field = 0; field < FIELDS; field++) {
+                totals[field] += sign * tree[node * FIELDS + field];
+            }
+        }
+    }
+
+    /**
+     * Counts the keys up to a bound.
+     *
+     * @param bound the bound, inclusive
+     * @return the number of keys not after it
+     */
+    private int countUpTo(final long bound) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] <= bound) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -83,6 +83,15 @@ public class Card {
 		this.minimumBalance = minimumBalance;
 	}
 
+	/**
+	 * Returns the minimum balance required for the card.
+	 *
+	 * @return the minimum balance
+	 */
+	public double getMinimumBalance() {
+		return minimumBalance;
+	}
+
 	/**
 	 * Determines if this card is a one-time card.
 	 *
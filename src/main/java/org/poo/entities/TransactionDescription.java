@@ -0,0 +1,51 @@
+package org.poo.entities;
+
+/**
+ * Description of a transaction kept as a template and its argument instead of rendered
+ * text. Most transactions are never printed, so their description is only rendered when
+ * a report serializes them, sparing the formatting and the string on the command path.
+ *
+ * <p>The ordinal is persisted by the snapshots and the history archive: new templates go
+ * at the end.
+ */
+public enum TransactionDescription {
+
+    /**
+     * {@code Split payment of <total> <currency>}, the total with two decimals.
+     */
+    SPLIT_PAYMENT {
+        @Override
+        public String render(final double value, final String currency) {
+            return "Split payment of " + String.format("%.2f", value) + " " + currency;
+        }
+    },
+
+    /**
+     * {@code Cash withdrawal of <amount>}.
+     */
+    CASH_WITHDRAWAL {
+        @Override
+        public String render(final double value, final String currency) {
+            return "Cash withdrawal of " + value;
+        }
+    },
+
+    /**
+     * {@code Interest rate of the account changed to <value>}.
+     */
+    INTEREST_RATE_CHANGE {
+        @Override
+        public String render(final double value, final String currency) {
+            return "Interest rate of the account changed to " + value;
+        }
+    };
+
+    /**
+     * Renders the description.
+     *
+     * @param value    the numeric argument
+     * @param currency the currency of the transaction, used by {@link #SPLIT_PAYMENT}
+     * @return the description text
+     */
+    public abstract String render(double value, String currency);
+}
@@ -0,0 +1,422 @@
+package org.poo.entities;
+
+import org.poo.persistence.TransactionArchive;
+import org.poo.persistence.TransactionSegment;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The transaction history of an account, oldest first. Recent transactions are kept in
+ * memory; when a {@link TransactionArchive} is configured, older ones are sealed into
+ * memory-mapped segments and read back on demand, so the list reads the same across
+ * both tiers.
+ */
+public class TransactionHistory extends AbstractList<Transactions> {
+
+	/**
+	 * The archive sealing older transactions, null to keep everything in memory.
+	 */
+	private final TransactionArchive archive;
+
+	/**
+	 * Number of in-memory transactions at which the older half is sealed; raised after a
+	 * failed seal so that the next attempt waits for more transactions.
+	 */
+	private int sealThreshold;
+
+	/**
+	 * The sealed segments, oldest first.
+	 */
+	private final List<TransactionSegment> segments = new ArrayList<>();
+
+	/**
+	 * Position in the history of the first record of every segment.
+	 */
+	private int[] segmentStarts = new int[0];
+
+	/**
+	 * Number of transactions sealed into segments.
+	 */
+	private int archivedCount;
+
+	/**
+	 * The transactions still in memory, oldest first.
+	 */
+	private final ArrayList<Transactions> hot = new ArrayList<>();
+
+	/**
+	 * Timestamp of the latest transaction appended.
+	 */
+	private int lastTimestamp = Integer.MIN_VALUE;
+
+	/**
+	 * Whether no transaction was appended with a timestamp older than the one before it.
+	 */
+	private boolean ordered = true;
+
+	/**
+	 * Activity totals of the in-memory transactions, keyed by timestamp.
+	 */
+	private final AccountActivity hotActivity = new AccountActivity();
+
+	/**
+	 * Activity totals of the sealed segments, keyed by segment position.
+	 */
+	private final AccountActivity sealedActivity = new AccountActivity();
+
+	/**
+	 * Reusable activity totals of a single transaction.
+	 */
+	private final long[] transactionTotals = new long[AccountActivity.FIELDS];
+
+	/**
+	 * Creates an empty history using the archive configured at the time.
+	 */
+	public TransactionHistory() {
+		this.archive = TransactionArchive.current();
+		this.sealThreshold = archive == null ? Integer.MAX_VALUE : archive.getHotLimit();
+	}
+
+	/**
+	 * Appends a transaction and adds it to the activity totals, sealing the older half of
+	 * the in-memory ones once the hot limit of the archive is reached. If they cannot be
+	 * sealed, they stay in memory and sealing is tried again a hot limit later.
+	 *
+	 * @param transaction the transaction to append
+	 * @return always {@code true}
+	 */
+	@Override
+	public boolean add(Transactions transaction) {
+		if (transaction.getTimestamp() < lastTimestamp) {
+			ordered = false;
+		}
+		lastTimestamp = transaction.getTimestamp();
+		hot.add(transaction);
+		AccountActivity.classify(transaction, transactionTotals);
+		hotActivity.add(transaction.getTimestamp(), transactionTotals);
+		if (hot.size() >= sealThreshold) {
+			seal(hot.size() / 2);
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the transaction at a position of the history.
+	 *
+	 * @param index the position, 0 being the oldest transaction
+	 * @return the transaction; a sealed one is a fresh copy
+	 */
+	@Override
+	public Transactions get(int index) {
+		if (index >= archivedCount) {
+			return hot.get(index - archivedCount);
+		}
+		if (index < 0) {
+			throw new IndexOutOfBoundsException(index);
+		}
+		int segment = Arrays.binarySearch(segmentStarts, index);
+		if (segment < 0) {
+			segment = -segment - 2;
+		}
+		return read(segments.get(segment), index - segmentStarts[segment]);
+	}
+
+	/**
+	 * Returns the number of transactions in both tiers.
+	 *
+	 * @return the size of the history
+	 */
+	@Override
+	public int size() {
+		return archivedCount + hot.size();
+	}
+
+	/**
+	 * Returns the transactions whose timestamp lies in a range, in history order.
+	 * Segments whose timestamp range does not meet the requested one are not read.
+	 *
+	 * @param startTimestamp the start of the range, inclusive
+	 * @param endTimestamp   the end of the range, inclusive
+	 * @return the matching transactions
+	 */
+	public List<Transactions> range(int startTimestamp, int endTimestamp) {
+		List<Transactions> result = new ArrayList<>();
+		for (TransactionSegment segment : segments) {
+			if (!segment.overlaps(startTimestamp, endTimestamp)) {
+				continue;
+			}
+			for (int i = 0; i < segment.size(); i++) {
+				Transactions transaction = read(segment, i);
+				if (transaction.getTimestamp() >= startTimestamp
+						&& transaction.getTimestamp() <= endTimestamp) {
+					result.add(transaction);
+				}
+			}
+		}
+		for (Transactions transaction : hot) {
+			if (transaction.getTimestamp() >= startTimestamp
+					&& transaction.getTimestamp() <= endTimestamp) {
+				result.add(transaction);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns whether the transactions were appended in timestamp order. Commands run in
+	 * timestamp order, but the server accepts any timestamp from its clients.
+	 *
+	 * @return false once a transaction was older than the one before it
+	 */
+	public boolean isOrdered() {
+		return ordered;
+	}
+
+	/**
+	 * Returns the position of the first transaction at or after a timestamp. While the
+	 * history is {@link #isOrdered() ordered}, the position is found by binary search and,
+	 * of the sealed segments, only the one holding it is read; otherwise every
+	 * transaction is scanned.
+	 *
+	 * @param timestamp the timestamp
+	 * @return the position, the size of the history if no transaction is as recent
+	 */
+	public int seek(int timestamp) {
+		if (!ordered) {
+			for (int i = 0; i < size(); i++) {
+				if (get(i).getTimestamp() >= timestamp) {
+					return i;
+				}
+			}
+			return size();
+		}
+		for (int i = 0; i < segments.size(); i++) {
+			TransactionSegment segment = segments.get(i);
+			if (segment.getMaxTimestamp() >= timestamp) {
+				int low = 0;
+				int high = segment.size();
+				while (low < high) {
+					int middle = (low + high) >>> 1;
+					if (read(segment, middle).getTimestamp() < timestamp) {
+						low = middle + 1;
+					} else {
+						high = middle;
+					}
+				}
+				return segmentStarts[i] + low;
+			}
+		}
+		int low = 0;
+		int high = hot.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (hot.get(middle).getTimestamp() < timestamp) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return archivedCount + low;
+	}
+
+	/**
+	 * Sums the activity of the transactions whose timestamp lies in a range, as defined by
+	 * {@link AccountActivity}. The in-memory transactions and the segments lying inside
+	 * the range are summed from the activity trees in O(log n); only the segments
+	 * straddling an end of the range are read, at most two while the history is
+	 * {@link #isOrdered() ordered}. Out of order, every segment is checked.
+	 *
+	 * @param startTimestamp the start of the range, inclusive
+	 * @param endTimestamp   the end of the range, inclusive
+	 * @return the totals, indexed by {@link AccountActivity#SPENT},
+	 *         {@link AccountActivity#RECEIVED}, {@link AccountActivity#CARD_PAYMENTS} and
+	 *         {@link AccountActivity#TRANSACTIONS}; amounts are in cents
+	 */
+	public long[] activity(int startTimestamp, int endTimestamp) {
+		long[] totals = new long[AccountActivity.FIELDS];
+		if (startTimestamp > endTimestamp) {
+			return totals;
+		}
+		hotActivity.sum(startTimestamp, endTimestamp, totals);
+
+		if (!ordered) {
+			for (int i = 0; i < segments.size(); i++) {
+				TransactionSegment segment = segments.get(i);
+				if (segment.getMinTimestamp() >= startTimestamp
+						&& segment.getMaxTimestamp() <= endTimestamp) {
+					sealedActivity.sum(i, i, totals);
+				} else if (segment.overlaps(startTimestamp, endTimestamp)) {
+					scanActivity(segment, startTimestamp, endTimestamp, totals);
+				}
+			}
+			return totals;
+		}
+
+		// segments are in timestamp order: the ones overlapping the range are contiguous,
+		// and all but the first and the last lie inside it
+		int low = 0;
+		int high = segments.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (segments.get(middle).getMaxTimestamp() < startTimestamp) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		int first = low;
+		high = segments.size();
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (segments.get(middle).getMinTimestamp() <= endTimestamp) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		int last = low;
+		if (first < last && segments.get(first).getMinTimestamp() < startTimestamp) {
+			scanActivity(segments.get(first), startTimestamp, endTimestamp, totals);
+			first++;
+		}
+		if (first < last && segments.get(last - 1).getMaxTimestamp() > endTimestamp) {
+			scanActivity(segments.get(last - 1), startTimestamp, endTimestamp, totals);
+			last--;
+		}
+		sealedActivity.sum(first, last - 1, totals);
+		return totals;
+	}
+
+	/**
+	 * Returns the activity trees of the history, for their footprint.
+	 *
+	 * @return the tree of the in-memory transactions, then the tree of the segments
+	 */
+	public List<AccountActivity> getActivityTrees() {
+		return List.of(hotActivity, sealedActivity);
+	}
+
+	/**
+	 * Returns the number of transactions sealed into segments.
+	 *
+	 * @return the number of archived transactions
+	 */
+	public int getArchivedCount() {
+		return archivedCount;
+	}
+
+	/**
+	 * Returns the number of sealed segments.
+	 *
+	 * @return the segment count
+	 */
+	public int getSegmentCount() {
+		return segments.size();
+	}
+
+	/**
+	 * Returns the transactions still in memory, without reading the sealed ones.
+	 *
+	 * @return a read-only view, oldest first
+	 */
+	public List<Transactions> getHotTransactions() {
+		return Collections.unmodifiableList(hot);
+	}
+
+	/**
+	 * Gives the sealed segments back to the archive once the account is deleted. The
+	 * history must not be used afterwards.
+	 */
+	public void release() {
+		for (TransactionSegment segment : segments) {
+			try {
+				archive.release(segment);
+			} catch (IOException e) {
+				System.err.println("Cannot delete archive file: " + e.getMessage());
+			}
+		}
+		segments.clear();
+	}
+
+	/**
+	 * Moves the oldest in-memory transactions into a new segment. On failure, they are
+	 * kept in memory and the next attempt is put off by a hot limit.
+	 *
+	 * @param count the number of transactions to seal
+	 */
+	private void seal(int count) {
+		List<Transactions> oldest = hot.subList(0, count);
+		try {
+			segments.add(archive.seal(oldest));
+		} catch (IOException e) {
+			System.err.println("Cannot archive transactions, keeping them in memory: "
+					+ e.getMessage());
+			sealThreshold = hot.size() + archive.getHotLimit();
+			return;
+		}
+		sealThreshold = archive.getHotLimit();
+		segmentStarts = Arrays.copyOf(segmentStarts, segments.size());
+		segmentStarts[segments.size() - 1] = archivedCount;
+		archivedCount += count;
+
+		long[] sealed = new long[AccountActivity.FIELDS];
+		for (Transactions transaction : oldest) {
+			AccountActivity.classify(transaction, transactionTotals);
+			for (int field = 0; field < sealed.length; field++) {
+				sealed[field] += transactionTotals[field];
+			}
+		}
+		sealedActivity.add(segments.size() - 1, sealed);
+		oldest.clear();
+
+		hotActivity.clear();
+		for (Transactions transaction : hot) {
+			AccountActivity.classify(transaction, transactionTotals);
+			hotActivity.add(transaction.getTimestamp(), transactionTotals);
+		}
+	}
+
+	/**
+	 * Adds the activity of the records of a segment whose timestamp lies in a range.
+	 *
+	 * @param segment        the segment
+	 * @param startTimestamp the start of the range, inclusive
+	 * @param endTimestamp   the end of the range, inclusive
+	 * @param totals         the totals the activity is added to
+	 */
+	private static void scanActivity(TransactionSegment segment, int startTimestamp,
+			int endTimestamp, long[] totals) {
+		long[] record = new long[AccountActivity.FIELDS];
+		for (int i = 0; i < segment.size(); i++) {
+			Transactions transaction = read(segment, i);
+			if (transaction.getTimestamp() >= startTimestamp
+					&& transaction.getTimestamp() <= endTimestamp) {
+				AccountActivity.classify(transaction, record);
+				for (int field = 0; field < totals.length; field++) {
+					totals[field] += record[field];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads a record of a segment.
+	 *
+	 * @param segment the segment
+	 * @param index   the position of the record in the segment
+	 * @return the transaction
+	 */
+	private static Transactions read(TransactionSegment segment, int index) {
+		try {
+			return segment.get(index);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Cannot read archived transactions", e);
+		}
+	}
+}
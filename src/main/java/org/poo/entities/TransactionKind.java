@@ -0,0 +1,127 @@
+package org.poo.entities;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kind of a transaction, resolved once from its command name so that serializers select
+ * their layout by id instead of comparing strings.
+ */
+public enum TransactionKind {
+
+    /**
+     * An account was opened.
+     */
+    ADD_ACCOUNT("addAccount"),
+
+    /**
+     * Money was sent or received.
+     */
+    SEND_MONEY("sendMoney"),
+
+    /**
+     * A card payment, or a refused one.
+     */
+    PAY_ONLINE("payOnline"),
+
+    /**
+     * A card was issued.
+     */
+    CREATE_CARD("createCard"),
+
+    /**
+     * A one-time card was issued.
+     */
+    CREATE_ONE_TIME_CARD("createOneTimeCard"),
+
+    /**
+     * A card was destroyed.
+     */
+    DELETE_CARD("deleteCard"),
+
+    /**
+     * An account could not be deleted.
+     */
+    DELETE_ACCOUNT("deleteAccount"),
+
+    /**
+     * A card was frozen by a status check.
+     */
+    CHECK_CARD_STATUS("checkCardStatus"),
+
+    /**
+     * A share of a split payment.
+     */
+    SPLIT_PAYMENT("splitPayment"),
+
+    /**
+     * Interest was added.
+     */
+    ADD_INTEREST("addInterest"),
+
+    /**
+     * The interest rate changed.
+     */
+    CHANGE_INTEREST_RATE("changeInterestRate"),
+
+    /**
+     * Money was withdrawn from a savings account.
+     */
+    WITHDRAW_SAVINGS("withdrawSavings"),
+
+    /**
+     * The plan of an account was upgraded.
+     */
+    UPGRADE_PLAN("upgradePlan"),
+
+    /**
+     * Cash was withdrawn with a card.
+     */
+    CASH_WITHDRAWAL("cashWithdrawal"),
+
+    /**
+     * Any other command.
+     */
+    OTHER(null);
+
+    /**
+     * The kind of every command name.
+     */
+    private static final Map<String, TransactionKind> BY_COMMAND = new HashMap<>();
+
+    static {
+        for (TransactionKind kind : values()) {
+            if (kind.command != null) {
+                BY_COMMAND.put(kind.command, kind);
+            }
+        }
+    }
+
+    /**
+     * The command name, null for {@link #OTHER}.
+     */
+    private final String command;
+
+    /**
+     * Creates a kind.
+     *
+     * @param command the command name
+     */
+    TransactionKind(final String command) {
+        this.command = command;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    /**
+     * Returns the kind of a command name.
+     *
+     * @param command the command name, may be null
+     * @return the kind, {@link #OTHER} for unknown names
+     */
+    public static TransactionKind of(final String command) {
+        return command == null ? OTHER : BY_COMMAND.getOrDefault(command, OTHER);
+    }
+}
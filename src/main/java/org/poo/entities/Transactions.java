@@ -1,9 +1,14 @@
 package org.poo.entities;
 
+import org.poo.storage.IdentifierCodes;
+
 import java.util.List;
 
 /**
  * Represents a transaction entity containing details about various types of transactions.
+ * IBANs and card numbers are held as {@link IdentifierCodes} codes and rendered back to
+ * strings by their getters, and formatted descriptions as a
+ * {@link TransactionDescription} template rendered by {@link #getDescription()}.
  */
 public class Transactions {
 
@@ -12,25 +17,52 @@ public class Transactions {
 	 */
 	private String command;
 
+	/**
+	 * The kind of {@link #command}.
+	 */
+	private TransactionKind kind = TransactionKind.OTHER;
+
 	/**
 	 * A description of the transaction.
 	 */
 	private String description;
 
+	/**
+	 * The template of the description when it is rendered on demand, or null.
+	 */
+	private TransactionDescription descriptionTemplate;
+
+	/**
+	 * The numeric argument of {@link #descriptionTemplate}.
+	 */
+	private double descriptionValue;
+
 	/**
 	 * The amount involved in the transaction.
 	 */
 	private double amount;
 
 	/**
-	 * The IBAN of the receiver's account.
+	 * The IBAN of the receiver's account, packed; {@link IdentifierCodes#NONE} when absent
+	 * or kept in {@link #receiverIbanText}.
+	 */
+	private long receiverIban = IdentifierCodes.NONE;
+
+	/**
+	 * The IBAN of the receiver's account when it does not pack.
+	 */
+	private String receiverIbanText;
+
+	/**
+	 * The IBAN of the sender's account, packed; {@link IdentifierCodes#NONE} when absent
+	 * or kept in {@link #senderIbanText}.
 	 */
-	private String receiverIban;
+	private long senderIban = IdentifierCodes.NONE;
 
 	/**
-	 * The IBAN of the sender's account.
+	 * The IBAN of the sender's account when it does not pack.
 	 */
-	private String senderIban;
+	private String senderIbanText;
 
 	/**
 	 * The timestamp of the transaction.
@@ -43,9 +75,15 @@ public class Transactions {
 	private String transferType;
 
 	/**
-	 * The card associated with the transaction, if applicable.
+	 * The card associated with the transaction, packed; {@link IdentifierCodes#NONE} when
+	 * absent or kept in {@link #cardText}.
 	 */
-	private String card;
+	private long card = IdentifierCodes.NONE;
+
+	/**
+	 * The card associated with the transaction when its number does not pack.
+	 */
+	private String cardText;
 
 	/**
 	 * The cardholder involved in the transaction, if applicable.
@@ -94,13 +132,17 @@ public class Transactions {
 						String commerciant,
 						List<String> accountsForSplit) {
 		this.command = command;
+		this.kind = TransactionKind.of(command);
 		this.description = description;
 		this.amount = amount;
-		this.receiverIban = receiverIban;
-		this.senderIban = senderIban;
+		this.receiverIban = IdentifierCodes.packIban(receiverIban);
+		this.receiverIbanText = unpacked(this.receiverIban, receiverIban);
+		this.senderIban = IdentifierCodes.packIban(senderIban);
+		this.senderIbanText = unpacked(this.senderIban, senderIban);
 		this.timestamp = timestamp;
 		this.transferType = transferType;
-		this.card = card;
+		this.card = IdentifierCodes.packCard(card);
+		this.cardText = unpacked(this.card, card);
 		this.cardHolder = cardHolder;
 		this.commerciant = commerciant;
 		this.accountsForSplit = accountsForSplit;
@@ -120,14 +162,54 @@ public class Transactions {
 
 	public void setCommand(String command) {
 		this.command = command;
+		this.kind = TransactionKind.of(command);
+	}
+
+	public TransactionKind getKind() {
+		return kind;
 	}
 
+	/**
+	 * Returns the description, rendering it from its template if it has one.
+	 *
+	 * @return the description, or null
+	 */
 	public String getDescription() {
+		if (descriptionTemplate != null) {
+			return descriptionTemplate.render(descriptionValue, transferType);
+		}
 		return description;
 	}
 
+	/**
+	 * Sets a fixed description, replacing any template.
+	 *
+	 * @param description the description
+	 */
 	public void setDescription(String description) {
 		this.description = description;
+		this.descriptionTemplate = null;
+	}
+
+	/**
+	 * Sets a description rendered on demand. Templates reading a currency take it from
+	 * the transfer type.
+	 *
+	 * @param template the template
+	 * @param value    its numeric argument
+	 */
+	public void setDescription(TransactionDescription template, double value) {
+		this.description = null;
+		this.descriptionTemplate = template;
+		this.descriptionValue = value;
+	}
+
+	public TransactionDescription getDescriptionTemplate() {
+		return descriptionTemplate;
+	}
+
+	public double getDescriptionValue() {
+		return descriptionValue;
 	}
 
 	public double getAmount() {
@@ -139,19 +221,39 @@ public class Transactions {
 	}
 
 	public String getReceiverIban() {
-		return receiverIban;
+		return receiverIbanText != null ? receiverIbanText : IdentifierCodes.ibanToString(receiverIban);
 	}
 
 	public void setReceiverIban(String receiverIban) {
+		this.receiverIban = IdentifierCodes.packIban(receiverIban);
+		this.receiverIbanText = unpacked(this.receiverIban, receiverIban);
+	}
+
+	public long getReceiverIbanCode() {
+		return receiverIban;
+	}
+
+	public void setReceiverIbanCode(long receiverIban) {
 		this.receiverIban = receiverIban;
+		this.receiverIbanText = null;
 	}
 
 	public String getSenderIban() {
-		return senderIban;
+		return senderIbanText != null ? senderIbanText : IdentifierCodes.ibanToString(senderIban);
 	}
 
 	public void setSenderIban(String senderIban) {
+		this.senderIban = IdentifierCodes.packIban(senderIban);
+		this.senderIbanText = unpacked(this.senderIban, senderIban);
+	}
+
+	public long getSenderIbanCode() {
+		return senderIban;
+	}
+
+	public void setSenderIbanCode(long senderIban) {
 		this.senderIban = senderIban;
+		this.senderIbanText = null;
 	}
 
 	public int getTimestamp() {
@@ -171,11 +273,21 @@ public class Transactions {
 	}
 
 	public String getCard() {
-		return card;
+		return cardText != null ? cardText : IdentifierCodes.cardToString(card);
 	}
 
 	public void setCard(String card) {
+		this.card = IdentifierCodes.packCard(card);
+		this.cardText = unpacked(this.card, card);
+	}
+
+	public long getCardCode() {
+		return card;
+	}
+
+	public void setCardCode(long card) {
 		this.card = card;
+		this.cardText = null;
 	}
 
 	public String getCardHolder() {
@@ -211,10 +323,21 @@ public class Transactions {
 	}
 
 	public String getSenderIBAN() {
-		return senderIban;
+		return getSenderIban();
 	}
 
 	public String getReceiverIBAN() {
-		return receiverIban;
+		return getReceiverIban();
+	}
+
+	/**
+	 * Returns the string an identifier is kept as when it does not pack into a code.
+	 *
+	 * @param code       the code of the identifier
+	 * @param identifier the identifier
+	 * @return the identifier if its code is {@link IdentifierCodes#NONE}, null otherwise
+	 */
+	private static String unpacked(long code, String identifier) {
+		return code == IdentifierCodes.NONE ? identifier : null;
 	}
 }
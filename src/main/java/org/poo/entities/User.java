@@ -1,5 +1,7 @@
 package org.poo.entities;
 
+import org.poo.storage.BankIndex;
+
 import java.util.ArrayList;
 
 /**
@@ -118,6 +120,7 @@ public class User {
 	 */
 	public void addAccount(Account account) {
 		accounts.add(account);
+		BankIndex.current().addAccount(this, account);
 	}
 
 	public String getOccupation() {
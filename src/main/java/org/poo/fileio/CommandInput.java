@@ -34,4 +34,6 @@ public final class CommandInput {
     private double minBalance;
     private List<String> accounts;
     private List<Double> amountForUsers;
+    private int pageSize;
+    private String cursor;
 }
\ No newline at end of file
@@ -13,6 +13,9 @@ import org.poo.fileio.CommandInput;
 import org.poo.fileio.ExchangeInput;
 import org.poo.fileio.ObjectInput;
 import org.poo.fileio.UserInput;
+import org.poo.metrics.Tracer;
+import org.poo.protocol.BinaryInputFile;
+import org.poo.storage.BankIndex;
 
 import java.io.File;
 import java.io.IOException;
@@ -75,12 +78,52 @@ public final class Main {
                               final String filePath2) throws IOException {
         ObjectMapper objectMapper = new ObjectMapper();
         File file = new File(CheckerConstants.TESTS_PATH + filePath1);
-        ObjectInput inputData = objectMapper.readValue(file, ObjectInput.class);
+        Tracer.startIfRequested();
+        long parseStart = Tracer.begin();
+        ObjectInput inputData = BinaryInputFile.isBinary(file)
+                ? BinaryInputFile.read(file)
+                : objectMapper.readValue(file, ObjectInput.class);
+        Tracer.end(Tracer.PARSE, parseStart);
 
         ArrayNode output = objectMapper.createArrayNode();
 
+        BankIndex.reset();
+        List<User> users = createUsers(inputData.getUsers());
+        ArrayList<ValutarCourse> exchangeRates = createExchangeRates(inputData.getExchangeRates());
+
+        CommandInvoker invoker = new CommandInvoker();
+
+        for (CommandInput commandInput : inputData.getCommands()) {
+            try {
+                Command command = CommandFactory.getCommand(commandInput, exchangeRates);
+                invoker.addCommand(command, commandInput);
+            } catch (IllegalArgumentException e) {
+                output.add(createUnknownCommandError(objectMapper, commandInput.getCommand()));
+            }
+        }
+
+        invoker.executeCommands(users, output);
+
+        ObjectWriter objectWriter = objectMapper.writerWithDefaultPrettyPrinter();
+        long serializeStart = Tracer.begin();
+        byte[] serialized = objectWriter.writeValueAsBytes(output);
+        Tracer.end(Tracer.SERIALIZE, serializeStart);
+        long writeStart = Tracer.begin();
+        Files.write(Path.of(filePath2), serialized);
+        Tracer.end(Tracer.WRITE, writeStart);
+        Tracer.exportIfRequested();
+    }
+
+    /**
+     * Builds the user entities described by the input file and registers them in the
+     * {@link BankIndex}.
+     *
+     * @param userInputs the users read from the input file
+     * @return the list of users
+     */
+    public static List<User> createUsers(final UserInput[] userInputs) {
         List<User> users = new ArrayList<>();
-        for (UserInput userInput : inputData.getUsers()) {
+        for (UserInput userInput : userInputs) {
             User user = new User();
             user.setFirstName(userInput.getFirstName());
             user.setLastName(userInput.getLastName());
@@ -88,11 +131,22 @@ public final class Main {
             user.setOccupation(userInput.getOccupation());
             user.setDateOfBirth(userInput.getBirthDate());
             users.add(user);
+            BankIndex.current().addUser(user);
         }
+        return users;
+    }
 
+    /**
+     * Builds the exchange rates described by the input file.
+     *
+     * @param exchangeInputs the exchange rates read from the input file, may be null
+     * @return the list of exchange rates
+     */
+    public static ArrayList<ValutarCourse> createExchangeRates(
+            final ExchangeInput[] exchangeInputs) {
         ArrayList<ValutarCourse> exchangeRates = new ArrayList<>();
-        if (inputData.getExchangeRates() != null) {
-            for (ExchangeInput exchangeInput : inputData.getExchangeRates()) {
+        if (exchangeInputs != null) {
+            for (ExchangeInput exchangeInput : exchangeInputs) {
                 ValutarCourse exchange = new ValutarCourse();
                 exchange.setFrom(exchangeInput.getFrom());
                 exchange.setTo(exchangeInput.getTo());
@@ -100,26 +154,23 @@ public final class Main {
                 exchangeRates.add(exchange);
             }
         }
+        return exchangeRates;
+    }
 
-        CommandInvoker invoker = new CommandInvoker();
-
-        for (CommandInput commandInput : inputData.getCommands()) {
-            try {
-                Command command = CommandFactory.getCommand(commandInput, exchangeRates);
-                invoker.addCommand(command);
-            } catch (IllegalArgumentException e) {
-                ObjectNode error = objectMapper.createObjectNode();
-                error.put("command", commandInput.getCommand());
-                error.put("status", "error");
-                error.put("message", "Unknown command: " + commandInput.getCommand());
-                output.add(error);
-            }
-        }
-
-        invoker.executeCommands(users, output);
-
-        ObjectWriter objectWriter = objectMapper.writerWithDefaultPrettyPrinter();
-        objectWriter.writeValue(new File(filePath2), output);
+    /**
+     * Creates the output reported for a command the factory does not know.
+     *
+     * @param objectMapper the JSON object mapper
+     * @param command      the name of the unknown command
+     * @return the error node
+     */
+    public static ObjectNode createUnknownCommandError(final ObjectMapper objectMapper,
+                                                       final String command) {
+        ObjectNode error = objectMapper.createObjectNode();
+        error.put("command", command);
+        error.put("status", "error");
+        error.put("message", "Unknown command: " + command);
+        return error;
     }
 
     /**
@@ -0,0 +1,87 @@
+package org.poo.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of one command executed by the invoker. Its duration is the time
+ * the command took, so that slow commands can be lined up with the GC pauses, safepoints
+ * and lock contention of the same recording.
+ *
+ * <p>The event is disabled unless a recording enables it; the invoker then only pays for
+ * the {@link #beginIfEnabled()} check and allocates nothing. The fields are filled in only
+ * when {@link #shouldCommit()} passes.
+ */
+@Name("org.poo.Command")
+@Label("Command")
+@Category({"Bank", "Commands"})
+@Description("A command executed by the bank")
+@StackTrace(false)
+public final class CommandEvent extends Event {
+
+    /**
+     * The registered type of the event, telling whether a running recording enables it.
+     */
+    private static final EventType TYPE = EventType.getEventType(CommandEvent.class);
+
+    /**
+     * The command name, as in the input.
+     */
+    @Label("Command")
+    private String command;
+
+    /**
+     * The timestamp of the command in the input.
+     */
+    @Label("Input Timestamp")
+    private int timestamp;
+
+    /**
+     * The IBAN or card number the command works on.
+     */
+    @Label("Target")
+    @Description("The IBAN or card number the command works on")
+    private String target;
+
+    /**
+     * The failure reason, or {@link CommandMetrics#SUCCESS}.
+     */
+    @Label("Outcome")
+    private String outcome;
+
+    /**
+     * Fills in the fields.
+     *
+     * @param command   the command name
+     * @param timestamp the timestamp of the command in the input
+     * @param target    the IBAN or card number the command works on, may be null
+     * @param outcome   the failure reason, or {@link CommandMetrics#SUCCESS}
+     */
+    public void set(final String command, final int timestamp, final String target,
+                    final String outcome) {
+        this.command = command;
+        this.timestamp = timestamp;
+        this.target = target;
+        this.outcome = outcome;
+    }
+
+    /**
+     * Creates and begins an event if a running recording enables it, so that nothing is
+     * allocated otherwise.
+     *
+     * @return the begun event, or null if the event is not recorded
+     */
+    public static CommandEvent beginIfEnabled() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        return event;
+    }
+}
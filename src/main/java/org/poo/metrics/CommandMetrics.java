@@ -0,0 +1,408 @@
+package org.poo.metrics;
+
+import com.sun.management.ThreadMXBean;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the executed commands, by command type and outcome. Every type has one
+ * {@link LatencyHistogram} for its successes and one per failure reason, so that, for
+ * instance, a payment refused for insufficient funds is not mixed with one refused
+ * because the card is frozen.
+ *
+ * <p>Recording looks the type up through a {@link ClassValue}, which after the first
+ * command of a type is a field read, then records into a histogram; nothing is locked or
+ * allocated. The histograms can be read at any time through {@link #types()} or written
+ * to a file, once with {@link #dump(Path)} or periodically with
+ * {@link #startDump(Path, Duration)}.
+ *
+ * <p>With {@link #setAllocationTracking(boolean)}, the invokers also record the bytes
+ * allocated by every command, read from the per-thread allocation counter of the JVM,
+ * into a second histogram per type. Reading the counter costs about as much as reading
+ * the clock, so allocation tracking is a measurement mode, off by default.
+ */
+public final class CommandMetrics {
+
+    /**
+     * Name of the outcome of the commands that succeeded.
+     */
+    public static final String SUCCESS = "success";
+
+    /**
+     * Nanoseconds per microsecond.
+     */
+    private static final double NANOS_PER_MICRO = 1e3;
+
+    /**
+     * Quantiles written for every outcome.
+     */
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+
+    /**
+     * The metrics recorded by the invokers that are not given their own.
+     */
+    private static final CommandMetrics GLOBAL = new CommandMetrics();
+
+    /**
+     * The per-thread allocation counters, null if the JVM has none.
+     */
+    private static final ThreadMXBean THREADS =
+            ManagementFactory.getThreadMXBean() instanceof ThreadMXBean threads
+                    && threads.isThreadAllocatedMemorySupported() ? threads : null;
+
+    static {
+        if (Boolean.getBoolean("bank.metrics.allocation")) {
+            GLOBAL.setAllocationTracking(true);
+        }
+    }
+
+    /**
+     * The metrics of every type, by type name.
+     */
+    private final ConcurrentMap<String, TypeMetrics> types = new ConcurrentSkipListMap<>();
+
+    /**
+     * The metrics of every command class.
+     */
+    private final ClassValue<TypeMetrics> byClass = new ClassValue<>() {
+        @Override
+        protected TypeMetrics computeValue(final Class<?> type) {
+            return types.computeIfAbsent(type.getSimpleName(), TypeMetrics::new);
+        }
+    };
+
+    /**
+     * Whether the invokers record the bytes allocated by every command.
+     */
+    private volatile boolean allocationTracking;
+
+    /**
+     * Returns the metrics shared by the invokers of the process.
+     *
+     * <p>Setting the {@code bank.metrics.allocation} system property turns on allocation
+     * tracking in the global metrics from the start.
+     *
+     * @return the global metrics
+     */
+    public static CommandMetrics global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Records an executed command.
+     *
+     * @param type    the class of the command, named after its simple name
+     * @param failure the failure reason, null if the command succeeded
+     * @param nanos   how long the command took
+     */
+    public void record(final Class<?> type, final String failure, final long nanos) {
+        byClass.get(type).record(failure, nanos);
+    }
+
+    /**
+     * Records the bytes allocated by an executed command.
+     *
+     * @param type  the class of the command
+     * @param bytes the bytes it allocated
+     */
+    public void recordAllocation(final Class<?> type, final long bytes) {
+        byClass.get(type).allocations.record(bytes);
+    }
+
+    /**
+     * Turns allocation tracking on or off.
+     *
+     * @param enabled whether the invokers record the bytes allocated by every command
+     * @throws UnsupportedOperationException if the JVM does not count allocations
+     */
+    public void setAllocationTracking(final boolean enabled) {
+        if (enabled) {
+            if (THREADS == null) {
+                throw new UnsupportedOperationException(
+                        "This JVM does not count allocated bytes per thread");
+            }
+            THREADS.setThreadAllocatedMemoryEnabled(true);
+        }
+        allocationTracking = enabled;
+    }
+
+    public boolean isAllocationTracking() {
+        return allocationTracking;
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread.
+     *
+     * @return the byte count, or -1 if the JVM does not count allocations
+     */
+    public static long threadAllocatedBytes() {
+        return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Returns the metrics of a command type.
+     *
+     * @param type the simple class name of the command
+     * @return the metrics, null if no command of that type was recorded
+     */
+    public TypeMetrics type(final String type) {
+        return types.get(type);
+    }
+
+    /**
+     * Returns the metrics of every recorded command type.
+     *
+     * @return a live view, sorted by type name
+     */
+    public Map<String, TypeMetrics> types() {
+        return Collections.unmodifiableMap(types);
+    }
+
+    /**
+     * Clears every histogram. Types and failure reasons already seen stay listed, with
+     * empty histograms.
+     */
+    public void reset() {
+        for (TypeMetrics metrics : types.values()) {
+            metrics.reset();
+        }
+    }
+
+    /**
+     * Prints one line per command type and outcome: count, p50, p99, p999 and maximum
+     * latency in microseconds; then, if allocations were recorded, one line per command
+     * type: mean, p50, p99 and maximum bytes allocated per command, and the total.
+     *
+     * @param out where to print
+     */
+    public void print(final PrintStream out) {
+        out.printf("%-20s %-32s %10s %10s %10s %10s %10s%n", "command", "outcome", "count",
+                "p50 us", "p99 us", "p999 us", "max us");
+        for (TypeMetrics metrics : types.values()) {
+            print(out, metrics.getName(), SUCCESS, metrics.getSuccesses());
+            for (Map.Entry<String, LatencyHistogram> failure
+                    : new TreeMap<>(metrics.getFailures()).entrySet()) {
+                print(out, metrics.getName(), failure.getKey(), failure.getValue());
+            }
+        }
+        printAllocations(out);
+    }
+
+    /**
+     * Prints the bytes allocated per command type, if any were recorded.
+     *
+     * @param out where to print
+     */
+    public void printAllocations(final PrintStream out) {
+        boolean header = false;
+        for (TypeMetrics metrics : types.values()) {
+            LatencyHistogram allocations = metrics.getAllocations();
+            long count = allocations.count();
+            if (count == 0) {
+                continue;
+            }
+            if (!header) {
+                out.printf("%-20s %10s %12s %12s %12s %12s %14s%n", "command", "count",
+                        "mean bytes", "p50 bytes", "p99 bytes", "max bytes", "total bytes");
+                header = true;
+            }
+            out.printf("%-20s %10d %12.0f %12d %12d %12d %14d%n", metrics.getName(), count,
+                    allocations.mean(), allocations.valueAtQuantile(QUANTILES[0]),
+                    allocations.valueAtQuantile(QUANTILES[1]), allocations.max(),
+                    allocations.sum());
+        }
+    }
+
+    /**
+     * Writes the table of {@link #print(PrintStream)} to a file, replacing it atomically
+     * so that a reader never sees a partial dump.
+     *
+     * @param file the file
+     * @throws IOException if the file cannot be written
+     */
+    public void dump(final Path file) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        Path temporary = Files.createTempFile(absolute.getParent(),
+                absolute.getFileName().toString(), ".tmp");
+        try (PrintStream out = new PrintStream(Files.newOutputStream(temporary), false,
+                StandardCharsets.UTF_8)) {
+            print(out);
+            if (out.checkError()) {
+                throw new IOException("Cannot write " + temporary);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Dumps the metrics to a file every {@code period}, from a daemon thread, until the
+     * returned handle is closed; closing it writes a last dump.
+     *
+     * @param file   the file
+     * @param period the time between two dumps
+     * @return the handle stopping the dumps
+     */
+    public Closeable startDump(final Path file, final Duration period) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("command-metrics").factory());
+        long periodNanos = period.toNanos();
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                dump(file);
+            } catch (IOException e) {
+                System.err.println("Cannot dump command metrics: " + e.getMessage());
+            }
+        }, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+        return () -> {
+            scheduler.shutdownNow();
+            dump(file);
+        };
+    }
+
+    /**
+     * Prints the line of one outcome.
+     *
+     * @param out       where to print
+     * @param type      the command type
+     * @param outcome   the outcome
+     * @param histogram its latencies
+     */
+    private static void print(final PrintStream out, final String type, final String outcome,
+                              final LatencyHistogram histogram) {
+        long count = histogram.count();
+        if (count == 0) {
+            return;
+        }
+        out.printf("%-20s %-32s %10d", type, outcome, count);
+        for (double quantile : QUANTILES) {
+            out.printf(" %10.1f", histogram.valueAtQuantile(quantile) / NANOS_PER_MICRO);
+        }
+        out.printf(" %10.1f%n", histogram.max() / NANOS_PER_MICRO);
+    }
+
+    /**
+     * The histograms of one command type.
+     */
+    public static final class TypeMetrics {
+
+        /**
+         * The type name.
+         */
+        private final String name;
+
+        /**
+         * Latency of the commands that succeeded.
+         */
+        private final LatencyHistogram successes = new LatencyHistogram();
+
+        /**
+         * Latency of the commands that failed, by failure reason.
+         */
+        private final ConcurrentMap<String, LatencyHistogram> failures =
+                new ConcurrentHashMap<>();
+
+        /**
+         * Bytes allocated by the commands, whatever their outcome.
+         */
+        private final LatencyHistogram allocations = new LatencyHistogram();
+
+        /**
+         * Creates the metrics of a type.
+         *
+         * @param name the type name
+         */
+        TypeMetrics(final String name) {
+            this.name = name;
+        }
+
+        /**
+         * Records a command of this type.
+         *
+         * @param failure the failure reason, null if the command succeeded
+         * @param nanos   how long the command took
+         */
+        void record(final String failure, final long nanos) {
+            if (failure == null) {
+                successes.record(nanos);
+                return;
+            }
+            LatencyHistogram histogram = failures.get(failure);
+            if (histogram == null) {
+                histogram = failures.computeIfAbsent(failure, reason -> new LatencyHistogram());
+            }
+            histogram.record(nanos);
+        }
+
+        /**
+         * Clears the histograms.
+         */
+        void reset() {
+            successes.reset();
+            allocations.reset();
+            for (LatencyHistogram histogram : failures.values()) {
+                histogram.reset();
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public LatencyHistogram getSuccesses() {
+            return successes;
+        }
+
+        /**
+         * Returns the bytes allocated by the commands of this type, recorded only while
+         * allocation tracking is on.
+         *
+         * @return the histogram of bytes per command
+         */
+        public LatencyHistogram getAllocations() {
+            return allocations;
+        }
+
+        /**
+         * Returns the histograms of the failed commands.
+         *
+         * @return a live view, by failure reason
+         */
+        public Map<String, LatencyHistogram> getFailures() {
+            return Collections.unmodifiableMap(failures);
+        }
+
+        /**
+         * Returns the number of recorded commands of this type, whatever their outcome.
+         *
+         * @return the count
+         */
+        public long count() {
+            long count = successes.count();
+            for (LatencyHistogram histogram : failures.values()) {
+                count += histogram.count();
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.poo.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of one currency conversion. Its duration is the time spent
+ * finding the rate between the two currencies.
+ */
+@Name("org.poo.CurrencyConversion")
+@Label("Currency Conversion")
+@Category({"Bank", "Currency"})
+@Description("An amount converted between two currencies")
+@StackTrace(false)
+public final class ConversionEvent extends Event {
+
+    /**
+     * The registered type of the event, telling whether a running recording enables it.
+     */
+    private static final EventType TYPE = EventType.getEventType(ConversionEvent.class);
+
+    /**
+     * The source currency.
+     */
+    @Label("From")
+    private String from;
+
+    /**
+     * The target currency.
+     */
+    @Label("To")
+    private String to;
+
+    /**
+     * The amount converted.
+     */
+    @Label("Amount")
+    private double amount;
+
+    /**
+     * The converted amount, -1 when no rate connects the currencies.
+     */
+    @Label("Converted")
+    @Description("The converted amount, -1 when no rate connects the currencies")
+    private double converted;
+
+    /**
+     * Fills in the fields.
+     *
+     * @param from      the source currency
+     * @param to        the target currency
+     * @param amount    the amount converted
+     * @param converted the converted amount, -1 when no rate connects the currencies
+     */
+    public void set(final String from, final String to, final double amount,
+                    final double converted) {
+        this.from = from;
+        this.to = to;
+        this.amount = amount;
+        this.converted = converted;
+    }
+
+    /**
+     * Creates and begins an event if a running recording enables it, so that nothing is
+     * allocated otherwise.
+     *
+     * @return the begun event, or null if the event is not recorded
+     */
+    public static ConversionEvent beginIfEnabled() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        ConversionEvent event = new ConversionEvent();
+        event.begin();
+        return event;
+    }
+}
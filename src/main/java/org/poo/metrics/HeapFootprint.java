@@ -0,0 +1,517 @@
+package org.poo.metrics;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+import org.poo.entities.Account;
+import org.poo.entities.AccountActivity;
+import org.poo.entities.Card;
+import org.poo.entities.OneTimeCard;
+import org.poo.entities.SavingsAccount;
+import org.poo.entities.TransactionHistory;
+import org.poo.entities.Transactions;
+import org.poo.entities.User;
+import org.poo.persistence.TransactionSegment;
+import org.poo.storage.AccountTable;
+import org.poo.storage.IdentifierCodes;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Heap retained by the entities of a live bank, by entity type, with the distribution of
+ * the bytes retained per account.
+ *
+ * <p>Sizes are computed from a model of the HotSpot object layout rather than measured:
+ * an object costs its header plus its fields, rounded up to the object alignment, with
+ * the header, reference size and alignment read from the running JVM. Lists are charged
+ * for a backing array as long as their size, which is a lower bound for an
+ * {@link ArrayList}. What an entity holds is charged to it: a user pays for its account
+ * list, an account for its card list and transaction history, a transaction for its
+ * split account list. Strings are reported apart, by the type of their holder; a string
+ * shared by several entities, such as a currency code, is charged once, to the first
+ * holder visited. Detecting sharing keeps every visited string in an identity set for
+ * the duration of {@link #measure(List)}.
+ *
+ * <p>Transactions sealed into archive segments and the balance rows of the
+ * {@link AccountTable} live outside the heap; they are counted and reported separately.
+ */
+public final class HeapFootprint {
+
+    /**
+     * The entity types.
+     */
+    public enum Kind {
+        /**
+         * {@link User}.
+         */
+        USER,
+        /**
+         * {@link Account}, other than savings.
+         */
+        ACCOUNT,
+        /**
+         * {@link SavingsAccount}.
+         */
+        SAVINGS_ACCOUNT,
+        /**
+         * {@link Card}, other than one-time.
+         */
+        CARD,
+        /**
+         * {@link OneTimeCard}.
+         */
+        ONE_TIME_CARD,
+        /**
+         * {@link Transactions} held in memory.
+         */
+        TRANSACTION
+    }
+
+    /**
+     * Quantiles reported for the bytes per account.
+     */
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    /**
+     * Largest char of a string stored one byte per char.
+     */
+    private static final int LATIN1_MAX = 0xFF;
+
+    /**
+     * Bytes of an object header with compressed class pointers.
+     */
+    private static final int COMPRESSED_HEADER = 12;
+
+    /**
+     * Bytes of an object header with full class pointers.
+     */
+    private static final int FULL_HEADER = 16;
+
+    /**
+     * Object alignment assumed when the JVM does not tell.
+     */
+    private static final String DEFAULT_ALIGNMENT = "8";
+
+    /**
+     * Percent in a unit.
+     */
+    private static final double PERCENT = 100;
+
+    /**
+     * Bytes of an object header.
+     */
+    private static final int HEADER;
+
+    /**
+     * Bytes of a reference.
+     */
+    private static final int REFERENCE;
+
+    /**
+     * Object alignment in bytes.
+     */
+    private static final int ALIGNMENT;
+
+    static {
+        boolean compressedOops = vmFlag("UseCompressedOops", "true").equals("true");
+        boolean compressedClasses = vmFlag("UseCompressedClassPointers", "true")
+                .equals("true");
+        HEADER = compressedClasses ? COMPRESSED_HEADER : FULL_HEADER;
+        REFERENCE = compressedOops ? Integer.BYTES : Long.BYTES;
+        ALIGNMENT = Integer.parseInt(vmFlag("ObjectAlignmentInBytes", DEFAULT_ALIGNMENT));
+    }
+
+    /**
+     * The shallow size of every class measured.
+     */
+    private static final ClassValue<Long> SHALLOW = new ClassValue<>() {
+        @Override
+        protected Long computeValue(final Class<?> type) {
+            long fields = 0;
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())) {
+                        fields += fieldSize(field.getType());
+                    }
+                }
+            }
+            return align(HEADER + fields);
+        }
+    };
+
+    /**
+     * Count of every entity type.
+     */
+    private final long[] counts = new long[Kind.values().length];
+
+    /**
+     * Bytes of every entity type, strings excluded.
+     */
+    private final long[] bytes = new long[Kind.values().length];
+
+    /**
+     * Bytes of the strings held by every entity type.
+     */
+    private final long[] stringBytes = new long[Kind.values().length];
+
+    /**
+     * Bytes retained per account, strings and transactions included.
+     */
+    private final LatencyHistogram perAccount = new LatencyHistogram();
+
+    /**
+     * Number of transactions sealed into archive segments.
+     */
+    private long archivedTransactions;
+
+    /**
+     * Off-heap bytes reserved by the account table.
+     */
+    private long accountTableBytes;
+
+    /**
+     * Strings and split account lists already charged.
+     */
+    private Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /**
+     * Creates an empty footprint; {@link #measure(List)} fills one in.
+     */
+    private HeapFootprint() {
+    }
+
+    /**
+     * Walks the users of a bank and everything they hold.
+     *
+     * @param users the users
+     * @return the footprint
+     */
+    public static HeapFootprint measure(final List<User> users) {
+        HeapFootprint footprint = new HeapFootprint();
+        for (User user : users) {
+            footprint.user(user);
+        }
+        footprint.accountTableBytes = AccountTable.current().reservedBytes();
+        footprint.seen = null;
+        return footprint;
+    }
+
+    /**
+     * Returns the number of entities of a type.
+     *
+     * @param kind the type
+     * @return the count
+     */
+    public long getCount(final Kind kind) {
+        return counts[kind.ordinal()];
+    }
+
+    /**
+     * Returns the bytes retained by the entities of a type, strings excluded.
+     *
+     * @param kind the type
+     * @return the bytes
+     */
+    public long getBytes(final Kind kind) {
+        return bytes[kind.ordinal()];
+    }
+
+    /**
+     * Returns the bytes of the strings held by the entities of a type.
+     *
+     * @param kind the type
+     * @return the bytes
+     */
+    public long getStringBytes(final Kind kind) {
+        return stringBytes[kind.ordinal()];
+    }
+
+    /**
+     * Returns the heap bytes retained by the bank, strings included.
+     *
+     * @return the bytes
+     */
+    public long getTotalBytes() {
+        long total = 0;
+        for (Kind kind : Kind.values()) {
+            total += getBytes(kind) + getStringBytes(kind);
+        }
+        return total;
+    }
+
+    /**
+     * Returns the distribution of the bytes retained per account, its cards,
+     * transactions and strings included.
+     *
+     * @return the histogram
+     */
+    public LatencyHistogram getPerAccount() {
+        return perAccount;
+    }
+
+    /**
+     * Returns the number of transactions sealed into archive segments, off the heap.
+     *
+     * @return the count
+     */
+    public long getArchivedTransactions() {
+        return archivedTransactions;
+    }
+
+    /**
+     * Returns the off-heap bytes reserved by the account table.
+     *
+     * @return the bytes
+     */
+    public long getAccountTableBytes() {
+        return accountTableBytes;
+    }
+
+    /**
+     * Prints the bytes by entity type and the bytes per account.
+     *
+     * @param out where to print
+     */
+    public void print(final PrintStream out) {
+        out.printf("%-16s %12s %14s %14s %10s%n", "entity", "count", "bytes", "string bytes",
+                "avg");
+        for (Kind kind : Kind.values()) {
+            long count = getCount(kind);
+            long total = getBytes(kind) + getStringBytes(kind);
+            out.printf("%-16s %12d %14d %14d %10.1f%n", kind, count, getBytes(kind),
+                    getStringBytes(kind), count == 0 ? 0.0 : (double) total / count);
+        }
+        out.printf("total heap %d bytes; off heap: %d archived transactions, account table"
+                + " %d bytes%n", getTotalBytes(), archivedTransactions, accountTableBytes);
+        if (perAccount.count() > 0) {
+            out.print("bytes per account:");
+            for (double quantile : QUANTILES) {
+                out.printf(" p%s %d", quantileName(quantile),
+                        perAccount.valueAtQuantile(quantile));
+            }
+            out.printf(" max %d%n", perAccount.max());
+        }
+    }
+
+    /**
+     * Charges a user and its accounts.
+     *
+     * @param user the user
+     */
+    private void user(final User user) {
+        int index = Kind.USER.ordinal();
+        counts[index]++;
+        bytes[index] += shallow(user) + list(user.getAccounts().size());
+        stringBytes[index] += string(user.getEmail()) + string(user.getFirstName())
+                + string(user.getLastName()) + string(user.getOccupation())
+                + string(user.getDateOfBirth());
+        for (Account account : user.getAccounts()) {
+            perAccount.record(account(account));
+        }
+    }
+
+    /**
+     * Charges an account, its cards and its transactions.
+     *
+     * @param account the account
+     * @return the bytes charged
+     */
+    private long account(final Account account) {
+        int index = (account instanceof SavingsAccount ? Kind.SAVINGS_ACCOUNT : Kind.ACCOUNT)
+                .ordinal();
+        TransactionHistory history = account.getTransactions();
+        List<Transactions> hot = history.getHotTransactions();
+        int segments = history.getSegmentCount();
+        long own = shallow(account) + list(account.getCards().size()) + shallow(history)
+                + list(hot.size()) + list(segments) + array(Integer.BYTES, segments)
+                + segments * SHALLOW.get(TransactionSegment.class);
+        for (AccountActivity activity : history.getActivityTrees()) {
+            // the trees have one more node than keys, node 0 being unused
+            int nodes = activity.capacity() == 0 ? 0 : activity.capacity() + 1;
+            own += shallow(activity) + array(Integer.BYTES, activity.capacity())
+                    + array(Long.BYTES, nodes * AccountActivity.FIELDS);
+        }
+        long strings = string(account.getIban()) + string(account.getAlias());
+        counts[index]++;
+        bytes[index] += own;
+        stringBytes[index] += strings;
+        archivedTransactions += history.getArchivedCount();
+
+        long retained = own + strings;
+        for (Card card : account.getCards()) {
+            retained += card(card);
+        }
+        for (Transactions transaction : hot) {
+            retained += transaction(transaction);
+        }
+        return retained;
+    }
+
+    /**
+     * Charges a card.
+     *
+     * @param card the card
+     * @return the bytes charged
+     */
+    private long card(final Card card) {
+        int index = (card instanceof OneTimeCard ? Kind.ONE_TIME_CARD : Kind.CARD).ordinal();
+        long own = shallow(card);
+        long strings = string(card.getCardNumber()) + string(card.getStatus());
+        counts[index]++;
+        bytes[index] += own;
+        stringBytes[index] += strings;
+        return own + strings;
+    }
+
+    /**
+     * Charges a transaction.
+     *
+     * @param transaction the transaction
+     * @return the bytes charged
+     */
+    private long transaction(final Transactions transaction) {
+        int index = Kind.TRANSACTION.ordinal();
+        long own = shallow(transaction);
+        long strings = string(transaction.getCommand()) + string(transaction.getDescription())
+                + string(transaction.getTransferType()) + string(transaction.getCardHolder())
+                + string(transaction.getCommerciant()) + string(transaction.getCurrency());
+        // the identifiers are only held as strings when they do not pack
+        if (transaction.getReceiverIbanCode() == IdentifierCodes.NONE) {
+            strings += string(transaction.getReceiverIban());
+        }
+        if (transaction.getSenderIbanCode() == IdentifierCodes.NONE) {
+            strings += string(transaction.getSenderIban());
+        }
+        if (transaction.getCardCode() == IdentifierCodes.NONE) {
+            strings += string(transaction.getCard());
+        }
+        List<String> split = transaction.getAccountsForSplit();
+        if (split != null && seen.add(split)) {
+            own += list(split.size());
+            for (String iban : split) {
+                strings += string(iban);
+            }
+        }
+        counts[index]++;
+        bytes[index] += own;
+        stringBytes[index] += strings;
+        return own + strings;
+    }
+
+    /**
+     * Returns the bytes of a string not charged yet.
+     *
+     * @param value the string, may be null
+     * @return the bytes, 0 if null or already charged
+     */
+    private long string(final String value) {
+        if (value == null || !seen.add(value)) {
+            return 0;
+        }
+        int perChar = 1;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > LATIN1_MAX) {
+                perChar = 2;
+                break;
+            }
+        }
+        return SHALLOW.get(String.class) + array(perChar, value.length());
+    }
+
+    /**
+     * Returns the shallow size of an object.
+     *
+     * @param object the object
+     * @return the bytes
+     */
+    private static long shallow(final Object object) {
+        return SHALLOW.get(object.getClass());
+    }
+
+    /**
+     * Returns the size of a list with its backing array.
+     *
+     * @param size the number of elements
+     * @return the bytes
+     */
+    private static long list(final int size) {
+        return SHALLOW.get(ArrayList.class) + array(REFERENCE, size);
+    }
+
+    /**
+     * Returns the size of an array.
+     *
+     * @param elementSize the bytes per element
+     * @param length      the number of elements
+     * @return the bytes
+     */
+    private static long array(final int elementSize, final int length) {
+        return align(HEADER + Integer.BYTES + (long) elementSize * length);
+    }
+
+    /**
+     * Returns the bytes taken by a field of a type.
+     *
+     * @param type the field type
+     * @return the bytes
+     */
+    private static int fieldSize(final Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return Long.BYTES;
+        }
+        if (type == int.class || type == float.class) {
+            return Integer.BYTES;
+        }
+        if (type == short.class || type == char.class) {
+            return Short.BYTES;
+        }
+        if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return REFERENCE;
+    }
+
+    /**
+     * Rounds a size up to the object alignment.
+     *
+     * @param size the size
+     * @return the aligned size
+     */
+    private static long align(final long size) {
+        return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    /**
+     * Formats a quantile as a percentile name.
+     *
+     * @param quantile the quantile, e.g. 0.99
+     * @return the name, e.g. "99"
+     */
+    private static String quantileName(final double quantile) {
+        double percent = quantile * PERCENT;
+        return percent == Math.rint(percent) ? String.valueOf((long) percent)
+                : String.valueOf(percent);
+    }
+
+    /**
+     * Reads a flag of the running JVM.
+     *
+     * @param name     the flag
+     * @param fallback the value if the flag cannot be read
+     * @return the value
+     */
+    private static String vmFlag(final String name, final String fallback) {
+        try {
+            return ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class)
+                    .getVMOption(name).getValue();
+        } catch (RuntimeException e) {
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package org.poo.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of non-negative values, typically latencies in nanoseconds, in the
+ * style of HdrHistogram: every power of two is split into {@link #SUB_BUCKETS} linear
+ * buckets, so any recorded value is known to within about 3% over the whole long range,
+ * in a fixed array of under two thousand counters.
+ *
+ * <p>Recording is lock-free and may happen from any number of threads; it costs one
+ * atomic increment of a bucket and one of the sum. Reads are not atomic with respect to
+ * concurrent recording, so a snapshot taken under load may be off by the values being
+ * recorded at that moment.
+ */
+public final class LatencyHistogram {
+
+    /**
+     * log2 of {@link #SUB_BUCKETS}.
+     */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /**
+     * Number of linear buckets per power of two.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Values below this get a bucket each.
+     */
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+
+    /**
+     * Number of buckets: the linear ones, then {@link #SUB_BUCKETS} per remaining power of
+     * two.
+     */
+    private static final int BUCKETS = LINEAR_LIMIT
+            + (Long.SIZE - 1 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+    /**
+     * Count of every bucket.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Sum of the recorded values.
+     */
+    private final AtomicLong sum = new AtomicLong();
+
+    /**
+     * Largest recorded value.
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value.
+     *
+     * @param value the value; negative values are recorded as 0
+     */
+    public void record(final long value) {
+        long v = Math.max(0, value);
+        counts.incrementAndGet(bucketOf(v));
+        sum.addAndGet(v);
+        if (v > max.get()) {
+            max.accumulateAndGet(v, Math::max);
+        }
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the count
+     */
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the sum of the recorded values.
+     *
+     * @return the sum
+     */
+    public long sum() {
+        return sum.get();
+    }
+
+    /**
+     * Returns the mean of the recorded values.
+     *
+     * @return the mean, 0 if nothing was recorded
+     */
+    public double mean() {
+        long count = count();
+        return count == 0 ? 0 : (double) sum.get() / count;
+    }
+
+    /**
+     * Returns the largest recorded value.
+     *
+     * @return the maximum, 0 if nothing was recorded
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Returns the value below which a share of the recorded values fall.
+     *
+     * @param quantile the share, between 0 and 1
+     * @return the highest value of the bucket holding the quantile, capped at the
+     *         maximum; 0 if nothing was recorded
+     */
+    public long valueAtQuantile(final double quantile) {
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(Math.min(1, Math.max(0, quantile)) * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Adds the values recorded by another histogram.
+     *
+     * @param other the other histogram
+     */
+    public void add(final LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = other.counts.get(i);
+            if (count != 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+        sum.addAndGet(other.sum.get());
+        max.accumulateAndGet(other.max.get(), Math::max);
+    }
+
+    /**
+     * Forgets every recorded value.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        sum.set(0);
+        max.set(0);
+    }
+
+    /**
+     * Returns the bucket of a value.
+     *
+     * @param value the value, non-negative
+     * @return the bucket index
+     */
+    static int bucketOf(final long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS
+                + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Returns the highest value that falls in a bucket.
+     *
+     * @param bucket the bucket index
+     * @return the value
+     */
+    static long highestValueOf(final int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int shift = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        long sub = (bucket - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        long highest = ((sub + 1) << shift) - 1;
+        return highest < 0 ? Long.MAX_VALUE : highest;
+    }
+}
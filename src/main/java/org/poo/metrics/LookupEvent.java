@@ -0,0 +1,90 @@
+package org.poo.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of one lookup in the bank index. Lookups are far more frequent
+ * than commands, so the event is off by default; a recording turns it on with
+ * {@code org.poo.IndexLookup#enabled=true}, usually along with a duration threshold.
+ */
+@Name("org.poo.IndexLookup")
+@Label("Index Lookup")
+@Category({"Bank", "Index"})
+@Description("A user, account or card looked up in the bank index")
+@StackTrace(false)
+@Enabled(false)
+public final class LookupEvent extends Event {
+
+    /**
+     * The registered type of the event, telling whether a running recording enables it.
+     */
+    private static final EventType TYPE = EventType.getEventType(LookupEvent.class);
+
+    /**
+     * Kind of user lookups by email.
+     */
+    public static final String USER = "user";
+
+    /**
+     * Kind of account lookups by IBAN.
+     */
+    public static final String IBAN = "iban";
+
+    /**
+     * Kind of account lookups by card number.
+     */
+    public static final String CARD = "card";
+
+    /**
+     * What was looked up: {@link #USER}, {@link #IBAN} or {@link #CARD}.
+     */
+    @Label("Kind")
+    private String kind;
+
+    /**
+     * The email, IBAN or card number looked up.
+     */
+    @Label("Key")
+    private String key;
+
+    /**
+     * Whether the key was found.
+     */
+    @Label("Found")
+    private boolean found;
+
+    /**
+     * Fills in the fields.
+     *
+     * @param kind  what was looked up
+     * @param key   the email, IBAN or card number looked up
+     * @param found whether the key was found
+     */
+    public void set(final String kind, final String key, final boolean found) {
+        this.kind = kind;
+        this.key = key;
+        this.found = found;
+    }
+
+    /**
+     * Creates and begins an event if a running recording enables it, so that nothing is
+     * allocated otherwise.
+     *
+     * @return the begun event, or null if the event is not recorded
+     */
+    public static LookupEvent beginIfEnabled() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        LookupEvent event = new LookupEvent();
+        event.begin();
+        return event;
+    }
+}
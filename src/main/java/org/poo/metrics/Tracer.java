@@ -0,0 +1,381 @@
+package org.poo.metrics;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Optional timeline of the spans of a run: parsing, command construction, every command
+ * execution, output serialization and file writes, exported in the Chrome trace-event
+ * format for {@code chrome://tracing} or Perfetto.
+ *
+ * <p>A span is recorded with {@code long start = Tracer.begin();} before the work and
+ * {@code Tracer.end(span, start);} after it, {@code span} being an id obtained once from
+ * {@link #span(String, String)}. When the tracer is off, both calls are a volatile read.
+ * When it is on, every thread writes its spans into its own ring buffer of
+ * pre-allocated arrays, without locking or allocating; once a ring is full, the oldest
+ * spans are overwritten, so a long run keeps its most recent spans.
+ *
+ * <p>Rings are kept until the next {@link #start(int)}, one per thread that recorded, so
+ * the tracer is only meant for runs over a few threads. The batch entry points call
+ * {@link #startIfRequested()}, which turns it on when the {@code bank.trace.file} system
+ * property is set, with rings of {@code bank.trace.capacity} spans, and
+ * {@link #exportIfRequested()} then writes the trace to that file. The server, which runs
+ * a thread per connection and never exports, does not start it. Exporting reads the
+ * rings without stopping their writers, so it is meant to run once the traced work is
+ * done.
+ */
+public final class Tracer {
+
+    /**
+     * System property naming the file the trace is exported to.
+     */
+    public static final String FILE_PROPERTY = "bank.trace.file";
+
+    /**
+     * System property setting the number of spans kept per thread.
+     */
+    public static final String CAPACITY_PROPERTY = "bank.trace.capacity";
+
+    /**
+     * Default number of spans kept per thread.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 20;
+
+    /**
+     * Nanoseconds per microsecond, the time unit of the trace format.
+     */
+    private static final double NANOS_PER_MICRO = 1e3;
+
+    /**
+     * Name of every span id.
+     */
+    private static final List<String> NAMES = new CopyOnWriteArrayList<>();
+
+    /**
+     * Category of every span id.
+     */
+    private static final List<String> CATEGORIES = new CopyOnWriteArrayList<>();
+
+    /**
+     * Span id of every name.
+     */
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+
+    /**
+     * Span id of the execution of every command class.
+     */
+    private static final ClassValue<Integer> EXECUTE_SPANS = new ClassValue<>() {
+        @Override
+        protected Integer computeValue(final Class<?> type) {
+            return span(type.getSimpleName(), "execute");
+        }
+    };
+
+    /**
+     * Span of reading and parsing the input file.
+     */
+    public static final int PARSE = span("parse", "io");
+
+    /**
+     * Span of building a command from its input.
+     */
+    public static final int CONSTRUCT = span("construct", "factory");
+
+    /**
+     * Span of serializing the output.
+     */
+    public static final int SERIALIZE = span("serialize", "io");
+
+    /**
+     * Span of writing a file.
+     */
+    public static final int WRITE = span("write", "io");
+
+    /**
+     * The rings of every thread that recorded since the tracer was started.
+     */
+    private static final Queue<Ring> RINGS = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The ring of the current thread, possibly left from a previous recording.
+     */
+    private static final ThreadLocal<Ring> RING = new ThreadLocal<>();
+
+    /**
+     * Whether spans are recorded.
+     */
+    private static volatile boolean enabled;
+
+    /**
+     * Number of spans kept per thread, a power of two.
+     */
+    private static volatile int capacity = DEFAULT_CAPACITY;
+
+    /**
+     * Start of the trace, on the {@link System#nanoTime()} clock.
+     */
+    private static volatile long origin;
+
+    /**
+     * Number of the current recording; rings of earlier ones are replaced on first use.
+     */
+    private static volatile int generation;
+
+    /**
+     * Private constructor to prevent instantiation of the utility class.
+     */
+    private Tracer() {
+    }
+
+    /**
+     * Starts recording, dropping the spans of any previous recording. Threads get their
+     * ring when they record their first span.
+     *
+     * @param spansPerThread the number of spans kept per thread, rounded up to a power
+     *                       of two
+     */
+    public static synchronized void start(final int spansPerThread) {
+        if (spansPerThread < 1) {
+            throw new IllegalArgumentException("Invalid trace capacity: " + spansPerThread);
+        }
+        enabled = false;
+        int rounded = Integer.highestOneBit(spansPerThread);
+        capacity = rounded < spansPerThread ? rounded << 1 : rounded;
+        RINGS.clear();
+        generation++;
+        origin = System.nanoTime();
+        enabled = true;
+    }
+
+    /**
+     * Starts recording if {@link #FILE_PROPERTY} is set and the tracer is off, so that
+     * calling it before every run keeps the spans of the earlier ones.
+     */
+    public static synchronized void startIfRequested() {
+        if (!enabled && System.getProperty(FILE_PROPERTY) != null) {
+            start(Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY));
+        }
+    }
+
+    /**
+     * Stops recording; the spans recorded so far can still be exported.
+     */
+    public static void stop() {
+        enabled = false;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the id of a span name, registering it on first use.
+     *
+     * @param name     the span name
+     * @param category the category shown with it
+     * @return the id
+     */
+    public static int span(final String name, final String category) {
+        return IDS.computeIfAbsent(name, key -> {
+            synchronized (NAMES) {
+                NAMES.add(key);
+                CATEGORIES.add(category);
+                return NAMES.size() - 1;
+            }
+        });
+    }
+
+    /**
+     * Returns the id of the span of executing a command.
+     *
+     * @param type the command class
+     * @return the id, named after the simple class name
+     */
+    public static int executeSpan(final Class<?> type) {
+        return EXECUTE_SPANS.get(type);
+    }
+
+    /**
+     * Marks the beginning of a span.
+     *
+     * @return the start time to pass to {@link #end(int, long)}, 0 when not recording
+     */
+    public static long begin() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records a span that began at {@code start}.
+     *
+     * @param span  the span id
+     * @param start the value returned by {@link #begin()}
+     */
+    public static void end(final int span, final long start) {
+        if (start != 0 && enabled) {
+            record(span, start, System.nanoTime());
+        }
+    }
+
+    /**
+     * Records a span timed by the caller, for code that reads the clock anyway.
+     *
+     * @param span  the span id
+     * @param start the start time, on the {@link System#nanoTime()} clock
+     * @param end   the end time
+     */
+    public static void record(final int span, final long start, final long end) {
+        if (!enabled) {
+            return;
+        }
+        Ring ring = RING.get();
+        if (ring == null || ring.generation != generation) {
+            ring = new Ring(Thread.currentThread(), capacity, generation);
+            RINGS.add(ring);
+            RING.set(ring);
+        }
+        ring.add(span, start, end);
+    }
+
+    /**
+     * Exports the trace to the file named by {@link #FILE_PROPERTY}, if it is set.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public static void exportIfRequested() throws IOException {
+        String file = System.getProperty(FILE_PROPERTY);
+        if (file != null) {
+            export(Path.of(file));
+        }
+    }
+
+    /**
+     * Writes the recorded spans as a Chrome trace: a complete event per span, with the
+     * thread that recorded it, and a metadata event naming every thread.
+     *
+     * @param file the file
+     * @throws IOException if the file cannot be written
+     */
+    public static void export(final Path file) throws IOException {
+        long pid = ProcessHandle.current().pid();
+        try (JsonGenerator json = new JsonFactory().createGenerator(file.toFile(),
+                JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeArrayFieldStart("traceEvents");
+            for (Ring ring : RINGS) {
+                json.writeStartObject();
+                json.writeStringField("name", "thread_name");
+                json.writeStringField("ph", "M");
+                json.writeNumberField("pid", pid);
+                json.writeNumberField("tid", ring.threadId);
+                json.writeObjectFieldStart("args");
+                json.writeStringField("name", ring.threadName);
+                json.writeEndObject();
+                json.writeEndObject();
+
+                long count = ring.count;
+                int mask = ring.spans.length - 1;
+                for (long i = Math.max(0, count - ring.spans.length); i < count; i++) {
+                    int slot = (int) (i & mask);
+                    int span = ring.spans[slot];
+                    json.writeStartObject();
+                    json.writeStringField("name", NAMES.get(span));
+                    json.writeStringField("cat", CATEGORIES.get(span));
+                    json.writeStringField("ph", "X");
+                    json.writeNumberField("ts", (ring.starts[slot] - origin) / NANOS_PER_MICRO);
+                    json.writeNumberField("dur",
+                            (ring.ends[slot] - ring.starts[slot]) / NANOS_PER_MICRO);
+                    json.writeNumberField("pid", pid);
+                    json.writeNumberField("tid", ring.threadId);
+                    json.writeEndObject();
+                }
+            }
+            json.writeEndArray();
+            json.writeStringField("displayTimeUnit", "ns");
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * The spans recorded by one thread, in a ring of parallel arrays.
+     */
+    private static final class Ring {
+
+        /**
+         * Id of the recording thread.
+         */
+        private final long threadId;
+
+        /**
+         * Name of the recording thread.
+         */
+        private final String threadName;
+
+        /**
+         * The recording the ring belongs to.
+         */
+        private final int generation;
+
+        /**
+         * Span id of every slot.
+         */
+        private final int[] spans;
+
+        /**
+         * Start time of every slot.
+         */
+        private final long[] starts;
+
+        /**
+         * End time of every slot.
+         */
+        private final long[] ends;
+
+        /**
+         * Number of spans recorded, including the overwritten ones. Written by the
+         * recording thread only, and not volatile to keep recording a plain store.
+         */
+        private long count;
+
+        /**
+         * Creates the ring of a thread.
+         *
+         * @param thread     the thread
+         * @param capacity   the number of slots, a power of two
+         * @param generation the recording the ring belongs to
+         */
+        Ring(final Thread thread, final int capacity, final int generation) {
+            this.threadId = thread.threadId();
+            this.threadName = thread.getName();
+            this.generation = generation;
+            this.spans = new int[capacity];
+            this.starts = new long[capacity];
+            this.ends = new long[capacity];
+        }
+
+        /**
+         * Records a span, overwriting the oldest one if the ring is full.
+         *
+         * @param span  the span id
+         * @param start the start time
+         * @param end   the end time
+         */
+        void add(final int span, final long start, final long end) {
+            long n = count;
+            int slot = (int) (n & (spans.length - 1));
+            spans[slot] = span;
+            starts[slot] = start;
+            ends[slot] = end;
+            count = n + 1;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package org.poo.persistence;
+
+import org.poo.entities.Transactions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * A file of the {@link TransactionArchive} shared by the segments of many accounts. The
+ * file is sized to {@link #CAPACITY} up front, sparse on disk, and mapped once; segments
+ * are appended to it and addressed by offset.
+ *
+ * <p>File layout: the magic bytes, then the segments one after the other, each made of its
+ * records encoded by {@link TransactionCodec} without string interning followed by the
+ * file offset of every record as a four-byte int.
+ */
+final class ArchiveFile {
+
+    /**
+     * Size of every archive file, larger than any segment the default hot limit seals.
+     */
+    static final int CAPACITY = 1 << 26;
+
+    /**
+     * Bytes opening every archive file.
+     */
+    private static final byte[] MAGIC = {'P', 'O', 'O', 'T', 0, 0, 0, 3};
+
+    /**
+     * The file.
+     */
+    private final Path path;
+
+    /**
+     * Channel appending the segments.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Reader over the mapped file.
+     */
+    private final BinaryInput in;
+
+    /**
+     * File offset where the next segment starts.
+     */
+    private long end;
+
+    /**
+     * Number of segments of the file not released yet.
+     */
+    private int liveSegments;
+
+    /**
+     * Creates and maps an archive file.
+     *
+     * @param path the file, replaced if it exists
+     * @throws IOException if the file cannot be created or mapped
+     */
+    ArchiveFile(final Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            channel.write(ByteBuffer.wrap(MAGIC), 0);
+            // the last byte sizes the file without writing the rest of it
+            channel.write(ByteBuffer.allocate(1), CAPACITY - 1);
+            this.in = new BinaryInput(channel, 0, false);
+        } catch (IOException e) {
+            channel.close();
+            Files.deleteIfExists(path);
+            throw e;
+        }
+        this.end = MAGIC.length;
+    }
+
+    /**
+     * Appends transactions as a new segment.
+     *
+     * @param transactions the transactions, oldest first
+     * @return the segment, or null if it does not fit in what is left of the file
+     * @throws IOException if the segment cannot be written
+     */
+    TransactionSegment append(final List<Transactions> transactions) throws IOException {
+        long start = end;
+        int[] offsets = new int[transactions.size()];
+        int minTimestamp = Integer.MAX_VALUE;
+        int maxTimestamp = Integer.MIN_VALUE;
+        long indexOffset;
+        channel.position(start);
+        try (BinaryOutput out = new BinaryOutput(channel, false)) {
+            for (int i = 0; i < offsets.length; i++) {
+                Transactions transaction = transactions.get(i);
+                // offsets past the capacity are never read: the segment is dropped below
+                offsets[i] = (int) Math.min(start + out.position(), CAPACITY);
+                minTimestamp = Math.min(minTimestamp, transaction.getTimestamp());
+                maxTimestamp = Math.max(maxTimestamp, transaction.getTimestamp());
+                TransactionCodec.write(out, transaction);
+            }
+            indexOffset = start + out.position();
+            for (int offset : offsets) {
+                out.writeInt(offset);
+            }
+        }
+
+        long segmentEnd = indexOffset + (long) offsets.length * Integer.BYTES;
+        if (segmentEnd > CAPACITY) {
+            // the mapping covers the capacity only; give the space written past it back
+            channel.truncate(CAPACITY);
+            end = CAPACITY;
+            return null;
+        }
+        end = segmentEnd;
+        liveSegments++;
+        return new TransactionSegment(this, offsets.length, indexOffset, minTimestamp,
+                maxTimestamp);
+    }
+
+    /**
+     * Reads a record of a segment.
+     *
+     * @param indexOffset the file offset of the record offset index of the segment
+     * @param index       the position of the record in the segment
+     * @return a fresh copy of the transaction
+     * @throws IOException if the mapped file is malformed
+     */
+    synchronized Transactions read(final long indexOffset, final int index)
+            throws IOException {
+        in.seek(indexOffset + (long) index * Integer.BYTES);
+        in.seek(in.readInt());
+        return TransactionCodec.read(in);
+    }
+
+    /**
+     * Forgets a released segment.
+     *
+     * @return true once no segment of the file is live
+     */
+    boolean release() {
+        return --liveSegments == 0;
+    }
+
+    /**
+     * Makes the space of the released segments available to the next ones. Only valid
+     * once no segment of the file is live.
+     */
+    void reset() {
+        end = MAGIC.length;
+    }
+
+    /**
+     * Tells whether the file has no live segment.
+     *
+     * @return true if every segment of the file was released
+     */
+    boolean isEmpty() {
+        return liveSegments == 0;
+    }
+
+    /**
+     * Closes and deletes the file. The mapping goes away once the reader is collected.
+     *
+     * @throws IOException if the file cannot be deleted
+     */
+    void delete() throws IOException {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Returns the file.
+     *
+     * @return the path
+     */
+    Path getPath() {
+        return path;
+    }
+}
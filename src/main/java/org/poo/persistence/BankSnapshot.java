@@ -0,0 +1,315 @@
+package org.poo.persistence;
+
+import org.poo.entities.Account;
+import org.poo.entities.Card;
+import org.poo.entities.OneTimeCard;
+import org.poo.entities.SavingsAccount;
+import org.poo.entities.Transactions;
+import org.poo.entities.User;
+import org.poo.entities.ValutarCourse;
+import org.poo.storage.BankIndex;
+import org.poo.utils.Utils;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The whole bank state in one compact binary file: exchange rates, users, their classic
+ * and savings accounts, cards, one-time cards and transaction logs, the positions of the
+ * IBAN and card number generators and the sequence number of the last journal record the
+ * state includes. Restoring a snapshot and replaying the journal records after that
+ * sequence number rebuilds the state without replaying the whole history.
+ *
+ * <p>Strings are interned across the file, so every IBAN, card number, currency and
+ * merchant is stored once. The file is written to a temporary sibling and moved into
+ * place, and read back sequentially through memory mappings.
+ */
+public final class BankSnapshot {
+
+    /**
+     * Bytes opening every snapshot file.
+     */
+    private static final byte[] MAGIC = {'P', 'O', 'O', 'S', 0, 0, 0, 2};
+
+    /**
+     * Marker of a classic account.
+     */
+    private static final int CLASSIC_ACCOUNT = 0;
+
+    /**
+     * Marker of a savings account.
+     */
+    private static final int SAVINGS_ACCOUNT = 1;
+
+    /**
+     * The users of the bank.
+     */
+    private final List<User> users;
+
+    /**
+     * The exchange rates of the bank.
+     */
+    private final ArrayList<ValutarCourse> exchangeRates;
+
+    /**
+     * Sequence number of the last journal record included in the state.
+     */
+    private final long journalSequence;
+
+    /**
+     * State of the IBAN generator.
+     */
+    private final long ibanRandomState;
+
+    /**
+     * State of the card number generator.
+     */
+    private final long cardRandomState;
+
+    /**
+     * Creates a snapshot read from a file.
+     *
+     * @param users           the users of the bank
+     * @param exchangeRates   the exchange rates of the bank
+     * @param journalSequence the last journal record included in the state
+     * @param ibanRandomState the state of the IBAN generator
+     * @param cardRandomState the state of the card number generator
+     */
+    private BankSnapshot(final List<User> users, final ArrayList<ValutarCourse> exchangeRates,
+                         final long journalSequence, final long ibanRandomState,
+                         final long cardRandomState) {
+        this.users = users;
+        this.exchangeRates = exchangeRates;
+        this.journalSequence = journalSequence;
+        this.ibanRandomState = ibanRandomState;
+        this.cardRandomState = cardRandomState;
+    }
+
+    /**
+     * Returns the users of the bank.
+     *
+     * @return the users
+     */
+    public List<User> getUsers() {
+        return users;
+    }
+
+    /**
+     * Returns the exchange rates of the bank.
+     *
+     * @return the exchange rates
+     */
+    public ArrayList<ValutarCourse> getExchangeRates() {
+        return exchangeRates;
+    }
+
+    /**
+     * Returns the sequence number of the last journal record included in the state.
+     *
+     * @return the journal sequence number, 0 if no journal was in use
+     */
+    public long getJournalSequence() {
+        return journalSequence;
+    }
+
+    /**
+     * Moves the IBAN and card number generators to where they were when the snapshot
+     * was taken, and records the restored IBANs and card numbers as issued.
+     */
+    public void restoreRandom() {
+        Utils.restoreRandom(ibanRandomState, cardRandomState);
+        for (User user : users) {
+            for (Account account : user.getAccounts()) {
+                Utils.markIbanIssued(account.getIban());
+                for (Card card : account.getCards()) {
+                    Utils.markCardIssued(card.getCardNumber());
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the bank state, including the current generator positions.
+     *
+     * @param file            the snapshot file
+     * @param users           the users of the bank
+     * @param exchangeRates   the exchange rates of the bank
+     * @param journalSequence the last journal record included in the state
+     * @throws IOException if writing fails
+     */
+    public static void write(final Path file, final List<User> users,
+                             final List<ValutarCourse> exchangeRates,
+                             final long journalSequence) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             BinaryOutput out = new BinaryOutput(channel, true)) {
+            out.writeBytes(MAGIC);
+            out.writeLong(journalSequence);
+            out.writeLong(Utils.getIbanRandomState());
+            out.writeLong(Utils.getCardRandomState());
+
+            out.writeVarint(exchangeRates.size());
+            for (ValutarCourse rate : exchangeRates) {
+                out.writeString(rate.getFrom());
+                out.writeString(rate.getTo());
+                out.writeDouble(rate.getRate());
+            }
+
+            out.writeVarint(users.size());
+            for (User user : users) {
+                writeUser(out, user);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot, registering its users and accounts in the current
+     * {@link BankIndex}, which should have been reset beforehand. The generators are left
+     * untouched until {@link #restoreRandom()}.
+     *
+     * @param file the snapshot file
+     * @return the snapshot
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public static BankSnapshot read(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            BinaryInput in = new BinaryInput(channel, 0, true);
+            if (!Arrays.equals(in.readBytes(MAGIC.length), MAGIC)) {
+                throw new IOException("Not a bank snapshot: " + file);
+            }
+            long journalSequence = in.readLong();
+            long ibanRandomState = in.readLong();
+            long cardRandomState = in.readLong();
+
+            int rateCount = in.readVarint();
+            ArrayList<ValutarCourse> exchangeRates = new ArrayList<>(rateCount);
+            for (int i = 0; i < rateCount; i++) {
+                exchangeRates.add(new ValutarCourse(in.readString(), in.readString(),
+                        in.readDouble()));
+            }
+
+            int userCount = in.readVarint();
+            List<User> users = new ArrayList<>(userCount);
+            for (int i = 0; i < userCount; i++) {
+                users.add(readUser(in));
+            }
+            return new BankSnapshot(users, exchangeRates, journalSequence,
+                    ibanRandomState, cardRandomState);
+        }
+    }
+
+    /**
+     * Writes a user with its accounts.
+     *
+     * @param out  the writer
+     * @param user the user
+     * @throws IOException if writing fails
+     */
+    private static void writeUser(final BinaryOutput out, final User user) throws IOException {
+        out.writeString(user.getEmail());
+        out.writeString(user.getFirstName());
+        out.writeString(user.getLastName());
+        out.writeString(user.getOccupation());
+        out.writeString(user.getDateOfBirth());
+
+        out.writeVarint(user.getAccounts().size());
+        for (Account account : user.getAccounts()) {
+            boolean savings = account instanceof SavingsAccount;
+            out.writeVarint(savings ? SAVINGS_ACCOUNT : CLASSIC_ACCOUNT);
+            out.writeString(account.getIban());
+            out.writeDouble(account.getBalance());
+            out.writeString(account.getCurrency());
+            out.writeString(account.getType());
+            out.writeString(account.getAlias());
+            out.writeDouble(account.getMinimumBalance());
+            out.writeString(account.getPlan());
+            if (savings) {
+                out.writeDouble(((SavingsAccount) account).getInterestRate());
+            }
+
+            out.writeVarint(account.getCards().size());
+            for (Card card : account.getCards()) {
+                out.writeBoolean(card.isOneTimeCard());
+                out.writeString(card.getCardNumber());
+                out.writeString(card.getStatus());
+                out.writeDouble(card.getMinimumBalance());
+                if (card.isOneTimeCard()) {
+                    OneTimeCard oneTimeCard = (OneTimeCard) card;
+                    out.writeBoolean(oneTimeCard.isUsed());
+                    out.writeSignedVarint(oneTimeCard.getTimestamp());
+                }
+            }
+
+            out.writeVarint(account.getTransactions().size());
+            for (Transactions transaction : account.getTransactions()) {
+                TransactionCodec.write(out, transaction);
+            }
+        }
+    }
+
+    /**
+     * Reads a user with its accounts and registers it in the bank index.
+     *
+     * @param in the reader
+     * @return the user
+     * @throws IOException if the input is too short or malformed
+     */
+    private static User readUser(final BinaryInput in) throws IOException {
+        User user = new User(in.readString(), null, null);
+        user.setFirstName(in.readString());
+        user.setLastName(in.readString());
+        user.setOccupation(in.readString());
+        user.setDateOfBirth(in.readString());
+        BankIndex.current().addUser(user);
+
+        int accountCount = in.readVarint();
+        for (int i = 0; i < accountCount; i++) {
+            boolean savings = in.readVarint() == SAVINGS_ACCOUNT;
+            Account account = savings ? new SavingsAccount() : new Account();
+            account.setIban(in.readString());
+            account.setBalance(in.readDouble());
+            account.setCurrency(in.readString());
+            account.setType(in.readString());
+            account.setAlias(in.readString());
+            account.setMinimumBalance(in.readDouble());
+            account.setPlan(in.readString());
+            if (savings) {
+                ((SavingsAccount) account).setInterestRate(in.readDouble());
+            }
+
+            int cardCount = in.readVarint();
+            for (int j = 0; j < cardCount; j++) {
+                boolean oneTime = in.readBoolean();
+                Card card = oneTime ? new OneTimeCard() : new Card();
+                card.setCardNumber(in.readString());
+                card.setStatus(in.readString());
+                card.setMinimumBalance(in.readDouble());
+                if (oneTime) {
+                    OneTimeCard oneTimeCard = (OneTimeCard) card;
+                    oneTimeCard.setUsed(in.readBoolean());
+                    oneTimeCard.setTimestamp(in.readSignedVarint());
+                }
+                account.addCard(card);
+            }
+
+            int transactionCount = in.readVarint();
+            for (int j = 0; j < transactionCount; j++) {
+                account.addTransaction(TransactionCodec.read(in));
+            }
+            user.addAccount(account);
+        }
+        return user;
+    }
+}
@@ -0,0 +1,247 @@
+package org.poo.persistence;
+
+import org.poo.protocol.BinaryFormat;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Little-endian reader for the files written by {@link BinaryOutput}. The file is read
+ * through a read-only memory mapping, one window at a time, so files larger than a single
+ * mapping are supported and sequential reads touch every page once.
+ */
+public final class BinaryInput {
+
+    /**
+     * Size of a mapped window.
+     */
+    private static final long WINDOW_SIZE = 1L << 28;
+
+    /**
+     * Number of payload bits carried by one varint byte.
+     */
+    private static final int VARINT_BITS = 7;
+
+    /**
+     * Mask selecting the payload bits of a varint byte.
+     */
+    private static final int VARINT_MASK = 0x7F;
+
+    /**
+     * Continuation flag of a varint byte.
+     */
+    private static final int VARINT_MORE = 0x80;
+
+    /**
+     * Largest shift a 32-bit varint may use.
+     */
+    private static final int MAX_SHIFT = 28;
+
+    /**
+     * The file read from.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The size of the file.
+     */
+    private final long size;
+
+    /**
+     * Strings read so far, in table order; null when not interning.
+     */
+    private final List<String> interned;
+
+    /**
+     * The current window.
+     */
+    private MappedByteBuffer window;
+
+    /**
+     * File offset of the start of {@link #window}.
+     */
+    private long windowStart;
+
+    /**
+     * Creates a reader starting at the given offset of a file.
+     *
+     * @param channel   the file to read
+     * @param offset    where to start
+     * @param interning must match the setting the file was written with
+     * @throws IOException if the file cannot be mapped
+     */
+    public BinaryInput(final FileChannel channel, final long offset, final boolean interning)
+            throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.interned = interning ? new ArrayList<>() : null;
+        map(offset);
+    }
+
+    /**
+     * Returns the file offset of the next byte.
+     *
+     * @return the position
+     */
+    public long position() {
+        return windowStart + window.position();
+    }
+
+    /**
+     * Moves to a file offset.
+     *
+     * @param offset the new position
+     * @throws IOException if the file cannot be mapped
+     */
+    public void seek(final long offset) throws IOException {
+        if (offset >= windowStart && offset <= windowStart + window.limit()) {
+            window.position((int) (offset - windowStart));
+        } else {
+            map(offset);
+        }
+    }
+
+    /**
+     * Reads raw bytes.
+     *
+     * @param length the number of bytes
+     * @return the bytes
+     * @throws IOException if the file is too short
+     */
+    public byte[] readBytes(final int length) throws IOException {
+        ensure(length);
+        byte[] bytes = new byte[length];
+        window.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Reads a boolean.
+     *
+     * @return the value
+     * @throws IOException if the file is too short
+     */
+    public boolean readBoolean() throws IOException {
+        ensure(1);
+        return window.get() != 0;
+    }
+
+    /**
+     * Reads an int.
+     *
+     * @return the value
+     * @throws IOException if the file is too short
+     */
+    public int readInt() throws IOException {
+        ensure(Integer.BYTES);
+        return window.getInt();
+    }
+
+    /**
+     * Reads a long.
+     *
+     * @return the value
+     * @throws IOException if the file is too short
+     */
+    public long readLong() throws IOException {
+        ensure(Long.BYTES);
+        return window.getLong();
+    }
+
+    /**
+     * Reads a double.
+     *
+     * @return the value
+     * @throws IOException if the file is too short
+     */
+    public double readDouble() throws IOException {
+        ensure(Double.BYTES);
+        return window.getDouble();
+    }
+
+    /**
+     * Reads an unsigned varint.
+     *
+     * @return the value
+     * @throws IOException if the file is too short or the varint is malformed
+     */
+    public int readVarint() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift <= MAX_SHIFT; shift += VARINT_BITS) {
+            ensure(1);
+            int b = window.get();
+            value |= (b & VARINT_MASK) << shift;
+            if ((b & VARINT_MORE) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Reads a zigzag varint.
+     *
+     * @return the value
+     * @throws IOException if the file is too short or the varint is malformed
+     */
+    public int readSignedVarint() throws IOException {
+        return BinaryFormat.unzigzag(readVarint());
+    }
+
+    /**
+     * Reads a string literal or table reference.
+     *
+     * @return the string, may be null
+     * @throws IOException if the file is too short or malformed
+     */
+    public String readString() throws IOException {
+        int tag = readVarint();
+        if (tag == 0) {
+            return null;
+        }
+        if ((tag & 1) == 0) {
+            return interned.get((tag >>> 1) - 1);
+        }
+
+        String value = new String(readBytes(tag >>> 1), StandardCharsets.UTF_8);
+        if (interned != null) {
+            interned.add(value);
+        }
+        return value;
+    }
+
+    /**
+     * Makes sure the next bytes are inside the window.
+     *
+     * @param bytes the number of bytes about to be read
+     * @throws IOException if the file is too short
+     */
+    private void ensure(final int bytes) throws IOException {
+        if (window.remaining() < bytes) {
+            long offset = position();
+            if (offset + bytes > size) {
+                throw new EOFException("Unexpected end of " + channel);
+            }
+            map(offset);
+        }
+    }
+
+    /**
+     * Maps the window starting at a file offset.
+     *
+     * @param offset the file offset
+     * @throws IOException if the file cannot be mapped
+     */
+    private void map(final long offset) throws IOException {
+        long length = Math.max(Math.min(WINDOW_SIZE, size - offset), 0);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        window.order(ByteOrder.LITTLE_ENDIAN);
+        windowStart = offset;
+    }
+}
@@ -0,0 +1,230 @@
+package org.poo.persistence;
+
+import org.poo.protocol.BinaryFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Buffered little-endian writer for the persistence files. Strings use the tagging of
+ * {@link BinaryFormat} and may be interned, so that a repeated string costs a short
+ * reference.
+ */
+public final class BinaryOutput implements AutoCloseable {
+
+    /**
+     * Size of the write buffer.
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Number of payload bits carried by one varint byte.
+     */
+    private static final int VARINT_BITS = 7;
+
+    /**
+     * Mask selecting the payload bits of a varint byte.
+     */
+    private static final int VARINT_MASK = 0x7F;
+
+    /**
+     * Continuation flag of a varint byte.
+     */
+    private static final int VARINT_MORE = 0x80;
+
+    /**
+     * Room reserved for a varint.
+     */
+    private static final int VARINT_ROOM = 5;
+
+    /**
+     * The file written to.
+     */
+    private final FileChannel channel;
+
+    /**
+     * The write buffer.
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE)
+            .order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Strings already written, with their table index; null when not interning.
+     */
+    private final Map<String, Integer> interned;
+
+    /**
+     * Number of bytes flushed to the channel.
+     */
+    private long flushed;
+
+    /**
+     * Creates a writer appending at the current position of a channel.
+     *
+     * @param channel   the file to write to
+     * @param interning whether repeated strings are written as table references
+     */
+    public BinaryOutput(final FileChannel channel, final boolean interning) {
+        this.channel = channel;
+        this.interned = interning ? new HashMap<>() : null;
+    }
+
+    /**
+     * Returns the number of bytes written so far.
+     *
+     * @return the position relative to where the writer started
+     */
+    public long position() {
+        return flushed + buffer.position();
+    }
+
+    /**
+     * Writes raw bytes.
+     *
+     * @param bytes the bytes
+     * @throws IOException if writing fails
+     */
+    public void writeBytes(final byte[] bytes) throws IOException {
+        for (int offset = 0; offset < bytes.length;) {
+            ensure(1);
+            int chunk = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, chunk);
+            offset += chunk;
+        }
+    }
+
+    /**
+     * Writes a boolean as one byte.
+     *
+     * @param value the value
+     * @throws IOException if writing fails
+     */
+    public void writeBoolean(final boolean value) throws IOException {
+        ensure(1);
+        buffer.put((byte) (value ? 1 : 0));
+    }
+
+    /**
+     * Writes an int as four bytes.
+     *
+     * @param value the value
+     * @throws IOException if writing fails
+     */
+    public void writeInt(final int value) throws IOException {
+        ensure(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    /**
+     * Writes a long as eight bytes.
+     *
+     * @param value the value
+     * @throws IOException if writing fails
+     */
+    public void writeLong(final long value) throws IOException {
+        ensure(Long.BYTES);
+        buffer.putLong(value);
+    }
+
+    /**
+     * Writes a double as eight bytes.
+     *
+     * @param value the value
+     * @throws IOException if writing fails
+     */
+    public void writeDouble(final double value) throws IOException {
+        ensure(Double.BYTES);
+        buffer.putDouble(value);
+    }
+
+    /**
+     * Writes an unsigned int as a varint.
+     *
+     * @param value the value
+     * @throws IOException if writing fails
+     */
+    public void writeVarint(final int value) throws IOException {
+        ensure(VARINT_ROOM);
+        int v = value;
+        while ((v & ~VARINT_MASK) != 0) {
+            buffer.put((byte) ((v & VARINT_MASK) | VARINT_MORE));
+            v >>>= VARINT_BITS;
+        }
+        buffer.put((byte) v);
+    }
+
+    /**
+     * Writes a signed int as a zigzag varint.
+     *
+     * @param value the value
+     * @throws IOException if writing fails
+     */
+    public void writeSignedVarint(final int value) throws IOException {
+        writeVarint(BinaryFormat.zigzag(value));
+    }
+
+    /**
+     * Writes a string, as a reference if it was already written and interning is on.
+     *
+     * @param value the string, may be null
+     * @throws IOException if writing fails
+     */
+    public void writeString(final String value) throws IOException {
+        if (value == null) {
+            writeVarint(0);
+            return;
+        }
+        if (interned != null) {
+            Integer index = interned.get(value);
+            if (index != null) {
+                writeVarint((index + 1) << 1);
+                return;
+            }
+            interned.put(value, interned.size());
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint((bytes.length << 1) | 1);
+        writeBytes(bytes);
+    }
+
+    /**
+     * Writes the buffered bytes to the channel.
+     *
+     * @throws IOException if writing fails
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            flushed += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Flushes the buffered bytes; the channel stays open.
+     *
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    /**
+     * Makes room in the buffer.
+     *
+     * @param bytes the number of bytes about to be written
+     * @throws IOException if flushing fails
+     */
+    private void ensure(final int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+}
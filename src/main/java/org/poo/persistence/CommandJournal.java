@@ -0,0 +1,436 @@
+package org.poo.persistence;
+
+import org.poo.fileio.CommandInput;
+import org.poo.protocol.CommandDecoder;
+import org.poo.protocol.CommandEncoder;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the state-changing commands, written ahead of their execution.
+ *
+ * <p>Appending only copies the encoded command into memory. A background thread writes
+ * the accumulated records through a {@link FileChannel} and forces them to disk as one
+ * group, once {@code syncBatch} records are waiting or the oldest one has waited
+ * {@code maxSyncDelay}. Callers that must not answer before their command is durable
+ * wait with {@link #awaitDurable(long)}.
+ *
+ * <p>A record is a little-endian header (body length, CRC32 of the body, sequence number)
+ * followed by the command encoded without string interning, so records stand alone. On
+ * recovery the file is read up to the first incomplete or corrupt record, which is where
+ * a crash may have cut it, and the rest is truncated.
+ */
+public final class CommandJournal implements AutoCloseable {
+
+    /**
+     * The commands that change the bank state and therefore get journaled.
+     */
+    public static final Set<String> MUTATING_COMMANDS = Set.of(
+            "addAccount", "createCard", "addFunds", "deleteAccount", "createOneTimeCard",
+            "deleteCard", "payOnline", "setAlias", "sendMoney", "checkCardStatus",
+            "setMinimumBalance", "changeInterestRate", "addInterest", "splitPayment",
+            "withdrawSavings", "upgradePlan", "cashWithdrawal");
+
+    /**
+     * Size of a record header: body length, CRC32 and sequence number.
+     */
+    private static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES + Long.BYTES;
+
+    /**
+     * Initial size of the append buffers.
+     */
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    /**
+     * The journal file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Number of waiting records that triggers a sync.
+     */
+    private final int syncBatch;
+
+    /**
+     * How long a record may wait for its sync, in nanoseconds.
+     */
+    private final long maxSyncDelayNanos;
+
+    /**
+     * Whether synced records are forced to the storage device.
+     */
+    private final boolean fsync;
+
+    /**
+     * Encodes the records; guarded by {@link #lock}.
+     */
+    private final CommandEncoder encoder = new CommandEncoder(false);
+
+    /**
+     * Computes the record checksums; guarded by {@link #lock}.
+     */
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Guards the append buffer and the sequence numbers.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Signalled when records are appended or the journal closes.
+     */
+    private final Condition appended = lock.newCondition();
+
+    /**
+     * Signalled when records become durable.
+     */
+    private final Condition synced = lock.newCondition();
+
+    /**
+     * Records appended but not yet written.
+     */
+    private ByteBuffer pending = newBuffer(INITIAL_CAPACITY);
+
+    /**
+     * Buffer being written by the sync thread.
+     */
+    private ByteBuffer writing = newBuffer(INITIAL_CAPACITY);
+
+    /**
+     * Number of records in {@link #pending}.
+     */
+    private int pendingRecords;
+
+    /**
+     * When the oldest record of {@link #pending} was appended.
+     */
+    private long oldestPendingNanos;
+
+    /**
+     * Sequence number of the last appended record.
+     */
+    private long lastSequence;
+
+    /**
+     * Sequence number of the last durable record.
+     */
+    private long durableSequence;
+
+    /**
+     * The failure that stopped the sync thread, if any.
+     */
+    private IOException failure;
+
+    /**
+     * Whether the journal was closed.
+     */
+    private boolean closed;
+
+    /**
+     * Writes and syncs the records; started by {@link #recover(long, Consumer)}.
+     */
+    private Thread syncThread;
+
+    /**
+     * Opens a journal, creating the file if needed. {@link #recover(long, Consumer)} must be
+     * called before appending.
+     *
+     * @param file         the journal file
+     * @param syncBatch    the number of waiting records that triggers a sync
+     * @param maxSyncDelay how long a record may wait for its sync
+     * @param fsync        whether syncs force the records to the storage device
+     * @throws IOException if the file cannot be opened
+     */
+    public CommandJournal(final Path file, final int syncBatch, final Duration maxSyncDelay,
+                          final boolean fsync) throws IOException {
+        if (syncBatch < 1) {
+            throw new IllegalArgumentException("Invalid sync batch: " + syncBatch);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.syncBatch = syncBatch;
+        this.maxSyncDelayNanos = maxSyncDelay.toNanos();
+        this.fsync = fsync;
+    }
+
+    /**
+     * Tells whether a command is journaled.
+     *
+     * @param command the command name
+     * @return true if the command changes the bank state
+     */
+    public static boolean isMutating(final String command) {
+        return MUTATING_COMMANDS.contains(command);
+    }
+
+    /**
+     * Replays the intact records of the file, drops whatever follows them and gets the
+     * journal ready for appending. New records are numbered after both the last intact
+     * record and {@code afterSequence}.
+     *
+     * @param afterSequence only records with a greater sequence number are replayed
+     * @param replay        receives the replayed commands, in order
+     * @return the number of replayed records
+     * @throws IOException if the file cannot be read or truncated
+     */
+    public long recover(final long afterSequence, final Consumer<CommandInput> replay)
+            throws IOException {
+        CommandDecoder decoder = new CommandDecoder(false);
+        CRC32 check = new CRC32();
+        ByteBuffer header = newBuffer(HEADER_SIZE);
+        long validLength = 0;
+        long replayed = 0;
+
+        channel.position(0);
+        InputStream in = new BufferedInputStream(Channels.newInputStream(channel));
+        while (in.readNBytes(header.array(), 0, HEADER_SIZE) == HEADER_SIZE) {
+            int length = header.getInt(0);
+            int checksum = header.getInt(Integer.BYTES);
+            long sequence = header.getLong(Integer.BYTES + Integer.BYTES);
+            if (length < 0 || length > channel.size() - validLength - HEADER_SIZE) {
+                break;
+            }
+            byte[] body = in.readNBytes(length);
+            check.reset();
+            check.update(body);
+            if (body.length != length || (int) check.getValue() != checksum) {
+                break;
+            }
+
+            if (sequence > afterSequence) {
+                replay.accept(decoder.decodeCommand(
+                        ByteBuffer.wrap(body).order(ByteOrder.LITTLE_ENDIAN)));
+                replayed++;
+            }
+            lastSequence = sequence;
+            validLength += HEADER_SIZE + length;
+        }
+
+        channel.truncate(validLength);
+        channel.position(validLength);
+        // a snapshot may be newer than the surviving records; never reuse its numbers
+        lastSequence = Math.max(lastSequence, afterSequence);
+        durableSequence = lastSequence;
+        syncThread = Thread.ofPlatform().daemon().name("command-journal").start(this::syncLoop);
+        return replayed;
+    }
+
+    /**
+     * Appends a command. The record is written and synced in the background.
+     *
+     * @param command the command
+     * @return the sequence number of the record
+     */
+    public long append(final CommandInput command) {
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Journal closed");
+            }
+            encoder.encode(command);
+            byte[] body = encoder.toPayload();
+            crc.reset();
+            crc.update(body);
+
+            ensureCapacity(HEADER_SIZE + body.length);
+            lastSequence++;
+            pending.putInt(body.length).putInt((int) crc.getValue()).putLong(lastSequence)
+                    .put(body);
+            if (pendingRecords++ == 0) {
+                oldestPendingNanos = System.nanoTime();
+            }
+            if (pendingRecords == 1 || pendingRecords >= syncBatch) {
+                appended.signal();
+            }
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until a record is durable.
+     *
+     * @param sequence the sequence number returned by {@link #append(CommandInput)}
+     * @throws UncheckedIOException if the journal could not be written
+     */
+    public void awaitDurable(final long sequence) {
+        lock.lock();
+        try {
+            while (durableSequence < sequence && failure == null) {
+                synced.awaitUninterruptibly();
+            }
+            if (durableSequence < sequence) {
+                throw new UncheckedIOException(failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the sequence number of the last appended record.
+     *
+     * @return the sequence number, 0 if the journal is empty
+     */
+    public long lastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of records waiting to be written.
+     *
+     * @return the queue depth
+     */
+    public int pendingRecords() {
+        lock.lock();
+        try {
+            return pendingRecords;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Syncs the remaining records and closes the file.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            appended.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (syncThread != null) {
+            try {
+                syncThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        channel.close();
+    }
+
+    /**
+     * Writes and syncs groups of records until the journal is closed.
+     */
+    private void syncLoop() {
+        try {
+            while (true) {
+                long groupSequence;
+                lock.lock();
+                try {
+                    while (!closed && pendingRecords == 0) {
+                        appended.awaitUninterruptibly();
+                    }
+                    while (!closed && pendingRecords < syncBatch) {
+                        long wait = oldestPendingNanos + maxSyncDelayNanos - System.nanoTime();
+                        if (wait <= 0) {
+                            break;
+                        }
+                        appended.awaitNanos(wait);
+                    }
+                    if (pendingRecords == 0) {
+                        return;
+                    }
+
+                    ByteBuffer group = pending;
+                    pending = writing;
+                    writing = group;
+                    pendingRecords = 0;
+                    groupSequence = lastSequence;
+                } finally {
+                    lock.unlock();
+                }
+
+                writing.flip();
+                while (writing.hasRemaining()) {
+                    channel.write(writing);
+                }
+                writing.clear();
+                if (fsync) {
+                    channel.force(false);
+                }
+
+                lock.lock();
+                try {
+                    durableSequence = groupSequence;
+                    synced.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } catch (IOException e) {
+            fail(e);
+        } catch (InterruptedException e) {
+            fail(new InterruptedIOException("Journal sync thread interrupted"));
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Records why the sync thread stopped and wakes the threads waiting for durability,
+     * which would otherwise wait forever.
+     *
+     * @param e the failure
+     */
+    private void fail(final IOException e) {
+        lock.lock();
+        try {
+            failure = e;
+            synced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Grows the append buffer so that it can take a record.
+     *
+     * @param extra the size of the record
+     */
+    private void ensureCapacity(final int extra) {
+        if (pending.remaining() < extra) {
+            ByteBuffer grown = newBuffer(Math.max(pending.capacity() * 2,
+                    pending.position() + extra));
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+    }
+
+    /**
+     * Allocates a little-endian heap buffer.
+     *
+     * @param capacity the capacity
+     * @return the buffer
+     */
+    private static ByteBuffer newBuffer(final int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,180 @@
+package org.poo.persistence;
+
+import org.poo.entities.Transactions;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cold tier of the account transaction histories. Once an account holds more than
+ * {@code hotLimit} transactions in memory, the oldest half is sealed into a
+ * {@link TransactionSegment} appended to the current {@link ArchiveFile} of the archive
+ * directory; a new file is started when the segment does not fit. The segments of released
+ * accounts are given back: a file is reused once all its segments are released, or
+ * deleted if it is no longer the one appended to.
+ *
+ * <p>The archive is process-wide and off by default, in which case histories stay entirely
+ * on the heap. The directory is scratch space: the state is persisted by snapshots, and
+ * archive files left by an earlier run are removed when the archive is configured.
+ */
+public final class TransactionArchive {
+
+    /**
+     * Prefix of the archive file names.
+     */
+    private static final String FILE_PREFIX = "archive-";
+
+    /**
+     * Extension of the archive file names.
+     */
+    private static final String FILE_EXTENSION = ".bin";
+
+    /**
+     * Smallest accepted hot limit.
+     */
+    private static final int MIN_HOT_LIMIT = 2;
+
+    /**
+     * The archive used by new histories, null to keep histories in memory.
+     */
+    private static volatile TransactionArchive current;
+
+    /**
+     * The directory holding the archive files.
+     */
+    private final Path directory;
+
+    /**
+     * Number of transactions a history keeps in memory before sealing.
+     */
+    private final int hotLimit;
+
+    /**
+     * The files holding live segments, the last one being appended to.
+     */
+    private final List<ArchiveFile> files = new ArrayList<>();
+
+    /**
+     * Number of archive files created, used to name them.
+     */
+    private long created;
+
+    /**
+     * Creates an archive.
+     *
+     * @param directory the directory holding the archive files
+     * @param hotLimit  the number of transactions a history keeps in memory
+     */
+    private TransactionArchive(final Path directory, final int hotLimit) {
+        this.directory = directory;
+        this.hotLimit = hotLimit;
+    }
+
+    /**
+     * Archives the histories of the accounts created from now on.
+     *
+     * @param directory the directory holding the archive files, created if missing
+     * @param hotLimit  the number of transactions a history keeps in memory
+     * @throws IOException if the directory cannot be created or cleared
+     */
+    public static void configure(final Path directory, final int hotLimit) throws IOException {
+        if (hotLimit < MIN_HOT_LIMIT) {
+            throw new IllegalArgumentException("Hot limit too small: " + hotLimit);
+        }
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(directory,
+                FILE_PREFIX + "*" + FILE_EXTENSION)) {
+            for (Path file : stale) {
+                Files.delete(file);
+            }
+        }
+        current = new TransactionArchive(directory, hotLimit);
+    }
+
+    /**
+     * Keeps the histories of the accounts created from now on in memory.
+     */
+    public static void disable() {
+        current = null;
+    }
+
+    /**
+     * Returns the archive used by new histories.
+     *
+     * @return the archive, or null if histories stay in memory
+     */
+    public static TransactionArchive current() {
+        return current;
+    }
+
+    /**
+     * Returns the number of transactions a history keeps in memory.
+     *
+     * @return the hot limit
+     */
+    public int getHotLimit() {
+        return hotLimit;
+    }
+
+    /**
+     * Seals transactions into a new segment.
+     *
+     * @param transactions the transactions, oldest first
+     * @return the segment
+     * @throws IOException if the segment cannot be written, or is larger than a file
+     */
+    public synchronized TransactionSegment seal(final List<Transactions> transactions)
+            throws IOException {
+        if (!files.isEmpty()) {
+            TransactionSegment segment = files.getLast().append(transactions);
+            if (segment != null) {
+                return segment;
+            }
+            if (files.getLast().isEmpty()) {
+                files.removeLast().delete();
+            }
+        }
+        ArchiveFile file = new ArchiveFile(directory.resolve(FILE_PREFIX + ++created
+                + FILE_EXTENSION));
+        files.add(file);
+        TransactionSegment segment = file.append(transactions);
+        if (segment == null) {
+            throw new IOException(transactions.size()
+                    + " transactions do not fit in an archive file");
+        }
+        return segment;
+    }
+
+    /**
+     * Gives back the space of a segment whose account was released. The segment must not
+     * be read afterwards.
+     *
+     * @param segment the segment
+     * @throws IOException if an emptied file cannot be deleted
+     */
+    public synchronized void release(final TransactionSegment segment) throws IOException {
+        ArchiveFile file = segment.getFile();
+        if (!file.release()) {
+            return;
+        }
+        if (file == files.getLast()) {
+            file.reset();
+        } else {
+            files.remove(file);
+            file.delete();
+        }
+    }
+
+    /**
+     * Returns the number of archive files holding live segments or appended to.
+     *
+     * @return the file count
+     */
+    public synchronized int getFileCount() {
+        return files.size();
+    }
+}
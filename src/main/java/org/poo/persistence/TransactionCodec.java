@@ -0,0 +1,238 @@
+package org.poo.persistence;
+
+import org.poo.entities.TransactionDescription;
+import org.poo.entities.Transactions;
+import org.poo.storage.IdentifierCodes;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary form of a {@link Transactions} entry, shared by the snapshots and the history
+ * archive. Most fields are usually empty, so a bit mask tells which ones follow. IBANs
+ * and card numbers that pack are written as their eight-byte code, and templated
+ * descriptions as their template and argument, without rendering them.
+ */
+public final class TransactionCodec {
+
+    private static final int DESCRIPTION = 1;
+    private static final int RECEIVER_IBAN = 1 << 1;
+    private static final int SENDER_IBAN = 1 << 2;
+    private static final int TRANSFER_TYPE = 1 << 3;
+    private static final int CARD = 1 << 4;
+    private static final int CARD_HOLDER = 1 << 5;
+    private static final int COMMERCIANT = 1 << 6;
+    private static final int ACCOUNTS_FOR_SPLIT = 1 << 7;
+    private static final int CURRENCY = 1 << 8;
+    private static final int AMOUNT = 1 << 9;
+    private static final int RECEIVER_IBAN_CODE = 1 << 10;
+    private static final int SENDER_IBAN_CODE = 1 << 11;
+    private static final int CARD_CODE = 1 << 12;
+    private static final int DESCRIPTION_TEMPLATE = 1 << 13;
+
+    /**
+     * The description templates, indexed by their persisted ordinal.
+     */
+    private static final TransactionDescription[] TEMPLATES = TransactionDescription.values();
+
+    /**
+     * Private constructor to prevent instantiation of the utility class.
+     */
+    private TransactionCodec() {
+    }
+
+    /**
+     * Writes a transaction.
+     *
+     * @param out         the writer
+     * @param transaction the transaction
+     * @throws IOException if writing fails
+     */
+    public static void write(final BinaryOutput out, final Transactions transaction)
+            throws IOException {
+        int present = 0;
+        TransactionDescription template = transaction.getDescriptionTemplate();
+        present |= template != null ? DESCRIPTION_TEMPLATE
+                : flag(transaction.getDescription(), DESCRIPTION);
+        present |= identifierFlag(transaction.getReceiverIbanCode(),
+                transaction.getReceiverIban(), RECEIVER_IBAN_CODE, RECEIVER_IBAN);
+        present |= identifierFlag(transaction.getSenderIbanCode(),
+                transaction.getSenderIban(), SENDER_IBAN_CODE, SENDER_IBAN);
+        present |= flag(transaction.getTransferType(), TRANSFER_TYPE);
+        present |= identifierFlag(transaction.getCardCode(), transaction.getCard(),
+                CARD_CODE, CARD);
+        present |= flag(transaction.getCardHolder(), CARD_HOLDER);
+        present |= flag(transaction.getCommerciant(), COMMERCIANT);
+        present |= flag(transaction.getAccountsForSplit(), ACCOUNTS_FOR_SPLIT);
+        present |= flag(transaction.getCurrency(), CURRENCY);
+        if (Double.doubleToRawLongBits(transaction.getAmount()) != 0L) {
+            present |= AMOUNT;
+        }
+
+        out.writeString(transaction.getCommand());
+        out.writeSignedVarint(transaction.getTimestamp());
+        out.writeVarint(present);
+        if ((present & AMOUNT) != 0) {
+            out.writeDouble(transaction.getAmount());
+        }
+        if (template != null) {
+            out.writeVarint(template.ordinal());
+            out.writeDouble(transaction.getDescriptionValue());
+        } else {
+            writeIf(out, present, DESCRIPTION, transaction.getDescription());
+        }
+        writeIdentifier(out, present, RECEIVER_IBAN_CODE, RECEIVER_IBAN,
+                transaction.getReceiverIbanCode(), transaction.getReceiverIban());
+        writeIdentifier(out, present, SENDER_IBAN_CODE, SENDER_IBAN,
+                transaction.getSenderIbanCode(), transaction.getSenderIban());
+        writeIf(out, present, TRANSFER_TYPE, transaction.getTransferType());
+        writeIdentifier(out, present, CARD_CODE, CARD, transaction.getCardCode(),
+                transaction.getCard());
+        writeIf(out, present, CARD_HOLDER, transaction.getCardHolder());
+        writeIf(out, present, COMMERCIANT, transaction.getCommerciant());
+        if ((present & ACCOUNTS_FOR_SPLIT) != 0) {
+            List<String> accounts = transaction.getAccountsForSplit();
+            out.writeVarint(accounts.size());
+            for (String account : accounts) {
+                out.writeString(account);
+            }
+        }
+        writeIf(out, present, CURRENCY, transaction.getCurrency());
+    }
+
+    /**
+     * Reads a transaction.
+     *
+     * @param in the reader
+     * @return the transaction
+     * @throws IOException if the input is too short or malformed
+     */
+    public static Transactions read(final BinaryInput in) throws IOException {
+        Transactions transaction = new Transactions();
+        transaction.setCommand(in.readString());
+        transaction.setTimestamp(in.readSignedVarint());
+        int present = in.readVarint();
+        if ((present & AMOUNT) != 0) {
+            transaction.setAmount(in.readDouble());
+        }
+        if ((present & DESCRIPTION_TEMPLATE) != 0) {
+            int ordinal = in.readVarint();
+            if (ordinal >= TEMPLATES.length) {
+                throw new IOException("Unknown description template: " + ordinal);
+            }
+            transaction.setDescription(TEMPLATES[ordinal], in.readDouble());
+        } else {
+            transaction.setDescription(readIf(in, present, DESCRIPTION));
+        }
+        if ((present & RECEIVER_IBAN_CODE) != 0) {
+            transaction.setReceiverIbanCode(in.readLong());
+        } else {
+            transaction.setReceiverIban(readIf(in, present, RECEIVER_IBAN));
+        }
+        if ((present & SENDER_IBAN_CODE) != 0) {
+            transaction.setSenderIbanCode(in.readLong());
+        } else {
+            transaction.setSenderIban(readIf(in, present, SENDER_IBAN));
+        }
+        transaction.setTransferType(readIf(in, present, TRANSFER_TYPE));
+        if ((present & CARD_CODE) != 0) {
+            transaction.setCardCode(in.readLong());
+        } else {
+            transaction.setCard(readIf(in, present, CARD));
+        }
+        transaction.setCardHolder(readIf(in, present, CARD_HOLDER));
+        transaction.setCommerciant(readIf(in, present, COMMERCIANT));
+        if ((present & ACCOUNTS_FOR_SPLIT) != 0) {
+            int count = in.readVarint();
+            List<String> accounts = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                accounts.add(in.readString());
+            }
+            transaction.setAccountsForSplit(accounts);
+        }
+        transaction.setCurrency(readIf(in, present, CURRENCY));
+        return transaction;
+    }
+
+    /**
+     * Returns the flag of a field if it is set.
+     *
+     * @param value the field value
+     * @param flag  the field flag
+     * @return the flag, or 0 if the field is empty
+     */
+    private static int flag(final Object value, final int flag) {
+        return value == null ? 0 : flag;
+    }
+
+    /**
+     * Returns the flag of an identifier field: the code flag if it packs, the string flag
+     * if it is set but does not pack.
+     *
+     * @param code       the packed value
+     * @param value      the string value
+     * @param codeFlag   the flag of the packed form
+     * @param stringFlag the flag of the string form
+     * @return the flag, or 0 if the field is empty
+     */
+    private static int identifierFlag(final long code, final String value, final int codeFlag,
+                                      final int stringFlag) {
+        if (code != IdentifierCodes.NONE) {
+            return codeFlag;
+        }
+        return flag(value, stringFlag);
+    }
+
+    /**
+     * Writes an identifier field in the form its flag tells.
+     *
+     * @param out        the writer
+     * @param present    the present fields
+     * @param codeFlag   the flag of the packed form
+     * @param stringFlag the flag of the string form
+     * @param code       the packed value
+     * @param value      the string value
+     * @throws IOException if writing fails
+     */
+    private static void writeIdentifier(final BinaryOutput out, final int present,
+                                        final int codeFlag, final int stringFlag,
+                                        final long code, final String value)
+            throws IOException {
+        if ((present & codeFlag) != 0) {
+            out.writeLong(code);
+        } else {
+            writeIf(out, present, stringFlag, value);
+        }
+    }
+
+    /**
+     * Writes a string field if its flag is present.
+     *
+     * @param out     the writer
+     * @param present the present fields
+     * @param flag    the field flag
+     * @param value   the field value
+     * @throws IOException if writing fails
+     */
+    private static void writeIf(final BinaryOutput out, final int present, final int flag,
+                                final String value) throws IOException {
+        if ((present & flag) != 0) {
+            out.writeString(value);
+        }
+    }
+
+    /**
+     * Reads a string field if its flag is present.
+     *
+     * @param in      the reader
+     * @param present the present fields
+     * @param flag    the field flag
+     * @return the field value, or null
+     * @throws IOException if the input is too short or malformed
+     */
+    private static String readIf(final BinaryInput in, final int present, final int flag)
+            throws IOException {
+        return (present & flag) != 0 ? in.readString() : null;
+    }
+}
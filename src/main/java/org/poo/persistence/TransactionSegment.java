@@ -0,0 +1,115 @@
+package org.poo.persistence;
+
+import org.poo.entities.Transactions;
+
+import java.io.IOException;
+
+/**
+ * An immutable run of older transactions of one account, stored in a shared
+ * {@link ArchiveFile} and read back through its read-only memory mapping. Only the record
+ * count, the offset of the record index and the timestamp range stay on the heap; the
+ * records and their offset index live in the mapped file.
+ */
+public final class TransactionSegment {
+
+    /**
+     * The archive file holding the segment.
+     */
+    private final ArchiveFile file;
+
+    /**
+     * Number of records in the segment.
+     */
+    private final int size;
+
+    /**
+     * File offset of the record offset index.
+     */
+    private final long indexOffset;
+
+    /**
+     * Smallest timestamp of the records.
+     */
+    private final int minTimestamp;
+
+    /**
+     * Largest timestamp of the records.
+     */
+    private final int maxTimestamp;
+
+    /**
+     * Creates a segment over records written to an archive file.
+     *
+     * @param file         the archive file holding the segment
+     * @param size         the number of records
+     * @param indexOffset  the file offset of the record offset index
+     * @param minTimestamp the smallest timestamp of the records
+     * @param maxTimestamp the largest timestamp of the records
+     */
+    TransactionSegment(final ArchiveFile file, final int size, final long indexOffset,
+                       final int minTimestamp, final int maxTimestamp) {
+        this.file = file;
+        this.size = size;
+        this.indexOffset = indexOffset;
+        this.minTimestamp = minTimestamp;
+        this.maxTimestamp = maxTimestamp;
+    }
+
+    /**
+     * Reads a record.
+     *
+     * @param index the position of the record in the segment
+     * @return a fresh copy of the transaction
+     * @throws IOException if the mapped file is malformed
+     */
+    public Transactions get(final int index) throws IOException {
+        return file.read(indexOffset, index);
+    }
+
+    /**
+     * Tells whether some record may fall inside a timestamp range.
+     *
+     * @param startTimestamp the start of the range, inclusive
+     * @param endTimestamp   the end of the range, inclusive
+     * @return false if no record of the segment is inside the range
+     */
+    public boolean overlaps(final int startTimestamp, final int endTimestamp) {
+        return minTimestamp <= endTimestamp && maxTimestamp >= startTimestamp;
+    }
+
+    /**
+     * Returns the number of records.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the smallest timestamp of the records.
+     *
+     * @return the timestamp
+     */
+    public int getMinTimestamp() {
+        return minTimestamp;
+    }
+
+    /**
+     * Returns the largest timestamp of the records.
+     *
+     * @return the timestamp
+     */
+    public int getMaxTimestamp() {
+        return maxTimestamp;
+    }
+
+    /**
+     * Returns the archive file holding the segment.
+     *
+     * @return the file
+     */
+    ArchiveFile getFile() {
+        return file;
+    }
+}
@@ -0,0 +1,222 @@
+package org.poo.protocol;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Constants and primitive helpers of the binary command encoding.
+ *
+ * <p>A stream starts with {@link #MAGIC} and is followed by frames. A frame is a varint
+ * payload length followed by one or more commands. A command is its varint command id
+ * (0 for a command unknown to the factory, whose name follows as a string), then
+ * {@code fieldId value} pairs and a terminating {@link #END} field. Only fields that
+ * differ from their default value are written.
+ *
+ * <p>Strings are interned per stream: the first occurrence is written as a literal and
+ * registered in a table, later ones as a reference into that table. A string tag is
+ * {@code 0} for null, {@code (length << 1) | 1} for a UTF-8 literal and
+ * {@code (index + 1) << 1} for a reference.
+ */
+public final class BinaryFormat {
+
+    /**
+     * Bytes opening every binary stream. The leading zero can never start a JSON text,
+     * which lets the server tell both protocols apart.
+     */
+    public static final byte[] MAGIC = {0x00, 'P', 'B', 0x01};
+
+    /**
+     * The commands known to the factory; a command id is its index in this list plus one.
+     */
+    public static final List<String> COMMANDS = List.of(
+            "printUsers", "addAccount", "createCard", "addFunds", "deleteAccount",
+            "createOneTimeCard", "deleteCard", "payOnline", "printTransactions", "setAlias",
+            "sendMoney", "checkCardStatus", "setMinimumBalance", "changeInterestRate",
+            "addInterest", "splitPayment", "report", "spendingsReport", "withdrawSavings",
+            "upgradePlan", "cashWithdrawal", "printTransactionsPage", "activitySummary");
+
+    /**
+     * Command id of a command carrying its own name.
+     */
+    public static final int CUSTOM_COMMAND = 0;
+
+    /**
+     * Maximum number of strings interned per stream; later literals are not registered.
+     */
+    public static final int MAX_INTERNED = 1 << 16;
+
+    /**
+     * Maximum payload length of a frame received from a client, so that a forged length
+     * cannot make the server allocate more.
+     */
+    public static final int MAX_FRAME_LENGTH = 16 << 20;
+
+    /**
+     * Field id closing a command.
+     */
+    public static final int END = 0;
+
+    // field ids, in the declaration order of CommandInput
+    public static final int EMAIL = 1;
+    public static final int ACCOUNT = 2;
+    public static final int NEW_PLAN_TYPE = 3;
+    public static final int ROLE = 4;
+    public static final int CURRENCY = 5;
+    public static final int TARGET = 6;
+    public static final int DESCRIPTION = 7;
+    public static final int CARD_NUMBER = 8;
+    public static final int COMMERCIANT = 9;
+    public static final int RECEIVER = 10;
+    public static final int ALIAS = 11;
+    public static final int ACCOUNT_TYPE = 12;
+    public static final int SPLIT_PAYMENT_TYPE = 13;
+    public static final int TYPE = 14;
+    public static final int LOCATION = 15;
+    public static final int TIMESTAMP = 16;
+    public static final int START_TIMESTAMP = 17;
+    public static final int END_TIMESTAMP = 18;
+    public static final int INTEREST_RATE = 19;
+    public static final int SPENDING_LIMIT = 20;
+    public static final int DEPOSIT_LIMIT = 21;
+    public static final int AMOUNT = 22;
+    public static final int MIN_BALANCE = 23;
+    public static final int ACCOUNTS = 24;
+    public static final int AMOUNT_FOR_USERS = 25;
+    public static final int PAGE_SIZE = 26;
+    public static final int CURSOR = 27;
+
+    /**
+     * Number of payload bits carried by one varint byte.
+     */
+    private static final int VARINT_BITS = 7;
+
+    /**
+     * Mask selecting the payload bits of a varint byte.
+     */
+    private static final int VARINT_MASK = 0x7F;
+
+    /**
+     * Continuation flag of a varint byte.
+     */
+    private static final int VARINT_MORE = 0x80;
+
+    /**
+     * Largest shift a 32-bit varint may use.
+     */
+    private static final int MAX_SHIFT = 28;
+
+    /**
+     * Private constructor to prevent instantiation of the utility class.
+     */
+    private BinaryFormat() {
+    }
+
+    /**
+     * Returns the id of a command name.
+     *
+     * @param command the command name
+     * @return its id, or {@link #CUSTOM_COMMAND} if the factory does not know it
+     */
+    public static int commandId(final String command) {
+        return COMMANDS.indexOf(command) + 1;
+    }
+
+    /**
+     * Maps a signed int to an unsigned one so that small magnitudes stay short.
+     *
+     * @param value the signed value
+     * @return the zigzag encoded value
+     */
+    public static int zigzag(final int value) {
+        return (value << 1) ^ (value >> (Integer.SIZE - 1));
+    }
+
+    /**
+     * Reverts {@link #zigzag(int)}.
+     *
+     * @param value the zigzag encoded value
+     * @return the signed value
+     */
+    public static int unzigzag(final int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads an unsigned varint from a buffer.
+     *
+     * @param buffer the buffer positioned on the varint
+     * @return the value
+     */
+    public static int readVarint(final ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift <= MAX_SHIFT; shift += VARINT_BITS) {
+            int b = buffer.get();
+            value |= (b & VARINT_MASK) << shift;
+            if ((b & VARINT_MORE) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    /**
+     * Reads an unsigned varint from a stream.
+     *
+     * @param in the stream positioned on the varint
+     * @return the value, or -1 if the stream ended before the first byte
+     * @throws IOException if the stream fails or ends inside the varint
+     */
+    public static int readVarint(final InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift <= MAX_SHIFT; shift += VARINT_BITS) {
+            int b = in.read();
+            if (b < 0) {
+                if (shift == 0) {
+                    return -1;
+                }
+                throw new EOFException("Stream ended inside a varint");
+            }
+            value |= (b & VARINT_MASK) << shift;
+            if ((b & VARINT_MORE) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Writes an unsigned varint into a byte array.
+     *
+     * @param value  the value
+     * @param target the array, large enough for five more bytes
+     * @param offset where to write
+     * @return the offset after the varint
+     */
+    public static int putVarint(final int value, final byte[] target, final int offset) {
+        int v = value;
+        int pos = offset;
+        while ((v & ~VARINT_MASK) != 0) {
+            target[pos++] = (byte) ((v & VARINT_MASK) | VARINT_MORE);
+            v >>>= VARINT_BITS;
+        }
+        target[pos++] = (byte) v;
+        return pos;
+    }
+
+    /**
+     * Checks that a stream starts with {@link #MAGIC}.
+     *
+     * @param in the stream
+     * @throws IOException if the stream does not hold binary commands
+     */
+    public static void readMagic(final InputStream in) throws IOException {
+        for (byte expected : MAGIC) {
+            if (in.read() != expected) {
+                throw new IOException("Not a binary command stream");
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package org.poo.protocol;
+
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.CommerciantInput;
+import org.poo.fileio.ExchangeInput;
+import org.poo.fileio.ObjectInput;
+import org.poo.fileio.UserInput;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary counterpart of the JSON input files. The file holds {@link BinaryFormat#MAGIC},
+ * a header frame with the users, exchange rates and commerciants, then the commands as
+ * regular command frames. All strings share one table.
+ */
+public final class BinaryInputFile {
+
+    /**
+     * Extension of binary input files.
+     */
+    public static final String EXTENSION = ".bin";
+
+    /**
+     * Number of commands packed in one frame.
+     */
+    private static final int COMMANDS_PER_FRAME = 512;
+
+    /**
+     * Private constructor to prevent instantiation of the utility class.
+     */
+    private BinaryInputFile() {
+    }
+
+    /**
+     * Tells whether a file should be read as a binary input.
+     *
+     * @param file the input file
+     * @return true if the file has the binary extension
+     */
+    public static boolean isBinary(final File file) {
+        return file.getName().endsWith(EXTENSION);
+    }
+
+    /**
+     * Writes an input in binary form.
+     *
+     * @param input the input
+     * @param file  the file to write
+     * @throws IOException if writing fails
+     */
+    public static void write(final ObjectInput input, final File file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file.toPath()))) {
+            out.write(BinaryFormat.MAGIC);
+            CommandEncoder encoder = new CommandEncoder();
+
+            UserInput[] users = input.getUsers();
+            encoder.putVarint(users == null ? 0 : users.length + 1);
+            if (users != null) {
+                for (UserInput user : users) {
+                    encoder.putString(user.getFirstName());
+                    encoder.putString(user.getLastName());
+                    encoder.putString(user.getEmail());
+                    encoder.putString(user.getBirthDate());
+                    encoder.putString(user.getOccupation());
+                }
+            }
+
+            ExchangeInput[] rates = input.getExchangeRates();
+            encoder.putVarint(rates == null ? 0 : rates.length + 1);
+            if (rates != null) {
+                for (ExchangeInput rate : rates) {
+                    encoder.putString(rate.getFrom());
+                    encoder.putString(rate.getTo());
+                    encoder.putDouble(rate.getRate());
+                    encoder.putVarint(BinaryFormat.zigzag(rate.getTimestamp()));
+                }
+            }
+
+            CommerciantInput[] commerciants = input.getCommerciants();
+            encoder.putVarint(commerciants == null ? 0 : commerciants.length + 1);
+            if (commerciants != null) {
+                for (CommerciantInput commerciant : commerciants) {
+                    encoder.putString(commerciant.getCommerciant());
+                    encoder.putVarint(BinaryFormat.zigzag(commerciant.getId()));
+                    encoder.putString(commerciant.getAccount());
+                    encoder.putString(commerciant.getType());
+                    encoder.putString(commerciant.getCashbackStrategy());
+                }
+            }
+            encoder.writeFrame(out);
+
+            if (input.getCommands() != null) {
+                for (CommandInput command : input.getCommands()) {
+                    encoder.encode(command);
+                    if (encoder.pendingCommands() == COMMANDS_PER_FRAME) {
+                        encoder.writeFrame(out);
+                    }
+                }
+            }
+            if (encoder.pendingCommands() > 0) {
+                encoder.writeFrame(out);
+            }
+        }
+    }
+
+    /**
+     * Reads a binary input.
+     *
+     * @param file the file to read
+     * @return the input, shaped as if it was read from JSON
+     * @throws IOException if reading fails or the file is not a binary input
+     */
+    public static ObjectInput read(final File file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
+            BinaryFormat.readMagic(in);
+            // the header frame holds every user, so local files are not bounded
+            CommandDecoder decoder = new CommandDecoder(true, Integer.MAX_VALUE);
+            ObjectInput input = new ObjectInput();
+
+            ByteBuffer header = decoder.readPayload(in);
+            if (header == null) {
+                throw new IOException("Missing header frame");
+            }
+
+            int users = BinaryFormat.readVarint(header);
+            if (users > 0) {
+                UserInput[] userInputs = new UserInput[users - 1];
+                for (int i = 0; i < userInputs.length; i++) {
+                    UserInput user = new UserInput();
+                    user.setFirstName(decoder.readString(header));
+                    user.setLastName(decoder.readString(header));
+                    user.setEmail(decoder.readString(header));
+                    user.setBirthDate(decoder.readString(header));
+                    user.setOccupation(decoder.readString(header));
+                    userInputs[i] = user;
+                }
+                input.setUsers(userInputs);
+            }
+
+            int rates = BinaryFormat.readVarint(header);
+            if (rates > 0) {
+                ExchangeInput[] rateInputs = new ExchangeInput[rates - 1];
+                for (int i = 0; i < rateInputs.length; i++) {
+                    ExchangeInput rate = new ExchangeInput();
+                    rate.setFrom(decoder.readString(header));
+                    rate.setTo(decoder.readString(header));
+                    rate.setRate(header.getDouble());
+                    rate.setTimestamp(BinaryFormat.unzigzag(BinaryFormat.readVarint(header)));
+                    rateInputs[i] = rate;
+                }
+                input.setExchangeRates(rateInputs);
+            }
+
+            int commerciants = BinaryFormat.readVarint(header);
+            if (commerciants > 0) {
+                CommerciantInput[] commerciantInputs = new CommerciantInput[commerciants - 1];
+                for (int i = 0; i < commerciantInputs.length; i++) {
+                    CommerciantInput commerciant = new CommerciantInput();
+                    commerciant.setCommerciant(decoder.readString(header));
+                    commerciant.setId(BinaryFormat.unzigzag(BinaryFormat.readVarint(header)));
+                    commerciant.setAccount(decoder.readString(header));
+                    commerciant.setType(decoder.readString(header));
+                    commerciant.setCashbackStrategy(decoder.readString(header));
+                    commerciantInputs[i] = commerciant;
+                }
+                input.setCommerciants(commerciantInputs);
+            }
+
+            List<CommandInput> commands = new ArrayList<>();
+            for (List<CommandInput> frame = decoder.readFrame(in); frame != null;
+                 frame = decoder.readFrame(in)) {
+                commands.addAll(frame);
+            }
+            input.setCommands(commands.toArray(new CommandInput[0]));
+            return input;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package org.poo.protocol;
+
+import org.poo.fileio.CommandInput;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.poo.protocol.BinaryFormat.*;
+
+/**
+ * Decodes binary frames produced by {@link CommandEncoder} back into {@link CommandInput}
+ * objects. A decoder keeps the string table of its stream, so the frames of a stream must
+ * be decoded by a single decoder, in order.
+ */
+public final class CommandDecoder {
+
+    /**
+     * Strings received on this stream, in table order.
+     */
+    private final List<String> interned = new ArrayList<>();
+
+    /**
+     * Whether literals are registered in the string table.
+     */
+    private final boolean interning;
+
+    /**
+     * Maximum payload length of the frames read from a stream.
+     */
+    private final int maxFrameLength;
+
+    /**
+     * Reusable buffer for frame payloads read from a stream.
+     */
+    private byte[] frameBuffer = new byte[0];
+
+    /**
+     * Creates a decoder for a stream whose strings are interned, reading frames of at
+     * most {@link BinaryFormat#MAX_FRAME_LENGTH} bytes.
+     */
+    public CommandDecoder() {
+        this(true);
+    }
+
+    /**
+     * Creates a decoder reading frames of at most {@link BinaryFormat#MAX_FRAME_LENGTH}
+     * bytes.
+     *
+     * @param interning must match the setting of the encoder that produced the stream
+     */
+    public CommandDecoder(final boolean interning) {
+        this(interning, MAX_FRAME_LENGTH);
+    }
+
+    /**
+     * Creates a decoder.
+     *
+     * @param interning      must match the setting of the encoder that produced the stream
+     * @param maxFrameLength the maximum payload length of the frames read from a stream
+     */
+    public CommandDecoder(final boolean interning, final int maxFrameLength) {
+        this.interning = interning;
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    /**
+     * Reads and decodes the next frame of a stream.
+     *
+     * @param in the stream positioned on a frame
+     * @return the commands of the frame, or null if the stream ended
+     * @throws ProtocolException if the frame is too long or malformed
+     * @throws IOException       if the stream fails or ends inside a frame
+     */
+    public List<CommandInput> readFrame(final InputStream in) throws IOException {
+        ByteBuffer payload = readPayload(in);
+        if (payload == null) {
+            return null;
+        }
+
+        List<CommandInput> commands = new ArrayList<>();
+        try {
+            decode(payload, commands);
+        } catch (RuntimeException e) {
+            ProtocolException malformed = new ProtocolException("Malformed frame: " + e);
+            malformed.initCause(e);
+            throw malformed;
+        }
+        return commands;
+    }
+
+    /**
+     * Reads the payload of the next frame of a stream. The returned buffer is reused by
+     * the next call.
+     *
+     * @param in the stream positioned on a frame
+     * @return the payload, or null if the stream ended
+     * @throws ProtocolException if the frame is longer than the maximum
+     * @throws IOException       if the stream fails or ends inside a frame
+     */
+    ByteBuffer readPayload(final InputStream in) throws IOException {
+        int length = BinaryFormat.readVarint(in);
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > maxFrameLength) {
+            throw new ProtocolException("Frame length " + Integer.toUnsignedString(length)
+                    + " exceeds the maximum of " + maxFrameLength);
+        }
+        if (frameBuffer.length < length) {
+            frameBuffer = new byte[length];
+        }
+        if (in.readNBytes(frameBuffer, 0, length) != length) {
+            throw new EOFException("Stream ended inside a frame");
+        }
+        return ByteBuffer.wrap(frameBuffer, 0, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Decodes every command of a frame payload.
+     *
+     * @param payload  the payload, positioned on its first command and limited to its end
+     * @param commands the list receiving the decoded commands
+     */
+    public void decode(final ByteBuffer payload, final List<CommandInput> commands) {
+        payload.order(ByteOrder.LITTLE_ENDIAN);
+        while (payload.hasRemaining()) {
+            commands.add(decodeCommand(payload));
+        }
+    }
+
+    /**
+     * Decodes a single command.
+     *
+     * @param in the payload positioned on the command
+     * @return the command
+     * @throws IllegalStateException if a custom command has no name
+     */
+    public CommandInput decodeCommand(final ByteBuffer in) {
+        CommandInput input = new CommandInput();
+        int id = readVarint(in);
+        if (id == CUSTOM_COMMAND) {
+            String name = readString(in);
+            if (name == null) {
+                throw new IllegalStateException("Missing command name");
+            }
+            input.setCommand(name);
+        } else {
+            input.setCommand(COMMANDS.get(id - 1));
+        }
+
+        for (int field = readVarint(in); field != END; field = readVarint(in)) {
+            switch (field) {
+                case EMAIL -> input.setEmail(readString(in));
+                case ACCOUNT -> input.setAccount(readString(in));
+                case NEW_PLAN_TYPE -> input.setNewPlanType(readString(in));
+                case ROLE -> input.setRole(readString(in));
+                case CURRENCY -> input.setCurrency(readString(in));
+                case TARGET -> input.setTarget(readString(in));
+                case DESCRIPTION -> input.setDescription(readString(in));
+                case CARD_NUMBER -> input.setCardNumber(readString(in));
+                case COMMERCIANT -> input.setCommerciant(readString(in));
+                case RECEIVER -> input.setReceiver(readString(in));
+                case ALIAS -> input.setAlias(readString(in));
+                case ACCOUNT_TYPE -> input.setAccountType(readString(in));
+                case SPLIT_PAYMENT_TYPE -> input.setSplitPaymentType(readString(in));
+                case TYPE -> input.setType(readString(in));
+                case LOCATION -> input.setLocation(readString(in));
+                case TIMESTAMP -> input.setTimestamp(unzigzag(readVarint(in)));
+                case START_TIMESTAMP -> input.setStartTimestamp(unzigzag(readVarint(in)));
+                case END_TIMESTAMP -> input.setEndTimestamp(unzigzag(readVarint(in)));
+                case INTEREST_RATE -> input.setInterestRate(in.getDouble());
+                case SPENDING_LIMIT -> input.setSpendingLimit(in.getDouble());
+                case DEPOSIT_LIMIT -> input.setDepositLimit(in.getDouble());
+                case AMOUNT -> input.setAmount(in.getDouble());
+                case MIN_BALANCE -> input.setMinBalance(in.getDouble());
+                case ACCOUNTS -> {
+                    int count = readVarint(in);
+                    List<String> accounts = new ArrayList<>(Math.min(count, in.remaining()));
+                    for (int i = 0; i < count; i++) {
+                        accounts.add(readString(in));
+                    }
+                    input.setAccounts(accounts);
+                }
+                case AMOUNT_FOR_USERS -> {
+                    int count = readVarint(in);
+                    List<Double> amounts = new ArrayList<>(Math.min(count, in.remaining()));
+                    for (int i = 0; i < count; i++) {
+                        amounts.add(in.getDouble());
+                    }
+                    input.setAmountForUsers(amounts);
+                }
+                case PAGE_SIZE -> input.setPageSize(unzigzag(readVarint(in)));
+                case CURSOR -> input.setCursor(readString(in));
+                default -> throw new IllegalStateException("Unknown field id: " + field);
+            }
+        }
+        return input;
+    }
+
+    /**
+     * Reads a string literal or table reference.
+     *
+     * @param in the payload positioned on the string
+     * @return the string, may be null
+     */
+    String readString(final ByteBuffer in) {
+        int tag = readVarint(in);
+        if (tag == 0) {
+            return null;
+        }
+        if ((tag & 1) == 0) {
+            return interned.get((tag >>> 1) - 1);
+        }
+
+        int length = tag >>> 1;
+        String value;
+        if (in.hasArray()) {
+            value = new String(in.array(), in.arrayOffset() + in.position(), length,
+                    StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        if (interning && interned.size() < MAX_INTERNED) {
+            interned.add(value);
+        }
+        return value;
+    }
+}
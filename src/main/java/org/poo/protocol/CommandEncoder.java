@@ -0,0 +1,294 @@
+package org.poo.protocol;
+
+import org.poo.fileio.CommandInput;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.poo.protocol.BinaryFormat.*;
+
+/**
+ * Encodes commands into binary frames. Commands are appended to a pending frame which is
+ * written out with {@link #writeFrame(OutputStream)}. An encoder keeps the string table of
+ * its stream, so a stream must be encoded by a single encoder, in order.
+ */
+public final class CommandEncoder {
+
+    /**
+     * Initial size of the frame buffer.
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * Room reserved for a varint.
+     */
+    private static final int VARINT_ROOM = 5;
+
+    /**
+     * Strings already sent on this stream, with their table index.
+     */
+    private final Map<String, Integer> interned = new HashMap<>();
+
+    /**
+     * Whether strings are interned at all.
+     */
+    private final boolean interning;
+
+    /**
+     * The pending frame payload.
+     */
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+
+    /**
+     * Number of bytes used in {@link #buffer}.
+     */
+    private int size;
+
+    /**
+     * Number of commands in the pending frame.
+     */
+    private int commandCount;
+
+    /**
+     * Creates an encoder interning strings across the whole stream.
+     */
+    public CommandEncoder() {
+        this(true);
+    }
+
+    /**
+     * Creates an encoder.
+     *
+     * @param interning whether repeated strings are sent as table references; without
+     *                  interning every frame can be decoded on its own
+     */
+    public CommandEncoder(final boolean interning) {
+        this.interning = interning;
+    }
+
+    /**
+     * Appends a command to the pending frame.
+     *
+     * @param input the command
+     */
+    public void encode(final CommandInput input) {
+        int id = commandId(input.getCommand());
+        putVarint(id);
+        if (id == CUSTOM_COMMAND) {
+            putString(input.getCommand());
+        }
+
+        putStringField(EMAIL, input.getEmail());
+        putStringField(ACCOUNT, input.getAccount());
+        putStringField(NEW_PLAN_TYPE, input.getNewPlanType());
+        putStringField(ROLE, input.getRole());
+        putStringField(CURRENCY, input.getCurrency());
+        putStringField(TARGET, input.getTarget());
+        putStringField(DESCRIPTION, input.getDescription());
+        putStringField(CARD_NUMBER, input.getCardNumber());
+        putStringField(COMMERCIANT, input.getCommerciant());
+        putStringField(RECEIVER, input.getReceiver());
+        putStringField(ALIAS, input.getAlias());
+        putStringField(ACCOUNT_TYPE, input.getAccountType());
+        putStringField(SPLIT_PAYMENT_TYPE, input.getSplitPaymentType());
+        putStringField(TYPE, input.getType());
+        putStringField(LOCATION, input.getLocation());
+        putIntField(TIMESTAMP, input.getTimestamp());
+        putIntField(START_TIMESTAMP, input.getStartTimestamp());
+        putIntField(END_TIMESTAMP, input.getEndTimestamp());
+        putDoubleField(INTEREST_RATE, input.getInterestRate());
+        putDoubleField(SPENDING_LIMIT, input.getSpendingLimit());
+        putDoubleField(DEPOSIT_LIMIT, input.getDepositLimit());
+        putDoubleField(AMOUNT, input.getAmount());
+        putDoubleField(MIN_BALANCE, input.getMinBalance());
+
+        List<String> accounts = input.getAccounts();
+        if (accounts != null) {
+            putVarint(ACCOUNTS);
+            putVarint(accounts.size());
+            for (String account : accounts) {
+                putString(account);
+            }
+        }
+        List<Double> amounts = input.getAmountForUsers();
+        if (amounts != null) {
+            putVarint(AMOUNT_FOR_USERS);
+            putVarint(amounts.size());
+            for (Double value : amounts) {
+                putDouble(value);
+            }
+        }
+        putIntField(PAGE_SIZE, input.getPageSize());
+        putStringField(CURSOR, input.getCursor());
+
+        putVarint(END);
+        commandCount++;
+    }
+
+    /**
+     * Returns the number of commands in the pending frame.
+     *
+     * @return the command count
+     */
+    public int pendingCommands() {
+        return commandCount;
+    }
+
+    /**
+     * Returns the size of the pending frame payload.
+     *
+     * @return the payload size in bytes
+     */
+    public int pendingBytes() {
+        return size;
+    }
+
+    /**
+     * Writes the pending frame, length prefixed, and starts a new one.
+     *
+     * @param out the stream to write to
+     * @throws IOException if writing fails
+     */
+    public void writeFrame(final OutputStream out) throws IOException {
+        byte[] header = new byte[VARINT_ROOM];
+        int headerSize = BinaryFormat.putVarint(size, header, 0);
+        out.write(header, 0, headerSize);
+        out.write(buffer, 0, size);
+        size = 0;
+        commandCount = 0;
+    }
+
+    /**
+     * Returns the pending frame, length prefixed, and starts a new one.
+     *
+     * @return the frame bytes
+     */
+    public byte[] toFrame() {
+        byte[] header = new byte[VARINT_ROOM];
+        int headerSize = BinaryFormat.putVarint(size, header, 0);
+        byte[] frame = new byte[headerSize + size];
+        System.arraycopy(header, 0, frame, 0, headerSize);
+        System.arraycopy(buffer, 0, frame, headerSize, size);
+        size = 0;
+        commandCount = 0;
+        return frame;
+    }
+
+    /**
+     * Returns the pending frame payload, without its length prefix, and starts a new one.
+     *
+     * @return the payload bytes
+     */
+    public byte[] toPayload() {
+        byte[] payload = Arrays.copyOf(buffer, size);
+        size = 0;
+        commandCount = 0;
+        return payload;
+    }
+
+    /**
+     * Writes a string field if it is set.
+     *
+     * @param field the field id
+     * @param value the value
+     */
+    private void putStringField(final int field, final String value) {
+        if (value != null) {
+            putVarint(field);
+            putString(value);
+        }
+    }
+
+    /**
+     * Writes an int field if it differs from zero.
+     *
+     * @param field the field id
+     * @param value the value
+     */
+    private void putIntField(final int field, final int value) {
+        if (value != 0) {
+            putVarint(field);
+            putVarint(zigzag(value));
+        }
+    }
+
+    /**
+     * Writes a double field if it differs from zero.
+     *
+     * @param field the field id
+     * @param value the value
+     */
+    private void putDoubleField(final int field, final double value) {
+        if (Double.doubleToRawLongBits(value) != 0L) {
+            putVarint(field);
+            putDouble(value);
+        }
+    }
+
+    /**
+     * Writes a string, as a reference if it was already sent on this stream.
+     *
+     * @param value the string, may be null
+     */
+    void putString(final String value) {
+        if (value == null) {
+            putVarint(0);
+            return;
+        }
+        if (interning) {
+            Integer index = interned.get(value);
+            if (index != null) {
+                putVarint((index + 1) << 1);
+                return;
+            }
+            if (interned.size() < MAX_INTERNED) {
+                interned.put(value, interned.size());
+            }
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putVarint((bytes.length << 1) | 1);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    /**
+     * Writes an unsigned varint.
+     *
+     * @param value the value
+     */
+    void putVarint(final int value) {
+        ensureCapacity(VARINT_ROOM);
+        size = BinaryFormat.putVarint(value, buffer, size);
+    }
+
+    /**
+     * Writes a double as eight little-endian bytes.
+     *
+     * @param value the value
+     */
+    void putDouble(final double value) {
+        ensureCapacity(Long.BYTES);
+        long bits = Double.doubleToRawLongBits(value);
+        for (int i = 0; i < Long.BYTES; i++) {
+            buffer[size++] = (byte) (bits >>> (i * Byte.SIZE));
+        }
+    }
+
+    /**
+     * Grows the buffer so that it can take more bytes.
+     *
+     * @param extra the number of bytes about to be written
+     */
+    private void ensureCapacity(final int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+}
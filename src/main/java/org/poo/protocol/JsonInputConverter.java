@@ -0,0 +1,71 @@
+package org.poo.protocol;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.poo.checker.CheckerConstants;
+import org.poo.fileio.ObjectInput;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Converts JSON input files into the binary input format.
+ * Usage: {@code JsonInputConverter [input file or directory]...}; without arguments every
+ * JSON file of the tests directory is converted. Each output is written next to its input,
+ * with the {@link BinaryInputFile#EXTENSION} extension.
+ */
+public final class JsonInputConverter {
+
+    /**
+     * Extension of JSON input files.
+     */
+    private static final String JSON_EXTENSION = ".json";
+
+    /**
+     * Private constructor to prevent instantiation of the utility class.
+     */
+    private JsonInputConverter() {
+    }
+
+    /**
+     * Converts one JSON input file.
+     *
+     * @param objectMapper the mapper reading the JSON input
+     * @param jsonFile     the file to convert
+     * @return the binary file that was written
+     * @throws IOException if reading or writing fails
+     */
+    public static File convert(final ObjectMapper objectMapper, final File jsonFile)
+            throws IOException {
+        ObjectInput input = objectMapper.readValue(jsonFile, ObjectInput.class);
+        String name = jsonFile.getName();
+        if (name.endsWith(JSON_EXTENSION)) {
+            name = name.substring(0, name.length() - JSON_EXTENSION.length());
+        }
+        File binaryFile = new File(jsonFile.getParentFile(), name + BinaryInputFile.EXTENSION);
+        BinaryInputFile.write(input, binaryFile);
+        return binaryFile;
+    }
+
+    /**
+     * @param args the files or directories to convert
+     * @throws IOException if reading or writing fails
+     */
+    public static void main(final String[] args) throws IOException {
+        String[] paths = args.length > 0 ? args : new String[] {CheckerConstants.TESTS_PATH};
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        for (String path : paths) {
+            File file = new File(path);
+            File[] files = file.isDirectory()
+                    ? Objects.requireNonNull(file.listFiles(
+                            (dir, fileName) -> fileName.endsWith(JSON_EXTENSION)))
+                    : new File[] {file};
+            for (File jsonFile : files) {
+                File binaryFile = convert(objectMapper, jsonFile);
+                System.out.println(jsonFile + " -> " + binaryFile
+                        + " (" + jsonFile.length() + " -> " + binaryFile.length() + " bytes)");
+            }
+        }
+    }
+}
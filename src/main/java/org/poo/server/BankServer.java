@@ -0,0 +1,577 @@
+package org.poo.server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.poo.commands.Command;
+import org.poo.commands.CommandFactory;
+import org.poo.commands.CommandInvoker;
+import org.poo.entities.Account;
+import org.poo.entities.User;
+import org.poo.entities.ValutarCourse;
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.ObjectInput;
+import org.poo.main.Main;
+import org.poo.metrics.CommandMetrics;
+import org.poo.persistence.BankSnapshot;
+import org.poo.persistence.CommandJournal;
+import org.poo.persistence.TransactionArchive;
+import org.poo.storage.BankIndex;
+import org.poo.utils.Utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Long-running bank process. Keeps the users, accounts and exchange rates resident and
+ * executes commands received over a local TCP or Unix-domain socket through the same
+ * {@link CommandFactory} and {@link CommandInvoker} used by the batch mode.
+ *
+ * <p>Every connection is served by its own virtual thread. Commands from all connections
+ * are executed one at a time, since the entities are not thread-safe.
+ */
+public final class BankServer implements AutoCloseable {
+
+    /**
+     * Default TCP port used when none is given on the command line.
+     */
+    public static final int DEFAULT_PORT = 7070;
+
+    /**
+     * Default number of journal records that triggers a sync.
+     */
+    private static final int DEFAULT_SYNC_BATCH = 256;
+
+    /**
+     * Default time a journal record may wait for its sync, in microseconds.
+     */
+    private static final long DEFAULT_SYNC_DELAY_MICROS = 500;
+
+    /**
+     * Default number of journaled commands between two snapshots.
+     */
+    private static final int DEFAULT_SNAPSHOT_INTERVAL = 100_000;
+
+    /**
+     * Default number of transactions an account keeps in memory when archiving.
+     */
+    private static final int DEFAULT_HOT_LIMIT = 1024;
+
+    /**
+     * Default time between two dumps of the command metrics, in seconds.
+     */
+    private static final long DEFAULT_METRICS_PERIOD_SECONDS = 10;
+
+    /**
+     * The users the commands operate on.
+     */
+    private final List<User> users;
+
+    /**
+     * The exchange rates used by the commands.
+     */
+    private final ArrayList<ValutarCourse> exchangeRates;
+
+    /**
+     * The invoker executing the commands.
+     */
+    private final CommandInvoker invoker = new CommandInvoker();
+
+    /**
+     * Serializes command execution across connections.
+     */
+    private final ReentrantLock stateLock = new ReentrantLock();
+
+    /**
+     * The mapper used for reading commands and writing outputs.
+     */
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Runs one virtual thread per connection.
+     */
+    private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * The journal of the state-changing commands, if durability is enabled.
+     */
+    private CommandJournal journal;
+
+    /**
+     * Sequence number of the last journal record already reflected in the state.
+     */
+    private long recoveredSequence;
+
+    /**
+     * The file snapshots are written to, if snapshots are enabled.
+     */
+    private Path snapshotFile;
+
+    /**
+     * Number of journaled commands between two snapshots, 0 to snapshot only on close.
+     */
+    private int snapshotInterval;
+
+    /**
+     * Sequence number of the last journal record included in the latest snapshot.
+     */
+    private long snapshotSequence;
+
+    /**
+     * The listening channel, set by {@link #start(SocketAddress)}.
+     */
+    private volatile ServerSocketChannel serverChannel;
+
+    /**
+     * The Unix-domain socket file to remove on close, if any.
+     */
+    private volatile Path socketFile;
+
+    /**
+     * Creates a server over an already built bank state.
+     *
+     * @param users         the users the commands operate on
+     * @param exchangeRates the exchange rates used by the commands
+     */
+    public BankServer(final List<User> users, final ArrayList<ValutarCourse> exchangeRates) {
+        this.users = users;
+        this.exchangeRates = exchangeRates;
+    }
+
+    /**
+     * Creates a server whose initial state is the result of running an input file. The
+     * {@link BankIndex} is reset for the new state.
+     *
+     * @param inputFile the input file holding the users, exchange rates and commands
+     * @return the server
+     * @throws IOException if the input file cannot be read
+     */
+    public static BankServer fromInputFile(final File inputFile) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ObjectInput inputData = objectMapper.readValue(inputFile, ObjectInput.class);
+
+        BankIndex.reset();
+        BankServer server = new BankServer(Main.createUsers(inputData.getUsers()),
+                Main.createExchangeRates(inputData.getExchangeRates()));
+        if (inputData.getCommands() != null) {
+            for (CommandInput commandInput : inputData.getCommands()) {
+                server.execute(commandInput);
+            }
+        }
+        return server;
+    }
+
+    /**
+     * Creates a server whose initial state is restored from a snapshot. The IBAN and card
+     * number generators are moved to where they were when the snapshot was taken.
+     *
+     * @param snapshot the snapshot
+     * @return the server
+     */
+    public static BankServer fromSnapshot(final BankSnapshot snapshot) {
+        snapshot.restoreRandom();
+        BankServer server = new BankServer(snapshot.getUsers(), snapshot.getExchangeRates());
+        server.recoveredSequence = snapshot.getJournalSequence();
+        server.snapshotSequence = snapshot.getJournalSequence();
+        return server;
+    }
+
+    /**
+     * Makes the server durable: replays the commands recorded in a journal after the
+     * ones already in the state, then records every state-changing command in it before
+     * executing it.
+     *
+     * <p>Replaying runs the commands on a single thread, so it hands out the identifiers
+     * the clients received only if they were allocated one at a time; identifier blocks
+     * larger than one are refused.
+     *
+     * @param commandJournal the journal, not yet recovered
+     * @return the number of replayed commands
+     * @throws IOException           if the journal cannot be read
+     * @throws IllegalStateException if {@value Utils#BLOCK_SIZE_PROPERTY} is above one
+     */
+    public long recover(final CommandJournal commandJournal) throws IOException {
+        if (Utils.getIbanAllocator().getBlockSize() > 1
+                || Utils.getCardAllocator().getBlockSize() > 1) {
+            throw new IllegalStateException("A journal cannot recover the identifiers handed"
+                    + " out in blocks; unset " + Utils.BLOCK_SIZE_PROPERTY);
+        }
+        long replayed = commandJournal.recover(recoveredSequence, this::replay);
+        journal = commandJournal;
+        return replayed;
+    }
+
+    /**
+     * Writes a snapshot of the state on close and, with a journal, every
+     * {@code interval} journaled commands.
+     *
+     * @param file     the snapshot file
+     * @param interval the number of journaled commands between two snapshots,
+     *                 0 to snapshot only on close
+     */
+    public void enableSnapshots(final Path file, final int interval) {
+        snapshotFile = file;
+        snapshotInterval = interval;
+    }
+
+    /**
+     * Writes a snapshot of the state. Commands wait while it is written; the journal
+     * records it includes are made durable first, so that the journal never falls
+     * behind a snapshot.
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void snapshot() throws IOException {
+        stateLock.lock();
+        try {
+            long sequence = journal == null ? recoveredSequence : journal.lastSequence();
+            awaitDurable(sequence);
+            BankSnapshot.write(snapshotFile, users, exchangeRates, sequence);
+            snapshotSequence = sequence;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    /**
+     * Executes a single command against the resident state. A state-changing command is
+     * journaled before it runs, and the call returns once its record is durable.
+     *
+     * @param commandInput the command to execute
+     * @return the outputs produced by the command
+     */
+    public ArrayNode execute(final CommandInput commandInput) {
+        ArrayNode output = objectMapper.createArrayNode();
+        awaitDurable(apply(commandInput, output));
+        return output;
+    }
+
+    /**
+     * Executes a single command against the resident state without waiting for its
+     * journal record to become durable. Callers answering a batch of commands apply them
+     * all, then wait once for the last record with {@link #awaitDurable(long)}. A command
+     * without a name, or with one the factory does not know, gets the unknown-command
+     * error.
+     *
+     * @param commandInput the command to execute
+     * @param output       the JSON array node to store the output
+     * @return the sequence number of the journal record, or 0 if none was written
+     */
+    public long apply(final CommandInput commandInput, final ArrayNode output) {
+        long sequence = 0;
+        String name = commandInput.getCommand();
+        if (name == null || name.isBlank()) {
+            output.add(Main.createUnknownCommandError(objectMapper, name));
+            return sequence;
+        }
+        stateLock.lock();
+        try {
+            Command command;
+            try {
+                command = CommandFactory.getCommand(commandInput, exchangeRates);
+            } catch (IllegalArgumentException e) {
+                output.add(Main.createUnknownCommandError(objectMapper,
+                        commandInput.getCommand()));
+                return sequence;
+            }
+            if (journal != null && CommandJournal.isMutating(commandInput.getCommand())) {
+                sequence = journal.append(commandInput);
+            }
+            run(command, commandInput, output);
+            if (snapshotInterval > 0 && sequence - snapshotSequence >= snapshotInterval) {
+                snapshot();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            stateLock.unlock();
+        }
+        return sequence;
+    }
+
+    /**
+     * Waits until a journal record is durable.
+     *
+     * @param sequence the sequence number returned by {@link #apply(CommandInput, ArrayNode)}
+     */
+    public void awaitDurable(final long sequence) {
+        if (sequence > 0) {
+            journal.awaitDurable(sequence);
+        }
+    }
+
+    /**
+     * Executes a command read back from the journal, discarding its outputs.
+     *
+     * @param commandInput the command to execute
+     */
+    private void replay(final CommandInput commandInput) {
+        stateLock.lock();
+        try {
+            run(CommandFactory.getCommand(commandInput, exchangeRates), commandInput,
+                    objectMapper.createArrayNode());
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    /**
+     * Runs a command through the invoker. A command failing on the resident state is
+     * reported in the output instead of tearing down the connection.
+     *
+     * @param command      the command to run
+     * @param commandInput the input the command was built from
+     * @param output       the JSON array node to store the output
+     */
+    private void run(final Command command, final CommandInput commandInput,
+                     final ArrayNode output) {
+        invoker.addCommand(command, commandInput);
+        try {
+            invoker.executePending(users, output);
+        } catch (RuntimeException e) {
+            ObjectNode error = output.addObject();
+            error.put("command", commandInput.getCommand());
+            error.put("status", "error");
+            error.put("message", "Command failed: " + e);
+        }
+    }
+
+    /**
+     * Binds the server and accepts connections until it is closed. Each connection is
+     * handed to a virtual thread.
+     *
+     * @param address a loopback {@link InetSocketAddress} or a {@link UnixDomainSocketAddress}
+     * @throws IOException if the server cannot bind
+     */
+    public void start(final SocketAddress address) throws IOException {
+        if (address instanceof UnixDomainSocketAddress unixAddress) {
+            socketFile = unixAddress.getPath();
+            Files.deleteIfExists(socketFile);
+            serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            serverChannel = ServerSocketChannel.open();
+        }
+        serverChannel.bind(address);
+
+        try {
+            while (serverChannel.isOpen()) {
+                SocketChannel channel = serverChannel.accept();
+                connections.submit(new ClientSession(this, channel));
+            }
+        } catch (ClosedChannelException e) {
+            // the server was closed while waiting for a connection
+        }
+    }
+
+    /**
+     * Returns the latency and outcome histograms of the commands run by the server.
+     *
+     * @return the metrics of the invoker
+     */
+    public CommandMetrics getCommandMetrics() {
+        return invoker.getMetrics();
+    }
+
+    /**
+     * Counts the transactions held by the accounts. Walks every account while holding
+     * the state lock, so commands wait for the count.
+     *
+     * @return the transactions in memory, then the ones sealed into archive segments
+     */
+    public long[] countTransactions() {
+        long inMemory = 0;
+        long archived = 0;
+        stateLock.lock();
+        try {
+            for (User user : users) {
+                for (Account account : user.getAccounts()) {
+                    int archivedCount = account.getTransactions().getArchivedCount();
+                    inMemory += account.getTransactions().size() - archivedCount;
+                    archived += archivedCount;
+                }
+            }
+        } finally {
+            stateLock.unlock();
+        }
+        return new long[] {inMemory, archived};
+    }
+
+    /**
+     * Returns the number of commands waiting for the bank state.
+     *
+     * @return the number of threads queued on the state lock, an estimate
+     */
+    public int getWaitingCommands() {
+        return stateLock.getQueueLength();
+    }
+
+    /**
+     * Returns the number of journal records waiting to be written.
+     *
+     * @return the queue depth, 0 without a journal
+     */
+    public int getPendingJournalRecords() {
+        return journal == null ? 0 : journal.pendingRecords();
+    }
+
+    /**
+     * Returns the mapper shared by the connections.
+     *
+     * @return the object mapper
+     */
+    ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    /**
+     * Stops accepting connections, waits for the open ones to finish and writes a final
+     * snapshot if snapshots are enabled.
+     *
+     * @throws IOException if the listening channel cannot be closed or the snapshot
+     *                     cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (serverChannel != null) {
+            serverChannel.close();
+        }
+        connections.close();
+        if (snapshotFile != null) {
+            snapshot();
+        }
+        if (journal != null) {
+            journal.close();
+        }
+        if (socketFile != null) {
+            Files.deleteIfExists(socketFile);
+        }
+    }
+
+    /**
+     * Parses the listening address: a port number binds on the loopback interface,
+     * anything else is taken as the path of a Unix-domain socket.
+     *
+     * @param value the address given on the command line
+     * @return the socket address
+     */
+    public static SocketAddress parseAddress(final String value) {
+        if (value.chars().allMatch(Character::isDigit)) {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                    Integer.parseInt(value));
+        }
+        return UnixDomainSocketAddress.of(value);
+    }
+
+    /**
+     * Starts the bank in server mode.
+     * Usage: {@code BankServer <input file> [port | unix socket path] [journal file]
+     * [snapshot file]}
+     *
+     * <p>With a journal, the commands it holds are replayed on startup and every
+     * state-changing command is recorded; the group commit is tuned with the
+     * {@code bank.journal.syncBatch}, {@code bank.journal.syncDelayMicros} and
+     * {@code bank.journal.fsync} system properties.
+     *
+     * <p>With a snapshot file, an existing snapshot replaces the input file as the
+     * starting state and only the journal records after it are replayed. A new snapshot
+     * is written on shutdown and every {@code bank.snapshot.interval} journaled commands.
+     *
+     * <p>The {@code bank.history.dir} system property moves older transactions out of the
+     * heap into memory-mapped segments in that directory, keeping the latest
+     * {@code bank.history.hotLimit} transactions of every account in memory.
+     *
+     * <p>The {@code bank.metrics.file} system property dumps the per-command latency
+     * histograms to that file every {@code bank.metrics.periodSeconds} seconds;
+     * {@code bank.metrics.allocation} adds the bytes allocated per command type. The
+     * {@code bank.metrics.port} system property serves the live counters in the
+     * Prometheus text format on {@code http://127.0.0.1:<port>/metrics}.
+     *
+     * @param args the input file and, optionally, the listening address, journal and
+     *             snapshot
+     * @throws IOException if the input cannot be read or the server cannot bind
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: BankServer <input file> [port | unix socket path]"
+                    + " [journal file] [snapshot file]");
+            return;
+        }
+
+        SocketAddress address = parseAddress(args.length > 1
+                ? args[1] : String.valueOf(DEFAULT_PORT));
+        String historyDirectory = System.getProperty("bank.history.dir");
+        if (historyDirectory != null) {
+            TransactionArchive.configure(Path.of(historyDirectory),
+                    Integer.getInteger("bank.history.hotLimit", DEFAULT_HOT_LIMIT));
+        }
+        Path snapshotFile = args.length > 3 ? Path.of(args[3]) : null;
+        BankServer server;
+        if (snapshotFile != null && Files.exists(snapshotFile)) {
+            BankIndex.reset();
+            server = fromSnapshot(BankSnapshot.read(snapshotFile));
+            System.out.println("Restored snapshot " + snapshotFile);
+        } else {
+            server = fromInputFile(new File(args[0]));
+        }
+        if (snapshotFile != null) {
+            server.enableSnapshots(snapshotFile,
+                    Integer.getInteger("bank.snapshot.interval", DEFAULT_SNAPSHOT_INTERVAL));
+        }
+        if (args.length > 2) {
+            CommandJournal journal = new CommandJournal(Path.of(args[2]),
+                    Integer.getInteger("bank.journal.syncBatch", DEFAULT_SYNC_BATCH),
+                    Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(Long.getLong(
+                            "bank.journal.syncDelayMicros", DEFAULT_SYNC_DELAY_MICROS))),
+                    Boolean.parseBoolean(System.getProperty("bank.journal.fsync", "true")));
+            System.out.println("Replayed " + server.recover(journal) + " journaled commands");
+        }
+        String metricsFile = System.getProperty("bank.metrics.file");
+        Closeable metricsDump = metricsFile == null ? null
+                : server.invoker.getMetrics().startDump(Path.of(metricsFile),
+                        Duration.ofSeconds(Long.getLong("bank.metrics.periodSeconds",
+                                DEFAULT_METRICS_PERIOD_SECONDS)));
+        Integer metricsPort = Integer.getInteger("bank.metrics.port");
+        MetricsEndpoint metricsEndpoint = metricsPort == null ? null
+                : new MetricsEndpoint(server,
+                        new InetSocketAddress(InetAddress.getLoopbackAddress(), metricsPort));
+        if (metricsEndpoint != null) {
+            System.out.println("Metrics on http://127.0.0.1:" + metricsEndpoint.getPort()
+                    + "/metrics");
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                if (metricsEndpoint != null) {
+                    metricsEndpoint.close();
+                }
+                server.close();
+                if (metricsDump != null) {
+                    metricsDump.close();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }));
+
+        System.out.println("Bank listening on " + address);
+        server.start(address);
+    }
+}
@@ -0,0 +1,236 @@
+package org.poo.server;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.poo.fileio.CommandInput;
+import org.poo.protocol.BinaryFormat;
+import org.poo.protocol.CommandDecoder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.ProtocolException;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serves one client connection. Two protocols are accepted, told apart by the first byte:
+ * <ul>
+ *     <li>JSON lines: one JSON command per line, using the same field names as the input
+ *     files; every command is answered by one line holding the JSON array of the outputs
+ *     it produced (empty when the command prints nothing).</li>
+ *     <li>binary: the stream starts with {@link BinaryFormat#MAGIC} and carries command
+ *     frames; every command is answered, in order, by a frame holding the varint length
+ *     and UTF-8 bytes of its JSON output array. A malformed frame is answered by an
+ *     error, after which the session ends, since the stream cannot be read further.</li>
+ * </ul>
+ * Replies to the commands read in one go are sent together, once the journal records of
+ * those commands are durable, so a pipelining client shares a single sync.
+ */
+final class ClientSession implements Runnable {
+
+    /**
+     * Room reserved for a varint.
+     */
+    private static final int VARINT_ROOM = 5;
+
+    /**
+     * The server executing the commands.
+     */
+    private final BankServer server;
+
+    /**
+     * The client connection.
+     */
+    private final SocketChannel channel;
+
+    /**
+     * Creates a session for an accepted connection.
+     *
+     * @param server  the server executing the commands
+     * @param channel the client connection
+     */
+    ClientSession(final BankServer server, final SocketChannel channel) {
+        this.server = server;
+        this.channel = channel;
+    }
+
+    /**
+     * Reads commands until the client closes the connection.
+     */
+    @Override
+    public void run() {
+        try (channel;
+             InputStream in = new BufferedInputStream(Channels.newInputStream(channel));
+             OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel))) {
+            in.mark(1);
+            int first = in.read();
+            if (first < 0) {
+                return;
+            }
+            in.reset();
+
+            if (first == BinaryFormat.MAGIC[0]) {
+                serveBinary(in, out);
+            } else {
+                serveJsonLines(in, out);
+            }
+        } catch (IOException e) {
+            // the client went away, nothing left to answer
+        }
+    }
+
+    /**
+     * Serves the JSON lines protocol.
+     *
+     * @param in  the client input
+     * @param out the client output
+     * @throws IOException if the connection fails
+     */
+    private void serveJsonLines(final InputStream in, final OutputStream out)
+            throws IOException {
+        ObjectMapper objectMapper = server.getObjectMapper();
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(in, StandardCharsets.UTF_8));
+        BufferedWriter writer = new BufferedWriter(
+                new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+        List<ArrayNode> replies = new ArrayList<>();
+        long sequence = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            ArrayNode output = objectMapper.createArrayNode();
+            sequence = Math.max(sequence, handle(objectMapper, line, output));
+            replies.add(output);
+            if (!reader.ready()) {
+                server.awaitDurable(sequence);
+                for (ArrayNode reply : replies) {
+                    writer.write(objectMapper.writeValueAsString(reply));
+                    writer.newLine();
+                }
+                writer.flush();
+                replies.clear();
+            }
+        }
+    }
+
+    /**
+     * Serves the binary protocol.
+     *
+     * @param in  the client input
+     * @param out the client output
+     * @throws IOException if the connection fails or sends a malformed stream
+     */
+    private void serveBinary(final InputStream in, final OutputStream out) throws IOException {
+        ObjectMapper objectMapper = server.getObjectMapper();
+        BinaryFormat.readMagic(in);
+        CommandDecoder decoder = new CommandDecoder();
+        byte[] header = new byte[VARINT_ROOM];
+
+        try {
+            for (List<CommandInput> frame = decoder.readFrame(in); frame != null;
+                 frame = decoder.readFrame(in)) {
+                List<ArrayNode> replies = new ArrayList<>(frame.size());
+                long sequence = 0;
+                for (CommandInput commandInput : frame) {
+                    ArrayNode output = objectMapper.createArrayNode();
+                    sequence = Math.max(sequence, apply(commandInput, output));
+                    replies.add(output);
+                }
+                server.awaitDurable(sequence);
+
+                for (ArrayNode output : replies) {
+                    writeReply(objectMapper, output, header, out);
+                }
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (ProtocolException e) {
+            ArrayNode output = objectMapper.createArrayNode();
+            addError(output, e.getMessage());
+            writeReply(objectMapper, output, header, out);
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes a reply frame of the binary protocol.
+     *
+     * @param objectMapper the JSON object mapper
+     * @param output       the outputs of the command
+     * @param header       room for the length varint
+     * @param out          the client output
+     * @throws IOException if the connection fails
+     */
+    private static void writeReply(final ObjectMapper objectMapper, final ArrayNode output,
+                                   final byte[] header, final OutputStream out)
+            throws IOException {
+        byte[] reply = objectMapper.writeValueAsBytes(output);
+        out.write(header, 0, BinaryFormat.putVarint(reply.length, header, 0));
+        out.write(reply);
+    }
+
+    /**
+     * Parses and executes a single command line.
+     *
+     * @param objectMapper the JSON object mapper
+     * @param line         the JSON command
+     * @param output       receives the outputs of the command, or a malformed-request error
+     * @return the sequence number of the journal record, or 0 if none was written
+     */
+    private long handle(final ObjectMapper objectMapper, final String line,
+                        final ArrayNode output) {
+        CommandInput commandInput;
+        try {
+            commandInput = objectMapper.readValue(line, CommandInput.class);
+        } catch (JsonProcessingException e) {
+            addError(output, "Malformed command: " + e.getOriginalMessage());
+            return 0;
+        }
+        return apply(commandInput, output);
+    }
+
+    /**
+     * Executes a single command. A command the server cannot handle is answered by an
+     * error, so that it does not end the session and lose the replies of its batch.
+     *
+     * @param commandInput the command
+     * @param output       receives the outputs of the command, or the error
+     * @return the sequence number of the journal record, or 0 if none was written
+     */
+    private long apply(final CommandInput commandInput, final ArrayNode output) {
+        try {
+            return server.apply(commandInput, output);
+        } catch (RuntimeException e) {
+            addError(output, "Cannot execute command: " + e);
+            return 0;
+        }
+    }
+
+    /**
+     * Adds the error answering a request that cannot be read or executed.
+     *
+     * @param output  the outputs of the request
+     * @param message the error message
+     */
+    private static void addError(final ArrayNode output, final String message) {
+        ObjectNode error = output.addObject();
+        error.put("status", "error");
+        error.put("message", message);
+    }
+}
@@ -0,0 +1,284 @@
+package org.poo.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.poo.metrics.CommandMetrics;
+import org.poo.metrics.LatencyHistogram;
+import org.poo.storage.AccountTable;
+import org.poo.storage.BankIndex;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Embedded HTTP endpoint serving the live counters of a {@link BankServer} in the
+ * Prometheus text format, on {@code GET /metrics}. Every scrape renders the counters
+ * afresh: the commands run per type and outcome with their total duration, the number
+ * of users, accounts, cards and transactions, the commands and journal records waiting,
+ * and the heap usage.
+ *
+ * <p>The heap figures come from the memory MXBeans and never trigger a collection:
+ * {@code bank_heap_used_bytes} includes garbage not yet collected, while
+ * {@code bank_heap_live_after_gc_bytes} is what the heap pools held right after their
+ * latest collection, the closer estimate of the live data.
+ */
+public final class MetricsEndpoint implements AutoCloseable {
+
+    /**
+     * Content type of the Prometheus text exposition format.
+     */
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    /**
+     * Status code of a successful scrape.
+     */
+    private static final int OK = 200;
+
+    /**
+     * Status code of a request with another method than GET or HEAD.
+     */
+    private static final int METHOD_NOT_ALLOWED = 405;
+
+    /**
+     * Nanoseconds per second, the time unit of the exposed durations.
+     */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * The server whose counters are exposed.
+     */
+    private final BankServer server;
+
+    /**
+     * The HTTP server answering the scrapes.
+     */
+    private final HttpServer http;
+
+    /**
+     * Starts serving the counters of a server.
+     *
+     * @param server  the server whose counters are exposed
+     * @param address the address to listen on, port 0 for any free port
+     * @throws IOException if the address cannot be bound
+     */
+    public MetricsEndpoint(final BankServer server, final InetSocketAddress address)
+            throws IOException {
+        this.server = server;
+        this.http = HttpServer.create(address, 0);
+        http.createContext("/metrics", this::handle);
+        http.start();
+    }
+
+    /**
+     * Returns the port the endpoint listens on.
+     *
+     * @return the bound port
+     */
+    public int getPort() {
+        return http.getAddress().getPort();
+    }
+
+    /**
+     * Answers a scrape.
+     *
+     * @param exchange the request and its response
+     * @throws IOException if the response cannot be sent
+     */
+    private void handle(final HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            boolean head = "HEAD".equals(method);
+            if (!head && !"GET".equals(method)) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(METHOD_NOT_ALLOWED, -1);
+                return;
+            }
+            byte[] body = render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(OK, head ? -1 : body.length);
+            if (!head) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        }
+    }
+
+    /**
+     * Renders the current value of every counter.
+     *
+     * @return the counters, in the Prometheus text format
+     */
+    public String render() {
+        StringBuilder out = new StringBuilder();
+        Map<String, CommandMetrics.TypeMetrics> types = server.getCommandMetrics().types();
+
+        header(out, "bank_commands_total", "counter", "Commands executed, by outcome");
+        for (CommandMetrics.TypeMetrics type : types.values()) {
+            sample(out, "bank_commands_total", type.getName(), CommandMetrics.SUCCESS,
+                    type.getSuccesses().count());
+            for (Map.Entry<String, LatencyHistogram> failure : type.getFailures().entrySet()) {
+                sample(out, "bank_commands_total", type.getName(), failure.getKey(),
+                        failure.getValue().count());
+            }
+        }
+
+        header(out, "bank_command_errors_total", "counter", "Commands that failed");
+        for (CommandMetrics.TypeMetrics type : types.values()) {
+            long errors = 0;
+            for (LatencyHistogram failure : type.getFailures().values()) {
+                errors += failure.count();
+            }
+            sample(out, "bank_command_errors_total", type.getName(), null, errors);
+        }
+
+        header(out, "bank_command_duration_seconds", "summary",
+                "Time spent executing commands");
+        for (CommandMetrics.TypeMetrics type : types.values()) {
+            long nanos = type.getSuccesses().sum();
+            for (LatencyHistogram failure : type.getFailures().values()) {
+                nanos += failure.sum();
+            }
+            sample(out, "bank_command_duration_seconds_sum", type.getName(), null,
+                    nanos / NANOS_PER_SECOND);
+            sample(out, "bank_command_duration_seconds_count", type.getName(), null,
+                    type.count());
+        }
+
+        if (server.getCommandMetrics().isAllocationTracking()) {
+            header(out, "bank_command_allocated_bytes_total", "counter",
+                    "Bytes allocated while executing commands");
+            for (CommandMetrics.TypeMetrics type : types.values()) {
+                sample(out, "bank_command_allocated_bytes_total", type.getName(), null,
+                        type.getAllocations().sum());
+            }
+        }
+
+        BankIndex index = BankIndex.current();
+        gauge(out, "bank_users", "Users registered", index.userCount());
+        gauge(out, "bank_accounts", "Accounts open", index.accountCount());
+        gauge(out, "bank_cards", "Cards issued", index.cardCount());
+
+        long[] transactions = server.countTransactions();
+        header(out, "bank_transactions", "gauge",
+                "Transactions stored, in memory or in archive segments");
+        out.append("bank_transactions{tier=\"memory\"} ").append(transactions[0]).append('\n');
+        out.append("bank_transactions{tier=\"archived\"} ").append(transactions[1])
+                .append('\n');
+
+        gauge(out, "bank_state_lock_waiting_threads", "Commands waiting for the bank state",
+                server.getWaitingCommands());
+        gauge(out, "bank_journal_pending_records", "Journal records waiting to be synced",
+                server.getPendingJournalRecords());
+
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        long liveAfterGc = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage collected = pool.getCollectionUsage();
+            if (pool.getType() == MemoryType.HEAP && collected != null) {
+                liveAfterGc += collected.getUsed();
+            }
+        }
+        gauge(out, "bank_heap_used_bytes", "Heap in use, garbage included", heap.getUsed());
+        gauge(out, "bank_heap_committed_bytes", "Heap committed by the JVM",
+                heap.getCommitted());
+        gauge(out, "bank_heap_live_after_gc_bytes",
+                "Heap in use right after the latest collection of every pool", liveAfterGc);
+        gauge(out, "bank_account_table_bytes", "Off-heap memory reserved for account rows",
+                AccountTable.current().reservedBytes());
+        return out.toString();
+    }
+
+    /**
+     * Appends the help and type lines of a metric.
+     *
+     * @param out  the exposition
+     * @param name the metric name
+     * @param type the metric type
+     * @param help the description
+     */
+    private static void header(final StringBuilder out, final String name, final String type,
+                               final String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * Appends an unlabelled gauge.
+     *
+     * @param out   the exposition
+     * @param name  the metric name
+     * @param help  the description
+     * @param value the value
+     */
+    private static void gauge(final StringBuilder out, final String name, final String help,
+                              final double value) {
+        header(out, name, "gauge", help);
+        out.append(name).append(' ').append(format(value)).append('\n');
+    }
+
+    /**
+     * Appends a sample labelled with a command and, optionally, an outcome.
+     *
+     * @param out     the exposition
+     * @param name    the sample name
+     * @param command the command type
+     * @param outcome the outcome, null for none
+     * @param value   the value
+     */
+    private static void sample(final StringBuilder out, final String name,
+                               final String command, final String outcome,
+                               final double value) {
+        out.append(name).append("{command=\"");
+        escape(out, command);
+        if (outcome != null) {
+            out.append("\",outcome=\"");
+            escape(out, outcome);
+        }
+        out.append("\"} ").append(format(value)).append('\n');
+    }
+
+    /**
+     * Formats a sample value, without a fraction when it is whole.
+     *
+     * @param value the value
+     * @return the text of the value
+     */
+    private static String format(final double value) {
+        long whole = (long) value;
+        return whole == value ? Long.toString(whole) : Double.toString(value);
+    }
+
+    /**
+     * Appends a label value, escaping backslashes, quotes and line breaks.
+     *
+     * @param out   the exposition
+     * @param value the label value
+     */
+    private static void escape(final StringBuilder out, final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '"' -> out.append("\\\"");
+                case '\n' -> out.append("\\n");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    /**
+     * Stops serving the counters.
+     */
+    @Override
+    public void close() {
+        http.stop(0);
+    }
+}
@@ -0,0 +1,334 @@
+package org.poo.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Off-heap storage of the scalar account columns. Every account owns a fixed-width row,
+ * addressed by an int handle, holding its balance, minimum balance and the dictionary ids
+ * of its plan, currency and type. Rows live in direct buffers allocated in chunks,
+ * so millions of accounts add no objects for the collector to trace and the balance
+ * updates of the hot path allocate nothing.
+ *
+ * <p>Freed rows are reused by later allocations; freeing a row twice is refused. Like the
+ * entities, the table is not thread-safe.
+ */
+public final class AccountTable {
+
+    /**
+     * Size of a row in bytes, padded to keep the balances of every row aligned.
+     */
+    private static final int ROW_SIZE = 32;
+
+    /**
+     * Offset of the balance column.
+     */
+    private static final int BALANCE = 0;
+
+    /**
+     * Offset of the minimum balance column.
+     */
+    private static final int MINIMUM_BALANCE = 8;
+
+    /**
+     * Offset of the plan id column.
+     */
+    private static final int PLAN = 16;
+
+    /**
+     * Offset of the currency id column.
+     */
+    private static final int CURRENCY = 20;
+
+    /**
+     * Offset of the type id column.
+     */
+    private static final int TYPE = 24;
+
+    /**
+     * Number of bits of a handle addressing a row inside its chunk.
+     */
+    private static final int CHUNK_BITS = 16;
+
+    /**
+     * Number of rows in a chunk.
+     */
+    private static final int CHUNK_ROWS = 1 << CHUNK_BITS;
+
+    /**
+     * Mask selecting the row of a handle inside its chunk.
+     */
+    private static final int CHUNK_MASK = CHUNK_ROWS - 1;
+
+    /**
+     * Initial capacity of the free row stack.
+     */
+    private static final int MIN_FREE_CAPACITY = 16;
+
+    /**
+     * Plan id marking a freed row.
+     */
+    private static final int FREED = -2;
+
+    /**
+     * Plan every new account starts on.
+     */
+    private static final String DEFAULT_PLAN = "standard";
+
+    /**
+     * The table used by new accounts.
+     */
+    private static volatile AccountTable current = new AccountTable();
+
+    /**
+     * The row chunks.
+     */
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+
+    /**
+     * The plan names.
+     */
+    private final StringDictionary plans = new StringDictionary();
+
+    /**
+     * The currency codes.
+     */
+    private final StringDictionary currencies = new StringDictionary();
+
+    /**
+     * The account types.
+     */
+    private final StringDictionary types = new StringDictionary();
+
+    /**
+     * Handles of the freed rows, used as a stack.
+     */
+    private int[] freeRows = new int[0];
+
+    /**
+     * Number of entries in {@link #freeRows}.
+     */
+    private int freeCount;
+
+    /**
+     * Number of rows ever handed out.
+     */
+    private int rowCount;
+
+    /**
+     * Returns the table used by new accounts.
+     *
+     * @return the current table
+     */
+    public static AccountTable current() {
+        return current;
+    }
+
+    /**
+     * Starts a new, empty table for the accounts created from now on. Accounts created
+     * before keep using the table they were created in.
+     */
+    public static void reset() {
+        current = new AccountTable();
+    }
+
+    /**
+     * Allocates a row with a zero balance and minimum balance, the default plan and no
+     * currency or type.
+     *
+     * @return the handle of the row
+     */
+    public int allocate() {
+        int handle;
+        if (freeCount > 0) {
+            handle = freeRows[--freeCount];
+        } else {
+            if ((rowCount & CHUNK_MASK) == 0) {
+                chunks.add(ByteBuffer.allocateDirect(CHUNK_ROWS * ROW_SIZE)
+                        .order(ByteOrder.nativeOrder()));
+            }
+            handle = rowCount++;
+        }
+
+        ByteBuffer chunk = chunk(handle);
+        int row = offset(handle);
+        chunk.putDouble(row + BALANCE, 0.0);
+        chunk.putDouble(row + MINIMUM_BALANCE, 0.0);
+        chunk.putInt(row + PLAN, plans.idOf(DEFAULT_PLAN));
+        chunk.putInt(row + CURRENCY, StringDictionary.NONE);
+        chunk.putInt(row + TYPE, StringDictionary.NONE);
+        return handle;
+    }
+
+    /**
+     * Releases a row for reuse. The handle must not be used afterwards.
+     *
+     * @param handle the handle of the row
+     * @throws IllegalStateException if the row is already free
+     */
+    public void free(final int handle) {
+        ByteBuffer chunk = chunk(handle);
+        int row = offset(handle);
+        if (chunk.getInt(row + PLAN) == FREED) {
+            throw new IllegalStateException("Account row " + handle + " freed twice");
+        }
+        chunk.putInt(row + PLAN, FREED);
+        if (freeCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, Math.max(MIN_FREE_CAPACITY, freeCount * 2));
+        }
+        freeRows[freeCount++] = handle;
+    }
+
+    /**
+     * Returns the balance of a row.
+     *
+     * @param handle the handle of the row
+     * @return the balance
+     */
+    public double getBalance(final int handle) {
+        return chunk(handle).getDouble(offset(handle) + BALANCE);
+    }
+
+    /**
+     * Sets the balance of a row.
+     *
+     * @param handle  the handle of the row
+     * @param balance the balance
+     */
+    public void setBalance(final int handle, final double balance) {
+        chunk(handle).putDouble(offset(handle) + BALANCE, balance);
+    }
+
+    /**
+     * Adds an amount to the balance of a row.
+     *
+     * @param handle the handle of the row
+     * @param amount the amount, negative to withdraw
+     */
+    public void addToBalance(final int handle, final double amount) {
+        ByteBuffer chunk = chunk(handle);
+        int column = offset(handle) + BALANCE;
+        chunk.putDouble(column, chunk.getDouble(column) + amount);
+    }
+
+    /**
+     * Returns the minimum balance of a row.
+     *
+     * @param handle the handle of the row
+     * @return the minimum balance
+     */
+    public double getMinimumBalance(final int handle) {
+        return chunk(handle).getDouble(offset(handle) + MINIMUM_BALANCE);
+    }
+
+    /**
+     * Sets the minimum balance of a row.
+     *
+     * @param handle         the handle of the row
+     * @param minimumBalance the minimum balance
+     */
+    public void setMinimumBalance(final int handle, final double minimumBalance) {
+        chunk(handle).putDouble(offset(handle) + MINIMUM_BALANCE, minimumBalance);
+    }
+
+    /**
+     * Returns the plan of a row.
+     *
+     * @param handle the handle of the row
+     * @return the plan name
+     */
+    public String getPlan(final int handle) {
+        return plans.valueOf(chunk(handle).getInt(offset(handle) + PLAN));
+    }
+
+    /**
+     * Sets the plan of a row.
+     *
+     * @param handle the handle of the row
+     * @param plan   the plan name, may be null
+     */
+    public void setPlan(final int handle, final String plan) {
+        chunk(handle).putInt(offset(handle) + PLAN, plans.idOf(plan));
+    }
+
+    /**
+     * Returns the currency of a row.
+     *
+     * @param handle the handle of the row
+     * @return the currency code
+     */
+    public String getCurrency(final int handle) {
+        return currencies.valueOf(chunk(handle).getInt(offset(handle) + CURRENCY));
+    }
+
+    /**
+     * Sets the currency of a row.
+     *
+     * @param handle   the handle of the row
+     * @param currency the currency code, may be null
+     */
+    public void setCurrency(final int handle, final String currency) {
+        chunk(handle).putInt(offset(handle) + CURRENCY, currencies.idOf(currency));
+    }
+
+    /**
+     * Returns the type of a row.
+     *
+     * @param handle the handle of the row
+     * @return the account type
+     */
+    public String getType(final int handle) {
+        return types.valueOf(chunk(handle).getInt(offset(handle) + TYPE));
+    }
+
+    /**
+     * Sets the type of a row.
+     *
+     * @param handle the handle of the row
+     * @param type   the account type, may be null
+     */
+    public void setType(final int handle, final String type) {
+        chunk(handle).putInt(offset(handle) + TYPE, types.idOf(type));
+    }
+
+    /**
+     * Returns the number of rows in use.
+     *
+     * @return the number of live accounts
+     */
+    public int size() {
+        return rowCount - freeCount;
+    }
+
+    /**
+     * Returns the off-heap memory reserved for the rows.
+     *
+     * @return the size of the chunks in bytes
+     */
+    public long reservedBytes() {
+        return (long) chunks.size() * CHUNK_ROWS * ROW_SIZE;
+    }
+
+    /**
+     * Returns the chunk holding a row.
+     *
+     * @param handle the handle of the row
+     * @return the chunk
+     */
+    private ByteBuffer chunk(final int handle) {
+        return chunks.get(handle >>> CHUNK_BITS);
+    }
+
+    /**
+     * Returns the byte offset of a row inside its chunk.
+     *
+     * @param handle the handle of the row
+     * @return the offset
+     */
+    private static int offset(final int handle) {
+        return (handle & CHUNK_MASK) * ROW_SIZE;
+    }
+}
@@ -0,0 +1,305 @@
+package org.poo.storage;
+
+import org.poo.entities.Account;
+import org.poo.entities.Card;
+import org.poo.entities.User;
+import org.poo.metrics.LookupEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds users, accounts and cards by key instead of scanning every user. Emails map to
+ * user handles through a {@link StringIntMap}; IBANs and card numbers map to the
+ * {@link AccountTable} handle of the account they belong to through
+ * {@link IdentifierMap}s keyed by their packed codes.
+ *
+ * <p>The index is process-wide, like the identifier generators, and is kept up to date by
+ * the entities: users are registered when the bank state is built, accounts when they are
+ * added to a user, cards when they are added to an account, and both are dropped again on
+ * deletion. A new bank state starts with {@link #reset()}, which also starts a new
+ * {@link AccountTable} so that account handles stay unique.
+ *
+ * <p>Lookups of unknown IBANs and card numbers are mostly answered by the Bloom filters
+ * of the identifier maps, whose statistics are exposed through {@link #ibanFilter()} and
+ * {@link #cardFilter()}.
+ */
+public final class BankIndex {
+
+    /**
+     * Marks an account handle without a registered owner.
+     */
+    private static final int NO_OWNER = -1;
+
+    /**
+     * Initial capacity of the handle-indexed arrays.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The index in use.
+     */
+    private static volatile BankIndex current = new BankIndex();
+
+    /**
+     * User handles by email.
+     */
+    private final StringIntMap emails = new StringIntMap();
+
+    /**
+     * Account handles by IBAN.
+     */
+    private final IdentifierMap ibans = new IdentifierMap(IdentifierCodes::packIban);
+
+    /**
+     * Account handles by card number.
+     */
+    private final IdentifierMap cards = new IdentifierMap(IdentifierCodes::packCard);
+
+    /**
+     * The registered users, indexed by user handle.
+     */
+    private final List<User> users = new ArrayList<>();
+
+    /**
+     * The registered accounts, indexed by account handle.
+     */
+    private Account[] accounts = new Account[INITIAL_CAPACITY];
+
+    /**
+     * The user handle owning every account, indexed by account handle.
+     */
+    private int[] owners = new int[INITIAL_CAPACITY];
+
+    /**
+     * Returns the index in use.
+     *
+     * @return the current index
+     */
+    public static BankIndex current() {
+        return current;
+    }
+
+    /**
+     * Starts an empty index and account table for a new bank state.
+     */
+    public static void reset() {
+        AccountTable.reset();
+        current = new BankIndex();
+    }
+
+    /**
+     * Registers a user under its email. Like a scan of the user list, lookups find the
+     * first user registered with an email.
+     *
+     * @param user the user
+     */
+    public void addUser(final User user) {
+        if (user.getEmail() != null && !emails.containsKey(user.getEmail())) {
+            emails.put(user.getEmail(), users.size());
+        }
+        users.add(user);
+    }
+
+    /**
+     * Registers an account added to a user, together with the cards it already holds.
+     *
+     * @param user    the owner
+     * @param account the account
+     */
+    public void addAccount(final User user, final Account account) {
+        int handle = account.getHandle();
+        if (handle >= accounts.length) {
+            int capacity = Math.max(handle + 1, accounts.length * 2);
+            accounts = Arrays.copyOf(accounts, capacity);
+            owners = Arrays.copyOf(owners, capacity);
+        }
+        accounts[handle] = account;
+        owners[handle] = user.getEmail() == null ? NO_OWNER : emails.get(user.getEmail());
+        if (account.getIban() != null) {
+            ibans.put(account.getIban(), handle);
+        }
+        for (Card card : account.getCards()) {
+            addCard(account, card);
+        }
+    }
+
+    /**
+     * Drops a deleted account and its cards.
+     *
+     * @param account the account
+     */
+    public void removeAccount(final Account account) {
+        if (ibans.get(account.getIban()) == account.getHandle()) {
+            ibans.remove(account.getIban());
+        }
+        for (Card card : account.getCards()) {
+            removeCard(account, card);
+        }
+        if (account.getHandle() < accounts.length && accounts[account.getHandle()] == account) {
+            accounts[account.getHandle()] = null;
+        }
+    }
+
+    /**
+     * Registers a card added to an account.
+     *
+     * @param account the account holding the card
+     * @param card    the card
+     */
+    public void addCard(final Account account, final Card card) {
+        if (card.getCardNumber() != null) {
+            cards.put(card.getCardNumber(), account.getHandle());
+        }
+    }
+
+    /**
+     * Drops a deleted card.
+     *
+     * @param account the account that held the card
+     * @param card    the card
+     */
+    public void removeCard(final Account account, final Card card) {
+        if (cards.get(card.getCardNumber()) == account.getHandle()) {
+            cards.remove(card.getCardNumber());
+        }
+    }
+
+    /**
+     * Finds a user by email.
+     *
+     * @param email the email
+     * @return the user, or null if none has this email
+     */
+    public User findUser(final String email) {
+        LookupEvent event = LookupEvent.beginIfEnabled();
+        int handle = emails.get(email);
+        User user = handle == StringIntMap.NO_VALUE ? null : users.get(handle);
+        commit(event, LookupEvent.USER, email, user != null);
+        return user;
+    }
+
+    /**
+     * Finds an account by IBAN.
+     *
+     * @param iban the IBAN
+     * @return the account, or null if none has this IBAN
+     */
+    public Account findAccount(final String iban) {
+        LookupEvent event = LookupEvent.beginIfEnabled();
+        Account account = account(ibans.get(iban));
+        commit(event, LookupEvent.IBAN, iban, account != null);
+        return account;
+    }
+
+    /**
+     * Finds the account holding a card.
+     *
+     * @param cardNumber the card number
+     * @return the account, or null if no account holds the card
+     */
+    public Account findCardAccount(final String cardNumber) {
+        LookupEvent event = LookupEvent.beginIfEnabled();
+        Account account = account(cards.get(cardNumber));
+        commit(event, LookupEvent.CARD, cardNumber, account != null);
+        return account;
+    }
+
+    /**
+     * Finds the card with a number.
+     *
+     * @param cardNumber the card number
+     * @return the card, or null if no account holds it
+     */
+    public Card findCard(final String cardNumber) {
+        Account account = findCardAccount(cardNumber);
+        return account == null ? null : account.findCard(cardNumber);
+    }
+
+    /**
+     * Finds the owner of an account.
+     *
+     * @param account the account
+     * @return the user owning the account, or null if it is not registered
+     */
+    public User findOwner(final Account account) {
+        int handle = account.getHandle();
+        if (handle >= accounts.length || accounts[handle] != account
+                || owners[handle] == NO_OWNER) {
+            return null;
+        }
+        return users.get(owners[handle]);
+    }
+
+    /**
+     * Returns the number of registered users.
+     *
+     * @return the user count
+     */
+    public int userCount() {
+        return users.size();
+    }
+
+    /**
+     * Returns the number of registered accounts.
+     *
+     * @return the account count
+     */
+    public int accountCount() {
+        return ibans.size();
+    }
+
+    /**
+     * Returns the number of registered cards.
+     *
+     * @return the card count
+     */
+    public int cardCount() {
+        return cards.size();
+    }
+
+    /**
+     * Returns the filter in front of the IBAN lookups.
+     *
+     * @return the IBAN filter
+     */
+    public CountingBloomFilter ibanFilter() {
+        return ibans.filter();
+    }
+
+    /**
+     * Returns the filter in front of the card number lookups.
+     *
+     * @return the card number filter
+     */
+    public CountingBloomFilter cardFilter() {
+        return cards.filter();
+    }
+
+    /**
+     * Commits a lookup event if the running recording wants it.
+     *
+     * @param event the event begun before the lookup, null if the lookup is not recorded
+     * @param kind  what was looked up
+     * @param key   the key looked up
+     * @param found whether the key was found
+     */
+    private static void commit(final LookupEvent event, final String kind, final String key,
+                               final boolean found) {
+        if (event != null && event.shouldCommit()) {
+            event.set(kind, key, found);
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns the account with a handle.
+     *
+     * @param handle the handle, or {@link IdentifierMap#NO_VALUE}
+     * @return the account, or null
+     */
+    private Account account(final int handle) {
+        return handle == IdentifierMap.NO_VALUE ? null : accounts[handle];
+    }
+}
@@ -0,0 +1,280 @@
+package org.poo.storage;
+
+/**
+ * Counting Bloom filter over 64-bit keys: a key that was never added is reported absent
+ * without touching the map it guards, at the cost of occasionally letting an absent key
+ * through. Every key increments {@link #HASHES} four-bit counters packed sixteen to a
+ * long, so keys can also be removed; a counter that saturates stays saturated, which
+ * only costs false positives.
+ *
+ * <p>The filter is sized for an expected number of keys. Once more keys are added the
+ * false-positive rate climbs, and the owner is expected to {@link #clear(int)} it to a
+ * larger size and add its keys again. It also counts its lookups, for
+ * {@link #falsePositiveRate()}.
+ *
+ * <p>Not thread-safe.
+ */
+public final class CountingBloomFilter {
+
+    /**
+     * Number of counters set by every key.
+     */
+    public static final int HASHES = 5;
+
+    /**
+     * Number of counters per expected key, giving a false-positive rate around 1%.
+     */
+    private static final int COUNTERS_PER_KEY = 10;
+
+    /**
+     * Width of a counter, in bits.
+     */
+    private static final int COUNTER_BITS = 4;
+
+    /**
+     * log2 of the number of counters in a long.
+     */
+    private static final int COUNTERS_PER_WORD_SHIFT = 4;
+
+    /**
+     * Mask selecting the counter index within a long.
+     */
+    private static final int COUNTER_INDEX_MASK = (1 << COUNTERS_PER_WORD_SHIFT) - 1;
+
+    /**
+     * Value of a saturated counter.
+     */
+    private static final long COUNTER_MAX = (1L << COUNTER_BITS) - 1;
+
+    /**
+     * Smallest number of counters.
+     */
+    private static final int MIN_COUNTERS = 1 << 10;
+
+    /**
+     * Largest number of counters.
+     */
+    private static final int MAX_COUNTERS = 1 << 30;
+
+    /**
+     * First multiplier of the key mixer (from MurmurHash3).
+     */
+    private static final long MIX_FIRST = 0xFF51AFD7ED558CCDL;
+
+    /**
+     * Second multiplier of the key mixer (from MurmurHash3).
+     */
+    private static final long MIX_SECOND = 0xC4CEB9FE1A85EC53L;
+
+    /**
+     * Shift of the key mixer.
+     */
+    private static final int MIX_SHIFT = 33;
+
+    /**
+     * The counters, sixteen per long.
+     */
+    private long[] words;
+
+    /**
+     * Number of counters minus one.
+     */
+    private int mask;
+
+    /**
+     * Number of keys the filter is sized for.
+     */
+    private int expectedKeys;
+
+    /**
+     * Number of keys added and not removed.
+     */
+    private int size;
+
+    /**
+     * Number of lookups.
+     */
+    private long queries;
+
+    /**
+     * Number of lookups answered as absent.
+     */
+    private long rejections;
+
+    /**
+     * Number of lookups let through for a key the guarded map did not hold.
+     */
+    private long falsePositives;
+
+    /**
+     * Creates an empty filter.
+     *
+     * @param expectedKeys the number of keys to size the filter for
+     */
+    public CountingBloomFilter(final int expectedKeys) {
+        clear(expectedKeys);
+    }
+
+    /**
+     * Removes every key and resizes the filter; the lookup counts are kept.
+     *
+     * @param newExpectedKeys the number of keys to size the filter for
+     */
+    public void clear(final int newExpectedKeys) {
+        long wanted = Math.max(1L, (long) newExpectedKeys * COUNTERS_PER_KEY);
+        int counters = (int) Math.min(MAX_COUNTERS,
+                Math.max(MIN_COUNTERS, Long.highestOneBit(wanted - 1) << 1));
+        words = new long[counters >>> COUNTERS_PER_WORD_SHIFT];
+        mask = counters - 1;
+        expectedKeys = newExpectedKeys;
+        size = 0;
+    }
+
+    /**
+     * Adds a key.
+     *
+     * @param key the key
+     */
+    public void add(final long key) {
+        long hash = mix(key);
+        int first = (int) hash;
+        int step = (int) (hash >>> Integer.SIZE) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            int counter = (first + i * step) & mask;
+            int word = counter >>> COUNTERS_PER_WORD_SHIFT;
+            int shift = (counter & COUNTER_INDEX_MASK) * COUNTER_BITS;
+            if (((words[word] >>> shift) & COUNTER_MAX) != COUNTER_MAX) {
+                words[word] += 1L << shift;
+            }
+        }
+        size++;
+    }
+
+    /**
+     * Removes a key that was added.
+     *
+     * @param key the key
+     */
+    public void remove(final long key) {
+        long hash = mix(key);
+        int first = (int) hash;
+        int step = (int) (hash >>> Integer.SIZE) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            int counter = (first + i * step) & mask;
+            int word = counter >>> COUNTERS_PER_WORD_SHIFT;
+            int shift = (counter & COUNTER_INDEX_MASK) * COUNTER_BITS;
+            long value = (words[word] >>> shift) & COUNTER_MAX;
+            if (value != 0 && value != COUNTER_MAX) {
+                words[word] -= 1L << shift;
+            }
+        }
+        size--;
+    }
+
+    /**
+     * Tells whether a key may have been added, and counts the lookup.
+     *
+     * @param key the key
+     * @return false if the key was certainly not added
+     */
+    public boolean mightContain(final long key) {
+        queries++;
+        long hash = mix(key);
+        int first = (int) hash;
+        int step = (int) (hash >>> Integer.SIZE) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            int counter = (first + i * step) & mask;
+            int shift = (counter & COUNTER_INDEX_MASK) * COUNTER_BITS;
+            if (((words[counter >>> COUNTERS_PER_WORD_SHIFT] >>> shift) & COUNTER_MAX) == 0) {
+                rejections++;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Records that a key let through by {@link #mightContain(long)} was not in the
+     * guarded map.
+     */
+    public void recordFalsePositive() {
+        falsePositives++;
+    }
+
+    /**
+     * Tells whether more keys were added than the filter is sized for.
+     *
+     * @return true if the filter should be cleared to a larger size and refilled
+     */
+    public boolean isOverloaded() {
+        return size > expectedKeys;
+    }
+
+    /**
+     * Returns the number of keys added and not removed.
+     *
+     * @return the key count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of lookups.
+     *
+     * @return the query count
+     */
+    public long queries() {
+        return queries;
+    }
+
+    /**
+     * Returns the number of lookups answered as absent.
+     *
+     * @return the rejection count
+     */
+    public long rejections() {
+        return rejections;
+    }
+
+    /**
+     * Returns the number of absent keys that were let through.
+     *
+     * @return the false-positive count
+     */
+    public long falsePositives() {
+        return falsePositives;
+    }
+
+    /**
+     * Returns the share of lookups for absent keys that were let through.
+     *
+     * @return the observed false-positive rate, 0 before any absent key was looked up
+     */
+    public double falsePositiveRate() {
+        long absent = rejections + falsePositives;
+        return absent == 0 ? 0 : (double) falsePositives / absent;
+    }
+
+    /**
+     * Returns the memory used by the counters.
+     *
+     * @return the size in bytes
+     */
+    public long sizeInBytes() {
+        return (long) words.length * Long.BYTES;
+    }
+
+    /**
+     * Scrambles a key so that nearby keys set unrelated counters.
+     *
+     * @param key the key
+     * @return the mixed 64 bits
+     */
+    private static long mix(final long key) {
+        long h = key;
+        h = (h ^ (h >>> MIX_SHIFT)) * MIX_FIRST;
+        h = (h ^ (h >>> MIX_SHIFT)) * MIX_SECOND;
+        return h ^ (h >>> MIX_SHIFT);
+    }
+}
@@ -0,0 +1,172 @@
+package org.poo.storage;
+
+/**
+ * Packs the identifiers the bank hands out into a single long. A card number is 16 digits
+ * and packs to its numeric value; an IBAN is {@code "RO"}, 2 digits, {@code "POOB"} and 16
+ * digits, and packs its 18 digits. Codes are non-negative, so {@link #NONE} marks a null
+ * or foreign identifier, which callers keep as a string instead.
+ *
+ * <p>Codes compare and hash as plain longs, and are rendered back to the exact original
+ * string only when needed.
+ */
+public final class IdentifierCodes {
+
+    /**
+     * Code of a null identifier, or of one that does not have the packed shape.
+     */
+    public static final long NONE = -1L;
+
+    /**
+     * Number of digits of a card number.
+     */
+    private static final int CARD_DIGITS = 16;
+
+    /**
+     * Country prefix of the IBANs.
+     */
+    private static final String IBAN_COUNTRY = "RO";
+
+    /**
+     * Bank code of the IBANs.
+     */
+    private static final String IBAN_BANK = "POOB";
+
+    /**
+     * Number of check digits following the country prefix.
+     */
+    private static final int IBAN_CHECK_DIGITS = 2;
+
+    /**
+     * Offset of the bank code in an IBAN.
+     */
+    private static final int IBAN_BANK_OFFSET = IBAN_COUNTRY.length() + IBAN_CHECK_DIGITS;
+
+    /**
+     * Offset of the account digits in an IBAN.
+     */
+    private static final int IBAN_ACCOUNT_OFFSET = IBAN_BANK_OFFSET + IBAN_BANK.length();
+
+    /**
+     * Length of an IBAN.
+     */
+    private static final int IBAN_LENGTH = IBAN_ACCOUNT_OFFSET + CARD_DIGITS;
+
+    /**
+     * Value of the check digits in an IBAN code.
+     */
+    private static final long CHECK_DIGITS_WEIGHT = 10_000_000_000_000_000L;
+
+    /**
+     * Radix of the digits.
+     */
+    private static final int RADIX = 10;
+
+    /**
+     * Private constructor to prevent instantiation of the utility class.
+     */
+    private IdentifierCodes() {
+    }
+
+    /**
+     * Packs a card number.
+     *
+     * @param cardNumber the card number, may be null
+     * @return the code, or {@link #NONE} if the number is null or not 16 digits
+     */
+    public static long packCard(final String cardNumber) {
+        if (cardNumber == null || cardNumber.length() != CARD_DIGITS) {
+            return NONE;
+        }
+        return digits(cardNumber, 0, CARD_DIGITS);
+    }
+
+    /**
+     * Renders a card code.
+     *
+     * @param code the code
+     * @return the card number, or null for {@link #NONE}
+     */
+    public static String cardToString(final long code) {
+        if (code == NONE) {
+            return null;
+        }
+        char[] chars = new char[CARD_DIGITS];
+        putDigits(chars, 0, CARD_DIGITS, code);
+        return new String(chars);
+    }
+
+    /**
+     * Packs an IBAN.
+     *
+     * @param iban the IBAN, may be null
+     * @return the code, or {@link #NONE} if the IBAN is null or not shaped like ours
+     */
+    public static long packIban(final String iban) {
+        if (iban == null || iban.length() != IBAN_LENGTH
+                || !iban.startsWith(IBAN_COUNTRY)
+                || !iban.startsWith(IBAN_BANK, IBAN_BANK_OFFSET)) {
+            return NONE;
+        }
+        long check = digits(iban, IBAN_COUNTRY.length(), IBAN_CHECK_DIGITS);
+        long account = digits(iban, IBAN_ACCOUNT_OFFSET, CARD_DIGITS);
+        if (check == NONE || account == NONE) {
+            return NONE;
+        }
+        return check * CHECK_DIGITS_WEIGHT + account;
+    }
+
+    /**
+     * Renders an IBAN code.
+     *
+     * @param code the code
+     * @return the IBAN, or null for {@link #NONE}
+     */
+    public static String ibanToString(final long code) {
+        if (code == NONE) {
+            return null;
+        }
+        char[] chars = new char[IBAN_LENGTH];
+        IBAN_COUNTRY.getChars(0, IBAN_COUNTRY.length(), chars, 0);
+        putDigits(chars, IBAN_COUNTRY.length(), IBAN_CHECK_DIGITS, code / CHECK_DIGITS_WEIGHT);
+        IBAN_BANK.getChars(0, IBAN_BANK.length(), chars, IBAN_BANK_OFFSET);
+        putDigits(chars, IBAN_ACCOUNT_OFFSET, CARD_DIGITS, code % CHECK_DIGITS_WEIGHT);
+        return new String(chars);
+    }
+
+    /**
+     * Parses a run of decimal digits.
+     *
+     * @param value  the string
+     * @param offset the start of the run
+     * @param count  the number of digits
+     * @return the value, or {@link #NONE} if a character is not a digit
+     */
+    private static long digits(final String value, final int offset, final int count) {
+        long result = 0;
+        for (int i = offset; i < offset + count; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return NONE;
+            }
+            result = result * RADIX + (c - '0');
+        }
+        return result;
+    }
+
+    /**
+     * Writes a value as a zero-padded run of decimal digits.
+     *
+     * @param chars  the destination
+     * @param offset the start of the run
+     * @param count  the number of digits
+     * @param value  the value, below 10 to the power of {@code count}
+     */
+    private static void putDigits(final char[] chars, final int offset, final int count,
+                                  final long value) {
+        long rest = value;
+        for (int i = offset + count - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + rest % RADIX);
+            rest /= RADIX;
+        }
+    }
+}
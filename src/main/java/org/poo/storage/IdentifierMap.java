@@ -0,0 +1,159 @@
+package org.poo.storage;
+
+import java.util.function.ToLongFunction;
+
+/**
+ * Map from IBANs or card numbers to int handles. Identifiers with the shape the bank
+ * hands out are keyed by their {@link IdentifierCodes} code in a {@link LongIntMap};
+ * anything else falls back to a {@link StringIntMap}.
+ *
+ * <p>A {@link CountingBloomFilter} over the identifiers answers most lookups of unknown
+ * identifiers before either map is probed. It is refilled at twice the size whenever the
+ * map outgrows it.
+ */
+public final class IdentifierMap {
+
+    /**
+     * Value returned for a missing identifier.
+     */
+    public static final int NO_VALUE = -1;
+
+    /**
+     * Number of identifiers the filter is first sized for.
+     */
+    private static final int INITIAL_FILTER_KEYS = 1024;
+
+    /**
+     * Packs an identifier into its code.
+     */
+    private final ToLongFunction<String> packer;
+
+    /**
+     * Handles of the packed identifiers.
+     */
+    private final LongIntMap packed = new LongIntMap();
+
+    /**
+     * Handles of the identifiers that do not pack.
+     */
+    private final StringIntMap other = new StringIntMap();
+
+    /**
+     * Identifiers of both maps, consulted before them.
+     */
+    private final CountingBloomFilter filter = new CountingBloomFilter(INITIAL_FILTER_KEYS);
+
+    /**
+     * Creates an empty map.
+     *
+     * @param packer packs an identifier, returning {@link IdentifierCodes#NONE} when it
+     *               does not have the packed shape
+     */
+    public IdentifierMap(final ToLongFunction<String> packer) {
+        this.packer = packer;
+    }
+
+    /**
+     * Returns the handle of an identifier.
+     *
+     * @param identifier the identifier, may be null
+     * @return the handle, or {@link #NO_VALUE}
+     */
+    public int get(final String identifier) {
+        if (identifier == null) {
+            return NO_VALUE;
+        }
+        long code = packer.applyAsLong(identifier);
+        if (!filter.mightContain(filterKey(code, identifier))) {
+            return NO_VALUE;
+        }
+        int handle = code == IdentifierCodes.NONE ? other.get(identifier) : packed.get(code);
+        if (handle == NO_VALUE) {
+            filter.recordFalsePositive();
+        }
+        return handle;
+    }
+
+    /**
+     * Associates a handle with an identifier.
+     *
+     * @param identifier the identifier
+     * @param handle     the handle, non-negative
+     * @return the previous handle, or {@link #NO_VALUE}
+     */
+    public int put(final String identifier, final int handle) {
+        long code = packer.applyAsLong(identifier);
+        int previous = code == IdentifierCodes.NONE
+                ? other.put(identifier, handle) : packed.put(code, handle);
+        if (previous == NO_VALUE) {
+            filter.add(filterKey(code, identifier));
+            if (filter.isOverloaded()) {
+                refill();
+            }
+        }
+        return previous;
+    }
+
+    /**
+     * Removes an identifier.
+     *
+     * @param identifier the identifier, may be null
+     * @return the removed handle, or {@link #NO_VALUE}
+     */
+    public int remove(final String identifier) {
+        if (identifier == null) {
+            return NO_VALUE;
+        }
+        long code = packer.applyAsLong(identifier);
+        int removed = code == IdentifierCodes.NONE
+                ? other.remove(identifier) : packed.remove(code);
+        if (removed != NO_VALUE) {
+            filter.remove(filterKey(code, identifier));
+        }
+        return removed;
+    }
+
+    /**
+     * Returns the number of identifiers.
+     *
+     * @return the size of the map
+     */
+    public int size() {
+        return packed.size() + other.size();
+    }
+
+    /**
+     * Returns the filter in front of the maps, for its statistics.
+     *
+     * @return the filter
+     */
+    public CountingBloomFilter filter() {
+        return filter;
+    }
+
+    /**
+     * Returns the key of an identifier in the filter: its code, or for an identifier that
+     * does not pack, its hash and length with the sign bit set, out of the range of the
+     * codes.
+     *
+     * @param code       the code of the identifier
+     * @param identifier the identifier
+     * @return the filter key
+     */
+    private static long filterKey(final long code, final String identifier) {
+        if (code != IdentifierCodes.NONE) {
+            return code;
+        }
+        return Long.MIN_VALUE | ((long) identifier.hashCode() << Integer.SIZE)
+                | identifier.length();
+    }
+
+    /**
+     * Clears the filter to twice the current number of identifiers and adds them again.
+     */
+    private void refill() {
+        filter.clear(size() * 2);
+        packed.forEachKey(filter::add);
+        other.forEachKey(identifier -> filter.add(filterKey(IdentifierCodes.NONE, identifier)));
+    }
+}
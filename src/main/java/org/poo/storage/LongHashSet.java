@@ -0,0 +1,146 @@
+package org.poo.storage;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing set of non-negative longs in one flat array probed linearly: eight
+ * bytes per slot and no entry objects.
+ *
+ * <p>Not thread-safe.
+ */
+public final class LongHashSet {
+
+    /**
+     * Marks an empty slot.
+     */
+    private static final long EMPTY = -1L;
+
+    /**
+     * Smallest capacity of the table.
+     */
+    private static final int MIN_CAPACITY = 16;
+
+    /**
+     * Numerator of the maximum load factor.
+     */
+    private static final int LOAD_NUMERATOR = 3;
+
+    /**
+     * Denominator of the maximum load factor.
+     */
+    private static final int LOAD_DENOMINATOR = 4;
+
+    /**
+     * Multiplier spreading the values over the table (the 64-bit golden ratio).
+     */
+    private static final long SPREAD = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The values; {@link #EMPTY} for a free slot.
+     */
+    private long[] slots = newSlots(MIN_CAPACITY);
+
+    /**
+     * Number of values.
+     */
+    private int size;
+
+    /**
+     * Adds a value.
+     *
+     * @param value the value, non-negative
+     * @return true if the value was not in the set
+     */
+    public boolean add(final long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value: " + value);
+        }
+        int mask = slots.length - 1;
+        int slot = slot(value, mask);
+        for (long candidate = slots[slot]; candidate != EMPTY; candidate = slots[slot]) {
+            if (candidate == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = value;
+        size++;
+        if (size * LOAD_DENOMINATOR > slots.length * LOAD_NUMERATOR) {
+            grow();
+        }
+        return true;
+    }
+
+    /**
+     * Tells whether a value is in the set.
+     *
+     * @param value the value
+     * @return true if the set holds the value
+     */
+    public boolean contains(final long value) {
+        if (value < 0) {
+            return false;
+        }
+        int mask = slots.length - 1;
+        for (int slot = slot(value, mask);; slot = (slot + 1) & mask) {
+            long candidate = slots[slot];
+            if (candidate == value) {
+                return true;
+            }
+            if (candidate == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of values.
+     *
+     * @return the size of the set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the first slot probed for a value.
+     *
+     * @param value the value
+     * @param mask  the table size minus one
+     * @return the slot
+     */
+    private static int slot(final long value, final int mask) {
+        return (int) ((value * SPREAD) >>> 32) & mask;
+    }
+
+    /**
+     * Allocates an empty table.
+     *
+     * @param capacity the number of slots
+     * @return the table
+     */
+    private static long[] newSlots(final int capacity) {
+        long[] table = new long[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+
+    /**
+     * Doubles the table.
+     */
+    private void grow() {
+        long[] old = slots;
+        slots = newSlots(old.length * 2);
+        int mask = slots.length - 1;
+        for (long value : old) {
+            if (value == EMPTY) {
+                continue;
+            }
+            int slot = slot(value, mask);
+            while (slots[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = value;
+        }
+    }
+}
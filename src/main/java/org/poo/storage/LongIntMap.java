@@ -0,0 +1,250 @@
+package org.poo.storage;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Open-addressing hash map from non-negative longs to non-negative ints, over two flat
+ * arrays probed linearly. Removed keys leave a tombstone until the next resize.
+ *
+ * <p>Not thread-safe.
+ */
+public final class LongIntMap {
+
+    /**
+     * Value returned for a missing key.
+     */
+    public static final int NO_VALUE = -1;
+
+    /**
+     * Key of an empty slot.
+     */
+    private static final long EMPTY = -1L;
+
+    /**
+     * Key of a slot whose key was removed.
+     */
+    private static final long TOMBSTONE = -2L;
+
+    /**
+     * Smallest capacity of the table.
+     */
+    private static final int MIN_CAPACITY = 16;
+
+    /**
+     * Numerator of the maximum load factor, counting tombstones.
+     */
+    private static final int LOAD_NUMERATOR = 3;
+
+    /**
+     * Denominator of the maximum load factor.
+     */
+    private static final int LOAD_DENOMINATOR = 4;
+
+    /**
+     * Multiplier spreading the keys over the table (the 64-bit golden ratio).
+     */
+    private static final long SPREAD = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The keys; {@link #EMPTY} or {@link #TOMBSTONE} for a free slot.
+     */
+    private long[] keys;
+
+    /**
+     * The values of the keys.
+     */
+    private int[] values;
+
+    /**
+     * Number of live keys.
+     */
+    private int size;
+
+    /**
+     * Number of tombstones.
+     */
+    private int tombstones;
+
+    /**
+     * Creates an empty map.
+     */
+    public LongIntMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param key the key
+     * @return the value, or {@link #NO_VALUE} if the key is absent
+     */
+    public int get(final long key) {
+        if (key < 0) {
+            return NO_VALUE;
+        }
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask);; slot = (slot + 1) & mask) {
+            long candidate = keys[slot];
+            if (candidate == key) {
+                return values[slot];
+            }
+            if (candidate == EMPTY) {
+                return NO_VALUE;
+            }
+        }
+    }
+
+    /**
+     * Associates a value with a key.
+     *
+     * @param key   the key, non-negative
+     * @param value the value, non-negative
+     * @return the previous value, or {@link #NO_VALUE} if the key was absent
+     */
+    public int put(final long key, final int value) {
+        if (key < 0 || value < 0) {
+            throw new IllegalArgumentException("Negative key or value: " + key + ", " + value);
+        }
+        int mask = keys.length - 1;
+        int reusable = -1;
+        int slot = slot(key, mask);
+        for (;; slot = (slot + 1) & mask) {
+            long candidate = keys[slot];
+            if (candidate == key) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            if (candidate == EMPTY) {
+                break;
+            }
+            if (candidate == TOMBSTONE && reusable < 0) {
+                reusable = slot;
+            }
+        }
+
+        if (reusable >= 0) {
+            slot = reusable;
+            tombstones--;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        if ((size + tombstones) * LOAD_DENOMINATOR > keys.length * LOAD_NUMERATOR) {
+            rehash(capacityFor(size));
+        }
+        return NO_VALUE;
+    }
+
+    /**
+     * Removes a key, leaving a tombstone in its slot.
+     *
+     * @param key the key
+     * @return the removed value, or {@link #NO_VALUE} if the key was absent
+     */
+    public int remove(final long key) {
+        if (key < 0) {
+            return NO_VALUE;
+        }
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask);; slot = (slot + 1) & mask) {
+            long candidate = keys[slot];
+            if (candidate == key) {
+                keys[slot] = TOMBSTONE;
+                size--;
+                tombstones++;
+                return values[slot];
+            }
+            if (candidate == EMPTY) {
+                return NO_VALUE;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of keys.
+     *
+     * @return the size of the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Passes every key to an action, in table order.
+     *
+     * @param action receives the keys
+     */
+    public void forEachKey(final LongConsumer action) {
+        for (long key : keys) {
+            if (key >= 0) {
+                action.accept(key);
+            }
+        }
+    }
+
+    /**
+     * Returns the first slot probed for a key.
+     *
+     * @param key  the key
+     * @param mask the table size minus one
+     * @return the slot
+     */
+    private static int slot(final long key, final int mask) {
+        long spread = key * SPREAD;
+        return (int) (spread >>> 32) & mask;
+    }
+
+    /**
+     * Returns the power-of-two capacity keeping a number of keys under the load factor.
+     *
+     * @param expectedSize the number of keys
+     * @return the capacity
+     */
+    private static int capacityFor(final int expectedSize) {
+        long needed = (long) expectedSize * LOAD_DENOMINATOR / LOAD_NUMERATOR + 1;
+        long capacity = Math.max(MIN_CAPACITY, Long.highestOneBit(needed - 1) << 1);
+        if (capacity > 1 << 30) {
+            throw new IllegalStateException("Map too large: " + expectedSize);
+        }
+        return (int) capacity;
+    }
+
+    /**
+     * Replaces the arrays with empty ones.
+     *
+     * @param capacity the number of slots
+     */
+    private void allocate(final int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new int[capacity];
+    }
+
+    /**
+     * Moves the live keys into a table of a new capacity, dropping the tombstones.
+     *
+     * @param capacity the new number of slots
+     */
+    private void rehash(final int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        tombstones = 0;
+
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key < 0) {
+                continue;
+            }
+            int slot = slot(key, mask);
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = oldValues[i];
+        }
+    }
+}
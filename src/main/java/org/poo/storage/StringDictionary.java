@@ -0,0 +1,67 @@
+package org.poo.storage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns dense int ids to strings, so that a table row can store a string column as a
+ * fixed-width int. Ids are never reused, so the dictionary is meant for small closed sets
+ * such as plan names, currencies and account types; {@link #NONE} stands for null.
+ */
+public final class StringDictionary {
+
+    /**
+     * Id of the null string.
+     */
+    public static final int NONE = -1;
+
+    /**
+     * The id of every known string.
+     */
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    /**
+     * The known strings, indexed by id.
+     */
+    private final List<String> values = new ArrayList<>();
+
+    /**
+     * Returns the id of a string, assigning a new one the first time the string is seen.
+     *
+     * @param value the string, may be null
+     * @return the id
+     */
+    public int idOf(final String value) {
+        if (value == null) {
+            return NONE;
+        }
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = values.size();
+            ids.put(value, id);
+            values.add(value);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the string with an id.
+     *
+     * @param id the id
+     * @return the string, null for {@link #NONE}
+     */
+    public String valueOf(final int id) {
+        return id == NONE ? null : values.get(id);
+    }
+
+    /**
+     * Returns the number of known strings.
+     *
+     * @return the size of the dictionary
+     */
+    public int size() {
+        return values.size();
+    }
+}
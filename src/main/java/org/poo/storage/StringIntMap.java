@@ -0,0 +1,296 @@
+package org.poo.storage;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Open-addressing hash map from strings to non-negative ints. Keys, their hash codes and
+ * the values sit in three flat arrays probed linearly, so a lookup touches no entry
+ * objects and boxes nothing; the cached hash codes let most mismatching slots be skipped
+ * without comparing strings. Removed keys leave a tombstone until the next resize.
+ *
+ * <p>Not thread-safe.
+ */
+public final class StringIntMap {
+
+    /**
+     * Value returned for a missing key.
+     */
+    public static final int NO_VALUE = -1;
+
+    /**
+     * Marks a slot whose key was removed; compared by identity.
+     */
+    private static final String TOMBSTONE = new String("<removed>");
+
+    /**
+     * Smallest capacity of the table.
+     */
+    private static final int MIN_CAPACITY = 16;
+
+    /**
+     * Numerator of the maximum load factor, counting tombstones.
+     */
+    private static final int LOAD_NUMERATOR = 3;
+
+    /**
+     * Denominator of the maximum load factor.
+     */
+    private static final int LOAD_DENOMINATOR = 4;
+
+    /**
+     * Multiplier spreading the hash codes over the table (the golden ratio).
+     */
+    private static final int SPREAD = 0x9E3779B9;
+
+    /**
+     * The keys; null for an empty slot, {@link #TOMBSTONE} for a removed one.
+     */
+    private String[] keys;
+
+    /**
+     * The hash codes of the keys.
+     */
+    private int[] hashes;
+
+    /**
+     * The values of the keys.
+     */
+    private int[] values;
+
+    /**
+     * Number of live keys.
+     */
+    private int size;
+
+    /**
+     * Number of tombstones.
+     */
+    private int tombstones;
+
+    /**
+     * Creates an empty map.
+     */
+    public StringIntMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Creates an empty map sized for an expected number of keys.
+     *
+     * @param expectedSize the number of keys the map should hold without resizing
+     */
+    public StringIntMap(final int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param key the key, may be null
+     * @return the value, or {@link #NO_VALUE} if the key is absent
+     */
+    public int get(final String key) {
+        if (key == null) {
+            return NO_VALUE;
+        }
+        int hash = key.hashCode();
+        int mask = keys.length - 1;
+        for (int slot = slot(hash, mask);; slot = (slot + 1) & mask) {
+            String candidate = keys[slot];
+            if (candidate == null) {
+                return NO_VALUE;
+            }
+            if (hashes[slot] == hash && candidate != TOMBSTONE && candidate.equals(key)) {
+                return values[slot];
+            }
+        }
+    }
+
+    /**
+     * Tells whether a key is present.
+     *
+     * @param key the key, may be null
+     * @return true if the map holds the key
+     */
+    public boolean containsKey(final String key) {
+        return get(key) != NO_VALUE;
+    }
+
+    /**
+     * Associates a value with a key.
+     *
+     * @param key   the key
+     * @param value the value, non-negative
+     * @return the previous value, or {@link #NO_VALUE} if the key was absent
+     */
+    public int put(final String key, final int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value: " + value);
+        }
+        int hash = key.hashCode();
+        int mask = keys.length - 1;
+        int reusable = -1;
+        int slot = slot(hash, mask);
+        for (;; slot = (slot + 1) & mask) {
+            String candidate = keys[slot];
+            if (candidate == null) {
+                break;
+            }
+            if (candidate == TOMBSTONE) {
+                if (reusable < 0) {
+                    reusable = slot;
+                }
+            } else if (hashes[slot] == hash && candidate.equals(key)) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+        }
+
+        if (reusable >= 0) {
+            slot = reusable;
+            tombstones--;
+        }
+        keys[slot] = key;
+        hashes[slot] = hash;
+        values[slot] = value;
+        size++;
+        if ((size + tombstones) * LOAD_DENOMINATOR > keys.length * LOAD_NUMERATOR) {
+            rehash(capacityFor(size));
+        }
+        return NO_VALUE;
+    }
+
+    /**
+     * Removes a key, leaving a tombstone in its slot.
+     *
+     * @param key the key, may be null
+     * @return the removed value, or {@link #NO_VALUE} if the key was absent
+     */
+    public int remove(final String key) {
+        if (key == null) {
+            return NO_VALUE;
+        }
+        int hash = key.hashCode();
+        int mask = keys.length - 1;
+        for (int slot = slot(hash, mask);; slot = (slot + 1) & mask) {
+            String candidate = keys[slot];
+            if (candidate == null) {
+                return NO_VALUE;
+            }
+            if (hashes[slot] == hash && candidate != TOMBSTONE && candidate.equals(key)) {
+                keys[slot] = TOMBSTONE;
+                size--;
+                tombstones++;
+                return values[slot];
+            }
+        }
+    }
+
+    /**
+     * Returns the number of keys.
+     *
+     * @return the size of the map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Passes every key to an action, in table order.
+     *
+     * @param action receives the keys
+     */
+    public void forEachKey(final Consumer<String> action) {
+        for (String key : keys) {
+            if (key != null && key != TOMBSTONE) {
+                action.accept(key);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of slots of the table.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Removes every key, keeping the capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, null);
+        size = 0;
+        tombstones = 0;
+    }
+
+    /**
+     * Returns the first slot probed for a hash code.
+     *
+     * @param hash the hash code
+     * @param mask the table size minus one
+     * @return the slot
+     */
+    private static int slot(final int hash, final int mask) {
+        int spread = hash * SPREAD;
+        return (spread ^ (spread >>> 16)) & mask;
+    }
+
+    /**
+     * Returns the power-of-two capacity keeping a number of keys under the load factor.
+     *
+     * @param expectedSize the number of keys
+     * @return the capacity
+     */
+    private static int capacityFor(final int expectedSize) {
+        long needed = (long) expectedSize * LOAD_DENOMINATOR / LOAD_NUMERATOR + 1;
+        long capacity = Math.max(MIN_CAPACITY, Long.highestOneBit(needed - 1) << 1);
+        if (capacity > 1 << 30) {
+            throw new IllegalStateException("Map too large: " + expectedSize);
+        }
+        return (int) capacity;
+    }
+
+    /**
+     * Replaces the arrays with empty ones.
+     *
+     * @param capacity the number of slots
+     */
+    private void allocate(final int capacity) {
+        keys = new String[capacity];
+        hashes = new int[capacity];
+        values = new int[capacity];
+    }
+
+    /**
+     * Moves the live keys into a table of a new capacity, dropping the tombstones.
+     *
+     * @param capacity the new number of slots
+     */
+    private void rehash(final int capacity) {
+        String[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        int[] oldValues = values;
+        allocate(capacity);
+        tombstones = 0;
+
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            String key = oldKeys[i];
+            if (key == null || key == TOMBSTONE) {
+                continue;
+            }
+            int slot = slot(oldHashes[i], mask);
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            hashes[slot] = oldHashes[i];
+            values[slot] = oldValues[i];
+        }
+    }
+}
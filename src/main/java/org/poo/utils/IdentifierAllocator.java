@@ -0,0 +1,280 @@
+package org.poo.utils;
+
+import org.poo.storage.IdentifierCodes;
+import org.poo.storage.LongHashSet;
+
+import java.util.function.LongFunction;
+
+/**
+ * Hands out IBANs and card numbers. The digits come from the same linear congruential
+ * generator and rejection sampling as {@code java.util.Random.nextInt(10)}, so for a given
+ * seed the sequence is the one the bank always produced, but a whole identifier is
+ * generated in one tight loop straight into its {@link IdentifierCodes} code.
+ *
+ * <p>Every issued code is recorded in a compact set; a generated number that was already
+ * issued is counted as a collision and skipped.
+ *
+ * <p>With a block size above one, each thread takes that many identifiers at once and
+ * hands them out without locking. Identifiers are then unique but no longer follow the
+ * sequence in creation order across threads, and the ones a thread holds are lost when
+ * the generator state is saved; the default block size of one keeps both exact. Since
+ * replaying a journal would then hand out other identifiers than the ones the clients
+ * received, a journaled server refuses blocks larger than one.
+ */
+public final class IdentifierAllocator {
+
+    /**
+     * Multiplier of the linear congruential generator.
+     */
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+
+    /**
+     * Addend of the linear congruential generator.
+     */
+    private static final long ADDEND = 0xBL;
+
+    /**
+     * Mask keeping the 48 bits of state.
+     */
+    private static final long MASK = (1L << 48) - 1;
+
+    /**
+     * Shift turning the state into 31 random bits.
+     */
+    private static final int BITS_SHIFT = 17;
+
+    /**
+     * Radix of the digits.
+     */
+    private static final int RADIX = 10;
+
+    /**
+     * Number of digits of an IBAN: the two check digits and sixteen account digits.
+     */
+    private static final int IBAN_DIGITS = 18;
+
+    /**
+     * Number of digits of a card number.
+     */
+    private static final int CARD_DIGITS = 16;
+
+    /**
+     * Number of digits of every identifier.
+     */
+    private final int digits;
+
+    /**
+     * Renders a code as the identifier string.
+     */
+    private final LongFunction<String> renderer;
+
+    /**
+     * Number of identifiers a thread takes at once.
+     */
+    private final int blockSize;
+
+    /**
+     * The codes issued so far; guarded by {@code this}.
+     */
+    private final LongHashSet issued = new LongHashSet();
+
+    /**
+     * The identifiers taken but not yet handed out by the current thread.
+     */
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+
+    /**
+     * The 48-bit generator state; guarded by {@code this}.
+     */
+    private long state;
+
+    /**
+     * Number of generated numbers skipped because they were already issued.
+     */
+    private long collisions;
+
+    /**
+     * Creates an allocator.
+     *
+     * @param seed      the seed, scrambled like {@code java.util.Random}
+     * @param digits    the number of digits of every identifier
+     * @param renderer  renders a code as the identifier string
+     * @param blockSize the number of identifiers a thread takes at once
+     */
+    private IdentifierAllocator(final long seed, final int digits,
+                                final LongFunction<String> renderer, final int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        this.state = (seed ^ MULTIPLIER) & MASK;
+        this.digits = digits;
+        this.renderer = renderer;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Creates an allocator of IBANs.
+     *
+     * @param seed      the seed
+     * @param blockSize the number of identifiers a thread takes at once
+     * @return the allocator
+     */
+    public static IdentifierAllocator forIbans(final long seed, final int blockSize) {
+        return new IdentifierAllocator(seed, IBAN_DIGITS, IdentifierCodes::ibanToString,
+                blockSize);
+    }
+
+    /**
+     * Creates an allocator of card numbers.
+     *
+     * @param seed      the seed
+     * @param blockSize the number of identifiers a thread takes at once
+     * @return the allocator
+     */
+    public static IdentifierAllocator forCards(final long seed, final int blockSize) {
+        return new IdentifierAllocator(seed, CARD_DIGITS, IdentifierCodes::cardToString,
+                blockSize);
+    }
+
+    /**
+     * Hands out a new identifier.
+     *
+     * @return the identifier
+     */
+    public String next() {
+        return renderer.apply(nextCode());
+    }
+
+    /**
+     * Hands out a new identifier as its code.
+     *
+     * @return the code
+     */
+    public long nextCode() {
+        if (blockSize == 1) {
+            synchronized (this) {
+                return allocate();
+            }
+        }
+
+        Block block = blocks.get();
+        if (block.next == block.codes.length) {
+            synchronized (this) {
+                for (int i = 0; i < block.codes.length; i++) {
+                    block.codes[i] = allocate();
+                }
+            }
+            block.next = 0;
+        }
+        return block.codes[block.next++];
+    }
+
+    /**
+     * Records an identifier issued outside the allocator, such as one restored from a
+     * snapshot, so that it is never handed out again.
+     *
+     * @param identifier the identifier
+     */
+    public synchronized void markIssued(final String identifier) {
+        long code = digits == IBAN_DIGITS
+                ? IdentifierCodes.packIban(identifier) : IdentifierCodes.packCard(identifier);
+        if (code != IdentifierCodes.NONE) {
+            issued.add(code);
+        }
+    }
+
+    /**
+     * Returns the generator state, for {@link #setState(long)}.
+     *
+     * @return the 48-bit state
+     */
+    public synchronized long getState() {
+        return state;
+    }
+
+    /**
+     * Moves the generator to a saved state.
+     *
+     * @param state the 48-bit state
+     */
+    public synchronized void setState(final long state) {
+        this.state = state & MASK;
+    }
+
+    /**
+     * Returns the number of identifiers a thread takes at once.
+     *
+     * @return the block size
+     */
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Returns the number of identifiers issued or marked as issued.
+     *
+     * @return the issued count
+     */
+    public synchronized int issuedCount() {
+        return issued.size();
+    }
+
+    /**
+     * Returns the number of generated numbers skipped because they were already issued.
+     *
+     * @return the collision count
+     */
+    public synchronized long collisionCount() {
+        return collisions;
+    }
+
+    /**
+     * Generates codes until one was never issued, and records it.
+     *
+     * @return the code
+     */
+    private long allocate() {
+        while (true) {
+            long code = 0;
+            for (int i = 0; i < digits; i++) {
+                code = code * RADIX + nextDigit();
+            }
+            if (issued.add(code)) {
+                return code;
+            }
+            collisions++;
+        }
+    }
+
+    /**
+     * Draws a digit exactly like {@code java.util.Random.nextInt(10)}.
+     *
+     * @return the digit
+     */
+    private int nextDigit() {
+        int bits;
+        int digit;
+        do {
+            state = (state * MULTIPLIER + ADDEND) & MASK;
+            bits = (int) (state >>> BITS_SHIFT);
+            digit = bits % RADIX;
+        } while (bits - digit + (RADIX - 1) < 0);
+        return digit;
+    }
+
+    /**
+     * Identifiers taken by one thread.
+     */
+    private final class Block {
+
+        /**
+         * The codes of the block.
+         */
+        private final long[] codes = new long[blockSize];
+
+        /**
+         * Index of the next code to hand out.
+         */
+        private int next = codes.length;
+    }
+}
@@ -1,6 +1,7 @@
 package org.poo.utils;
 
 import org.poo.entities.ValutarCourse;
+import org.poo.metrics.ConversionEvent;
 
 import java.util.*;
 
@@ -61,6 +62,25 @@ public class Pair<K, V> {
      * @return the converted amount, or -1 if conversion is not possible
      */
     public static double convertCurrency(double amount, String fromCurrency, String toCurrency, List<ValutarCourse> exchangeRates) {
+        ConversionEvent event = ConversionEvent.beginIfEnabled();
+        double converted = convert(amount, fromCurrency, toCurrency, exchangeRates);
+        if (event != null && event.shouldCommit()) {
+            event.set(fromCurrency, toCurrency, amount, converted);
+            event.commit();
+        }
+        return converted;
+    }
+
+    /**
+     * Converts an amount by finding the best rate path through the exchange rate graph.
+     *
+     * @param amount        the amount to be converted
+     * @param fromCurrency  the source currency
+     * @param toCurrency    the target currency
+     * @param exchangeRates the list of exchange rates
+     * @return the converted amount, or -1 if conversion is not possible
+     */
+    private static double convert(double amount, String fromCurrency, String toCurrency, List<ValutarCourse> exchangeRates) {
         if (fromCurrency.equals(toCurrency)) {
             return amount;
         }
@@ -1,7 +1,5 @@
 package org.poo.utils;
 
-import java.util.Random;
-
 /**
  * Utility class providing methods for generating unique IBANs, card numbers,
  * and resetting random number generators.
@@ -11,42 +9,27 @@ public final class Utils {
     /**
      * Seed for the IBAN random generator.
      */
-    private static final int IBAN_SEED = 1;
+    public static final int IBAN_SEED = 1;
 
     /**
      * Seed for the card number random generator.
      */
-    private static final int CARD_SEED = 2;
-
-    /**
-     * Upper bound for digits in the generated numbers.
-     */
-    private static final int DIGIT_BOUND = 10;
+    public static final int CARD_SEED = 2;
 
     /**
-     * The number of digits to generate for card numbers.
+     * System property setting how many identifiers a thread takes at once.
      */
-    private static final int DIGIT_GENERATION = 16;
+    public static final String BLOCK_SIZE_PROPERTY = "bank.identifiers.blockSize";
 
     /**
-     * Prefix for generated IBANs.
+     * Allocator of the IBANs.
      */
-    private static final String RO_STR = "RO";
+    private static IdentifierAllocator ibanAllocator = newIbanAllocator();
 
     /**
-     * Additional identifier for generated IBANs.
+     * Allocator of the card numbers.
      */
-    private static final String POO_STR = "POOB";
-
-    /**
-     * Random number generator for IBAN generation.
-     */
-    private static Random ibanRandom = new Random(IBAN_SEED);
-
-    /**
-     * Random number generator for card number generation.
-     */
-    private static Random cardRandom = new Random(CARD_SEED);
+    private static IdentifierAllocator cardAllocator = newCardAllocator();
 
     /**
      * Number for procent.
@@ -65,17 +48,7 @@ public final class Utils {
      * @return the generated IBAN as a String
      */
     public static String generateIBAN() {
-        StringBuilder sb = new StringBuilder(RO_STR);
-        for (int i = 0; i < RO_STR.length(); i++) {
-            sb.append(ibanRandom.nextInt(DIGIT_BOUND));
-        }
-
-        sb.append(POO_STR);
-        for (int i = 0; i < DIGIT_GENERATION; i++) {
-            sb.append(ibanRandom.nextInt(DIGIT_BOUND));
-        }
-
-        return sb.toString();
+        return ibanAllocator.next();
     }
 
     /**
@@ -84,19 +57,100 @@ public final class Utils {
      * @return the generated card number as a String
      */
     public static String generateCardNumber() {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < DIGIT_GENERATION; i++) {
-            sb.append(cardRandom.nextInt(DIGIT_BOUND));
-        }
-
-        return sb.toString();
+        return cardAllocator.next();
     }
 
     /**
      * Resets the random number generators to their initial state.
      */
     public static void resetRandom() {
-        ibanRandom = new Random(IBAN_SEED);
-        cardRandom = new Random(CARD_SEED);
+        ibanAllocator = newIbanAllocator();
+        cardAllocator = newCardAllocator();
+    }
+
+    /**
+     * Returns the position of the IBAN generator.
+     *
+     * @return the generator state
+     */
+    public static long getIbanRandomState() {
+        return ibanAllocator.getState();
+    }
+
+    /**
+     * Returns the position of the card number generator.
+     *
+     * @return the generator state
+     */
+    public static long getCardRandomState() {
+        return cardAllocator.getState();
+    }
+
+    /**
+     * Moves the generators to previously saved positions.
+     *
+     * @param ibanState the IBAN generator state
+     * @param cardState the card number generator state
+     */
+    public static void restoreRandom(final long ibanState, final long cardState) {
+        ibanAllocator.setState(ibanState);
+        cardAllocator.setState(cardState);
+    }
+
+    /**
+     * Records an IBAN issued before the generators were reset, such as one restored from
+     * a snapshot, so that it is never generated again.
+     *
+     * @param iban the IBAN
+     */
+    public static void markIbanIssued(final String iban) {
+        ibanAllocator.markIssued(iban);
+    }
+
+    /**
+     * Records a card number issued before the generators were reset.
+     *
+     * @param cardNumber the card number
+     */
+    public static void markCardIssued(final String cardNumber) {
+        cardAllocator.markIssued(cardNumber);
+    }
+
+    /**
+     * Returns the allocator of the IBANs, for its statistics.
+     *
+     * @return the allocator
+     */
+    public static IdentifierAllocator getIbanAllocator() {
+        return ibanAllocator;
+    }
+
+    /**
+     * Returns the allocator of the card numbers, for its statistics.
+     *
+     * @return the allocator
+     */
+    public static IdentifierAllocator getCardAllocator() {
+        return cardAllocator;
+    }
+
+    /**
+     * Creates the IBAN allocator in its initial state.
+     *
+     * @return the allocator
+     */
+    private static IdentifierAllocator newIbanAllocator() {
+        return IdentifierAllocator.forIbans(IBAN_SEED,
+                Integer.getInteger(BLOCK_SIZE_PROPERTY, 1));
+    }
+
+    /**
+     * Creates the card number allocator in its initial state.
+     *
+     * @return the allocator
+     */
+    private static IdentifierAllocator newCardAllocator() {
+        return IdentifierAllocator.forCards(CARD_SEED,
+                Integer.getInteger(BLOCK_SIZE_PROPERTY, 1));
     }
 }
@@ -0,0 +1,288 @@
+package org.poo.workload;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.poo.commands.CommandFactory;
+import org.poo.commands.CommandInvoker;
+import org.poo.entities.User;
+import org.poo.entities.ValutarCourse;
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.ObjectInput;
+import org.poo.main.Main;
+import org.poo.metrics.CommandMetrics;
+import org.poo.metrics.HeapFootprint;
+import org.poo.metrics.Tracer;
+import org.poo.protocol.BinaryInputFile;
+import org.poo.storage.BankIndex;
+import org.poo.utils.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replays an input file through the same steps as {@code Main.action} many times and
+ * reports throughput and per-command-type latency. Usage:
+ * {@code ReplayRunner <input file> [warm-up runs] [measured runs]}.
+ *
+ * <p>The file, JSON or binary, is parsed once. Every run starts from a fresh bank: the
+ * index and account table are reset, the users and exchange rates rebuilt and the
+ * identifier generators reset, so every run executes exactly the same work. As in
+ * {@code Main.action}, every command is built before the first one executes, and they run
+ * through a {@link CommandInvoker}, whose {@link CommandMetrics} give the latency by
+ * command type and outcome. Warm-up runs are executed and discarded; each measured run is
+ * preceded by a GC so that garbage left by the previous one is not charged to it.
+ *
+ * <p>Setting {@code bank.metrics.allocation} also records the bytes allocated by every
+ * command, by type; reading the allocation counter around every command adds to the
+ * measured latency, so the two are best taken in separate runs. Setting
+ * {@code replay.output} to a file writes the output of the last run there, to check it
+ * against a reference. The report ends with the {@link HeapFootprint} of the bank left by
+ * the last run. Setting {@code bank.trace.file} exports the {@link Tracer} timeline of all
+ * runs there.
+ */
+public final class ReplayRunner {
+
+    /**
+     * Default number of warm-up runs.
+     */
+    private static final int DEFAULT_WARMUP_RUNS = 3;
+
+    /**
+     * Default number of measured runs.
+     */
+    private static final int DEFAULT_MEASURED_RUNS = 5;
+
+    /**
+     * Nanoseconds per second.
+     */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * The parsed input.
+     */
+    private final ObjectInput input;
+
+    /**
+     * Latency and allocation of the measured commands, by command type.
+     */
+    private final CommandMetrics metrics = new CommandMetrics();
+
+    /**
+     * Throughput of every measured run, in commands per second.
+     */
+    private final List<Double> throughputs = new ArrayList<>();
+
+    /**
+     * Bytes allocated by the measured runs.
+     */
+    private long allocatedBytes;
+
+    /**
+     * Number of commands executed by the measured runs.
+     */
+    private long measuredCommands;
+
+    /**
+     * Output of the last run.
+     */
+    private ArrayNode lastOutput;
+
+    /**
+     * Users of the bank left by the last run.
+     */
+    private List<User> lastUsers;
+
+    /**
+     * Creates a runner.
+     *
+     * @param input the parsed input file
+     */
+    public ReplayRunner(final ObjectInput input) {
+        this.input = input;
+    }
+
+    /**
+     * Parses an input file, JSON or binary.
+     *
+     * @param file the file
+     * @return the parsed input
+     * @throws IOException if the file cannot be read
+     */
+    public static ObjectInput read(final File file) throws IOException {
+        long start = Tracer.begin();
+        ObjectInput input = BinaryInputFile.isBinary(file)
+                ? BinaryInputFile.read(file)
+                : new ObjectMapper().readValue(file, ObjectInput.class);
+        Tracer.end(Tracer.PARSE, start);
+        return input;
+    }
+
+    /**
+     * Executes a run without recording it.
+     */
+    public void warmUp() {
+        run(false);
+    }
+
+    /**
+     * Executes a run and records its latencies, throughput and allocation.
+     */
+    public void measure() {
+        System.gc();
+        run(true);
+    }
+
+    /**
+     * Returns the latency and, when tracked, allocation histograms of the measured
+     * commands. Turning allocation tracking on there applies to the following runs.
+     *
+     * @return the metrics by command type
+     */
+    public CommandMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the throughput of every measured run.
+     *
+     * @return the commands per second, in run order
+     */
+    public List<Double> getThroughputs() {
+        return throughputs;
+    }
+
+    /**
+     * Returns the average number of bytes allocated per measured command.
+     *
+     * @return the bytes per command, or -1 if the JVM does not count allocations
+     */
+    public double getAllocatedBytesPerCommand() {
+        return allocatedBytes < 0 || measuredCommands == 0
+                ? -1 : (double) allocatedBytes / measuredCommands;
+    }
+
+    /**
+     * Returns the output of the last run.
+     *
+     * @return the output, null before the first run
+     */
+    public ArrayNode getLastOutput() {
+        return lastOutput;
+    }
+
+    /**
+     * Measures the heap retained by the bank left by the last run.
+     *
+     * @return the footprint, null before the first run
+     */
+    public HeapFootprint getFootprint() {
+        return lastUsers == null ? null : HeapFootprint.measure(lastUsers);
+    }
+
+    /**
+     * Prints the throughput, allocation, latency and heap footprint summary.
+     *
+     * @param out where to print
+     */
+    public void report(final PrintStream out) {
+        double best = throughputs.stream().mapToDouble(Double::doubleValue).max().orElse(0);
+        double mean = throughputs.stream().mapToDouble(Double::doubleValue).average()
+                .orElse(0);
+        out.printf("%d measured runs, %d commands: mean %.0f commands/s, best %.0f"
+                + " commands/s%n", throughputs.size(), measuredCommands, mean, best);
+        double allocated = getAllocatedBytesPerCommand();
+        if (allocated >= 0) {
+            out.printf("allocated %.0f bytes/command%n", allocated);
+        }
+
+        metrics.print(out);
+
+        HeapFootprint footprint = getFootprint();
+        if (footprint != null) {
+            footprint.print(out);
+        }
+    }
+
+    /**
+     * Replays the input once on a fresh bank, as {@code Main.action} does.
+     *
+     * @param record whether to record the run
+     */
+    private void run(final boolean record) {
+        BankIndex.reset();
+        Utils.resetRandom();
+        List<User> users = Main.createUsers(input.getUsers());
+        ArrayList<ValutarCourse> exchangeRates = Main.createExchangeRates(
+                input.getExchangeRates());
+        ObjectMapper objectMapper = new ObjectMapper();
+        ArrayNode output = objectMapper.createArrayNode();
+        CommandInput[] commands = input.getCommands();
+        CommandMetrics runMetrics = metrics;
+        if (!record) {
+            runMetrics = new CommandMetrics();
+            runMetrics.setAllocationTracking(metrics.isAllocationTracking());
+        }
+        CommandInvoker invoker = new CommandInvoker(runMetrics);
+
+        long allocatedBefore = CommandMetrics.threadAllocatedBytes();
+        long start = System.nanoTime();
+        for (CommandInput command : commands) {
+            try {
+                invoker.addCommand(CommandFactory.getCommand(command, exchangeRates), command);
+            } catch (IllegalArgumentException e) {
+                output.add(Main.createUnknownCommandError(objectMapper, command.getCommand()));
+            }
+        }
+        invoker.executePending(users, output);
+        long elapsed = System.nanoTime() - start;
+        long allocatedAfter = CommandMetrics.threadAllocatedBytes();
+        Utils.resetRandom();
+
+        lastOutput = output;
+        lastUsers = users;
+        if (record) {
+            throughputs.add(commands.length * NANOS_PER_SECOND / Math.max(1, elapsed));
+            measuredCommands += commands.length;
+            allocatedBytes = allocatedBefore < 0 || allocatedBytes < 0
+                    ? -1 : allocatedBytes + allocatedAfter - allocatedBefore;
+        }
+    }
+
+    /**
+     * @param args the input file, then optionally the warm-up and measured run counts
+     * @throws IOException if the input cannot be read or the output written
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: ReplayRunner <input file> [warm-up runs]"
+                    + " [measured runs]");
+            return;
+        }
+        int warmUpRuns = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_WARMUP_RUNS;
+        int measuredRuns = args.length > 2 ? Integer.parseInt(args[2])
+                : DEFAULT_MEASURED_RUNS;
+
+        Tracer.startIfRequested();
+        ReplayRunner runner = new ReplayRunner(read(new File(args[0])));
+        if (Boolean.getBoolean("bank.metrics.allocation")) {
+            runner.getMetrics().setAllocationTracking(true);
+        }
+        for (int i = 0; i < warmUpRuns; i++) {
+            runner.warmUp();
+        }
+        for (int i = 0; i < measuredRuns; i++) {
+            runner.measure();
+        }
+        runner.report(System.out);
+
+        String outputFile = System.getProperty("replay.output");
+        if (outputFile != null && runner.getLastOutput() != null) {
+            new ObjectMapper().writerWithDefaultPrettyPrinter()
+                    .writeValue(new File(outputFile), runner.getLastOutput());
+        }
+        Tracer.exportIfRequested();
+    }
+}
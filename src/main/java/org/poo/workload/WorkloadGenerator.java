@@ -0,0 +1,762 @@
+package org.poo.workload;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.poo.storage.IdentifierCodes;
+import org.poo.utils.IdentifierAllocator;
+import org.poo.utils.Utils;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Writes synthetic input files in the {@code ObjectInput} JSON shape (users, exchange
+ * rates, commands, commerciants) at any size, streaming every element straight to disk.
+ * Usage: {@code WorkloadGenerator <output file> [commands] [seed]}; the other settings are
+ * the {@code workload.*} system properties of {@link WorkloadSpec}. The same spec always
+ * produces the same file.
+ *
+ * <p>The file starts with a setup phase that opens {@code accountsPerUser} accounts per
+ * user, funds them and gives each a card (a one-time card for a share of them). The
+ * traffic phase then draws commands from the mix, against accounts picked by Zipfian
+ * popularity. The generator predicts the IBANs and card numbers the bank will hand out by
+ * running {@link IdentifierAllocator}s seeded like the bank's, so the traffic references real
+ * identifiers. It does not model balances, so it stops referencing what it can no
+ * longer predict: a one-time card once it was used for a payment (the payment may have
+ * replaced it), a deleted card, and cards created during the traffic phase. Accounts
+ * opened during the traffic phase are not picked either.
+ */
+public final class WorkloadGenerator {
+
+    /**
+     * Currency codes, RON first; beyond them currencies are named {@code C<n>}.
+     */
+    private static final String[] CURRENCY_CODES = {"RON", "EUR", "USD", "GBP", "CHF",
+        "JPY", "CAD", "AUD", "SEK", "NOK", "PLN", "HUF", "CZK", "DKK", "TRY", "CNY"};
+
+    /**
+     * Occupations of the users.
+     */
+    private static final String[] OCCUPATIONS = {"engineer", "student", "doctor",
+        "teacher", "lawyer", "artist"};
+
+    /**
+     * Commerciant types.
+     */
+    private static final String[] COMMERCIANT_TYPES = {"Food", "Clothes", "Tech"};
+
+    /**
+     * Cashback strategies of the commerciants.
+     */
+    private static final String[] CASHBACK_STRATEGIES = {"nrOfTransactions",
+        "spendingThreshold"};
+
+    /**
+     * Plans accounts are upgraded to.
+     */
+    private static final String[] PLANS = {"silver", "gold"};
+
+    /**
+     * Opening deposit of every account, large enough for most payments to go through.
+     */
+    private static final double OPENING_DEPOSIT = 1_000_000;
+
+    /**
+     * Largest payment or transfer amount.
+     */
+    private static final int MAX_AMOUNT = 500;
+
+    /**
+     * Number of hundredths in a unit of currency.
+     */
+    private static final double CENTS = 100.0;
+
+    /**
+     * Largest number of accounts of a split payment.
+     */
+    private static final int MAX_SPLIT = 4;
+
+    /**
+     * Length of the window of the reports, in timestamps.
+     */
+    private static final int REPORT_WINDOW = 1_000;
+
+    /**
+     * Number of digits of a card number, and of the account part of an IBAN.
+     */
+    private static final int ID_DIGITS = 16;
+
+    /**
+     * Number of popularity draws at finding an account that still has a known card.
+     */
+    private static final int CARD_ATTEMPTS = 8;
+
+    /**
+     * Number of consecutive accounts scanned for a known card once the draws failed.
+     */
+    private static final int CARD_SCAN_LIMIT = 1024;
+
+    /**
+     * Interest rate of the savings accounts.
+     */
+    private static final double INTEREST_RATE = 2.5;
+
+    /**
+     * Step between the interest rates of the interest commands.
+     */
+    private static final double INTEREST_STEP = 0.5;
+
+    /**
+     * Number of distinct interest rates of the interest commands.
+     */
+    private static final int INTEREST_STEPS = 5;
+
+    /**
+     * Radix of the digits.
+     */
+    private static final int RADIX = 10;
+
+    /**
+     * Earliest birth date of the users.
+     */
+    private static final LocalDate FIRST_BIRTH_DATE = LocalDate.of(1950, 1, 1);
+
+    /**
+     * Number of days over which the birth dates spread.
+     */
+    private static final int BIRTH_DATE_SPAN_DAYS = 20_000;
+
+    /**
+     * Smallest value of a currency against RON.
+     */
+    private static final double MIN_CURRENCY_VALUE = 0.01;
+
+    /**
+     * Spread of the currency values above {@link #MIN_CURRENCY_VALUE}.
+     */
+    private static final double CURRENCY_VALUE_SPAN = 5;
+
+    /**
+     * The spec.
+     */
+    private final WorkloadSpec spec;
+
+    /**
+     * Every random choice.
+     */
+    private final SplittableRandom random;
+
+    /**
+     * Draws account popularity ranks.
+     */
+    private final ZipfSampler popularity;
+
+    /**
+     * Account number of every popularity rank.
+     */
+    private final int[] accountsByRank;
+
+    /**
+     * The currency names.
+     */
+    private final String[] currencies;
+
+    /**
+     * IBAN code of every account.
+     */
+    private final long[] ibans;
+
+    /**
+     * Card code of every account; {@link IdentifierCodes#NONE} once it is no longer known.
+     */
+    private final long[] cards;
+
+    /**
+     * Whether the card of every account is a one-time card.
+     */
+    private final boolean[] oneTimeCards;
+
+    /**
+     * Currency index of every account.
+     */
+    private final byte[] accountCurrencies;
+
+    /**
+     * Whether every account is a savings account.
+     */
+    private final boolean[] savings;
+
+    /**
+     * Command names of the traffic mix.
+     */
+    private final String[] mixCommands;
+
+    /**
+     * Cumulative weights of {@link #mixCommands}.
+     */
+    private final int[] mixThresholds;
+
+    /**
+     * Timestamp of the next command.
+     */
+    private int timestamp = 1;
+
+    /**
+     * Creates a generator.
+     *
+     * @param spec the shape of the workload
+     */
+    public WorkloadGenerator(final WorkloadSpec spec) {
+        this.spec = spec;
+        this.random = new SplittableRandom(spec.getSeed());
+        int accounts = Math.multiplyExact(spec.getUsers(), spec.getAccountsPerUser());
+        this.popularity = new ZipfSampler(Math.max(1, accounts), spec.getZipfExponent());
+        this.accountsByRank = shuffledRange(accounts);
+        this.currencies = new String[spec.getCurrencies()];
+        for (int i = 0; i < currencies.length; i++) {
+            currencies[i] = i < CURRENCY_CODES.length ? CURRENCY_CODES[i] : "C" + i;
+        }
+        this.ibans = new long[accounts];
+        this.cards = new long[accounts];
+        this.oneTimeCards = new boolean[accounts];
+        this.accountCurrencies = new byte[accounts];
+        this.savings = new boolean[accounts];
+
+        Map<String, Integer> mix = spec.getMix();
+        this.mixCommands = mix.keySet().toArray(new String[0]);
+        this.mixThresholds = new int[mixCommands.length];
+        int total = 0;
+        for (int i = 0; i < mixCommands.length; i++) {
+            total += mix.get(mixCommands[i]);
+            mixThresholds[i] = total;
+        }
+        if (total == 0 && spec.getCommands() > 0) {
+            throw new IllegalArgumentException("The command mix has no weight");
+        }
+        if (currencies.length > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many currencies: " + currencies.length);
+        }
+    }
+
+    /**
+     * Writes the workload to a file.
+     *
+     * @param file the output file
+     * @throws IOException if writing fails
+     */
+    public void write(final Path file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file),
+                1 << 16)) {
+            write(out);
+        }
+    }
+
+    /**
+     * Writes the workload to a stream.
+     *
+     * @param out the stream, left open
+     * @throws IOException if writing fails
+     */
+    public void write(final OutputStream out) throws IOException {
+        // private allocators with the bank's seeds, leaving the bank's own ones untouched
+        IdentifierAllocator ibanAllocator = IdentifierAllocator.forIbans(Utils.IBAN_SEED, 1);
+        IdentifierAllocator cardAllocator = IdentifierAllocator.forCards(Utils.CARD_SEED, 1);
+
+        try (JsonGenerator json = new JsonFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            json.writeStartObject();
+            writeUsers(json);
+            writeExchangeRates(json);
+
+            json.writeArrayFieldStart("commands");
+            writeSetup(json, ibanAllocator, cardAllocator);
+            for (long i = 0; i < spec.getCommands(); i++) {
+                writeTraffic(json, ibanAllocator);
+            }
+            json.writeEndArray();
+
+            writeCommerciants(json);
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * Writes the users.
+     *
+     * @param json the output
+     * @throws IOException if writing fails
+     */
+    private void writeUsers(final JsonGenerator json) throws IOException {
+        json.writeArrayFieldStart("users");
+        for (int user = 0; user < spec.getUsers(); user++) {
+            json.writeStartObject();
+            json.writeStringField("firstName", "First" + user);
+            json.writeStringField("lastName", "Last" + user);
+            json.writeStringField("email", email(user));
+            json.writeStringField("birthDate",
+                    FIRST_BIRTH_DATE.plusDays(random.nextInt(BIRTH_DATE_SPAN_DAYS)).toString());
+            json.writeStringField("occupation",
+                    OCCUPATIONS[random.nextInt(OCCUPATIONS.length)]);
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+    }
+
+    /**
+     * Writes the exchange rates: a random spanning tree, so that every pair converts,
+     * plus a {@code rateDensity} share of the other pairs. Rates derive from one value
+     * per currency, so every path between two currencies gives the same rate.
+     *
+     * @param json the output
+     * @throws IOException if writing fails
+     */
+    private void writeExchangeRates(final JsonGenerator json) throws IOException {
+        double[] values = new double[currencies.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i == 0 ? 1
+                    : MIN_CURRENCY_VALUE + random.nextDouble() * CURRENCY_VALUE_SPAN;
+        }
+
+        json.writeArrayFieldStart("exchangeRates");
+        for (int i = 1; i < currencies.length; i++) {
+            writeRate(json, i, random.nextInt(i), values);
+        }
+        for (int i = 2; i < currencies.length; i++) {
+            for (int j = 0; j < i - 1; j++) {
+                if (random.nextDouble() < spec.getRateDensity()) {
+                    writeRate(json, i, j, values);
+                }
+            }
+        }
+        json.writeEndArray();
+    }
+
+    /**
+     * Writes one exchange rate.
+     *
+     * @param json   the output
+     * @param from   the source currency index
+     * @param to     the target currency index
+     * @param values the value of every currency
+     * @throws IOException if writing fails
+     */
+    private void writeRate(final JsonGenerator json, final int from, final int to,
+                           final double[] values) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("from", currencies[from]);
+        json.writeStringField("to", currencies[to]);
+        json.writeNumberField("rate", values[from] / values[to]);
+        json.writeNumberField("timestamp", 0);
+        json.writeEndObject();
+    }
+
+    /**
+     * Writes the commerciants.
+     *
+     * @param json the output
+     * @throws IOException if writing fails
+     */
+    private void writeCommerciants(final JsonGenerator json) throws IOException {
+        json.writeArrayFieldStart("commerciants");
+        for (int i = 0; i < spec.getCommerciants(); i++) {
+            json.writeStartObject();
+            json.writeStringField("commerciant", commerciant(i));
+            json.writeNumberField("id", i + 1);
+            json.writeStringField("account", unknownIban());
+            json.writeStringField("type", COMMERCIANT_TYPES[i % COMMERCIANT_TYPES.length]);
+            json.writeStringField("cashbackStrategy",
+                    CASHBACK_STRATEGIES[i % CASHBACK_STRATEGIES.length]);
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+    }
+
+    /**
+     * Writes the setup phase: every account is opened, then funded, then given a card,
+     * each group in account order so that the identifiers follow the allocators.
+     *
+     * @param json          the output
+     * @param ibanAllocator predicts the IBANs
+     * @param cardAllocator predicts the card numbers
+     * @throws IOException if writing fails
+     */
+    private void writeSetup(final JsonGenerator json, final IdentifierAllocator ibanAllocator,
+                            final IdentifierAllocator cardAllocator) throws IOException {
+        for (int account = 0; account < ibans.length; account++) {
+            accountCurrencies[account] = (byte) random.nextInt(currencies.length);
+            savings[account] = random.nextDouble() < spec.getSavingsRatio();
+            ibans[account] = ibanAllocator.nextCode();
+
+            startCommand(json, "addAccount");
+            json.writeStringField("email", email(owner(account)));
+            json.writeStringField("currency", currencies[accountCurrencies[account]]);
+            json.writeStringField("accountType", savings[account] ? "savings" : "classic");
+            if (savings[account]) {
+                json.writeNumberField("interestRate", INTEREST_RATE);
+            }
+            json.writeEndObject();
+        }
+
+        for (int account = 0; account < ibans.length; account++) {
+            startCommand(json, "addFunds");
+            json.writeStringField("account", iban(account));
+            json.writeNumberField("amount", OPENING_DEPOSIT);
+            json.writeEndObject();
+        }
+
+        for (int account = 0; account < ibans.length; account++) {
+            oneTimeCards[account] = random.nextDouble() < spec.getOneTimeCardRatio();
+            cards[account] = cardAllocator.nextCode();
+
+            startCommand(json, oneTimeCards[account] ? "createOneTimeCard" : "createCard");
+            json.writeStringField("email", email(owner(account)));
+            json.writeStringField("account", iban(account));
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * Writes one traffic command drawn from the mix.
+     *
+     * @param json          the output
+     * @param ibanAllocator predicts the IBANs of accounts opened during the traffic
+     * @throws IOException if writing fails
+     */
+    private void writeTraffic(final JsonGenerator json, final IdentifierAllocator ibanAllocator)
+            throws IOException {
+        String command = drawCommand();
+        startCommand(json, command);
+        int account = pickAccount();
+        switch (command) {
+            case "payOnline" -> {
+                int payer = pickAccountWithCard(account);
+                json.writeStringField("email", email(owner(payer)));
+                json.writeStringField("cardNumber", consumeCard(payer, false));
+                json.writeNumberField("amount", amount());
+                json.writeStringField("currency", randomCurrency());
+                json.writeStringField("description", "shop");
+                json.writeStringField("commerciant",
+                        commerciant(random.nextInt(Math.max(1, spec.getCommerciants()))));
+            }
+            case "sendMoney" -> {
+                json.writeStringField("account", referenceIban(account));
+                json.writeStringField("receiver", referenceIban(pickAccount()));
+                json.writeNumberField("amount", amount());
+                json.writeStringField("description", "transfer");
+            }
+            case "splitPayment" -> {
+                json.writeArrayFieldStart("accounts");
+                json.writeString(referenceIban(account));
+                int others = 1 + random.nextInt(MAX_SPLIT - 1);
+                for (int i = 0; i < others; i++) {
+                    json.writeString(referenceIban(pickAccount()));
+                }
+                json.writeEndArray();
+                json.writeNumberField("amount", amount());
+                json.writeStringField("currency", randomCurrency());
+            }
+            case "report", "spendingsReport" -> {
+                json.writeStringField("account", referenceIban(account));
+                json.writeNumberField("startTimestamp", Math.max(0, timestamp - REPORT_WINDOW));
+                json.writeNumberField("endTimestamp", timestamp);
+            }
+            case "printTransactions" -> json.writeStringField("email", email(owner(account)));
+            case "addAccount" -> {
+                // keeps the allocator in step with the bank; the new account is not picked
+                ibanAllocator.nextCode();
+                json.writeStringField("email", email(owner(account)));
+                json.writeStringField("currency", randomCurrency());
+                json.writeStringField("accountType", "classic");
+            }
+            case "addFunds" -> {
+                json.writeStringField("account", referenceIban(account));
+                json.writeNumberField("amount", amount());
+            }
+            case "checkCardStatus", "deleteCard" -> {
+                int holder = pickAccountWithCard(account);
+                json.writeStringField("cardNumber", command.equals("deleteCard")
+                        ? consumeCard(holder, true) : referenceCard(holder));
+            }
+            case "cashWithdrawal" -> {
+                int holder = pickAccountWithCard(account);
+                json.writeStringField("cardNumber", referenceCard(holder));
+                json.writeNumberField("amount", amount());
+                json.writeStringField("email", email(owner(holder)));
+                json.writeStringField("location", "ATM");
+            }
+            case "createCard", "createOneTimeCard", "deleteAccount" -> {
+                json.writeStringField("email", email(owner(account)));
+                json.writeStringField("account", referenceIban(account));
+            }
+            case "setAlias" -> {
+                json.writeStringField("email", email(owner(account)));
+                json.writeStringField("alias", "alias" + account);
+                json.writeStringField("account", referenceIban(account));
+            }
+            case "setMinimumBalance" -> {
+                json.writeStringField("account", referenceIban(account));
+                json.writeNumberField("amount", random.nextInt(MAX_AMOUNT));
+            }
+            case "addInterest", "changeInterestRate" -> {
+                json.writeStringField("account", referenceIban(account));
+                json.writeNumberField("interestRate",
+                        INTEREST_STEP * (1 + random.nextInt(INTEREST_STEPS)));
+            }
+            case "withdrawSavings" -> {
+                json.writeStringField("account", referenceIban(account));
+                json.writeNumberField("amount", amount());
+                json.writeStringField("currency", randomCurrency());
+            }
+            case "upgradePlan" -> {
+                // the bank fails hard on an unknown IBAN here, so only known ones are sent
+                json.writeStringField("account", iban(account));
+                json.writeStringField("newPlanType", PLANS[random.nextInt(PLANS.length)]);
+            }
+            default -> {
+                // printUsers and unknown command names carry only the timestamp
+            }
+        }
+        json.writeEndObject();
+    }
+
+    /**
+     * Opens a command object with its name and the next timestamp.
+     *
+     * @param json    the output
+     * @param command the command name
+     * @throws IOException if writing fails
+     */
+    private void startCommand(final JsonGenerator json, final String command)
+            throws IOException {
+        json.writeStartObject();
+        json.writeStringField("command", command);
+        json.writeNumberField("timestamp", timestamp++);
+    }
+
+    /**
+     * Draws a command name from the mix.
+     *
+     * @return the command name
+     */
+    private String drawCommand() {
+        int draw = random.nextInt(mixThresholds[mixThresholds.length - 1]);
+        int index = Arrays.binarySearch(mixThresholds, draw + 1);
+        return mixCommands[index >= 0 ? index : -index - 1];
+    }
+
+    /**
+     * Picks an account by popularity.
+     *
+     * @return the account number
+     */
+    private int pickAccount() {
+        return accountsByRank.length == 0 ? 0 : accountsByRank[popularity.sample(random) - 1];
+    }
+
+    /**
+     * Picks an account whose card is still known: the given one, else one drawn by
+     * popularity, else the next one found after a random account.
+     *
+     * @param preferred the account to use if its card is known
+     * @return the account number; an account without a known card if none was found
+     */
+    private int pickAccountWithCard(final int preferred) {
+        if (cards.length == 0) {
+            return preferred;
+        }
+        int account = preferred;
+        for (int i = 0; i < CARD_ATTEMPTS && cards[account] == IdentifierCodes.NONE; i++) {
+            account = pickAccount();
+        }
+        if (cards[account] == IdentifierCodes.NONE) {
+            int start = random.nextInt(cards.length);
+            for (int i = 0; i < Math.min(CARD_SCAN_LIMIT, cards.length); i++) {
+                int candidate = (start + i) % cards.length;
+                if (cards[candidate] != IdentifierCodes.NONE) {
+                    return candidate;
+                }
+            }
+        }
+        return account;
+    }
+
+    /**
+     * Returns the card of an account for a command that may replace or destroy it, and
+     * stops referencing the card if it does: a payment replaces a one-time card, a
+     * deletion destroys any card.
+     *
+     * @param account   the account number
+     * @param destroyed whether the command destroys any card, not only one-time cards
+     * @return the card number
+     */
+    private String consumeCard(final int account, final boolean destroyed) {
+        String card = referenceCard(account);
+        if (account < cards.length && (destroyed || oneTimeCards[account])) {
+            cards[account] = IdentifierCodes.NONE;
+        }
+        return card;
+    }
+
+    /**
+     * Returns the card of an account, or an unknown card number for an
+     * {@code unknownRatio} share of the references and for accounts without a known card.
+     *
+     * @param account the account number
+     * @return the card number
+     */
+    private String referenceCard(final int account) {
+        if (account >= cards.length || cards[account] == IdentifierCodes.NONE
+                || random.nextDouble() < spec.getUnknownRatio()) {
+            return randomDigits();
+        }
+        return IdentifierCodes.cardToString(cards[account]);
+    }
+
+    /**
+     * Returns the IBAN of an account, or an unknown IBAN for an {@code unknownRatio}
+     * share of the references.
+     *
+     * @param account the account number
+     * @return the IBAN
+     */
+    private String referenceIban(final int account) {
+        if (account >= ibans.length || random.nextDouble() < spec.getUnknownRatio()) {
+            return unknownIban();
+        }
+        return iban(account);
+    }
+
+    /**
+     * Returns the IBAN of an account.
+     *
+     * @param account the account number
+     * @return the IBAN
+     */
+    private String iban(final int account) {
+        return IdentifierCodes.ibanToString(ibans[account]);
+    }
+
+    /**
+     * Returns a random IBAN of the bank's shape, almost certainly never issued.
+     *
+     * @return the IBAN
+     */
+    private String unknownIban() {
+        return "RO" + random.nextInt(RADIX) + random.nextInt(RADIX) + "POOB" + randomDigits();
+    }
+
+    /**
+     * Returns sixteen random digits.
+     *
+     * @return the digits
+     */
+    private String randomDigits() {
+        StringBuilder digits = new StringBuilder(ID_DIGITS);
+        for (int i = 0; i < ID_DIGITS; i++) {
+            digits.append((char) ('0' + random.nextInt(RADIX)));
+        }
+        return digits.toString();
+    }
+
+    /**
+     * Draws an amount with two decimals.
+     *
+     * @return the amount
+     */
+    private double amount() {
+        return (1 + random.nextInt(MAX_AMOUNT * (int) CENTS)) / CENTS;
+    }
+
+    /**
+     * Draws a currency.
+     *
+     * @return the currency name
+     */
+    private String randomCurrency() {
+        return currencies[random.nextInt(currencies.length)];
+    }
+
+    /**
+     * Returns the user owning an account opened in the setup phase.
+     *
+     * @param account the account number
+     * @return the user number
+     */
+    private int owner(final int account) {
+        return account / Math.max(1, spec.getAccountsPerUser());
+    }
+
+    /**
+     * Returns the email of a user.
+     *
+     * @param user the user number
+     * @return the email
+     */
+    private static String email(final int user) {
+        return "user" + user + "@load.test";
+    }
+
+    /**
+     * Returns the name of a commerciant.
+     *
+     * @param commerciant the commerciant number
+     * @return the name
+     */
+    private static String commerciant(final int commerciant) {
+        return "Commerciant" + commerciant;
+    }
+
+    /**
+     * Returns {@code 0..n-1} in a random order, shuffled with {@link #random}.
+     *
+     * @param n the number of values
+     * @return the permutation
+     */
+    private int[] shuffledRange(final int n) {
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+        return values;
+    }
+
+    /**
+     * @param args the output file, then optionally the number of traffic commands and
+     *             the seed
+     * @throws IOException if writing fails
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: WorkloadGenerator <output file> [commands] [seed]");
+            return;
+        }
+        WorkloadSpec spec = WorkloadSpec.fromSystemProperties();
+        if (args.length > 1) {
+            spec.setCommands(Long.parseLong(args[1]));
+        }
+        if (args.length > 2) {
+            spec.setSeed(Long.parseLong(args[2]));
+        }
+
+        Path file = Path.of(args[0]);
+        long start = System.nanoTime();
+        new WorkloadGenerator(spec).write(file);
+        System.out.printf("%s: %d users, %d accounts, %d traffic commands, %d bytes in %d ms%n",
+                file, spec.getUsers(), spec.getUsers() * spec.getAccountsPerUser(),
+                spec.getCommands(), Files.size(file), (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,247 @@
+package org.poo.workload;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shape of a generated workload: how many users, accounts and commands, which commands in
+ * which proportion, and how skewed, connected and card-heavy the bank is. Every setting
+ * can be read from a {@code workload.*} system property by {@link #fromSystemProperties()}.
+ */
+public final class WorkloadSpec {
+
+    /**
+     * Prefix of the system properties.
+     */
+    public static final String PROPERTY_PREFIX = "workload.";
+
+    /**
+     * Default weights of the commands, roughly the mix seen in production.
+     */
+    private static final String DEFAULT_MIX = "payOnline=40,sendMoney=15,addFunds=8,"
+            + "checkCardStatus=5,report=4,spendingsReport=4,printTransactions=4,"
+            + "splitPayment=4,cashWithdrawal=4,setMinimumBalance=2,setAlias=2,upgradePlan=2,"
+            + "withdrawSavings=2,addInterest=1,changeInterestRate=1,createCard=1,"
+            + "createOneTimeCard=1,deleteCard=1,addAccount=1,deleteAccount=1";
+
+    /**
+     * Seed of every random choice.
+     */
+    private long seed = 1;
+
+    /**
+     * Number of users.
+     */
+    private int users = 10_000;
+
+    /**
+     * Number of accounts opened per user before the traffic starts.
+     */
+    private int accountsPerUser = 2;
+
+    /**
+     * Number of traffic commands, after the setup commands.
+     */
+    private long commands = 1_000_000;
+
+    /**
+     * Exponent of the Zipf distribution of account popularity; 0 is uniform.
+     */
+    private double zipfExponent = 1.0;
+
+    /**
+     * Number of currencies.
+     */
+    private int currencies = 6;
+
+    /**
+     * Share of the currency pairs beyond a spanning tree that get a direct rate: 0 makes
+     * conversions walk a tree, 1 gives every pair a rate.
+     */
+    private double rateDensity = 0.2;
+
+    /**
+     * Share of the accounts whose card is a one-time card.
+     */
+    private double oneTimeCardRatio = 0.1;
+
+    /**
+     * Share of the accounts opened as savings accounts.
+     */
+    private double savingsRatio = 0.2;
+
+    /**
+     * Share of the card number and IBAN references replaced by unknown ones.
+     */
+    private double unknownRatio = 0.02;
+
+    /**
+     * Number of commerciants.
+     */
+    private int commerciants = 50;
+
+    /**
+     * Weight of every command in the traffic, by command name.
+     */
+    private Map<String, Integer> mix = parseMix(DEFAULT_MIX);
+
+    /**
+     * Reads a spec from the {@code workload.*} system properties, keeping the defaults
+     * for the missing ones.
+     *
+     * @return the spec
+     */
+    public static WorkloadSpec fromSystemProperties() {
+        WorkloadSpec spec = new WorkloadSpec();
+        spec.seed = Long.getLong(PROPERTY_PREFIX + "seed", spec.seed);
+        spec.users = Integer.getInteger(PROPERTY_PREFIX + "users", spec.users);
+        spec.accountsPerUser = Integer.getInteger(PROPERTY_PREFIX + "accountsPerUser",
+                spec.accountsPerUser);
+        spec.commands = Long.getLong(PROPERTY_PREFIX + "commands", spec.commands);
+        spec.zipfExponent = doubleProperty("zipf", spec.zipfExponent);
+        spec.currencies = Integer.getInteger(PROPERTY_PREFIX + "currencies",
+                spec.currencies);
+        spec.rateDensity = doubleProperty("rateDensity", spec.rateDensity);
+        spec.oneTimeCardRatio = doubleProperty("oneTimeCardRatio", spec.oneTimeCardRatio);
+        spec.savingsRatio = doubleProperty("savingsRatio", spec.savingsRatio);
+        spec.unknownRatio = doubleProperty("unknownRatio", spec.unknownRatio);
+        spec.commerciants = Integer.getInteger(PROPERTY_PREFIX + "commerciants",
+                spec.commerciants);
+        String mix = System.getProperty(PROPERTY_PREFIX + "mix");
+        if (mix != null) {
+            spec.mix = parseMix(mix);
+        }
+        return spec;
+    }
+
+    /**
+     * Parses a command mix such as {@code "payOnline=40,sendMoney=15"}.
+     *
+     * @param mix the mix
+     * @return the weights by command name, in the given order
+     * @throws IllegalArgumentException if an entry is malformed or a weight negative
+     */
+    public static Map<String, Integer> parseMix(final String mix) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight: " + entry);
+            }
+            weights.put(parts[0].trim(), weight);
+        }
+        return weights;
+    }
+
+    /**
+     * Reads a double system property.
+     *
+     * @param name         the property name, without the prefix
+     * @param defaultValue the value if the property is missing
+     * @return the value
+     */
+    private static double doubleProperty(final String name, final double defaultValue) {
+        String value = System.getProperty(PROPERTY_PREFIX + name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(final long seed) {
+        this.seed = seed;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public void setUsers(final int users) {
+        this.users = users;
+    }
+
+    public int getAccountsPerUser() {
+        return accountsPerUser;
+    }
+
+    public void setAccountsPerUser(final int accountsPerUser) {
+        this.accountsPerUser = accountsPerUser;
+    }
+
+    public long getCommands() {
+        return commands;
+    }
+
+    public void setCommands(final long commands) {
+        this.commands = commands;
+    }
+
+    public double getZipfExponent() {
+        return zipfExponent;
+    }
+
+    public void setZipfExponent(final double zipfExponent) {
+        this.zipfExponent = zipfExponent;
+    }
+
+    public int getCurrencies() {
+        return currencies;
+    }
+
+    public void setCurrencies(final int currencies) {
+        this.currencies = currencies;
+    }
+
+    public double getRateDensity() {
+        return rateDensity;
+    }
+
+    public void setRateDensity(final double rateDensity) {
+        this.rateDensity = rateDensity;
+    }
+
+    public double getOneTimeCardRatio() {
+        return oneTimeCardRatio;
+    }
+
+    public void setOneTimeCardRatio(final double oneTimeCardRatio) {
+        this.oneTimeCardRatio = oneTimeCardRatio;
+    }
+
+    public double getSavingsRatio() {
+        return savingsRatio;
+    }
+
+    public void setSavingsRatio(final double savingsRatio) {
+        this.savingsRatio = savingsRatio;
+    }
+
+    public double getUnknownRatio() {
+        return unknownRatio;
+    }
+
+    public void setUnknownRatio(final double unknownRatio) {
+        this.unknownRatio = unknownRatio;
+    }
+
+    public int getCommerciants() {
+        return commerciants;
+    }
+
+    public void setCommerciants(final int commerciants) {
+        this.commerciants = commerciants;
+    }
+
+    public Map<String, Integer> getMix() {
+        return mix;
+    }
+
+    public void setMix(final Map<String, Integer> mix) {
+        this.mix = mix;
+    }
+}
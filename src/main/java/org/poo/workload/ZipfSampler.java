@@ -0,0 +1,141 @@
+package org.poo.workload;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Draws ranks {@code 1..n} with probability proportional to {@code 1 / rank^exponent},
+ * by rejection-inversion (Hörmann and Derflinger, "Rejection-inversion to generate
+ * variates from monotone discrete distributions", 1996). Sampling takes constant
+ * expected time and no tables, so {@code n} can be in the millions. An exponent of 0 is
+ * the uniform distribution.
+ */
+public final class ZipfSampler {
+
+    /**
+     * Below this magnitude the helper functions use their Taylor expansions.
+     */
+    private static final double TAYLOR_THRESHOLD = 1e-8;
+
+    /**
+     * Number of ranks.
+     */
+    private final int n;
+
+    /**
+     * The exponent.
+     */
+    private final double exponent;
+
+    /**
+     * {@code H(1.5) - 1}.
+     */
+    private final double hIntegralX1;
+
+    /**
+     * {@code H(n + 0.5)}.
+     */
+    private final double hIntegralN;
+
+    /**
+     * Acceptance shortcut: ranks closer than this to the inverted value are accepted.
+     */
+    private final double squeeze;
+
+    /**
+     * Creates a sampler.
+     *
+     * @param n        the number of ranks, at least 1
+     * @param exponent the exponent, non-negative
+     */
+    public ZipfSampler(final int n, final double exponent) {
+        if (n < 1 || exponent < 0) {
+            throw new IllegalArgumentException("Invalid Zipf parameters: n=" + n
+                    + ", exponent=" + exponent);
+        }
+        this.n = n;
+        this.exponent = exponent;
+        this.hIntegralX1 = hIntegral(1.5) - 1;
+        this.hIntegralN = hIntegral(n + 0.5);
+        this.squeeze = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    /**
+     * Draws a rank.
+     *
+     * @param random the source of randomness
+     * @return the rank, between 1 and {@code n}
+     */
+    public int sample(final RandomGenerator random) {
+        while (true) {
+            double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+            double x = hIntegralInverse(u);
+            int k = (int) (x + 0.5);
+            if (k < 1) {
+                k = 1;
+            } else if (k > n) {
+                k = n;
+            }
+            if (k - x <= squeeze || u >= hIntegral(k + 0.5) - h(k)) {
+                return k;
+            }
+        }
+    }
+
+    /**
+     * Returns the unnormalized probability of a rank, {@code x^-exponent}.
+     *
+     * @param x the rank
+     * @return the weight
+     */
+    private double h(final double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    /**
+     * Returns an antiderivative of {@link #h(double)}.
+     *
+     * @param x the argument
+     * @return {@code H(x)}
+     */
+    private double hIntegral(final double x) {
+        double logX = Math.log(x);
+        return helper2((1 - exponent) * logX) * logX;
+    }
+
+    /**
+     * Returns the inverse of {@link #hIntegral(double)}.
+     *
+     * @param x the argument
+     * @return {@code H^-1(x)}
+     */
+    private double hIntegralInverse(final double x) {
+        double t = Math.max(-1, x * (1 - exponent));
+        return Math.exp(helper1(t) * x);
+    }
+
+    /**
+     * Returns {@code log(1 + x) / x}, also near 0.
+     *
+     * @param x the argument
+     * @return the value
+     */
+    private static double helper1(final double x) {
+        if (Math.abs(x) > TAYLOR_THRESHOLD) {
+            return Math.log1p(x) / x;
+        }
+        return 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+    }
+
+    /**
+     * Returns {@code (exp(x) - 1) / x}, also near 0.
+     *
+     * @param x the argument
+     * @return the value
+     */
+    private static double helper2(final double x) {
+        if (Math.abs(x) > TAYLOR_THRESHOLD) {
+            return Math.expm1(x) / x;
+        }
+        return 1 + x * 0.5 * (1 + x * (1.0 / 3) * (1 + 0.25 * x));
+    }
+}
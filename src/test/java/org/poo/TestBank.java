@@ -0,0 +1,264 @@
+package org.poo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.poo.entities.Account;
+import org.poo.entities.User;
+import org.poo.entities.ValutarCourse;
+import org.poo.fileio.CommandInput;
+import org.poo.fileio.UserInput;
+import org.poo.main.Main;
+import org.poo.persistence.BankSnapshot;
+import org.poo.server.BankServer;
+import org.poo.storage.BankIndex;
+import org.poo.utils.Utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A seeded bank for the tests, built through the commands of a {@link BankServer}: users
+ * with a RON and a EUR account each, funded and carded, then a run of card payments and
+ * transfers between random accounts, some of them refused. The same seed always builds
+ * the same bank.
+ *
+ * <p>Building a bank resets the process-wide index and identifier generators, so only
+ * one bank is live at a time.
+ */
+public final class TestBank {
+
+    /**
+     * Currencies of the accounts of every user.
+     */
+    private static final String[] CURRENCIES = {"RON", "EUR"};
+
+    /**
+     * Value of a euro in lei.
+     */
+    private static final double EUR_IN_RON = 5.0;
+
+    /**
+     * Funds added to every account.
+     */
+    private static final double OPENING_FUNDS = 500;
+
+    /**
+     * Largest amount of a payment or transfer.
+     */
+    private static final int MAX_AMOUNT = 120;
+
+    /**
+     * Merchants of the card payments.
+     */
+    private static final String[] COMMERCIANTS = {"Shop", "Fuel", "Books", "Cinema"};
+
+    /**
+     * Maps the outputs back to plain JSON trees.
+     */
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * The server holding the bank.
+     */
+    private final BankServer server;
+
+    /**
+     * The users.
+     */
+    private final List<User> users;
+
+    /**
+     * The exchange rates.
+     */
+    private final ArrayList<ValutarCourse> exchangeRates;
+
+    /**
+     * Timestamp of the last command run.
+     */
+    private int timestamp;
+
+    /**
+     * Builds a bank.
+     *
+     * @param userCount  the number of users
+     * @param operations the number of payments and transfers
+     * @param seed       the seed of the operations
+     */
+    public TestBank(final int userCount, final int operations, final long seed) {
+        BankIndex.reset();
+        Utils.resetRandom();
+        UserInput[] inputs = new UserInput[userCount];
+        for (int i = 0; i < userCount; i++) {
+            inputs[i] = new UserInput();
+            inputs[i].setFirstName("First" + i);
+            inputs[i].setLastName("Last" + i);
+            inputs[i].setEmail(email(i));
+        }
+        users = Main.createUsers(inputs);
+        exchangeRates = new ArrayList<>();
+        exchangeRates.add(new ValutarCourse("EUR", "RON", EUR_IN_RON));
+        server = new BankServer(users, exchangeRates);
+
+        for (int i = 0; i < userCount; i++) {
+            for (String currency : CURRENCIES) {
+                CommandInput add = command("addAccount");
+                add.setEmail(email(i));
+                add.setCurrency(currency);
+                add.setAccountType("classic");
+                run(add);
+            }
+            for (Account account : users.get(i).getAccounts()) {
+                CommandInput funds = command("addFunds");
+                funds.setAccount(account.getIban());
+                funds.setAmount(OPENING_FUNDS);
+                run(funds);
+
+                CommandInput card = command("createCard");
+                card.setEmail(email(i));
+                card.setAccount(account.getIban());
+                run(card);
+            }
+        }
+
+        Random random = new Random(seed);
+        for (int i = 0; i < operations; i++) {
+            int owner = random.nextInt(userCount);
+            Account account = pick(users.get(owner), random);
+            if (random.nextBoolean()) {
+                CommandInput pay = command("payOnline");
+                pay.setEmail(email(owner));
+                pay.setCardNumber(account.getCards().get(0).getCardNumber());
+                pay.setAmount(random.nextInt(MAX_AMOUNT) + 1);
+                pay.setCurrency(CURRENCIES[random.nextInt(CURRENCIES.length)]);
+                pay.setCommerciant(COMMERCIANTS[random.nextInt(COMMERCIANTS.length)]);
+                pay.setDescription("Payment " + i);
+                run(pay);
+            } else {
+                Account receiver = pick(users.get(random.nextInt(userCount)), random);
+                CommandInput send = command("sendMoney");
+                send.setEmail(email(owner));
+                send.setAccount(account.getIban());
+                send.setReceiver(receiver.getIban());
+                send.setAmount(random.nextInt(MAX_AMOUNT) + 1);
+                send.setDescription("Transfer " + i);
+                run(send);
+            }
+        }
+    }
+
+    /**
+     * Wraps a bank restored from a snapshot.
+     *
+     * @param server    the server holding the restored bank
+     * @param users     the users
+     * @param rates     the exchange rates
+     * @param timestamp the timestamp of the last command run before the snapshot
+     */
+    private TestBank(final BankServer server, final List<User> users,
+                     final ArrayList<ValutarCourse> rates, final int timestamp) {
+        this.server = server;
+        this.users = users;
+        this.exchangeRates = rates;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Restores a bank from a snapshot, read into a freshly reset index.
+     *
+     * @param snapshot  the snapshot
+     * @param timestamp the timestamp of the last command run before the snapshot
+     * @return the bank
+     */
+    public static TestBank fromSnapshot(final BankSnapshot snapshot, final int timestamp) {
+        return new TestBank(BankServer.fromSnapshot(snapshot), snapshot.getUsers(),
+                snapshot.getExchangeRates(), timestamp);
+    }
+
+    /**
+     * Returns the email of a user.
+     *
+     * @param user the user number
+     * @return the email
+     */
+    public static String email(final int user) {
+        return "user" + user + "@bank.test";
+    }
+
+    /**
+     * Returns a command stamped after every command run so far.
+     *
+     * @param name the command name
+     * @return the command
+     */
+    public CommandInput command(final String name) {
+        CommandInput input = new CommandInput();
+        input.setCommand(name);
+        input.setTimestamp(++timestamp);
+        return input;
+    }
+
+    /**
+     * Runs a command.
+     *
+     * @param input the command
+     * @return its outputs, as plain JSON
+     */
+    public JsonNode run(final CommandInput input) {
+        try {
+            return mapper.readTree(mapper.writeValueAsBytes(server.execute(input)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the timestamp of the last command run.
+     *
+     * @return the timestamp
+     */
+    public int timestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns the server holding the bank.
+     *
+     * @return the server
+     */
+    public BankServer server() {
+        return server;
+    }
+
+    /**
+     * Returns the users.
+     *
+     * @return the users
+     */
+    public List<User> users() {
+        return users;
+    }
+
+    /**
+     * Returns the exchange rates.
+     *
+     * @return the exchange rates
+     */
+    public ArrayList<ValutarCourse> exchangeRates() {
+        return exchangeRates;
+    }
+
+    /**
+     * Picks one of the accounts of a user.
+     *
+     * @param user   the user
+     * @param random the source of the pick
+     * @return the account
+     */
+    private static Account pick(final User user, final Random random) {
+        List<Account> accounts = user.getAccounts();
+        return accounts.get(random.nextInt(accounts.size()));
+    }
+}
@@ -0,0 +1,154 @@
+package org.poo.commands;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.poo.TestBank;
+import org.poo.fileio.CommandInput;
+import org.poo.persistence.TransactionArchive;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The pages of {@link PrintTransactionsPage}, followed cursor to cursor, concatenate to
+ * the output of {@link PrintTransactions}.
+ */
+class PrintTransactionsPageTest {
+
+    /**
+     * Number of users of the bank.
+     */
+    private static final int USERS = 6;
+
+    /**
+     * Number of payments and transfers of the bank.
+     */
+    private static final int OPERATIONS = 600;
+
+    /**
+     * Largest page size checked.
+     */
+    private static final int MAX_PAGE_SIZE = 7;
+
+    /**
+     * Number of transactions a history keeps in memory when archiving.
+     */
+    private static final int HOT_LIMIT = 4;
+
+    /**
+     * The directory holding the archived segments.
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Keeps the histories of later tests in memory.
+     */
+    @AfterEach
+    void disableArchive() {
+        TransactionArchive.disable();
+    }
+
+    /**
+     * Reads the history of a user page by page.
+     *
+     * @param bank     runs the commands
+     * @param email    the user
+     * @param pageSize the page size
+     * @return the transactions of every page, in order
+     */
+    private static ArrayNode pages(final TestBank bank, final String email,
+                                   final int pageSize) {
+        ArrayNode transactions = JsonNodeFactory.instance.arrayNode();
+        String cursor = null;
+        do {
+            CommandInput page = bank.command("printTransactionsPage");
+            page.setEmail(email);
+            page.setPageSize(pageSize);
+            page.setCursor(cursor);
+            JsonNode output = bank.run(page).get(0).get("output");
+            ArrayNode printed = (ArrayNode) output.get("transactions");
+            assertTrue(printed.size() <= pageSize);
+            transactions.addAll(printed);
+            cursor = output.has("nextCursor") ? output.get("nextCursor").asText() : null;
+        } while (cursor != null);
+        return transactions;
+    }
+
+    /**
+     * Checks the pages of every user, for every page size up to {@link #MAX_PAGE_SIZE}.
+     *
+     * @param bank runs the commands
+     */
+    private static void checkPages(final TestBank bank) {
+        for (int user = 0; user < USERS; user++) {
+            CommandInput print = bank.command("printTransactions");
+            print.setEmail(TestBank.email(user));
+            JsonNode expected = bank.run(print).get(0).get("output");
+            for (int pageSize = 1; pageSize <= MAX_PAGE_SIZE; pageSize++) {
+                assertEquals(expected, pages(bank, TestBank.email(user), pageSize),
+                        TestBank.email(user) + " by " + pageSize);
+            }
+        }
+    }
+
+    /**
+     * Histories held in memory.
+     */
+    @Test
+    void pagesConcatenateToTheHistory() {
+        checkPages(new TestBank(USERS, OPERATIONS, 1));
+    }
+
+    /**
+     * Histories mostly archived in segments, pages starting inside them.
+     *
+     * @throws IOException if the archive directory cannot be set up
+     */
+    @Test
+    void pagesConcatenateToAnArchivedHistory() throws IOException {
+        TransactionArchive.configure(directory, HOT_LIMIT);
+        checkPages(new TestBank(USERS, OPERATIONS, 2));
+    }
+
+    /**
+     * Histories whose transactions were not added in timestamp order.
+     */
+    @Test
+    void pagesConcatenateToAnUnorderedHistory() {
+        TestBank bank = new TestBank(USERS, OPERATIONS, 3);
+        Random random = new Random(3);
+        for (int i = 0; i < OPERATIONS / 10; i++) {
+            CommandInput add = bank.command("addAccount");
+            add.setEmail(TestBank.email(random.nextInt(USERS)));
+            add.setCurrency("RON");
+            add.setAccountType("classic");
+            add.setTimestamp(random.nextInt(bank.timestamp()));
+            bank.run(add);
+        }
+        checkPages(bank);
+    }
+
+    /**
+     * A cursor that was not handed out by the command is refused.
+     */
+    @Test
+    void refusesForeignCursors() {
+        TestBank bank = new TestBank(USERS, OPERATIONS, 4);
+        for (String cursor : new String[] {"", ".", "zzzzzzzz.1", "nothing"}) {
+            CommandInput page = bank.command("printTransactionsPage");
+            page.setEmail(TestBank.email(0));
+            page.setCursor(cursor);
+            JsonNode output = bank.run(page).get(0).get("output");
+            assertEquals("Invalid cursor", output.get("description").asText(), cursor);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.poo.entities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Range sums of {@link AccountActivity} against a linear scan of the same totals.
+ */
+class AccountActivityTest {
+
+    /**
+     * Number of additions per tree.
+     */
+    private static final int ADDITIONS = 2_000;
+
+    /**
+     * Number of range sums checked per tree.
+     */
+    private static final int QUERIES = 2_000;
+
+    /**
+     * Largest total added at once.
+     */
+    private static final int MAX_TOTAL = 1_000_000;
+
+    /**
+     * Adds random totals to a tree and to a sorted map of the same totals.
+     *
+     * @param activity   the tree
+     * @param reference  the map
+     * @param random     the source of the keys and totals
+     * @param keyRange   the keys are drawn below it
+     * @param inOrderPct the percentage of keys drawn after every previous one
+     */
+    private static void fill(final AccountActivity activity,
+                             final TreeMap<Integer, long[]> reference, final Random random,
+                             final int keyRange, final int inOrderPct) {
+        int last = 0;
+        for (int i = 0; i < ADDITIONS; i++) {
+            int key;
+            if (random.nextInt(100) < inOrderPct) {
+                last += random.nextInt(3);
+                key = last;
+            } else {
+                key = random.nextInt(keyRange);
+            }
+            long[] totals = new long[AccountActivity.FIELDS];
+            for (int field = 0; field < totals.length; field++) {
+                totals[field] = random.nextInt(MAX_TOTAL) - MAX_TOTAL / 2;
+            }
+            activity.add(key, totals);
+            long[] sum = reference.computeIfAbsent(key, k -> new long[AccountActivity.FIELDS]);
+            for (int field = 0; field < totals.length; field++) {
+                sum[field] += totals[field];
+            }
+        }
+    }
+
+    /**
+     * Sums a range of keys by scanning the map.
+     *
+     * @param reference the map
+     * @param from      the start of the range, inclusive
+     * @param to        the end of the range, inclusive
+     * @return the totals
+     */
+    private static long[] scan(final TreeMap<Integer, long[]> reference, final int from,
+                               final int to) {
+        long[] totals = new long[AccountActivity.FIELDS];
+        for (Map.Entry<Integer, long[]> entry : reference.entrySet()) {
+            if (entry.getKey() >= from && entry.getKey() <= to) {
+                for (int field = 0; field < totals.length; field++) {
+                    totals[field] += entry.getValue()[field];
+                }
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Checks random ranges, including empty and reversed ones, against the scan.
+     *
+     * @param activity  the tree
+     * @param reference the map
+     * @param random    the source of the ranges
+     * @param keyRange  the ranges are drawn around the keys below it
+     */
+    private static void check(final AccountActivity activity,
+                              final TreeMap<Integer, long[]> reference, final Random random,
+                              final int keyRange) {
+        assertEquals(reference.size(), activity.size());
+        for (int i = 0; i < QUERIES; i++) {
+            int from = random.nextInt(keyRange + 2) - 1;
+            int to = random.nextInt(keyRange + 2) - 1;
+            long[] totals = new long[AccountActivity.FIELDS];
+            activity.sum(from, to, totals);
+            assertArrayEquals(scan(reference, from, to), totals, "[" + from + ", " + to + "]");
+        }
+        long[] all = new long[AccountActivity.FIELDS];
+        activity.sum(Integer.MIN_VALUE, Integer.MAX_VALUE, all);
+        assertArrayEquals(scan(reference, Integer.MIN_VALUE, Integer.MAX_VALUE), all);
+    }
+
+    /**
+     * Keys in order, as timestamps mostly come, with repeated keys.
+     */
+    @Test
+    void sumsKeysAddedInOrder() {
+        Random random = new Random(1);
+        AccountActivity activity = new AccountActivity();
+        TreeMap<Integer, long[]> reference = new TreeMap<>();
+        fill(activity, reference, random, ADDITIONS, 100);
+        check(activity, reference, random, reference.lastKey());
+    }
+
+    /**
+     * Keys out of order, inserted before existing ones.
+     */
+    @Test
+    void sumsKeysAddedOutOfOrder() {
+        Random random = new Random(2);
+        AccountActivity activity = new AccountActivity();
+        TreeMap<Integer, long[]> reference = new TreeMap<>();
+        fill(activity, reference, random, ADDITIONS, 70);
+        check(activity, reference, random, reference.lastKey());
+    }
+
+    /**
+     * A cleared tree sums nothing and is refilled from scratch.
+     */
+    @Test
+    void sumsAfterClear() {
+        Random random = new Random(3);
+        AccountActivity activity = new AccountActivity();
+        fill(activity, new TreeMap<>(), random, ADDITIONS, 90);
+
+        activity.clear();
+        long[] none = new long[AccountActivity.FIELDS];
+        activity.sum(Integer.MIN_VALUE, Integer.MAX_VALUE, none);
+        assertArrayEquals(new long[AccountActivity.FIELDS], none);
+
+        TreeMap<Integer, long[]> reference = new TreeMap<>();
+        fill(activity, reference, random, ADDITIONS, 90);
+        check(activity, reference, random, reference.lastKey());
+    }
+
+    /**
+     * Amounts are rounded to whole cents, whatever their binary representation.
+     */
+    @Test
+    void roundsAmountsToCents() {
+        assertEquals(30, AccountActivity.cents(0.1 + 0.2));
+        assertEquals(-1234, AccountActivity.cents(-12.34));
+        assertEquals(1999, AccountActivity.cents(19.99));
+    }
+}
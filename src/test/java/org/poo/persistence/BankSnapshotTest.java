@@ -0,0 +1,127 @@
+package org.poo.persistence;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.poo.TestBank;
+import org.poo.entities.ValutarCourse;
+import org.poo.fileio.CommandInput;
+import org.poo.storage.BankIndex;
+import org.poo.utils.Utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Round trips of the bank state through a {@link BankSnapshot}.
+ */
+class BankSnapshotTest {
+
+    /**
+     * Number of users of the bank.
+     */
+    private static final int USERS = 8;
+
+    /**
+     * Number of payments and transfers of the bank.
+     */
+    private static final int OPERATIONS = 400;
+
+    /**
+     * Sequence number recorded in the snapshot.
+     */
+    private static final long JOURNAL_SEQUENCE = 42;
+
+    /**
+     * The directory holding the snapshot.
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Lists the users and the transactions of every user.
+     *
+     * @param bank  runs the commands
+     * @param users the number of users
+     * @return the outputs, by command
+     */
+    private static ObjectNode listing(final TestBank bank, final int users) {
+        ObjectNode listing = JsonNodeFactory.instance.objectNode();
+        listing.set("printUsers", bank.run(bank.command("printUsers")));
+        for (int i = 0; i < users; i++) {
+            CommandInput print = bank.command("printTransactions");
+            print.setEmail(TestBank.email(i));
+            listing.set(TestBank.email(i), bank.run(print));
+        }
+        return listing;
+    }
+
+    /**
+     * Opens an account and a card for the first user.
+     *
+     * @param bank runs the commands
+     * @return the users afterwards, with the new IBAN and card number
+     */
+    private static JsonNode openAccount(final TestBank bank) {
+        CommandInput add = bank.command("addAccount");
+        add.setEmail(TestBank.email(0));
+        add.setCurrency("RON");
+        add.setAccountType("savings");
+        add.setInterestRate(0.1);
+        bank.run(add);
+        String iban = bank.users().get(0).getAccounts().getLast().getIban();
+
+        CommandInput card = bank.command("createCard");
+        card.setEmail(TestBank.email(0));
+        card.setAccount(iban);
+        bank.run(card);
+        return bank.run(bank.command("printUsers"));
+    }
+
+    /**
+     * A restored bank lists the same users, accounts, cards and transactions, and its
+     * generators issue the identifiers the original would have issued next.
+     *
+     * @throws IOException if the snapshot cannot be written or read
+     */
+    @Test
+    void restoresTheStateAndTheGenerators() throws IOException {
+        Path file = directory.resolve("bank.snapshot");
+        TestBank bank = new TestBank(USERS, OPERATIONS, 1);
+        int timestamp = bank.timestamp();
+        BankSnapshot.write(file, bank.users(), bank.exchangeRates(), JOURNAL_SEQUENCE);
+        ObjectNode expected = listing(bank, USERS);
+        JsonNode expectedNext = openAccount(bank);
+
+        BankIndex.reset();
+        Utils.resetRandom();
+        BankSnapshot snapshot = BankSnapshot.read(file);
+        assertEquals(JOURNAL_SEQUENCE, snapshot.getJournalSequence());
+        ValutarCourse rate = snapshot.getExchangeRates().get(0);
+        assertEquals("EUR", rate.getFrom());
+        assertEquals("RON", rate.getTo());
+        assertEquals(bank.exchangeRates().get(0).getRate(), rate.getRate());
+
+        TestBank restored = TestBank.fromSnapshot(snapshot, timestamp);
+        assertEquals(expected, listing(restored, USERS));
+        assertEquals(expectedNext, openAccount(restored));
+    }
+
+    /**
+     * A file that is not a snapshot is refused.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    @Test
+    void refusesOtherFiles() throws IOException {
+        Path file = directory.resolve("other");
+        Files.writeString(file, "not a snapshot at all");
+        assertThrows(IOException.class, () -> BankSnapshot.read(file));
+    }
+}
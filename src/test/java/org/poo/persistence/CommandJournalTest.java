@@ -0,0 +1,181 @@
+package org.poo.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.poo.fileio.CommandInput;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Recovery of a {@link CommandJournal} whose file was cut or corrupted by a crash.
+ */
+class CommandJournalTest {
+
+    /**
+     * Number of records written before the crash.
+     */
+    private static final int RECORDS = 50;
+
+    /**
+     * Size of a record header: body length, CRC32 and sequence number.
+     */
+    private static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES + Long.BYTES;
+
+    /**
+     * The directory holding the journal.
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Builds a journaled command.
+     *
+     * @param n varies the values
+     * @return the command
+     */
+    private static CommandInput command(final int n) {
+        CommandInput input = new CommandInput();
+        input.setCommand("addFunds");
+        input.setAccount("RO" + n + "POOB");
+        input.setAmount(n + 0.5);
+        input.setTimestamp(n);
+        return input;
+    }
+
+    /**
+     * Opens a journal that syncs every record at once.
+     *
+     * @param file the journal file
+     * @return the journal
+     * @throws IOException if the file cannot be opened
+     */
+    private static CommandJournal open(final Path file) throws IOException {
+        return new CommandJournal(file, 1, Duration.ZERO, false);
+    }
+
+    /**
+     * Writes {@link #RECORDS} commands to a new journal.
+     *
+     * @param file the journal file
+     * @return the commands
+     * @throws IOException if the journal cannot be written
+     */
+    private static List<CommandInput> write(final Path file) throws IOException {
+        List<CommandInput> commands = new ArrayList<>();
+        try (CommandJournal journal = open(file)) {
+            journal.recover(0, command -> { });
+            for (int n = 1; n <= RECORDS; n++) {
+                commands.add(command(n));
+                journal.awaitDurable(journal.append(command(n)));
+            }
+        }
+        return commands;
+    }
+
+    /**
+     * Recovers a journal, collecting the replayed commands.
+     *
+     * @param file          the journal file
+     * @param afterSequence only records after it are replayed
+     * @param replayed      receives the replayed commands
+     * @return the recovered journal, ready for appending
+     * @throws IOException if the journal cannot be read
+     */
+    private static CommandJournal recover(final Path file, final long afterSequence,
+                                          final List<CommandInput> replayed)
+            throws IOException {
+        CommandJournal journal = open(file);
+        journal.recover(afterSequence, replayed::add);
+        return journal;
+    }
+
+    /**
+     * A record cut short is dropped with whatever follows, and new records are appended
+     * right after the last intact one.
+     *
+     * @throws IOException if the journal cannot be used
+     */
+    @Test
+    void truncatesATornTailAndAppendsAfterIt() throws IOException {
+        Path file = directory.resolve("journal");
+        List<CommandInput> written = write(file);
+        long intact = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(intact - 3);
+        }
+
+        List<CommandInput> replayed = new ArrayList<>();
+        try (CommandJournal journal = recover(file, 0, replayed)) {
+            assertEquals(written.subList(0, RECORDS - 1), replayed);
+            assertEquals(RECORDS - 1, journal.lastSequence());
+            journal.awaitDurable(journal.append(command(0)));
+        }
+
+        replayed.clear();
+        try (CommandJournal journal = recover(file, RECORDS - 2, replayed)) {
+            assertEquals(List.of(written.get(RECORDS - 2), command(0)), replayed);
+            assertEquals(RECORDS, journal.lastSequence());
+        }
+    }
+
+    /**
+     * A record whose body no longer matches its checksum ends the journal.
+     *
+     * @throws IOException if the journal cannot be used
+     */
+    @Test
+    void stopsAtACorruptRecord() throws IOException {
+        Path file = directory.resolve("journal");
+        List<CommandInput> written = write(file);
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer records = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int corrupt = RECORDS / 2;
+        int offset = 0;
+        for (int i = 0; i < corrupt; i++) {
+            offset += HEADER_SIZE + records.getInt(offset);
+        }
+        bytes[offset + HEADER_SIZE] ^= 1;
+        Files.write(file, bytes);
+
+        List<CommandInput> replayed = new ArrayList<>();
+        try (CommandJournal journal = recover(file, 0, replayed)) {
+            assertEquals(written.subList(0, corrupt), replayed);
+            assertEquals(corrupt, journal.lastSequence());
+        }
+        assertEquals(offset, Files.size(file));
+    }
+
+    /**
+     * Records already in a snapshot are skipped and their numbers never reused.
+     *
+     * @throws IOException if the journal cannot be used
+     */
+    @Test
+    void skipsRecordsCoveredByASnapshot() throws IOException {
+        Path file = directory.resolve("journal");
+        List<CommandInput> written = write(file);
+
+        List<CommandInput> replayed = new ArrayList<>();
+        try (CommandJournal journal = recover(file, RECORDS - 10, replayed)) {
+            assertEquals(written.subList(RECORDS - 10, RECORDS), replayed);
+            assertEquals(RECORDS, journal.lastSequence());
+        }
+
+        replayed.clear();
+        try (CommandJournal journal = recover(file, RECORDS + 10, replayed)) {
+            assertEquals(List.of(), replayed);
+            assertEquals(RECORDS + 11, journal.append(command(0)));
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package org.poo.persistence;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.poo.entities.TransactionHistory;
+import org.poo.entities.Transactions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Segments of many histories share the files of a {@link TransactionArchive}, which are
+ * given back when the histories are released.
+ */
+class TransactionArchiveTest {
+
+    /**
+     * Number of histories filled.
+     */
+    private static final int HISTORIES = 50;
+
+    /**
+     * Number of transactions per history.
+     */
+    private static final int TRANSACTIONS = 40;
+
+    /**
+     * Number of transactions a history keeps in memory.
+     */
+    private static final int HOT_LIMIT = 4;
+
+    /**
+     * The archive directory.
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * Keeps the histories of later tests in memory.
+     */
+    @AfterEach
+    void disableArchive() {
+        TransactionArchive.disable();
+    }
+
+    /**
+     * Builds a transaction.
+     *
+     * @param history   the history it is added to
+     * @param timestamp the timestamp
+     * @return the transaction
+     */
+    private static Transactions transaction(final int history, final int timestamp) {
+        return new Transactions("addAccount", "History " + history, 0.0, null, null,
+                timestamp, null, null, null, null, null);
+    }
+
+    /**
+     * Fills histories, each with its own transactions.
+     *
+     * @return the histories
+     */
+    private static List<TransactionHistory> fill() {
+        List<TransactionHistory> histories = new ArrayList<>();
+        for (int i = 0; i < HISTORIES; i++) {
+            histories.add(new TransactionHistory());
+        }
+        for (int timestamp = 0; timestamp < TRANSACTIONS; timestamp++) {
+            for (int i = 0; i < HISTORIES; i++) {
+                histories.get(i).add(transaction(i, timestamp));
+            }
+        }
+        return histories;
+    }
+
+    /**
+     * Checks that a history reads back its transactions.
+     *
+     * @param history the history
+     * @param index   its position in {@link #fill()}
+     */
+    private static void check(final TransactionHistory history, final int index) {
+        assertEquals(TRANSACTIONS, history.size());
+        for (int timestamp = 0; timestamp < TRANSACTIONS; timestamp++) {
+            assertEquals(timestamp, history.get(timestamp).getTimestamp());
+            assertEquals("History " + index, history.get(timestamp).getDescription());
+        }
+    }
+
+    /**
+     * Counts the files of the archive directory.
+     *
+     * @return the file count
+     * @throws IOException if the directory cannot be listed
+     */
+    private long filesOnDisk() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    /**
+     * The segments of every history go to a single file, and releasing the histories
+     * leaves it empty for the next ones.
+     *
+     * @throws IOException if the archive cannot be set up
+     */
+    @Test
+    void sharesFilesAndReusesThemOnRelease() throws IOException {
+        TransactionArchive.configure(directory, HOT_LIMIT);
+        TransactionArchive archive = TransactionArchive.current();
+        List<TransactionHistory> histories = fill();
+        for (int i = 0; i < HISTORIES; i++) {
+            assertTrue(histories.get(i).getSegmentCount() > 1);
+            check(histories.get(i), i);
+        }
+        assertEquals(1, archive.getFileCount());
+        assertEquals(1, filesOnDisk());
+
+        for (TransactionHistory history : histories) {
+            history.release();
+        }
+        assertEquals(1, archive.getFileCount());
+
+        histories = fill();
+        for (int i = 0; i < HISTORIES; i++) {
+            check(histories.get(i), i);
+        }
+        assertEquals(1, filesOnDisk());
+    }
+
+    /**
+     * Transactions that cannot be sealed stay in memory and read back the same.
+     *
+     * @throws IOException if the archive cannot be set up
+     */
+    @Test
+    void keepsTransactionsInMemoryWhenSealingFails() throws IOException {
+        Path missing = directory.resolve("removed");
+        TransactionArchive.configure(missing, HOT_LIMIT);
+        Files.delete(missing);
+
+        List<TransactionHistory> histories = fill();
+        for (int i = 0; i < HISTORIES; i++) {
+            assertEquals(0, histories.get(i).getArchivedCount());
+            check(histories.get(i), i);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.poo.protocol;
+
+import org.junit.jupiter.api.Test;
+import org.poo.fileio.CommandInput;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.ProtocolException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Round trips of commands through {@link CommandEncoder} and {@link CommandDecoder}.
+ */
+class CommandCodecTest {
+
+    /**
+     * Builds a command setting every kind of field.
+     *
+     * @param command the command name
+     * @param n       varies the values
+     * @return the command
+     */
+    private static CommandInput sample(final String command, final int n) {
+        CommandInput input = new CommandInput();
+        input.setCommand(command);
+        input.setEmail("user" + n + "@bank.test");
+        input.setAccount("RO" + n + "POOB");
+        input.setCurrency(n % 2 == 0 ? "RON" : "EUR");
+        input.setDescription("Café n°" + n);
+        input.setCommerciant("Shop");
+        input.setTimestamp(n);
+        input.setStartTimestamp(-n);
+        input.setEndTimestamp(Integer.MAX_VALUE - n);
+        input.setAmount(n + 0.125);
+        input.setMinBalance(-n * 1e9);
+        input.setAccounts(List.of("RO1POOB", "RO" + n + "POOB"));
+        input.setAmountForUsers(List.of(1.5, (double) n));
+        input.setPageSize(n);
+        input.setCursor("c." + n);
+        return input;
+    }
+
+    /**
+     * Encodes commands in two frames and decodes them back.
+     *
+     * @param interning whether strings are interned
+     * @throws IOException never
+     */
+    private static void roundTrip(final boolean interning) throws IOException {
+        List<CommandInput> first = new ArrayList<>();
+        for (int n = 0; n < 20; n++) {
+            first.add(sample("payOnline", n));
+        }
+        CommandInput bare = new CommandInput();
+        bare.setCommand("printUsers");
+        first.add(bare);
+        List<CommandInput> second = List.of(sample("printTransactionsPage", 3),
+                sample("notInTheTable", 4));
+
+        CommandEncoder encoder = new CommandEncoder(interning);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        first.forEach(encoder::encode);
+        encoder.writeFrame(out);
+        second.forEach(encoder::encode);
+        encoder.writeFrame(out);
+
+        CommandDecoder decoder = new CommandDecoder(interning);
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        assertEquals(first, decoder.readFrame(in));
+        assertEquals(second, decoder.readFrame(in));
+        assertNull(decoder.readFrame(in));
+    }
+
+    /**
+     * Interned strings survive across frames of the same stream.
+     *
+     * @throws IOException never
+     */
+    @Test
+    void roundTripsWithInterning() throws IOException {
+        roundTrip(true);
+    }
+
+    /**
+     * Every string is a literal without interning.
+     *
+     * @throws IOException never
+     */
+    @Test
+    void roundTripsWithoutInterning() throws IOException {
+        roundTrip(false);
+    }
+
+    /**
+     * A frame longer than the limit is refused before its payload is read.
+     */
+    @Test
+    void rejectsFramesOverTheLimit() {
+        CommandEncoder encoder = new CommandEncoder();
+        encoder.encode(sample("payOnline", 1));
+        int limit = encoder.pendingBytes() - 1;
+        byte[] frame = encoder.toFrame();
+
+        CommandDecoder decoder = new CommandDecoder(true, limit);
+        assertThrows(ProtocolException.class,
+                () -> decoder.readFrame(new ByteArrayInputStream(frame)));
+    }
+
+    /**
+     * A payload cut inside a field is a protocol error, not a runtime exception.
+     */
+    @Test
+    void rejectsMalformedFrames() {
+        byte[] frame = {2, 1, (byte) 0xff};
+        assertThrows(ProtocolException.class,
+                () -> new CommandDecoder().readFrame(new ByteArrayInputStream(frame)));
+    }
+
+    /**
+     * A custom command whose name is the null string is refused instead of reaching the
+     * command factory without a name.
+     */
+    @Test
+    void rejectsCustomCommandsWithoutAName() {
+        byte[] frame = {3, BinaryFormat.CUSTOM_COMMAND, 0, BinaryFormat.END};
+        ProtocolException e = assertThrows(ProtocolException.class,
+                () -> new CommandDecoder().readFrame(new ByteArrayInputStream(frame)));
+        assertTrue(e.getMessage().contains("Missing command name"));
+    }
+}
@@ -0,0 +1,151 @@
+package org.poo.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.poo.fileio.CommandInput;
+import org.poo.storage.BankIndex;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Requests a {@link BankServer} cannot execute are answered in place, without ending the
+ * session or losing the replies of the rest of the batch.
+ */
+class ClientSessionTest {
+
+    /**
+     * How long to wait for the server to listen, in milliseconds.
+     */
+    private static final long START_TIMEOUT_MILLIS = 10_000;
+
+    /**
+     * Pause between two checks that the server listens, in milliseconds.
+     */
+    private static final long POLL_MILLIS = 10;
+
+    /**
+     * Maps the replies.
+     */
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * The directory holding the socket.
+     */
+    @TempDir
+    Path directory;
+
+    /**
+     * The server under test.
+     */
+    private BankServer server;
+
+    /**
+     * The socket the server listens on.
+     */
+    private UnixDomainSocketAddress address;
+
+    /**
+     * Starts an empty bank on a Unix-domain socket.
+     */
+    @BeforeEach
+    void startServer() {
+        BankIndex.reset();
+        server = new BankServer(new ArrayList<>(), new ArrayList<>());
+        address = UnixDomainSocketAddress.of(directory.resolve("bank.sock"));
+        Thread.ofPlatform().daemon().start(() -> {
+            try {
+                server.start(address);
+            } catch (IOException e) {
+                // the test fails on connecting
+            }
+        });
+    }
+
+    /**
+     * Connects to the server, waiting for it to listen.
+     *
+     * @return the connection
+     * @throws IOException if the server does not listen in time
+     */
+    private SocketChannel connect() throws IOException {
+        long deadline = System.currentTimeMillis() + START_TIMEOUT_MILLIS;
+        while (true) {
+            try {
+                return SocketChannel.open(address);
+            } catch (IOException e) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw e;
+                }
+            }
+            try {
+                Thread.sleep(POLL_MILLIS);
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+        }
+    }
+
+    /**
+     * Stops the server.
+     *
+     * @throws IOException if the server cannot be closed
+     */
+    @AfterEach
+    void stopServer() throws IOException {
+        server.close();
+    }
+
+    /**
+     * A command line without a name, or with a blank one, gets the unknown-command error
+     * and the lines after it are still answered.
+     *
+     * @throws IOException if the connection fails
+     */
+    @Test
+    void answersCommandsWithoutAName() throws IOException {
+        try (SocketChannel channel = connect()) {
+            String batch = "{}\n" + "{\"command\":\" \"}\n"
+                    + "{\"command\":\"printUsers\",\"timestamp\":1}\n";
+            channel.write(ByteBuffer.wrap(batch.getBytes(StandardCharsets.UTF_8)));
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    Channels.newInputStream(channel), StandardCharsets.UTF_8));
+
+            for (int i = 0; i < 2; i++) {
+                JsonNode reply = mapper.readTree(reader.readLine());
+                assertEquals(1, reply.size());
+                assertEquals("error", reply.get(0).get("status").asText());
+                assertTrue(reply.get(0).get("message").asText().startsWith("Unknown command"));
+            }
+            JsonNode printed = mapper.readTree(reader.readLine());
+            assertEquals("printUsers", printed.get(0).get("command").asText());
+        }
+    }
+
+    /**
+     * The server answers a nameless command directly as well.
+     */
+    @Test
+    void rejectsNamelessCommands() {
+        ArrayNode output = mapper.createArrayNode();
+        assertEquals(0, server.apply(new CommandInput(), output));
+        assertEquals("error", output.get(0).get("status").asText());
+    }
+}
@@ -0,0 +1,81 @@
+package org.poo.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rows of an {@link AccountTable} freed and allocated again.
+ */
+class AccountTableTest {
+
+    /**
+     * Number of rows allocated, more than a chunk holds.
+     */
+    private static final int ROWS = 70_000;
+
+    /**
+     * Balance written to the rows before they are freed.
+     */
+    private static final double BALANCE = 12.5;
+
+    /**
+     * A freed row is handed out again, reset to the values of a new row.
+     */
+    @Test
+    void reusesFreedRows() {
+        AccountTable table = new AccountTable();
+        int[] handles = new int[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            handles[i] = table.allocate();
+            table.setBalance(handles[i], BALANCE);
+            table.setMinimumBalance(handles[i], BALANCE);
+            table.setPlan(handles[i], "gold");
+            table.setCurrency(handles[i], "RON");
+            table.setType(handles[i], "savings");
+        }
+        long reserved = table.reservedBytes();
+
+        Set<Integer> freed = new HashSet<>();
+        for (int i = 0; i < ROWS; i += 2) {
+            table.free(handles[i]);
+            freed.add(handles[i]);
+        }
+        assertEquals(ROWS / 2, table.size());
+
+        for (int i = 0; i < ROWS; i += 2) {
+            int handle = table.allocate();
+            assertTrue(freed.remove(handle), "handle " + handle + " was not free");
+            assertEquals(0.0, table.getBalance(handle));
+            assertEquals(0.0, table.getMinimumBalance(handle));
+            assertEquals("standard", table.getPlan(handle));
+            assertNull(table.getCurrency(handle));
+            assertNull(table.getType(handle));
+        }
+        assertEquals(ROWS, table.size());
+        assertEquals(reserved, table.reservedBytes());
+        for (int i = 1; i < ROWS; i += 2) {
+            assertEquals(BALANCE, table.getBalance(handles[i]));
+            assertEquals("gold", table.getPlan(handles[i]));
+        }
+    }
+
+    /**
+     * Freeing a row twice is refused instead of handing it out to two accounts.
+     */
+    @Test
+    void refusesDoubleFree() {
+        AccountTable table = new AccountTable();
+        int handle = table.allocate();
+        table.allocate();
+        table.free(handle);
+        assertThrows(IllegalStateException.class, () -> table.free(handle));
+        assertEquals(1, table.size());
+    }
+}
@@ -0,0 +1,117 @@
+package org.poo.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The {@link CountingBloomFilter} never reports a present key as absent, whatever the
+ * sequence of additions, removals and refills.
+ */
+class CountingBloomFilterTest {
+
+    /**
+     * Number of keys the filters are sized for.
+     */
+    private static final int KEYS = 10_000;
+
+    /**
+     * Highest false-positive rate accepted for a filter that is not overloaded.
+     */
+    private static final double MAX_FALSE_POSITIVE_RATE = 0.05;
+
+    /**
+     * Counts the keys of a range that the filter lets through.
+     *
+     * @param filter the filter
+     * @param from   the first key
+     * @param count  the number of keys
+     * @return the number of keys reported as possibly present
+     */
+    private static int passed(final CountingBloomFilter filter, final long from,
+                              final int count) {
+        int passed = 0;
+        for (long key = from; key < from + count; key++) {
+            if (filter.mightContain(key)) {
+                passed++;
+            }
+        }
+        return passed;
+    }
+
+    /**
+     * Removing half of the keys leaves the other half present.
+     */
+    @Test
+    void keepsTheKeysNotRemoved() {
+        CountingBloomFilter filter = new CountingBloomFilter(KEYS);
+        for (long key = 0; key < KEYS; key++) {
+            filter.add(key);
+        }
+        assertEquals(KEYS, passed(filter, 0, KEYS));
+
+        for (long key = 0; key < KEYS; key += 2) {
+            filter.remove(key);
+        }
+        assertEquals(KEYS / 2, filter.size());
+        for (long key = 1; key < KEYS; key += 2) {
+            assertTrue(filter.mightContain(key), "lost key " + key);
+        }
+        assertTrue(passed(filter, KEYS, KEYS) < KEYS * MAX_FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * A key added more times than a counter can count stays present until it is removed
+     * as many times, since saturated counters never go down.
+     */
+    @Test
+    void survivesSaturatedCounters() {
+        CountingBloomFilter filter = new CountingBloomFilter(1);
+        long key = 7;
+        for (int i = 0; i < 40; i++) {
+            filter.add(key);
+        }
+        for (int i = 0; i < 39; i++) {
+            filter.remove(key);
+            assertTrue(filter.mightContain(key));
+        }
+    }
+
+    /**
+     * An overloaded filter refilled at a larger size keeps every key, and its
+     * false-positive rate drops back.
+     */
+    @Test
+    void refillsWithoutLosingKeys() {
+        Random random = new Random(1);
+        long[] keys = new long[KEYS * 4];
+        CountingBloomFilter filter = new CountingBloomFilter(KEYS);
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextLong();
+            filter.add(keys[i]);
+        }
+        assertTrue(filter.isOverloaded());
+
+        filter.clear(keys.length * 2);
+        assertEquals(0, passed(filter, 0, KEYS));
+        for (long key : keys) {
+            filter.add(key);
+        }
+        assertFalse(filter.isOverloaded());
+        for (long key : keys) {
+            assertTrue(filter.mightContain(key), "lost key " + key);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < KEYS; i++) {
+            if (filter.mightContain(random.nextLong())) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < KEYS * MAX_FALSE_POSITIVE_RATE);
+    }
+}
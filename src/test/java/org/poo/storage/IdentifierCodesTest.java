@@ -0,0 +1,91 @@
+package org.poo.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Identifiers packed by {@link IdentifierCodes} render back to the same string.
+ */
+class IdentifierCodesTest {
+
+    /**
+     * Number of random identifiers checked.
+     */
+    private static final int COUNT = 10_000;
+
+    /**
+     * Number of digits of a card number.
+     */
+    private static final int CARD_DIGITS = 16;
+
+    /**
+     * Bound of the digits drawn.
+     */
+    private static final int RADIX = 10;
+
+    /**
+     * Draws a run of digits, leading zeros included.
+     *
+     * @param random the source of the digits
+     * @param count  the number of digits
+     * @return the digits
+     */
+    private static String digits(final Random random, final int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(random.nextInt(RADIX));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Canonical IBANs and card numbers, including the smallest and largest ones.
+     */
+    @Test
+    void roundTripsCanonicalIdentifiers() {
+        Random random = new Random(1);
+        for (int i = 0; i < COUNT; i++) {
+            String iban = "RO" + digits(random, 2) + "POOB" + digits(random, CARD_DIGITS);
+            long code = IdentifierCodes.packIban(iban);
+            assertTrue(code >= 0, iban);
+            assertEquals(iban, IdentifierCodes.ibanToString(code));
+
+            String card = digits(random, CARD_DIGITS);
+            assertEquals(card, IdentifierCodes.cardToString(IdentifierCodes.packCard(card)));
+        }
+        for (String iban : new String[] {"RO00POOB0000000000000000",
+                "RO99POOB9999999999999999", "RO05POOB0000000000000001"}) {
+            assertEquals(iban, IdentifierCodes.ibanToString(IdentifierCodes.packIban(iban)));
+        }
+        for (String card : new String[] {"0000000000000000", "9999999999999999"}) {
+            assertEquals(card, IdentifierCodes.cardToString(IdentifierCodes.packCard(card)));
+        }
+    }
+
+    /**
+     * Identifiers of another shape pack to {@link IdentifierCodes#NONE}, which renders as
+     * null, so callers keep them as strings.
+     */
+    @Test
+    void fallsBackForOtherIdentifiers() {
+        String[] ibans = {null, "", "RO12POOB000000000000000", "RO12POOB00000000000000001",
+            "ro12POOB0000000000000001", "RO12BANK0000000000000001",
+            "RO1XPOOB0000000000000001", "RO12POOB00000000000000-1",
+            "DE12POOB0000000000000001", "RO12POOB000000000000000\u0661"};
+        for (String iban : ibans) {
+            assertEquals(IdentifierCodes.NONE, IdentifierCodes.packIban(iban), iban);
+        }
+        String[] cards = {null, "", "123456789012345", "12345678901234567",
+            "123456789012345a", "+234567890123456", "123456789012345\u0661"};
+        for (String card : cards) {
+            assertEquals(IdentifierCodes.NONE, IdentifierCodes.packCard(card), card);
+        }
+        assertNull(IdentifierCodes.ibanToString(IdentifierCodes.NONE));
+        assertNull(IdentifierCodes.cardToString(IdentifierCodes.NONE));
+    }
+}
@@ -0,0 +1,111 @@
+package org.poo.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The {@link IdentifierMap} keeps packed and foreign identifiers apart and finds both.
+ */
+class IdentifierMapTest {
+
+    /**
+     * Number of identifiers of each shape.
+     */
+    private static final int IDENTIFIERS = 50_000;
+
+    /**
+     * Number of unknown identifiers looked up.
+     */
+    private static final int UNKNOWN = 10_000;
+
+    /**
+     * Highest share of unknown identifiers the filter may let through.
+     */
+    private static final double MAX_FALSE_POSITIVE_RATE = 0.05;
+
+    /**
+     * Check digits of the IBANs.
+     */
+    private static final int CHECK_DIGITS = 42;
+
+    /**
+     * Returns the canonical IBAN with an account number.
+     *
+     * @param account the account number
+     * @return the IBAN
+     */
+    private static String iban(final long account) {
+        return String.format("RO%02dPOOB%016d", CHECK_DIGITS, account);
+    }
+
+    /**
+     * Returns the canonical card number with a value.
+     *
+     * @param number the value
+     * @return the card number
+     */
+    private static String card(final long number) {
+        return String.format("%016d", number);
+    }
+
+    /**
+     * IBANs of both shapes are put, partly removed, reinserted and found, past the growth
+     * of the maps and the refills of the filter.
+     */
+    @Test
+    void findsPackedAndForeignIdentifiers() {
+        IdentifierMap map = new IdentifierMap(IdentifierCodes::packIban);
+        Map<String, Integer> reference = new HashMap<>();
+        for (int i = 0; i < IDENTIFIERS; i++) {
+            String packed = iban(i);
+            String foreign = "GB" + i + "BANK";
+            assertEquals(IdentifierMap.NO_VALUE, map.put(packed, i));
+            assertEquals(IdentifierMap.NO_VALUE, map.put(foreign, i));
+            reference.put(packed, i);
+            reference.put(foreign, i);
+        }
+        for (int i = 0; i < IDENTIFIERS; i += 3) {
+            assertEquals(i, map.remove(iban(i)));
+            assertEquals(i, map.remove("GB" + i + "BANK"));
+            reference.remove(iban(i));
+            reference.remove("GB" + i + "BANK");
+        }
+        for (int i = 0; i < IDENTIFIERS; i += 6) {
+            map.put(iban(i), i + 1);
+            reference.put(iban(i), i + 1);
+        }
+
+        assertEquals(reference.size(), map.size());
+        for (Map.Entry<String, Integer> entry : reference.entrySet()) {
+            assertEquals((int) entry.getValue(), map.get(entry.getKey()), entry.getKey());
+        }
+        for (int i = 0; i < IDENTIFIERS; i += 6) {
+            assertEquals(IdentifierMap.NO_VALUE, map.get("GB" + i + "BANK"));
+        }
+        assertEquals(IdentifierMap.NO_VALUE, map.get(null));
+        assertEquals(IdentifierMap.NO_VALUE, map.remove(null));
+    }
+
+    /**
+     * Most lookups of unknown identifiers stop at the filter.
+     */
+    @Test
+    void filtersUnknownIdentifiers() {
+        IdentifierMap map = new IdentifierMap(IdentifierCodes::packCard);
+        for (int i = 0; i < IDENTIFIERS; i++) {
+            map.put(card(2L * i), i);
+        }
+        assertEquals(IDENTIFIERS, map.filter().size());
+        long rejectedBefore = map.filter().rejections();
+        for (int i = 0; i < UNKNOWN; i++) {
+            assertEquals(IdentifierMap.NO_VALUE, map.get(card(2L * i + 1)));
+        }
+        long rejected = map.filter().rejections() - rejectedBefore;
+        assertTrue(rejected > UNKNOWN * (1 - MAX_FALSE_POSITIVE_RATE), rejected + " rejected");
+    }
+}
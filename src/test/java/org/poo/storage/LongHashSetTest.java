@@ -0,0 +1,66 @@
+package org.poo.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The {@link LongHashSet} against a {@link HashSet} of the same values.
+ */
+class LongHashSetTest {
+
+    /**
+     * Number of values added, enough for many resizes.
+     */
+    private static final int VALUES = 200_000;
+
+    /**
+     * Largest value drawn, small enough for repeated values.
+     */
+    private static final long MAX_VALUE = 150_000;
+
+    /**
+     * Adds random values, repeats included, and checks membership after the growth.
+     */
+    @Test
+    void matchesAHashSet() {
+        Random random = new Random(1);
+        LongHashSet set = new LongHashSet();
+        Set<Long> reference = new HashSet<>();
+        for (int i = 0; i < VALUES; i++) {
+            long value = random.nextLong(MAX_VALUE) * (Long.MAX_VALUE / MAX_VALUE);
+            assertEquals(reference.add(value), set.add(value));
+            assertEquals(reference.size(), set.size());
+        }
+        for (long value : reference) {
+            assertTrue(set.contains(value));
+        }
+        int absent = 0;
+        for (long value = 0; value < MAX_VALUE; value++) {
+            long spread = value * (Long.MAX_VALUE / MAX_VALUE);
+            assertEquals(reference.contains(spread), set.contains(spread));
+            if (!reference.contains(spread)) {
+                absent++;
+            }
+        }
+        assertTrue(absent > 0);
+    }
+
+    /**
+     * Negative values would collide with the free slot marker.
+     */
+    @Test
+    void refusesNegativeValues() {
+        LongHashSet set = new LongHashSet();
+        assertThrows(IllegalArgumentException.class, () -> set.add(-1));
+        assertFalse(set.contains(-1));
+        assertEquals(0, set.size());
+    }
+}
@@ -0,0 +1,119 @@
+package org.poo.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The {@link LongIntMap} against a {@link HashMap} of the same keys.
+ */
+class LongIntMapTest {
+
+    /**
+     * Number of random operations.
+     */
+    private static final int OPERATIONS = 200_000;
+
+    /**
+     * Number of distinct keys of the random operations, few enough to reinsert keys
+     * over their own tombstones.
+     */
+    private static final int KEYS = 500;
+
+    /**
+     * Number of keys inserted to make the table grow.
+     */
+    private static final int GROWTH_KEYS = 100_000;
+
+    /**
+     * Percentage of the random operations that remove a key.
+     */
+    private static final int REMOVE_PCT = 40;
+
+    /**
+     * Checks that the map holds exactly the entries of the reference.
+     *
+     * @param map       the map
+     * @param reference the reference
+     */
+    private static void check(final LongIntMap map, final Map<Long, Integer> reference) {
+        assertEquals(reference.size(), map.size());
+        for (Map.Entry<Long, Integer> entry : reference.entrySet()) {
+            assertEquals((int) entry.getValue(), map.get(entry.getKey()), "key " + entry);
+        }
+        Set<Long> keys = new HashSet<>();
+        map.forEachKey(key -> assertTrue(keys.add(key), "key listed twice: " + key));
+        assertEquals(reference.keySet(), keys);
+    }
+
+    /**
+     * Puts, removals and reinsertions of the same keys, which go through tombstones.
+     */
+    @Test
+    void matchesAHashMapThroughTombstones() {
+        Random random = new Random(1);
+        LongIntMap map = new LongIntMap();
+        Map<Long, Integer> reference = new HashMap<>();
+        for (int i = 0; i < OPERATIONS; i++) {
+            // spread the keys over the whole range of IBAN codes
+            long key = random.nextInt(KEYS) * (Long.MAX_VALUE / KEYS);
+            if (random.nextInt(100) < REMOVE_PCT) {
+                Integer removed = reference.remove(key);
+                assertEquals(removed == null ? LongIntMap.NO_VALUE : removed,
+                        map.remove(key));
+            } else {
+                int value = random.nextInt(Integer.MAX_VALUE);
+                Integer previous = reference.put(key, value);
+                assertEquals(previous == null ? LongIntMap.NO_VALUE : previous,
+                        map.put(key, value));
+            }
+            assertEquals(reference.size(), map.size());
+        }
+        check(map, reference);
+        assertEquals(LongIntMap.NO_VALUE, map.get(IdentifierCodes.NONE));
+        assertEquals(LongIntMap.NO_VALUE, map.remove(IdentifierCodes.NONE));
+    }
+
+    /**
+     * The table grows past many resizes and keeps every key, removed ones excepted.
+     */
+    @Test
+    void grows() {
+        LongIntMap map = new LongIntMap();
+        Map<Long, Integer> reference = new HashMap<>();
+        for (int i = 0; i < GROWTH_KEYS; i++) {
+            map.put(i, i);
+            reference.put((long) i, i);
+        }
+        check(map, reference);
+
+        for (int i = 0; i < GROWTH_KEYS; i += 2) {
+            assertEquals(i, map.remove(i));
+            reference.remove((long) i);
+        }
+        for (int i = GROWTH_KEYS; i < 2 * GROWTH_KEYS; i++) {
+            map.put(i, i);
+            reference.put((long) i, i);
+        }
+        check(map, reference);
+    }
+
+    /**
+     * Negative keys and values would collide with the free slot markers.
+     */
+    @Test
+    void refusesNegativeKeysAndValues() {
+        LongIntMap map = new LongIntMap();
+        assertThrows(IllegalArgumentException.class, () -> map.put(-1, 0));
+        assertThrows(IllegalArgumentException.class, () -> map.put(0, -1));
+        assertEquals(0, map.size());
+    }
+}
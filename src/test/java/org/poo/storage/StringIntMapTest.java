@@ -0,0 +1,133 @@
+package org.poo.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The {@link StringIntMap} against a {@link HashMap} of the same keys.
+ */
+class StringIntMapTest {
+
+    /**
+     * Number of random operations.
+     */
+    private static final int OPERATIONS = 200_000;
+
+    /**
+     * Number of distinct keys of the random operations, few enough to reinsert keys
+     * over their own tombstones.
+     */
+    private static final int KEYS = 500;
+
+    /**
+     * Number of keys inserted to make the table grow.
+     */
+    private static final int GROWTH_KEYS = 100_000;
+
+    /**
+     * Percentage of the random operations that remove a key.
+     */
+    private static final int REMOVE_PCT = 40;
+
+    /**
+     * Checks that the map holds exactly the entries of the reference.
+     *
+     * @param map       the map
+     * @param reference the reference
+     */
+    private static void check(final StringIntMap map, final Map<String, Integer> reference) {
+        assertEquals(reference.size(), map.size());
+        for (Map.Entry<String, Integer> entry : reference.entrySet()) {
+            assertEquals((int) entry.getValue(), map.get(entry.getKey()), entry.getKey());
+            assertTrue(map.containsKey(entry.getKey()));
+        }
+        Set<String> keys = new HashSet<>();
+        map.forEachKey(key -> assertTrue(keys.add(key), "key listed twice: " + key));
+        assertEquals(reference.keySet(), keys);
+    }
+
+    /**
+     * Puts, removals and reinsertions of the same keys, which go through tombstones.
+     */
+    @Test
+    void matchesAHashMapThroughTombstones() {
+        Random random = new Random(1);
+        StringIntMap map = new StringIntMap();
+        Map<String, Integer> reference = new HashMap<>();
+        for (int i = 0; i < OPERATIONS; i++) {
+            String key = "key" + random.nextInt(KEYS);
+            if (random.nextInt(100) < REMOVE_PCT) {
+                Integer removed = reference.remove(key);
+                assertEquals(removed == null ? StringIntMap.NO_VALUE : removed,
+                        map.remove(key));
+            } else {
+                int value = random.nextInt(Integer.MAX_VALUE);
+                Integer previous = reference.put(key, value);
+                assertEquals(previous == null ? StringIntMap.NO_VALUE : previous,
+                        map.put(key, value));
+            }
+            assertEquals(reference.size(), map.size());
+        }
+        check(map, reference);
+        assertEquals(StringIntMap.NO_VALUE, map.get("absent"));
+        assertEquals(StringIntMap.NO_VALUE, map.remove(null));
+    }
+
+    /**
+     * Keys with the same hash code stay reachable when one of them is removed.
+     */
+    @Test
+    void probesPastRemovedCollidingKeys() {
+        StringIntMap map = new StringIntMap();
+        // "Aa" and "BB" share their hash code, and so do their concatenations
+        String[] keys = {"AaAa", "AaBB", "BBAa", "BBBB"};
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+        assertEquals(0, map.remove(keys[0]));
+        assertEquals(2, map.remove(keys[2]));
+        assertEquals(1, map.get(keys[1]));
+        assertEquals(3, map.get(keys[3]));
+        assertEquals(StringIntMap.NO_VALUE, map.get(keys[0]));
+
+        assertEquals(StringIntMap.NO_VALUE, map.put(keys[2], 2));
+        assertEquals(2, map.get(keys[2]));
+        assertEquals(3, map.size());
+    }
+
+    /**
+     * The table grows past many resizes, and empties and refills without losing keys.
+     */
+    @Test
+    void grows() {
+        StringIntMap map = new StringIntMap();
+        Map<String, Integer> reference = new HashMap<>();
+        int initialCapacity = map.capacity();
+        for (int i = 0; i < GROWTH_KEYS; i++) {
+            map.put("IBAN" + i, i);
+            reference.put("IBAN" + i, i);
+        }
+        assertTrue(map.capacity() > initialCapacity);
+        check(map, reference);
+
+        for (int i = 0; i < GROWTH_KEYS; i += 2) {
+            assertEquals(i, map.remove("IBAN" + i));
+            reference.remove("IBAN" + i);
+        }
+        check(map, reference);
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(StringIntMap.NO_VALUE, map.get("IBAN1"));
+        map.put("IBAN1", 1);
+        assertEquals(1, map.get("IBAN1"));
+    }
+}
@@ -0,0 +1,150 @@
+package org.poo.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The {@link IdentifierAllocator} against the {@code java.util.Random} generator the bank
+ * used before it.
+ */
+class IdentifierAllocatorTest {
+
+    /**
+     * Number of identifiers compared with the original generator.
+     */
+    private static final int COUNT = 20_000;
+
+    /**
+     * Seed of the IBAN generator.
+     */
+    private static final int IBAN_SEED = 1;
+
+    /**
+     * Seed of the card number generator.
+     */
+    private static final int CARD_SEED = 2;
+
+    /**
+     * Number of digits of a card number, and of the account part of an IBAN.
+     */
+    private static final int DIGITS = 16;
+
+    /**
+     * Bound of the digits drawn.
+     */
+    private static final int RADIX = 10;
+
+    /**
+     * Number of threads sharing an allocator.
+     */
+    private static final int THREADS = 8;
+
+    /**
+     * Number of identifiers a thread takes at once.
+     */
+    private static final int BLOCK_SIZE = 7;
+
+    /**
+     * Generates an IBAN the way the original generator did.
+     *
+     * @param random the generator
+     * @return the IBAN
+     */
+    private static String originalIban(final Random random) {
+        StringBuilder sb = new StringBuilder("RO");
+        sb.append(random.nextInt(RADIX)).append(random.nextInt(RADIX)).append("POOB");
+        for (int i = 0; i < DIGITS; i++) {
+            sb.append(random.nextInt(RADIX));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Generates a card number the way the original generator did.
+     *
+     * @param random the generator
+     * @return the card number
+     */
+    private static String originalCard(final Random random) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < DIGITS; i++) {
+            sb.append(random.nextInt(RADIX));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The default generators issue the sequences of the original ones.
+     */
+    @Test
+    void matchesTheOriginalGenerator() {
+        Utils.resetRandom();
+        Random ibans = new Random(IBAN_SEED);
+        Random cards = new Random(CARD_SEED);
+        for (int i = 0; i < COUNT; i++) {
+            assertEquals(originalIban(ibans), Utils.generateIBAN(), "IBAN " + i);
+            assertEquals(originalCard(cards), Utils.generateCardNumber(), "card " + i);
+        }
+        Utils.resetRandom();
+    }
+
+    /**
+     * An allocator moved to the saved state of another continues its sequence.
+     */
+    @Test
+    void resumesFromASavedState() {
+        IdentifierAllocator original = IdentifierAllocator.forCards(CARD_SEED, 1);
+        for (int i = 0; i < COUNT; i++) {
+            original.next();
+        }
+        IdentifierAllocator restored = IdentifierAllocator.forCards(0, 1);
+        restored.setState(original.getState());
+        assertEquals(original.getState(), restored.getState());
+        for (int i = 0; i < COUNT; i++) {
+            assertEquals(original.next(), restored.next(), "card " + i);
+        }
+    }
+
+    /**
+     * Threads taking blocks of identifiers from one allocator never share one.
+     *
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    @Test
+    void issuesUniqueIdentifiersAcrossThreads() throws InterruptedException {
+        IdentifierAllocator allocator = IdentifierAllocator.forIbans(IBAN_SEED, BLOCK_SIZE);
+        List<List<String>> issued = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            List<String> mine = new ArrayList<>();
+            issued.add(mine);
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < COUNT; i++) {
+                    mine.add(allocator.next());
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Set<String> all = new HashSet<>();
+        for (List<String> mine : issued) {
+            assertEquals(COUNT, mine.size());
+            for (String iban : mine) {
+                assertTrue(all.add(iban), "issued twice: " + iban);
+            }
+        }
+        // every thread took whole blocks, including the unused end of its last one
+        int blocks = (COUNT + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        assertEquals(THREADS * blocks * BLOCK_SIZE, allocator.issuedCount());
+    }
+}